@@ -10,6 +10,7 @@ import org.springframework.boot.SpringApplication; // Importar SpringApplication
 import org.springframework.boot.autoconfigure.SpringBootApplication; // Importar la anotación @SpringBootApplication para marcar la clase principal de la aplicación
 
 import java.util.List; // Importar la clase List
+import java.util.Map; // Query params del filtro estructurado
 import java.util.Optional; // Importar la clase Optional
 
 // Swagger/OpenAPI annotations
@@ -26,9 +27,25 @@ import io.swagger.v3.oas.annotations.media.ArraySchema; // Para documentar lista
 import io.swagger.v3.oas.annotations.Hidden; // Ocultar endpoints en la documentación de Swagger/OpenAPI
 
 // Importo DTOs y el mapper para no exponer la entidad directamente en el API
+import com.example.customer_management_app.analytics.CustomerAnalytics;
+import com.example.customer_management_app.bulk.CustomerBulkDeleter;
+import com.example.customer_management_app.dto.BulkDeleteRequest;
+import com.example.customer_management_app.dto.BulkDeleteResponse;
+import com.example.customer_management_app.dto.CustomerAnalyticsResponse;
 import com.example.customer_management_app.dto.CustomerResponse;
+import com.example.customer_management_app.dto.DuplicateReportResponse;
 import com.example.customer_management_app.dto.PageResponse;
+import com.example.customer_management_app.dto.SuggestionResponse;
+import com.example.customer_management_app.filter.CustomerFilter;
 import com.example.customer_management_app.mapper.CustomerMapper;
+import com.example.customer_management_app.duplicates.DuplicateDetectionJob;
+import com.example.customer_management_app.search.CustomerSuggestIndex;
+import com.example.customer_management_app.jdbc.QueryTimeout;
+import com.example.customer_management_app.jdbc.SqlBudget;
+import com.example.customer_management_app.responsecache.CustomerResponseCache;
+import com.example.customer_management_app.sharding.NotAvailableWhenShardedException;
+import com.example.customer_management_app.sorting.SortWhitelist;
+import com.example.customer_management_app.stream.CustomerEventStream;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -36,6 +53,9 @@ import org.springframework.data.domain.PageRequest; // Importo PageRequest para
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
 import org.springdoc.core.annotations.ParameterObject; // Para documentar Pageable correctamente en OpenAPI
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter; // Server-Sent Events
+import jakarta.servlet.http.HttpServletResponse;
 
 
 @SpringBootApplication // Marca esta como aplicación Spring Boot principal
@@ -52,6 +72,38 @@ public class CustomerManagementAPP {
   @Autowired // Inyecta automaticamente el CustomerService
   private CustomerService customerService;
 
+  @Autowired // Índice en memoria para el autocompletado (no consulta la base por request)
+  private CustomerSuggestIndex suggestIndex;
+
+  // Job en background de detección de duplicados (no existe con app.sharding.enabled=true)
+  @Autowired(required = false)
+  private DuplicateDetectionJob duplicateDetectionJob;
+
+  // Borrado masivo en chunks (transacciones cortas; no existe con app.sharding.enabled=true)
+  @Autowired(required = false)
+  private CustomerBulkDeleter bulkDeleter;
+
+  @Autowired // Solo se ordena por campos con índice (ver V5__sort_indexes.sql)
+  private SortWhitelist sortWhitelist;
+
+  @Autowired // Respuestas de GET /{id} ya serializadas (JSON + gzip)
+  private CustomerResponseCache responseCache;
+
+  @Autowired // Stream SSE de cambios y snapshots de stats
+  private CustomerEventStream eventStream;
+
+  // Métricas de crecimiento (scan paralelo por rangos de id, cacheado; no existe con app.sharding.enabled=true)
+  @Autowired(required = false)
+  private CustomerAnalytics analytics;
+
+  // Con shards estos componentes no se crean (leen solo la base principal): 501 en vez de un resultado parcial
+  private static <T> T unsharded(T component, String feature) {
+    if (component == null) {
+      throw new NotAvailableWhenShardedException(feature);
+    }
+    return component;
+  }
+
   // ==========================================================================
   // MANEJO DE SOLICITUDES GET
   // ==========================================================================
@@ -62,6 +114,7 @@ public class CustomerManagementAPP {
     @ApiResponse(responseCode = "200", description = "List of customers returned successfully",
       content = @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = com.example.customer_management_app.dto.CustomerResponse.class))))
   })
+  @QueryTimeout(seconds = 30) // lista completa sin paginar: más margen que el default
   @GetMapping 
   public List<CustomerResponse> getAllCustomers() {
     // Mapeo entidad -> DTO para no exponer la entidad JPA
@@ -87,8 +140,16 @@ public class CustomerManagementAPP {
       )
     )
   })
+  @SqlBudget(statements = 1)
   @GetMapping("/{id}") 
-  public ResponseEntity<com.example.customer_management_app.dto.CustomerResponse> getCustomerById(@Parameter(description = "Customer ID") @PathVariable Long id) {
+  public ResponseEntity<?> getCustomerById(@Parameter(description = "Customer ID") @PathVariable Long id,
+      @Parameter(hidden = true) @RequestHeader(value = "Accept-Encoding", required = false) String acceptEncoding,
+      @Parameter(hidden = true) @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+    // Hit: se escriben los bytes cacheados tal cual (sin servicio, mapper ni Jackson)
+    if (responseCache.isEnabled()) {
+      return responseCache.getOrLoad(id, () -> customerService.getCustomerById(id), acceptEncoding, ifNoneMatch);
+    }
+
     Optional<Customer> customer = customerService.getCustomerById(id);
     
     if (customer.isPresent()) {
@@ -112,10 +173,10 @@ public class CustomerManagementAPP {
   }
 
   // Buscar por nombre - /api/customers/search/firstname/{firstName}
-  // DEPRECADO: usar /api/customers/search/page?q=... con paginación y ordenamiento
+  // DEPRECADO: usar /api/customers/filter?firstName.eq=... (o .prefix): filtra solo ese campo, con índice
   @Hidden // Oculto en Swagger
   @Deprecated
-  @Operation(summary = "Search by first name (DEPRECATED)", description = "Deprecated. Use GET /api/customers/search/page?q=... (supports pagination and sorting).", deprecated = true)
+  @Operation(summary = "Search by first name (DEPRECATED)", description = "Deprecated. Use GET /api/customers/filter?firstName.eq=... or firstName.prefix=... (index-backed, paged).", deprecated = true)
   @ApiResponses(value = {
     @ApiResponse(responseCode = "200", description = "Matching customers returned successfully")
   })
@@ -125,10 +186,10 @@ public class CustomerManagementAPP {
   }
 
   // Buscar por apellido - /api/customers/search/lastname/{lastName}
-  // DEPRECADO: usar /api/customers/search/page?q=... con paginación y ordenamiento
+  // DEPRECADO: usar /api/customers/filter?lastName.eq=... (o .prefix): filtra solo ese campo, con índice
   @Hidden // Oculto en Swagger
   @Deprecated
-  @Operation(summary = "Search by last name (DEPRECATED)", description = "Deprecated. Use GET /api/customers/search/page?q=... (supports pagination and sorting).", deprecated = true)
+  @Operation(summary = "Search by last name (DEPRECATED)", description = "Deprecated. Use GET /api/customers/filter?lastName.eq=... or lastName.prefix=... (index-backed, paged).", deprecated = true)
   @ApiResponses(value = {
     @ApiResponse(responseCode = "200", description = "Matching customers returned successfully")
   })
@@ -155,6 +216,7 @@ public class CustomerManagementAPP {
   @ApiResponses(value = {
     @ApiResponse(responseCode = "200", description = "Result returned successfully")
   })
+  @SqlBudget(statements = 1)
   @GetMapping("/exists/email/{email}")
   public ResponseEntity<Boolean> existsByEmail(@Parameter(description = "Email to check existence") @PathVariable String email) {
     boolean exists = customerService.existsByEmail(email);
@@ -166,6 +228,7 @@ public class CustomerManagementAPP {
   @ApiResponses(value = {
     @ApiResponse(responseCode = "200", description = "Count returned successfully")
   })
+  @SqlBudget(statements = 1)
   @GetMapping("/count/lastname/{lastName}")
   public ResponseEntity<Long> countByLastName(@Parameter(description = "Last name to count") @PathVariable String lastName) {
     long count = customerService.countByLastName(lastName);
@@ -177,6 +240,7 @@ public class CustomerManagementAPP {
   @ApiResponses(value = {
     @ApiResponse(responseCode = "200", description = "Statistics returned successfully")
   })
+  @SqlBudget(statements = 2) // count total + count por dominio
   @GetMapping("/stats")
   public ResponseEntity<CustomerService.CustomerStats> getStats() {
     CustomerService.CustomerStats stats = customerService.getStatistics();
@@ -184,6 +248,104 @@ public class CustomerManagementAPP {
   }
 
 
+  // Métricas de crecimiento - /api/customers/analytics?period=MONTH&limit=20
+  @Operation(
+    summary = "Customer growth analytics",
+    description = "Customers created and modified per DAY, WEEK (ISO) or MONTH, plus the most common email domains " +
+                  "and last names.\n\n" +
+                  "Computed in one parallel pass over the table (id-range chunks) and served from memory. " +
+                  "computedAt/watermark tell how fresh the result is; when it is older than app.analytics.max-age-ms " +
+                  "it is refreshed incrementally before answering (only the chunks changed since the watermark are re-read).\n\n" +
+                  "Notes:\n" +
+                  "- updated counts customers by the period of their last modification.\n" +
+                  "- limit: 1..100 (default 20)."
+  )
+  @ApiResponses(value = {
+    @ApiResponse(responseCode = "200", description = "Aggregates returned successfully",
+      content = @Content(mediaType = "application/json", schema = @Schema(implementation = CustomerAnalyticsResponse.class))),
+    @ApiResponse(responseCode = "400", description = "Invalid period",
+      content = @Content(mediaType = "application/json")),
+    @ApiResponse(responseCode = "501", description = "Not available with app.sharding.enabled=true",
+      content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class)))
+  })
+  @GetMapping("/analytics")
+  public CustomerAnalyticsResponse getAnalytics(
+      @Parameter(description = "Bucket of the series: DAY, WEEK or MONTH", example = "MONTH")
+      @RequestParam(value = "period", defaultValue = "MONTH") CustomerAnalytics.Period period,
+      @Parameter(description = "Top domains/last names to return (1..100)", example = "20")
+      @RequestParam(value = "limit", defaultValue = "20") int limit) {
+    return unsharded(analytics, "Analytics").report(period, Math.max(1, Math.min(limit, 100)));
+  }
+
+
+  // Autocompletado - /api/customers/suggest?prefix=jo&limit=10
+  @Operation(
+    summary = "Typeahead suggestions",
+    description = "Suggest first names, last names and emails starting with the given prefix, most frequent first.\n\n" +
+                  "Served from an in-memory prefix index (no database query per keystroke). " +
+                  "The index is updated on create/update/delete and rebuilt periodically in the background.\n\n" +
+                  "Notes:\n" +
+                  "- Case-insensitive (terms are lower-case).\n" +
+                  "- limit: 1..50 (default 10)."
+  )
+  @ApiResponses(value = {
+    @ApiResponse(responseCode = "200", description = "Suggestions returned successfully",
+      content = @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = SuggestionResponse.class))))
+  })
+  @GetMapping("/suggest")
+  public List<SuggestionResponse> suggest(
+      @Parameter(description = "Prefix typed by the user", example = "jo") @RequestParam("prefix") String prefix,
+      @Parameter(description = "Max suggestions (1..50)", example = "10") @RequestParam(value = "limit", defaultValue = "10") int limit) {
+    return suggestIndex.suggest(prefix, limit);
+  }
+
+  // Stream de cambios (SSE) - /api/customers/stream
+  @Operation(
+    summary = "Stream customer changes (Server-Sent Events)",
+    description = "Keeps the connection open and pushes events as they happen:\n" +
+                  "- `customer`: CustomerStreamEvent (CREATED/UPDATED/DELETED) with an id to resume from\n" +
+                  "- `stats`: CustomerStats snapshot every app.stream.stats-interval-ms (also sent on connect)\n" +
+                  "- `reset`: events were lost (slow consumer or resume not possible); reload what you show\n\n" +
+                  "Resume: browsers send Last-Event-ID automatically on reconnect; missed events are replayed " +
+                  "from a bounded log. The lastEventId query parameter does the same for clients that cannot set headers."
+  )
+  @ApiResponses(value = {
+    @ApiResponse(responseCode = "200", description = "Event stream opened",
+      content = @Content(mediaType = "text/event-stream", schema = @Schema(implementation = com.example.customer_management_app.dto.CustomerStreamEvent.class))),
+    @ApiResponse(responseCode = "503", description = "Too many open streams (app.stream.max-subscribers)",
+      content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class)))
+  })
+  @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public SseEmitter stream(
+      @Parameter(hidden = true) @RequestHeader(value = "Last-Event-ID", required = false) String lastEventIdHeader,
+      @Parameter(description = "Id of the last event received (alternative to the Last-Event-ID header)")
+      @RequestParam(value = "lastEventId", required = false) String lastEventId,
+      HttpServletResponse response) {
+    // nginx no tiene que bufferear el stream
+    response.setHeader("X-Accel-Buffering", "no");
+    return eventStream.subscribe(lastEventIdHeader != null ? lastEventIdHeader : lastEventId);
+  }
+
+  // Resultado de la detección de duplicados - /api/customers/duplicates?limit=100
+  @Operation(
+    summary = "Get duplicate-detection report",
+    description = "Status of the last duplicate-detection run and its top clusters by score.\n\n" +
+                  "Each cluster groups customers that are probably the same person (same phone, similar name, " +
+                  "same email with different casing, etc.). The full list is written to outputFile (JSON Lines)."
+  )
+  @ApiResponses(value = {
+    @ApiResponse(responseCode = "200", description = "Report returned successfully",
+      content = @Content(mediaType = "application/json", schema = @Schema(implementation = DuplicateReportResponse.class))),
+    @ApiResponse(responseCode = "501", description = "Not available with app.sharding.enabled=true",
+      content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class)))
+  })
+  @GetMapping("/duplicates")
+  public DuplicateReportResponse getDuplicates(
+      @Parameter(description = "Max clusters to return", example = "100") @RequestParam(value = "limit", defaultValue = "100") int limit) {
+    return unsharded(duplicateDetectionJob, "Duplicate detection").lastReport(Math.max(0, Math.min(limit, 1000)));
+  }
+
+
   // ==========================================================================
   // MANEJO DE SOLICITUDES POST
   // ==========================================================================
@@ -240,16 +402,59 @@ public class CustomerManagementAPP {
       }
     )
   )
+  @SqlBudget(statements = 2) // chequeo de email duplicado + INSERT
   @PostMapping
   public ResponseEntity<com.example.customer_management_app.dto.CustomerResponse> createCustomer(@Valid @org.springframework.web.bind.annotation.RequestBody com.example.customer_management_app.dto.CustomerRequest request) {
-      try {
-          Customer savedCustomer = customerService.createCustomer(com.example.customer_management_app.mapper.CustomerMapper.fromRequest(request));
-          return ResponseEntity.status(HttpStatus.CREATED).body(com.example.customer_management_app.mapper.CustomerMapper.toResponse(savedCustomer)); // 201 Created
-      } catch (DuplicateEmailException e) {
-          return ResponseEntity.status(HttpStatus.CONFLICT).build(); // 409 Conflict (manejado globalmente)
-      } catch (Exception e) {
-          return ResponseEntity.badRequest().build(); // 400 Bad Request (validación global)
-      }
+      // DuplicateEmailException (409) y los errores de validación del servicio (400)
+      // los responde GlobalExceptionHandler con su ErrorResponse
+      Customer savedCustomer = customerService.createCustomer(com.example.customer_management_app.mapper.CustomerMapper.fromRequest(request));
+      return ResponseEntity.status(HttpStatus.CREATED).body(com.example.customer_management_app.mapper.CustomerMapper.toResponse(savedCustomer)); // 201 Created
+  }
+
+
+  // Lanzar la detección de duplicados - /api/customers/duplicates/jobs
+  @Operation(
+    summary = "Start duplicate detection",
+    description = "Starts a background job that scans the customer table and groups probable duplicates. " +
+                  "Poll GET /api/customers/duplicates for the result."
+  )
+  @ApiResponses(value = {
+    @ApiResponse(responseCode = "202", description = "Job started",
+      content = @Content(mediaType = "application/json", schema = @Schema(implementation = DuplicateReportResponse.class))),
+    @ApiResponse(responseCode = "409", description = "A job is already running",
+      content = @Content(mediaType = "application/json", schema = @Schema(implementation = DuplicateReportResponse.class))),
+    @ApiResponse(responseCode = "501", description = "Not available with app.sharding.enabled=true",
+      content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class)))
+  })
+  @PostMapping("/duplicates/jobs")
+  public ResponseEntity<DuplicateReportResponse> startDuplicateDetection() {
+    DuplicateDetectionJob job = unsharded(duplicateDetectionJob, "Duplicate detection");
+    boolean started = job.start();
+    DuplicateReportResponse report = job.lastReport(0);
+    return ResponseEntity.status(started ? HttpStatus.ACCEPTED : HttpStatus.CONFLICT).body(report);
+  }
+
+
+  // Refrescar las métricas de crecimiento - /api/customers/analytics/refresh?full=false
+  @Operation(
+    summary = "Refresh customer analytics",
+    description = "Refreshes the analytics now and returns them. By default only the id-range chunks with rows " +
+                  "created, modified or deleted since the watermark are re-read; full=true re-reads the whole table."
+  )
+  @ApiResponses(value = {
+    @ApiResponse(responseCode = "200", description = "Aggregates refreshed",
+      content = @Content(mediaType = "application/json", schema = @Schema(implementation = CustomerAnalyticsResponse.class))),
+    @ApiResponse(responseCode = "501", description = "Not available with app.sharding.enabled=true",
+      content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class)))
+  })
+  @PostMapping("/analytics/refresh")
+  public CustomerAnalyticsResponse refreshAnalytics(
+      @Parameter(description = "Re-read the whole table instead of the changed chunks") @RequestParam(value = "full", defaultValue = "false") boolean full,
+      @Parameter(description = "Bucket of the series: DAY, WEEK or MONTH", example = "MONTH")
+      @RequestParam(value = "period", defaultValue = "MONTH") CustomerAnalytics.Period period,
+      @Parameter(description = "Top domains/last names to return (1..100)", example = "20")
+      @RequestParam(value = "limit", defaultValue = "20") int limit) {
+    return unsharded(analytics, "Analytics").refresh(full, period, Math.max(1, Math.min(limit, 100)));
   }
 
 
@@ -322,19 +527,12 @@ public class CustomerManagementAPP {
       }
     )
   )
+  @SqlBudget(statements = 3) // SELECT + chequeo de email (si cambia) + UPDATE
   @PutMapping("/{id}")
   public ResponseEntity<com.example.customer_management_app.dto.CustomerResponse> updateCustomer(@Parameter(description = "Customer ID") @PathVariable Long id, @Valid @org.springframework.web.bind.annotation.RequestBody com.example.customer_management_app.dto.CustomerRequest customerDetails) {
-    try {
-        Customer updatedCustomer = customerService.updateCustomer(id, com.example.customer_management_app.mapper.CustomerMapper.fromRequest(customerDetails));
-        return ResponseEntity.ok(com.example.customer_management_app.mapper.CustomerMapper.toResponse(updatedCustomer));
-    } catch (DuplicateEmailException e) {
-        return ResponseEntity.status(HttpStatus.CONFLICT).build(); // 409 Conflict
-    } catch (IllegalArgumentException e) {
-        // El Service maneja tanto "no encontrado" como "email duplicado"
-        return ResponseEntity.notFound().build();
-    } catch (Exception e) {
-        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
-    }
+    // CustomerNotFoundException (404) y DuplicateEmailException (409) los responde GlobalExceptionHandler
+    Customer updatedCustomer = customerService.updateCustomer(id, com.example.customer_management_app.mapper.CustomerMapper.fromRequest(customerDetails));
+    return ResponseEntity.ok(com.example.customer_management_app.mapper.CustomerMapper.toResponse(updatedCustomer));
   }
 
 
@@ -373,18 +571,60 @@ public class CustomerManagementAPP {
       )
     )
   })
+  @SqlBudget(statements = 3) // existsById + SELECT (para el evento) + DELETE
   @DeleteMapping("/{id}")
   public ResponseEntity<Void> deleteCustomer(@Parameter(description = "Customer ID") @PathVariable Long id) {
-    try {
-        customerService.deleteCustomer(id);
-        return ResponseEntity.noContent().build();
-    } catch (IllegalArgumentException e) {
-        // El Service lanza excepción si no existe
-        return ResponseEntity.notFound().build();
-    } catch (Exception e) {
-        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
-    }  
-  } 
+    // Si no existe, el servicio lanza CustomerNotFoundException: 404 con ErrorResponse (GlobalExceptionHandler)
+    customerService.deleteCustomer(id);
+    return ResponseEntity.noContent().build();
+  }
+
+  // Borrado masivo - /api/customers/bulk-delete (POST porque DELETE con body no es portable)
+  @Operation(
+    summary = "Bulk delete customers",
+    description = "Delete customers by id list OR by search term (same matching as /search/page).\n\n" +
+                  "Rows are deleted in bounded chunks, each in its own short transaction, so locks and WAL bursts stay small. " +
+                  "If a chunk fails, earlier chunks stay deleted and the response reports how many rows were removed.\n\n" +
+                  "Notes:\n" +
+                  "- async=false (default): waits and returns the final count.\n" +
+                  "- async=true: returns 202 right away; poll GET /api/customers/bulk-delete/{jobId}."
+  )
+  @ApiResponses(value = {
+    @ApiResponse(responseCode = "200", description = "Bulk delete finished",
+      content = @Content(mediaType = "application/json", schema = @Schema(implementation = BulkDeleteResponse.class))),
+    @ApiResponse(responseCode = "202", description = "Bulk delete started (async)",
+      content = @Content(mediaType = "application/json", schema = @Schema(implementation = BulkDeleteResponse.class))),
+    @ApiResponse(responseCode = "400", description = "Invalid criteria (none or both of ids / q)",
+      content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))),
+    @ApiResponse(responseCode = "501", description = "Not available with app.sharding.enabled=true",
+      content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class)))
+  })
+  @PostMapping("/bulk-delete")
+  public ResponseEntity<BulkDeleteResponse> bulkDelete(
+      @Valid @org.springframework.web.bind.annotation.RequestBody BulkDeleteRequest request,
+      @Parameter(description = "Run in background and return immediately") @RequestParam(value = "async", defaultValue = "false") boolean async) {
+    CustomerBulkDeleter deleter = unsharded(bulkDeleter, "Bulk delete");
+    if (async) {
+      return ResponseEntity.status(HttpStatus.ACCEPTED).body(deleter.deleteAsync(request));
+    }
+    return ResponseEntity.ok(deleter.deleteNow(request));
+  }
+
+  // Progreso de un borrado masivo - /api/customers/bulk-delete/{jobId}
+  @Operation(summary = "Get bulk delete progress", description = "Rows deleted so far and status of a bulk delete job")
+  @ApiResponses(value = {
+    @ApiResponse(responseCode = "200", description = "Progress returned successfully",
+      content = @Content(mediaType = "application/json", schema = @Schema(implementation = BulkDeleteResponse.class))),
+    @ApiResponse(responseCode = "404", description = "Unknown job id"),
+    @ApiResponse(responseCode = "501", description = "Not available with app.sharding.enabled=true",
+      content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class)))
+  })
+  @GetMapping("/bulk-delete/{jobId}")
+  public ResponseEntity<BulkDeleteResponse> bulkDeleteProgress(@Parameter(description = "Job ID") @PathVariable String jobId) {
+    return unsharded(bulkDeleter, "Bulk delete").progress(jobId)
+        .map(ResponseEntity::ok)
+        .orElseGet(() -> ResponseEntity.notFound().build());
+  }
   
   // ==========================================================================
   // MANEJO DE SOLICITUDES PAGINADAS
@@ -397,7 +637,8 @@ public class CustomerManagementAPP {
                   "Notes:\n" +
                   "- Max page size: 50 (larger values are capped).\n" +
                   "- Default sort: id,DESC.\n" +
-                  "- Supported params: page (0..N), size (1..50), sort (field,ASC|DESC).\n\n" +
+                  "- Supported params: page (0..N), size (1..50), sort (field,ASC|DESC).\n" +
+                  "- Sortable fields (index-backed): id, email, lastName, firstName, createdAt. Others fall back to id,DESC.\n\n" +
                   "Examples:\n" +
                   "- GET /api/customers/page?page=0&size=10\n" +
                   "- GET /api/customers/page?page=1&size=20&sort=lastName,ASC\n" +
@@ -435,6 +676,7 @@ public class CustomerManagementAPP {
       )
     )
   })
+  @SqlBudget(statements = 2) // página + COUNT
   @GetMapping("/page")
   public PageResponse<CustomerResponse> getCustomersPaged(
       @ParameterObject
@@ -445,6 +687,8 @@ public class CustomerManagementAPP {
     Pageable effective = (pageable.getPageSize() != cappedSize)
         ? PageRequest.of(pageable.getPageNumber(), cappedSize, pageable.getSort())
         : pageable;
+    // Sort sin índice: se degrada al default (o 400 si app.sorting.unindexed=reject)
+    effective = sortWhitelist.apply(effective);
 
     Page<Customer> page = customerService.getAllCustomers(effective);
     return new PageResponse<>(
@@ -464,7 +708,8 @@ public class CustomerManagementAPP {
                   "Notes:\n" +
                   "- Max page size: 50 (larger values are capped).\n" +
                   "- Default sort: id,DESC.\n" +
-                  "- Supported params: q (search text), page (0..N), size (1..50), sort (field,ASC|DESC).\n\n" +
+                  "- Supported params: q (search text), page (0..N), size (1..50), sort (field,ASC|DESC).\n" +
+                  "- Sortable fields (index-backed): id, email, lastName, firstName, createdAt. Others fall back to id,DESC.\n\n" +
                   "Examples:\n" +
                   "- GET /api/customers/search/page?q=john&page=0&size=10\n" +
                   "- GET /api/customers/search/page?q=gmail.com&sort=lastName,ASC\n" +
@@ -503,6 +748,8 @@ public class CustomerManagementAPP {
       )
     )
   })
+  @QueryTimeout(seconds = 3) // LIKE sobre varias columnas: si tarda más, mejor un 504 que una conexión tomada
+  @SqlBudget(statements = 2) // página + COUNT
   @GetMapping("/search/page")
   public PageResponse<CustomerResponse> searchCustomersPaged(
       @Parameter(description = "Search term", example = "john") @RequestParam("q") String q,
@@ -513,6 +760,8 @@ public class CustomerManagementAPP {
     Pageable effective = (pageable.getPageSize() != cappedSize)
         ? PageRequest.of(pageable.getPageNumber(), cappedSize, pageable.getSort())
         : pageable;
+    // Sort sin índice: se degrada al default (o 400 si app.sorting.unindexed=reject)
+    effective = sortWhitelist.apply(effective);
 
     Page<Customer> page = customerService.searchCustomers(q, effective);
     return new PageResponse<>(
@@ -526,6 +775,77 @@ public class CustomerManagementAPP {
     );
   }
 
+  // Filtro estructurado - /api/customers/filter?lastName.prefix=lo&email.domain=gmail.com
+  @Operation(
+    summary = "Filter customers (paged)",
+    description = "Structured filter: every parameter is field.operator=value and all of them are combined with AND.\n\n" +
+                  "Filters:\n" +
+                  "- firstName.eq, lastName.eq: exact match (case-sensitive).\n" +
+                  "- firstName.prefix, lastName.prefix: starts with (case-insensitive).\n" +
+                  "- email.eq: exact email. email.domain: domain after '@' (case-insensitive).\n" +
+                  "- phone.eq: exact phone.\n" +
+                  "- createdAt.from (inclusive), createdAt.to (exclusive): ISO date or date-time.\n" +
+                  "- firstName.contains, lastName.contains, email.contains, address.contains: substring (case-insensitive). " +
+                  "Not index-backed: only accepted together with at least one of the filters above.\n\n" +
+                  "Notes:\n" +
+                  "- The most selective indexed filter drives the query; the applied order is returned in the X-Filter-Plan header.\n" +
+                  "- Max page size: 50. Default sort: id,DESC. Sortable fields: id, email, lastName, firstName, createdAt.\n\n" +
+                  "Examples:\n" +
+                  "- GET /api/customers/filter?lastName.prefix=lo&email.domain=gmail.com\n" +
+                  "- GET /api/customers/filter?createdAt.from=2025-05-01&createdAt.to=2025-06-01&sort=createdAt,ASC\n" +
+                  "- GET /api/customers/filter?lastName.eq=Doe&address.contains=evergreen"
+  )
+  @ApiResponses(value = {
+    @ApiResponse(responseCode = "200", description = "Page of customers returned successfully",
+      content = @Content(mediaType = "application/json", schema = @Schema(implementation = com.example.customer_management_app.dto.PageResponse.class))),
+    @ApiResponse(
+      responseCode = "400",
+      description = "Unknown filter, invalid value or a contains filter without an indexed filter",
+      content = @Content(
+        mediaType = "application/json",
+        schema = @Schema(implementation = ErrorResponse.class),
+        examples = {
+          @ExampleObject(
+            name = "Bad Request",
+            summary = "Contains filter alone",
+            value = "{\n  \"timestamp\": \"2025-08-13T10:00:00Z\",\n  \"path\": \"/api/customers/filter\",\n  \"status\": 400,\n  \"error\": \"Bad Request\",\n  \"message\": \"Contains filters match with a leading wildcard and cannot use an index: combine them with at least one indexed filter (...)\"\n}"
+          )
+        }
+      )
+    )
+  })
+  @QueryTimeout(seconds = 3)
+  @SqlBudget(statements = 2) // página + COUNT
+  @GetMapping("/filter")
+  public PageResponse<CustomerResponse> filterCustomers(
+      @Parameter(hidden = true) @RequestParam Map<String, String> params,
+      @ParameterObject
+      @PageableDefault(page = 0, size = 10, sort = "id", direction = Sort.Direction.DESC) Pageable pageable,
+      HttpServletResponse response) {
+
+    // Parseo y plan antes de tocar la base: un filtro inválido es 400 sin consulta
+    CustomerFilter filter = CustomerFilter.parse(params);
+
+    int cappedSize = Math.min(pageable.getPageSize(), 50);
+    Pageable effective = (pageable.getPageSize() != cappedSize)
+        ? PageRequest.of(pageable.getPageNumber(), cappedSize, pageable.getSort())
+        : pageable;
+    effective = sortWhitelist.apply(effective);
+
+    // Los valores vienen del cliente: solo ASCII imprimible en el header
+    response.setHeader("X-Filter-Plan", filter.plan().replaceAll("[^\\x20-\\x7E]", "?"));
+    Page<Customer> page = customerService.filterCustomers(filter, effective);
+    return new PageResponse<>(
+        CustomerMapper.toResponseList(page.getContent()),
+        page.getNumber(),
+        page.getSize(),
+        page.getTotalElements(),
+        page.getTotalPages(),
+        page.isFirst(),
+        page.isLast()
+    );
+  }
+
   // Buscar cliente por email exacto - /api/customers/by-email
   @Operation(summary = "Get customer by email", description = "Lookup a customer by exact email")
   @ApiResponses(value = {
@@ -534,6 +854,7 @@ public class CustomerManagementAPP {
     @ApiResponse(responseCode = "404", description = "Customer not found",
       content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class)))
   })
+  @SqlBudget(statements = 1)
   @GetMapping("/by-email")
   public ResponseEntity<CustomerResponse> getByEmail(@Parameter(description = "Exact email", example = "john.doe@example.com") @RequestParam("email") String email) {
     // Normalizo y delego al Service
@@ -550,6 +871,7 @@ public class CustomerManagementAPP {
     @ApiResponse(responseCode = "404", description = "Customer not found",
       content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class)))
   })
+  @SqlBudget(statements = 1)
   @GetMapping("/by-phone")
   public ResponseEntity<CustomerResponse> getByPhone(@Parameter(description = "Exact phone", example = "123-4567") @RequestParam("phone") String phone) {
     // Normalizo y delego al Service
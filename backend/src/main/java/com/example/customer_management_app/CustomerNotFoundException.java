@@ -0,0 +1,33 @@
+package com.example.customer_management_app;
+
+/**
+ * Excepción de negocio para indicar que un cliente no existe (-> 404).
+ *
+ * ¿Por qué extiende IllegalArgumentException?
+ * - Es lo que el servicio lanzaba antes: el controller y GlobalExceptionHandler la siguen
+ *   manejando igual, y quien capture IllegalArgumentException no cambia.
+ *
+ * ¿Por qué sin stack trace?
+ * - Es un resultado esperado (los clientes preguntan mucho por IDs que no existen), no un bug.
+ * - Llenar el stack trace recorre ~100 frames (Tomcat, filtros, proxies de Spring) en cada 404
+ *   y nadie lo lee: el mensaje con el ID alcanza.
+ */
+public class CustomerNotFoundException extends IllegalArgumentException {
+
+  private final long customerId;
+
+  public CustomerNotFoundException(long customerId) {
+    super("Customer not found with ID: " + customerId);
+    this.customerId = customerId;
+  }
+
+  public long getCustomerId() {
+    return customerId;
+  }
+
+  // Sin stack trace: ver comentario de la clase
+  @Override
+  public synchronized Throwable fillInStackTrace() {
+    return this;
+  }
+}
@@ -6,10 +6,11 @@ import java.util.Optional; // importar la clase Optional
 import org.springframework.data.domain.Page; // Para resultados paginados
 import org.springframework.data.domain.Pageable; // Para parámetros de paginación
 import org.springframework.data.jpa.repository.JpaRepository; // Cambio a JpaRepository para habilitar paginación y ordenamiento
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor; // findAll(Specification, Pageable) para el filtro estructurado
 import org.springframework.data.jpa.repository.Query; // Importar Query para consultas personalizadas
 import org.springframework.data.repository.query.Param; // Importar Param para parámetros en consultas
 
-public interface CustomerRepository extends JpaRepository<Customer, Long> {
+public interface CustomerRepository extends JpaRepository<Customer, Long>, JpaSpecificationExecutor<Customer> {
 
   // QUERIES AUTOMÁTICAS
   // Spring Data JPA generará automáticamente las consultas basadas en el nombre del método
@@ -34,7 +34,7 @@ public interface CustomerService {
      * Incluye validaciones de negocio como verificar email duplicado.
      * @param customer Datos del cliente a crear
      * @return Cliente creado con ID asignado
-     * @throws IllegalArgumentException si el email ya existe
+     * @throws DuplicateEmailException si el email ya existe
      */
     Customer createCustomer(Customer customer);
 
@@ -43,14 +43,15 @@ public interface CustomerService {
      * @param id ID del cliente a actualizar
      * @param customerUpdates Datos actualizados
      * @return Cliente actualizado
-     * @throws IllegalArgumentException si el cliente no existe
+     * @throws CustomerNotFoundException si el cliente no existe
+     * @throws DuplicateEmailException si el nuevo email ya existe
      */
     Customer updateCustomer(Long id, Customer customerUpdates);
 
     /**
      * Elimina un cliente del sistema.
      * @param id ID del cliente a eliminar
-     * @throws IllegalArgumentException si el cliente no existe
+     * @throws CustomerNotFoundException si el cliente no existe
      */
     void deleteCustomer(Long id);
 
@@ -127,4 +128,13 @@ public interface CustomerService {
      * @return Optional con el cliente si existe
      */
     Optional<Customer> getByPhone(String phone);
+
+    /**
+     * Filtro estructurado (AND de predicados por campo, cada uno con su índice).
+     * @param filter Filtro ya validado y ordenado (ver CustomerFilter.parse)
+     * @param pageable parámetros de paginación y ordenamiento
+     * @return Página de clientes que cumplen todos los predicados
+     */
+    org.springframework.data.domain.Page<Customer> filterCustomers(com.example.customer_management_app.filter.CustomerFilter filter,
+        org.springframework.data.domain.Pageable pageable);
 }
\ No newline at end of file
@@ -1,14 +1,29 @@
 package com.example.customer_management_app;
 
 import org.springframework.beans.factory.annotation.Autowired; // Importar la anotación @Autowired para inyección de dependencias
+import org.springframework.context.ApplicationEventPublisher; // Importar el publicador de eventos de Spring
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service; // Importar la anotación @Service para marcar esta clase como un servicio de Spring
+import org.springframework.transaction.annotation.Propagation; // Importar Propagation para lecturas que no deben retener conexión mientras esperan
 import org.springframework.transaction.annotation.Transactional; // Importar la anotación @Transactional para manejar transacciones
 
+import com.example.customer_management_app.batch.CustomerCreateBatcher; // Group-commit opcional para altas concurrentes
+import com.example.customer_management_app.coalescing.ReadCoalescer; // Single-flight para lecturas idénticas concurrentes
+import com.example.customer_management_app.events.CustomerChangedEvent; // Evento de dominio para create/update/delete
+import com.example.customer_management_app.filter.CustomerFilter; // Filtro estructurado (Specification)
+import com.example.customer_management_app.readmodel.CustomerReadModel; // Read model en memoria (CQRS)
+import com.example.customer_management_app.readmodel.ReadModelState;
+import com.example.customer_management_app.searchcache.SearchResultCache; // Ids + total de búsquedas populares
+import com.example.customer_management_app.snapshot.CustomerSnapshotStore; // Snapshot mapeado para lookups y conteos
+import com.example.customer_management_app.snapshot.CustomerSnapshotView;
+
 import java.time.LocalDateTime; // Importar la clase LocalDateTime para manejar fechas y horas
+import java.util.Locale; // Locale.ROOT para normalizar términos de búsqueda
 import java.util.List; // Importar la clase List para manejar colecciones de clientes
 import java.util.Optional; // Importar la clase Optional para manejar valores que pueden estar ausentes
+import java.util.function.Supplier; // Importar Supplier para pasar la consulta real al coalescer
+import java.util.function.UnaryOperator;
 
 /**
  * Implementación del servicio de gestión de clientes.
@@ -36,6 +51,48 @@ public class CustomerServiceImpl implements CustomerService {
     @Autowired
     private CustomerRepository customerRepository;
 
+    /**
+     * ¿Por qué required = false?
+     * - El single-flight se puede apagar con app.coalescing.enabled=false
+     * - En tests unitarios (Mockito) no existe: las lecturas van directo al repositorio
+     */
+    @Autowired(required = false)
+    private ReadCoalescer readCoalescer;
+
+    /**
+     * Cache de resultados de búsqueda (ids + total) invalidada por write epoch.
+     * En tests unitarios (Mockito) no existe: la búsqueda va directo al repositorio.
+     */
+    @Autowired(required = false)
+    private SearchResultCache searchCache;
+
+    /**
+     * Read model en memoria (app.read-model.enabled=true).
+     * Mientras esté cargado y al día, todas las lecturas se responden sin ir a la base.
+     */
+    @Autowired(required = false)
+    private CustomerReadModel readModel;
+
+    /**
+     * Snapshot binario mapeado en memoria (app.snapshot.enabled=true).
+     * Si hay una vista consistente, los lookups por id y los conteos no consultan la base.
+     */
+    @Autowired(required = false)
+    private CustomerSnapshotStore snapshotStore;
+
+    // Group-commit de altas: solo existe con app.create-batching.enabled=true
+    @Autowired(required = false)
+    private CustomerCreateBatcher createBatcher;
+
+    /**
+     * ¿Por qué publicar eventos?
+     * - Índices y caches en memoria (ej. autocompletado) se enteran de cada cambio
+     *   sin que el servicio los conozca.
+     * - Los listeners corren después del commit (@TransactionalEventListener).
+     */
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     /**
      * ¿Por qué @Transactional(readOnly = true)?
      * - Optimización: Le dice a la Base de Datos que es solo lectura
@@ -45,17 +102,35 @@ public class CustomerServiceImpl implements CustomerService {
     @Override  
     @Transactional(readOnly = true)
     public List<Customer> getAllCustomers() {
+        ReadModelState memory = readModelState();
+        if (memory != null) {
+            return memory.findAll();
+        }
         return (List<Customer>) customerRepository.findAll();
     }
 
+    /**
+     * ¿Por qué Propagation.SUPPORTS en las lecturas coalescidas?
+     * - Con REQUIRED cada request abriría su transacción (y tomaría una conexión del pool)
+     *   ANTES de llegar al coalescer, y los followers la retendrían mientras esperan.
+     * - Con SUPPORTS no se abre transacción propia: el repositorio abre la suya (readOnly)
+     *   solo en el leader, que es el único que realmente consulta la base.
+     * - Si ya hay una transacción activa (ej. tests @Transactional), se une a ella.
+     */
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public Page<Customer> getAllCustomers(Pageable pageable) {
-        return customerRepository.findAll(pageable);
+        ReadModelState memory = readModelState();
+        Page<Customer> page = memory != null ? memory.page(pageable) : null;
+        if (page != null) {
+            return page;
+        }
+        return coalesce("getAllCustomersPaged", List.of(pageKey(pageable)),
+            () -> customerRepository.findAll(pageable), CustomerServiceImpl::copyPage);
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public Optional<Customer> getCustomerById(Long id) {
         // Para desarrollo
         
@@ -69,10 +144,27 @@ public class CustomerServiceImpl implements CustomerService {
             throw new IllegalArgumentException("Customer ID cannot be null");
         }
         
-        return customerRepository.findById(id);
+        ReadModelState memory = readModelState();
+        if (memory != null) {
+            return memory.findById(id);
+        }
+        CustomerSnapshotView snapshot = servingSnapshot();
+        if (snapshot != null) {
+            return snapshot.findById(id);
+        }
+        return coalesce("getCustomerById", List.of(id), () -> customerRepository.findById(id),
+            CustomerServiceImpl::copyOptional);
     }
 
+    /**
+     * ¿Por qué Propagation.SUPPORTS en el alta?
+     * - En modo group-commit la request solo espera a que el batcher confirme su batch;
+     *   si abriera su propia transacción, retendría una conexión del pool sin usarla.
+     * - En modo normal el chequeo de email y el save corren cada uno en la transacción
+     *   del repositorio; el índice UNIQUE de email sigue siendo la garantía final.
+     */
     @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
     public Customer createCustomer(Customer customer) {
         
         /**
@@ -82,6 +174,20 @@ public class CustomerServiceImpl implements CustomerService {
          * - Centralizada: Un solo lugar para cambiar reglas
          */
         validateCustomerForCreation(customer);
+
+        /**
+         * ¿Por qué delegar en el batcher?
+         * - Con cientos de altas concurrentes, el batcher junta varias en UNA transacción
+         *   (un chequeo de emails, un INSERT batcheado, un commit).
+         * - Los duplicados siguen saliendo como DuplicateEmailException -> 409.
+         * - El CustomerChangedEvent lo publica el batcher después de su commit.
+         */
+        if (createBatcher != null) {
+            LocalDateTime now = LocalDateTime.now();
+            customer.setCreatedAt(now);
+            customer.setUpdatedAt(now);
+            return createBatcher.submit(customer);
+        }
         
         /**
          * ¿Por qué verificar email duplicado aquí?
@@ -103,6 +209,7 @@ public class CustomerServiceImpl implements CustomerService {
         customer.setUpdatedAt(LocalDateTime.now());
         
         Customer savedCustomer = customerRepository.save(customer);
+        eventPublisher.publishEvent(CustomerChangedEvent.created(savedCustomer));
         
         return savedCustomer;
     }
@@ -116,8 +223,8 @@ public class CustomerServiceImpl implements CustomerService {
          * - Preservar datos que no se están actualizando
          * - Mejor control de errores
          */
-        Customer existingCustomer = getCustomerById(id)
-            .orElseThrow(() -> new IllegalArgumentException("Customer not found with ID: " + id));
+        Customer existingCustomer = findForUpdate(id)
+            .orElseThrow(() -> new CustomerNotFoundException(id));
         
         /**
          * ¿Por qué verificar email duplicado en updates?
@@ -128,6 +235,9 @@ public class CustomerServiceImpl implements CustomerService {
             && customerRepository.existsByEmail(customerUpdates.getEmail())) {
             throw new DuplicateEmailException("Email already exists: " + customerUpdates.getEmail());
         }
+
+        // Copia del estado previo para el evento (los listeners necesitan saber qué cambió)
+        Customer before = CustomerChangedEvent.copyOf(existingCustomer);
         
         /**
          * ¿Por qué actualizar campo por campo?
@@ -143,6 +253,7 @@ public class CustomerServiceImpl implements CustomerService {
         existingCustomer.setUpdatedAt(LocalDateTime.now()); // Timestamp automático
         
         Customer updatedCustomer = customerRepository.save(existingCustomer);
+        eventPublisher.publishEvent(CustomerChangedEvent.updated(before, updatedCustomer));
         
         return updatedCustomer;
     }
@@ -156,10 +267,18 @@ public class CustomerServiceImpl implements CustomerService {
          * - Evitar confusión ("¿se eliminó o no existía?")
          */
         if (!customerRepository.existsById(id)) {
-            throw new IllegalArgumentException("Customer not found with ID: " + id);
+            throw new CustomerNotFoundException(id);
         }
         
+        /**
+         * ¿Por qué leer la entidad antes de borrar?
+         * - El evento lleva el estado previo (ej. para restar términos del autocompletado).
+         * - No suma SQL: deleteById hace findById internamente y, dentro de la misma
+         *   transacción, lo resuelve desde el contexto de persistencia.
+         */
+        Customer before = customerRepository.findById(id).map(CustomerChangedEvent::copyOf).orElse(null);
         customerRepository.deleteById(id);
+        eventPublisher.publishEvent(CustomerChangedEvent.deleted(id, before));
     }
 
     @Override
@@ -181,17 +300,44 @@ public class CustomerServiceImpl implements CustomerService {
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public Page<Customer> searchCustomers(String searchTerm, Pageable pageable) {
         if (searchTerm == null || searchTerm.trim().isEmpty()) {
-            return customerRepository.findAll(pageable);
+            return getAllCustomers(pageable);
         }
         String term = searchTerm.trim();
+        // La búsqueda es case-insensitive: "John" y "john" son la misma consulta -> misma clave
+        String normalized = term.toLowerCase(Locale.ROOT);
+
+        // Read model: recorre los clientes en memoria (sin LIKE, sin COUNT, sin conexión)
+        ReadModelState memory = readModelState();
+        Page<Customer> found = memory != null ? memory.search(normalized, pageable) : null;
+        if (found != null) {
+            return found;
+        }
+
+        // El single-flight lleva el epoch de escrituras en la clave: una request no se suma
+        // a una consulta que arrancó antes de la última escritura
+        Supplier<Page<Customer>> query = () -> coalesce("searchCustomersPaged",
+            List.of(normalized, pageKey(pageable)),
+            // Búsqueda unificada: incluye nombre, apellido, email, teléfono y dirección (contains, case-insensitive)
+            () -> customerRepository
+                .findByFirstNameContainingIgnoreCaseOrLastNameContainingIgnoreCaseOrEmailContainingIgnoreCaseOrPhoneContainingIgnoreCaseOrAddressContainingIgnoreCase(
+                    term, term, term, term, term, pageable),
+            CustomerServiceImpl::copyPage);
+        if (searchCache == null || pageable.isUnpaged()) {
+            return query.get();
+        }
+        // Hit: solo un SELECT por PK de los ids de la página (sin LIKE ni COUNT)
+        return searchCache.search(normalized, pageable, query, customerRepository::findAllById);
+    }
 
-        // Búsqueda unificada: incluye nombre, apellido, email, teléfono y dirección (contains, case-insensitive)
-        return customerRepository
-            .findByFirstNameContainingIgnoreCaseOrLastNameContainingIgnoreCaseOrEmailContainingIgnoreCaseOrPhoneContainingIgnoreCaseOrAddressContainingIgnoreCase(
-                term, term, term, term, term, pageable);
+    @Override
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public Page<Customer> filterCustomers(CustomerFilter filter, Pageable pageable) {
+        // Sin read model ni caché: la consulta ya entra por el índice del predicado más selectivo
+        return coalesce("filterCustomers", List.of(filter.plan(), pageKey(pageable)),
+            () -> customerRepository.findAll(filter.toSpecification(), pageable), CustomerServiceImpl::copyPage);
     }
 
     @Override
@@ -202,36 +348,115 @@ public class CustomerServiceImpl implements CustomerService {
             return false;
         }
         
+        ReadModelState memory = readModelState();
+        if (memory != null) {
+            return memory.existsByEmail(email.trim());
+        }
         return customerRepository.existsByEmail(email.trim());
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public long countByLastName(String lastName) {
         
         if (lastName == null || lastName.trim().isEmpty()) {
             return 0;
         }
         
-        return customerRepository.countByLastName(lastName.trim());
+        String normalized = lastName.trim();
+        ReadModelState memory = readModelState();
+        if (memory != null) {
+            return memory.countByLastName(normalized);
+        }
+        CustomerSnapshotView snapshot = servingSnapshot();
+        if (snapshot != null) {
+            return snapshot.countByLastName(normalized);
+        }
+        return coalesce("countByLastName", List.of(normalized), () -> customerRepository.countByLastName(normalized),
+            UnaryOperator.identity());
     }
 
+    /**
+     * ¿Por qué Propagation.SUPPORTS?
+     * - Con el read model o el snapshot la respuesta sale de memoria: una transacción
+     *   propia tomaría una conexión del pool sin usarla.
+     * - Sin ellos, cada conteo corre en la transacción (readOnly) del repositorio.
+     */
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public CustomerStats getStatistics() {
         
         /**
          * ¿Por qué calcular estadísticas en el Service?
          * - Lógica de negocio: Combinar múltiples consultas
          * - Reutilizable desde diferentes controladores
-         * - Transaccional: Datos consistentes
          */
+        ReadModelState memory = readModelState();
+        if (memory != null) {
+            return new CustomerStats(memory.count(), memory.countGmailUsers());
+        }
+        CustomerSnapshotView snapshot = servingSnapshot();
+        if (snapshot != null) {
+            return new CustomerStats(snapshot.count(), snapshot.countGmailUsers());
+        }
         long totalCustomers = customerRepository.count();
         long gmailUsers = customerRepository.countByEmailDomainNative("gmail.com");
         
         return new CustomerStats(totalCustomers, gmailUsers);
     }
 
+    /**
+     * Lectura para update: NO pasa por el coalescer.
+     * 
+     * ¿Por qué?
+     * - updateCustomer modifica la entidad que obtiene; si la compartiera con otras
+     *   requests concurrentes (followers), estaría mutando un objeto ajeno.
+     */
+    private Optional<Customer> findForUpdate(Long id) {
+        if (id == null) {
+            throw new IllegalArgumentException("Customer ID cannot be null");
+        }
+        return customerRepository.findById(id);
+    }
+
+    // Estado del read model si está habilitado y al día; null = leer de la base
+    private ReadModelState readModelState() {
+        return readModel != null ? readModel.current() : null;
+    }
+
+    // Vista del snapshot si está habilitado y al día; null = leer de la base
+    private CustomerSnapshotView servingSnapshot() {
+        return snapshotStore != null ? snapshotStore.servingView() : null;
+    }
+
+    /**
+     * Delego en el single-flight si está habilitado; si no, ejecuto la consulta directo.
+     * copy: cómo entregar a cada follower su propia copia del resultado del leader.
+     */
+    private <T> T coalesce(String method, List<?> args, Supplier<T> loader, UnaryOperator<T> copy) {
+        if (readCoalescer == null) {
+            return loader.get();
+        }
+        return readCoalescer.execute(method, args, loader, copy);
+    }
+
+    // Copias para followers: nunca comparten la instancia (mutable) que recibió el leader
+    private static Optional<Customer> copyOptional(Optional<Customer> customer) {
+        return customer.map(CustomerChangedEvent::copyOf);
+    }
+
+    private static Page<Customer> copyPage(Page<Customer> page) {
+        return page.map(CustomerChangedEvent::copyOf);
+    }
+
+    // Normalizo el Pageable a un String estable (page, size y sort) para usarlo en la clave
+    private static String pageKey(Pageable pageable) {
+        if (pageable == null || pageable.isUnpaged()) {
+            return "unpaged";
+        }
+        return pageable.getPageNumber() + ":" + pageable.getPageSize() + ":" + pageable.getSort();
+    }
+
     /**
      * Método privado para validaciones de negocio.
      * 
@@ -240,8 +465,10 @@ public class CustomerServiceImpl implements CustomerService {
      * - Reutilizable: Podemos usarlo en create y update
      * - Testeable: Podemos testear las validaciones por separado
      * - Mantenible: Fácil agregar/quitar validaciones
+     * 
+     * Es public static porque ShardedCustomerService aplica las mismas reglas.
      */
-    private void validateCustomerForCreation(Customer customer) {
+    public static void validateCustomerForCreation(Customer customer) {
         if (customer == null) {
             throw new IllegalArgumentException("Customer cannot be null");
         }
@@ -270,22 +497,34 @@ public class CustomerServiceImpl implements CustomerService {
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public Optional<Customer> getByEmail(String email) {
         // Validación básica y normalización
         if (email == null || email.trim().isEmpty()) {
             return Optional.empty();
         }
-        return customerRepository.findByEmail(email.trim());
+        String normalized = email.trim();
+        ReadModelState memory = readModelState();
+        if (memory != null) {
+            return memory.findByEmail(normalized);
+        }
+        return coalesce("getByEmail", List.of(normalized), () -> customerRepository.findByEmail(normalized),
+            CustomerServiceImpl::copyOptional);
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public Optional<Customer> getByPhone(String phone) {
         // Validación básica y normalización
         if (phone == null || phone.trim().isEmpty()) {
             return Optional.empty();
         }
-        return customerRepository.findByPhone(phone.trim());
+        String normalized = phone.trim();
+        ReadModelState memory = readModelState();
+        if (memory != null) {
+            return memory.findByPhone(normalized);
+        }
+        return coalesce("getByPhone", List.of(normalized), () -> customerRepository.findByPhone(normalized),
+            CustomerServiceImpl::copyOptional);
     }
 }
\ No newline at end of file
@@ -2,9 +2,13 @@ package com.example.customer_management_app;
 
 /**
  * Excepción de negocio para indicar que un email ya existe.
+ *
+ * Sin stack trace (igual que {@link CustomerNotFoundException}): un 409 es un resultado
+ * esperado y el mensaje dice todo. Además, en modo group-commit se crea en el hilo del
+ * batcher, así que su stack no diría nada de la request.
  */
 public class DuplicateEmailException extends RuntimeException {
   public DuplicateEmailException(String message) {
-    super(message);
+    super(message, null, false, false);
   }
 }
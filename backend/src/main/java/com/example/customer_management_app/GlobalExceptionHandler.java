@@ -2,9 +2,11 @@ package com.example.customer_management_app;
 
 import java.time.OffsetDateTime; // Fecha y hora con zona
 
+import org.springframework.dao.QueryTimeoutException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -13,14 +15,35 @@ import org.springframework.web.bind.annotation.RestControllerAdvice; // Atajo pa
 import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler; // Base para manejar validaciones
 
+import com.example.customer_management_app.filter.InvalidFilterException;
+import com.example.customer_management_app.sharding.FanoutLimitException;
+import com.example.customer_management_app.sharding.NotAvailableWhenShardedException;
+import com.example.customer_management_app.sorting.UnsupportedSortException;
+import com.example.customer_management_app.stream.StreamCapacityException;
+
 import jakarta.servlet.http.HttpServletRequest;
 
 /**
  * Manejador global de excepciones para respuestas de error consistentes.
+ *
+ * ¿Por qué "skeletons"?
+ * - Status, razón y mensaje por defecto de cada error son siempre los mismos: los dejo
+ *   precalculados y por request solo completo timestamp, path y mensaje.
+ * - Junto con las excepciones de negocio sin stack trace (CustomerNotFoundException,
+ *   DuplicateEmailException), un 404/409 cuesta poco más que un 200.
  */
 @RestControllerAdvice
 public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
 
+  private static final ErrorSkeleton BAD_REQUEST = new ErrorSkeleton(HttpStatus.BAD_REQUEST, "Validation error");
+  private static final ErrorSkeleton NOT_FOUND = new ErrorSkeleton(HttpStatus.NOT_FOUND, "Resource not found");
+  private static final ErrorSkeleton CONFLICT = new ErrorSkeleton(HttpStatus.CONFLICT, "Conflict");
+  private static final ErrorSkeleton SERVICE_UNAVAILABLE = new ErrorSkeleton(HttpStatus.SERVICE_UNAVAILABLE, "Service unavailable");
+  private static final ErrorSkeleton QUERY_TIMEOUT = new ErrorSkeleton(HttpStatus.GATEWAY_TIMEOUT,
+      "The query took too long and was cancelled. Narrow the search or filters and try again.");
+  private static final ErrorSkeleton NOT_IMPLEMENTED = new ErrorSkeleton(HttpStatus.NOT_IMPLEMENTED, "Not implemented");
+  private static final ErrorSkeleton INTERNAL_ERROR = new ErrorSkeleton(HttpStatus.INTERNAL_SERVER_ERROR, "Unexpected error");
+
   // 400 - Validación de Bean Validation (@Valid)
   @Override
   protected ResponseEntity<Object> handleMethodArgumentNotValid(MethodArgumentNotValidException ex,
@@ -29,55 +52,95 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
     String firstError = ex.getBindingResult().getFieldErrors().stream()
         .findFirst()
         .map(FieldError::getDefaultMessage)
-        .orElse("Validation error");
+        .orElse(null);
 
-    ErrorResponse body = new ErrorResponse(
-        OffsetDateTime.now(),
-        request.getDescription(false).replace("uri=", ""),
-        HttpStatus.BAD_REQUEST.value(),
-        HttpStatus.BAD_REQUEST.getReasonPhrase(),
-        firstError
-    );
+    return ResponseEntity.status(BAD_REQUEST.status())
+        .body(BAD_REQUEST.body(request.getDescription(false).replace("uri=", ""), firstError));
+  }
 
-    return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(body);
+  // 404 - Cliente no encontrado (GET/PUT/DELETE /{id})
+  // Es más específico que IllegalArgumentException, así que Spring elige este handler
+  @ExceptionHandler(CustomerNotFoundException.class)
+  public ResponseEntity<ErrorResponse> handleCustomerNotFound(CustomerNotFoundException ex, HttpServletRequest req) {
+    return NOT_FOUND.toResponse(req.getRequestURI(), ex.getMessage());
   }
 
-  // 404 - Recurso no encontrado (usamos IllegalArgumentException lanzada en Service para simplificar)
+  // 400 - Validaciones de negocio del Service (ej. "Email is required" en el alta)
   @ExceptionHandler(IllegalArgumentException.class)
   public ResponseEntity<ErrorResponse> handleIllegalArgument(IllegalArgumentException ex, HttpServletRequest req) {
-    ErrorResponse body = new ErrorResponse(
-        OffsetDateTime.now(),
-        req.getRequestURI(),
-        HttpStatus.NOT_FOUND.value(),
-        HttpStatus.NOT_FOUND.getReasonPhrase(),
-        ex.getMessage() != null ? ex.getMessage() : "Resource not found"
-    );
-    return ResponseEntity.status(HttpStatus.NOT_FOUND).body(body);
+    return BAD_REQUEST.toResponse(req.getRequestURI(), ex.getMessage());
   }
 
   // 409 - Conflicto (ej. email duplicado)
   @ExceptionHandler(DuplicateEmailException.class)
   public ResponseEntity<ErrorResponse> handleDuplicateEmail(DuplicateEmailException ex, HttpServletRequest req) {
-    ErrorResponse body = new ErrorResponse(
-        OffsetDateTime.now(),
-        req.getRequestURI(),
-        HttpStatus.CONFLICT.value(),
-        HttpStatus.CONFLICT.getReasonPhrase(),
-        ex.getMessage()
-    );
-    return ResponseEntity.status(HttpStatus.CONFLICT).body(body);
+    return CONFLICT.toResponse(req.getRequestURI(), ex.getMessage());
+  }
+
+  // 400 - Sort sin índice (app.sorting.unindexed=reject)
+  @ExceptionHandler(UnsupportedSortException.class)
+  public ResponseEntity<ErrorResponse> handleUnsupportedSort(UnsupportedSortException ex, HttpServletRequest req) {
+    return BAD_REQUEST.toResponse(req.getRequestURI(), ex.getMessage());
+  }
+
+  // 400 - Filtro desconocido, mal formado o contains sin predicado con índice (GET /filter)
+  @ExceptionHandler(InvalidFilterException.class)
+  public ResponseEntity<ErrorResponse> handleInvalidFilter(InvalidFilterException ex, HttpServletRequest req) {
+    return BAD_REQUEST.toResponse(req.getRequestURI(), ex.getMessage());
+  }
+
+  // 400 - Página demasiado profunda para el fan-out entre shards (app.sharding.max-fanout-rows)
+  @ExceptionHandler(FanoutLimitException.class)
+  public ResponseEntity<ErrorResponse> handleFanoutLimit(FanoutLimitException ex, HttpServletRequest req) {
+    return BAD_REQUEST.toResponse(req.getRequestURI(), ex.getMessage());
+  }
+
+  // 501 - Bulk delete, duplicados y analytics leen solo la base principal (app.sharding.enabled=true)
+  @ExceptionHandler(NotAvailableWhenShardedException.class)
+  public ResponseEntity<ErrorResponse> handleNotAvailableWhenSharded(NotAvailableWhenShardedException ex, HttpServletRequest req) {
+    return NOT_IMPLEMENTED.toResponse(req.getRequestURI(), ex.getMessage());
+  }
+
+  // 503 - Demasiados streams SSE abiertos (app.stream.max-subscribers)
+  // El cliente pidió text/event-stream: fijo JSON para que el error igual se pueda escribir
+  @ExceptionHandler(StreamCapacityException.class)
+  public ResponseEntity<ErrorResponse> handleStreamCapacity(StreamCapacityException ex, HttpServletRequest req) {
+    return ResponseEntity.status(SERVICE_UNAVAILABLE.status())
+        .header(HttpHeaders.RETRY_AFTER, "5")
+        .contentType(MediaType.APPLICATION_JSON)
+        .body(SERVICE_UNAVAILABLE.body(req.getRequestURI(), ex.getMessage()));
+  }
+
+  // 504 - El SQL de la request se pasó de su plazo (@QueryTimeout / app.query-timeout.default-seconds)
+  // Spring traduce el SQLTimeoutException del driver (JdbcTemplate) y el de JPA a QueryTimeoutException.
+  // El mensaje del driver trae el SQL: no se expone.
+  @ExceptionHandler({ QueryTimeoutException.class, jakarta.persistence.QueryTimeoutException.class })
+  public ResponseEntity<ErrorResponse> handleQueryTimeout(Exception ex, HttpServletRequest req) {
+    return QUERY_TIMEOUT.toResponse(req.getRequestURI(), null);
   }
 
   // 500 - Cualquier otro error no manejado
   @ExceptionHandler(Exception.class)
   public ResponseEntity<ErrorResponse> handleGeneric(Exception ex, HttpServletRequest req) {
-    ErrorResponse body = new ErrorResponse(
-        OffsetDateTime.now(),
-        req.getRequestURI(),
-        HttpStatus.INTERNAL_SERVER_ERROR.value(),
-        HttpStatus.INTERNAL_SERVER_ERROR.getReasonPhrase(),
-        "Unexpected error"
-    );
-    return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(body);
+    // El mensaje interno no se expone al cliente
+    return INTERNAL_ERROR.toResponse(req.getRequestURI(), null);
+  }
+
+  /**
+   * Parte fija de un error: status, razón y mensaje por defecto.
+   */
+  private record ErrorSkeleton(HttpStatus status, int code, String reason, String defaultMessage) {
+
+    private ErrorSkeleton(HttpStatus status, String defaultMessage) {
+      this(status, status.value(), status.getReasonPhrase(), defaultMessage);
+    }
+
+    private ErrorResponse body(String path, String message) {
+      return new ErrorResponse(OffsetDateTime.now(), path, code, reason, message != null ? message : defaultMessage);
+    }
+
+    private ResponseEntity<ErrorResponse> toResponse(String path, String message) {
+      return ResponseEntity.status(status).body(body(path, message));
+    }
   }
 }
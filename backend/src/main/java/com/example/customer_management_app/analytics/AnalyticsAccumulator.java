@@ -0,0 +1,121 @@
+package com.example.customer_management_app.analytics;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Agregados de un rango de clientes (un chunk del scan de {@link CustomerAnalytics}).
+ *
+ * - Altas y modificaciones por día: arrays de long indexados por epoch-day (crecen a los costados).
+ *   Semana y mes se derivan de los días al armar la respuesta: no hace falta acumularlos.
+ * - Dominios y apellidos: HashMap con un long[1] mutable por clave (sin boxing por fila).
+ *
+ * No es thread-safe: cada chunk tiene el suyo y después se suman con {@link #addAll}.
+ */
+final class AnalyticsAccumulator {
+
+  // Un cliente cuenta como "modificado" si updated_at supera a created_at por más de esto
+  // (al crear, los dos se setean con now() por separado y difieren en microsegundos)
+  private static final long MODIFIED_AFTER_SECONDS = 1;
+
+  final DayCounts created = new DayCounts();
+  final DayCounts updated = new DayCounts();
+  final Map<String, long[]> domains = new HashMap<>();
+  final Map<String, long[]> lastNames = new HashMap<>();
+  long rows;
+  LocalDateTime maxUpdatedAt;
+
+  void add(LocalDateTime createdAt, LocalDateTime updatedAt, String email, String lastName) {
+    rows++;
+    if (createdAt != null) {
+      created.increment(createdAt.toLocalDate().toEpochDay(), 1);
+    }
+    if (updatedAt != null) {
+      if (createdAt == null || ChronoUnit.SECONDS.between(createdAt, updatedAt) >= MODIFIED_AFTER_SECONDS) {
+        updated.increment(updatedAt.toLocalDate().toEpochDay(), 1);
+      }
+      if (maxUpdatedAt == null || updatedAt.isAfter(maxUpdatedAt)) {
+        maxUpdatedAt = updatedAt;
+      }
+    }
+    if (email != null) {
+      int at = email.lastIndexOf('@');
+      if (at >= 0 && at < email.length() - 1) {
+        count(domains, email.substring(at + 1).toLowerCase(Locale.ROOT), 1);
+      }
+    }
+    if (lastName != null && !lastName.isBlank()) {
+      count(lastNames, lastName.trim().toLowerCase(Locale.ROOT), 1);
+    }
+  }
+
+  void addAll(AnalyticsAccumulator other) {
+    rows += other.rows;
+    created.addAll(other.created);
+    updated.addAll(other.updated);
+    other.domains.forEach((k, v) -> count(domains, k, v[0]));
+    other.lastNames.forEach((k, v) -> count(lastNames, k, v[0]));
+    if (other.maxUpdatedAt != null && (maxUpdatedAt == null || other.maxUpdatedAt.isAfter(maxUpdatedAt))) {
+      maxUpdatedAt = other.maxUpdatedAt;
+    }
+  }
+
+  private static void count(Map<String, long[]> counts, String key, long n) {
+    counts.computeIfAbsent(key, k -> new long[1])[0] += n;
+  }
+
+  /**
+   * Conteos por epoch-day en un array contiguo [first, first + counts.length).
+   */
+  static final class DayCounts {
+    private long first;
+    private long[] counts = new long[0];
+
+    void increment(long epochDay, long n) {
+      if (counts.length == 0) {
+        first = epochDay;
+        counts = new long[32];
+      } else if (epochDay < first) {
+        // Crece hacia atrás con margen, para no copiar en cada día nuevo
+        int grow = (int) Math.max(first - epochDay, counts.length / 2);
+        long[] bigger = new long[counts.length + grow];
+        System.arraycopy(counts, 0, bigger, grow, counts.length);
+        counts = bigger;
+        first -= grow;
+      } else if (epochDay >= first + counts.length) {
+        int needed = (int) (epochDay - first + 1);
+        counts = Arrays.copyOf(counts, Math.max(needed, counts.length + counts.length / 2));
+      }
+      counts[(int) (epochDay - first)] += n;
+    }
+
+    void addAll(DayCounts other) {
+      for (int i = 0; i < other.counts.length; i++) {
+        if (other.counts[i] != 0) {
+          increment(other.first + i, other.counts[i]);
+        }
+      }
+    }
+
+    /**
+     * Recorre los días con conteo distinto de cero, en orden.
+     */
+    void forEach(DayConsumer consumer) {
+      for (int i = 0; i < counts.length; i++) {
+        if (counts[i] != 0) {
+          consumer.accept(LocalDate.ofEpochDay(first + i), counts[i]);
+        }
+      }
+    }
+  }
+
+  @FunctionalInterface
+  interface DayConsumer {
+    void accept(LocalDate day, long count);
+  }
+}
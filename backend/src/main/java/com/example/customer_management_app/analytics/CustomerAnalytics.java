@@ -0,0 +1,368 @@
+package com.example.customer_management_app.analytics;
+
+import java.sql.Timestamp;
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.temporal.IsoFields;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.customer_management_app.dto.CustomerAnalyticsResponse;
+import com.example.customer_management_app.dto.CustomerAnalyticsResponse.NameCount;
+import com.example.customer_management_app.dto.CustomerAnalyticsResponse.PeriodCount;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Métricas de crecimiento (altas y modificaciones por día/semana/mes, dominios y apellidos)
+ * calculadas en una sola pasada por la tabla.
+ *
+ * ¿Cómo?
+ * - Divido la tabla en app.analytics.chunks rangos de id del mismo ancho y los recorro en paralelo
+ *   (app.analytics.parallelism hilos), cada uno en su transacción read-only.
+ * - Cada chunk llena su propio {@link AnalyticsAccumulator} (arrays de long por día, contadores por
+ *   dominio/apellido) sin compartir nada; al final los sumo. Semana y mes salen de los días.
+ * - El resultado queda en memoria con su computedAt. Un GET lo sirve tal cual mientras tenga menos
+ *   de app.analytics.max-age-ms; si es más viejo lo refresca antes de responder.
+ *
+ * Refresco incremental (watermark = mayor updated_at visto):
+ * 1) SELECT id ... WHERE updated_at &gt; watermark - overlap: chunks con altas o modificaciones.
+ * 2) COUNT(*) por chunk (solo lee la PK): chunks cuyo conteo cambió tuvieron bajas,
+ *    que no dejan rastro en updated_at.
+ * 3) Re-escaneo solo esos chunks y vuelvo a sumar. Los ids nuevos más allá del último rango
+ *    caen en chunks nuevos del mismo ancho (si llegan al doble de app.analytics.chunks, hago un completo).
+ * El overlap cubre transacciones que confirman tarde con un updated_at anterior al watermark.
+ * Cambios hechos por SQL directo sin tocar updated_at solo se ven con un refresco completo.
+ *
+ * Lee el datasource principal: con app.sharding.enabled=true no se crea (GET /analytics responde 501).
+ */
+@Component
+@ConditionalOnExpression("!${app.sharding.enabled:false}")
+public class CustomerAnalytics {
+
+  private static final Logger log = LoggerFactory.getLogger(CustomerAnalytics.class);
+
+  private static final String CHUNK_SQL =
+      "SELECT created_at, updated_at, email, last_name FROM customer WHERE id >= ? AND id < ?";
+
+  public enum Period { DAY, WEEK, MONTH }
+
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate readOnlyTx;
+  private final Timer fullTimer;
+  private final Timer incrementalTimer;
+  private final int targetChunks;
+  private final long maxAgeNanos;
+  private final long overlapMillis;
+  private final ExecutorService scanners;
+
+  // Un refresco a la vez; los que llegan mientras tanto esperan y usan ese resultado
+  private final ReentrantLock refreshLock = new ReentrantLock();
+  private volatile State state;
+
+  public CustomerAnalytics(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+      MeterRegistry meterRegistry,
+      @Value("${app.analytics.chunks:32}") int chunks,
+      @Value("${app.analytics.parallelism:2}") int parallelism,
+      @Value("${app.analytics.max-age-ms:300000}") long maxAgeMillis,
+      @Value("${app.analytics.watermark-overlap-ms:5000}") long overlapMillis) {
+    if (chunks < 1 || parallelism < 1) {
+      throw new IllegalArgumentException("app.analytics.chunks and app.analytics.parallelism must be >= 1");
+    }
+    // JdbcTemplate propio con fetchSize: PostgreSQL trae cada rango por cursor y no todo junto
+    this.jdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+    this.jdbcTemplate.setFetchSize(1000);
+    this.readOnlyTx = new TransactionTemplate(transactionManager);
+    this.readOnlyTx.setReadOnly(true);
+    this.fullTimer = Timer.builder("customers.analytics.refresh")
+        .description("Duration of an analytics refresh")
+        .tag("mode", "full")
+        .register(meterRegistry);
+    this.incrementalTimer = Timer.builder("customers.analytics.refresh")
+        .description("Duration of an analytics refresh")
+        .tag("mode", "incremental")
+        .register(meterRegistry);
+    this.targetChunks = chunks;
+    this.maxAgeNanos = TimeUnit.MILLISECONDS.toNanos(maxAgeMillis);
+    this.overlapMillis = overlapMillis;
+    AtomicInteger threadNumber = new AtomicInteger();
+    this.scanners = Executors.newFixedThreadPool(parallelism, r -> {
+      Thread t = new Thread(r, "customer-analytics-" + threadNumber.incrementAndGet());
+      t.setDaemon(true);
+      return t;
+    });
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    scanners.shutdownNow();
+  }
+
+  /**
+   * Agregados desde la cache; si tienen más de app.analytics.max-age-ms los refresca (incremental).
+   *
+   * @param limit cantidad de dominios/apellidos más frecuentes a devolver
+   */
+  public CustomerAnalyticsResponse report(Period period, int limit) {
+    State current = state;
+    if (current == null || System.nanoTime() - current.computedAtNanos > maxAgeNanos) {
+      current = refreshIfOlderThan(System.nanoTime(), false);
+    }
+    return toResponse(current, period, limit);
+  }
+
+  /**
+   * Refresca ya: incremental desde el watermark, o completo si full (o si nunca se calculó).
+   */
+  public CustomerAnalyticsResponse refresh(boolean full, Period period, int limit) {
+    return toResponse(refreshIfOlderThan(System.nanoTime(), full), period, limit);
+  }
+
+  private State refreshIfOlderThan(long requestedAtNanos, boolean full) {
+    refreshLock.lock();
+    try {
+      State previous = state;
+      // Otro hilo refrescó mientras esperaba el lock: ese resultado ya es más nuevo que el pedido
+      if (!full && previous != null && previous.computedAtNanos >= requestedAtNanos) {
+        return previous;
+      }
+      State next = full || previous == null ? fullScan() : incremental(previous);
+      state = next;
+      log.info("Customer analytics {} refresh: {} of {} chunks, {} rows in {} ms",
+          next.mode, next.chunksScanned, next.chunks.length, next.rowsScanned, next.durationMs);
+      return next;
+    } finally {
+      refreshLock.unlock();
+    }
+  }
+
+  private State fullScan() {
+    long t0 = System.nanoTime();
+    Map<String, Object> bounds = jdbcTemplate.queryForMap("SELECT MIN(id) AS lo, MAX(id) AS hi FROM customer");
+    Number lo = (Number) bounds.get("lo");
+    Number hi = (Number) bounds.get("hi");
+    AnalyticsAccumulator[] chunks;
+    long base = 0;
+    long width = 1;
+    if (lo == null) {
+      chunks = new AnalyticsAccumulator[0];
+    } else {
+      base = lo.longValue();
+      long span = hi.longValue() - base + 1;
+      width = Math.max(1, (span + targetChunks - 1) / targetChunks);
+      chunks = new AnalyticsAccumulator[(int) ((span + width - 1) / width)];
+      List<Integer> all = new ArrayList<>(chunks.length);
+      for (int i = 0; i < chunks.length; i++) {
+        all.add(i);
+      }
+      scan(base, width, all, chunks);
+    }
+    long nanos = System.nanoTime() - t0;
+    fullTimer.record(nanos, TimeUnit.NANOSECONDS);
+    return State.of("FULL", base, width, chunks, chunks.length, rowsOf(chunks), nanos);
+  }
+
+  private State incremental(State previous) {
+    if (previous.total.maxUpdatedAt == null) {
+      return fullScan();
+    }
+    long t0 = System.nanoTime();
+    long base = previous.base;
+    long width = previous.width;
+    TreeSet<Integer> dirty = new TreeSet<>();
+    boolean[] belowBase = new boolean[1];
+
+    // 1) Altas y modificaciones desde el watermark
+    Timestamp since = Timestamp.valueOf(previous.total.maxUpdatedAt.minusNanos(overlapMillis * 1_000_000));
+    jdbcTemplate.query("SELECT id FROM customer WHERE updated_at > ?", (RowCallbackHandler) rs -> {
+      long id = rs.getLong(1);
+      if (id < base) {
+        belowBase[0] = true;
+      } else {
+        dirty.add((int) ((id - base) / width));
+      }
+    }, since);
+    if (belowBase[0]) {
+      // Un id por debajo del primer rango (secuencia reiniciada): los rangos ya no sirven
+      return fullScan();
+    }
+
+    // 2) Bajas: el conteo del chunk cambió
+    Map<Integer, Long> counts = new LinkedHashMap<>();
+    jdbcTemplate.query("SELECT chunk, COUNT(*) FROM (SELECT (id - ?) / ? AS chunk FROM customer WHERE id >= ?) c "
+        + "GROUP BY chunk", (RowCallbackHandler) rs -> counts.put(rs.getInt(1), rs.getLong(2)), base, width, base);
+    int size = previous.chunks.length;
+    for (int chunk : counts.keySet()) {
+      size = Math.max(size, chunk + 1);
+    }
+    if (!dirty.isEmpty()) {
+      size = Math.max(size, dirty.last() + 1);
+    }
+    if (size > 2 * targetChunks) {
+      // La tabla creció mucho más allá de los rangos originales: un completo los vuelve a repartir
+      return fullScan();
+    }
+    for (int i = 0; i < size; i++) {
+      long before = i < previous.chunks.length ? previous.chunks[i].rows : 0;
+      if (counts.getOrDefault(i, 0L) != before) {
+        dirty.add(i);
+      }
+    }
+
+    // 3) Re-escaneo solo lo que cambió; el resto se reutiliza tal cual
+    AnalyticsAccumulator[] chunks = Arrays.copyOf(previous.chunks, size);
+    for (int i = previous.chunks.length; i < size; i++) {
+      chunks[i] = new AnalyticsAccumulator(); // rangos nuevos sin filas (huecos de la secuencia)
+    }
+    scan(base, width, dirty, chunks);
+    long rows = 0;
+    for (int i : dirty) {
+      rows += chunks[i].rows;
+    }
+    long nanos = System.nanoTime() - t0;
+    incrementalTimer.record(nanos, TimeUnit.NANOSECONDS);
+    return State.of("INCREMENTAL", base, width, chunks, dirty.size(), rows, nanos);
+  }
+
+  // Escanea los chunks indicados en paralelo; cada uno escribe solo su posición del array
+  private void scan(long base, long width, Iterable<Integer> indices, AnalyticsAccumulator[] into) {
+    List<CompletableFuture<Void>> pending = new ArrayList<>();
+    for (int i : indices) {
+      long from = base + i * width;
+      pending.add(CompletableFuture.runAsync(() -> into[i] = scanChunk(from, from + width), scanners));
+    }
+    try {
+      CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new)).join();
+    } catch (CompletionException e) {
+      pending.forEach(f -> f.cancel(true));
+      throw e.getCause() instanceof RuntimeException re ? re : e;
+    }
+  }
+
+  private AnalyticsAccumulator scanChunk(long fromId, long toId) {
+    AnalyticsAccumulator acc = new AnalyticsAccumulator();
+    readOnlyTx.executeWithoutResult(status -> jdbcTemplate.query(CHUNK_SQL, (RowCallbackHandler) rs -> {
+      Timestamp created = rs.getTimestamp(1);
+      Timestamp updated = rs.getTimestamp(2);
+      acc.add(created != null ? created.toLocalDateTime() : null, updated != null ? updated.toLocalDateTime() : null,
+          rs.getString(3), rs.getString(4));
+    }, fromId, toId));
+    return acc;
+  }
+
+  private static long rowsOf(AnalyticsAccumulator[] chunks) {
+    long rows = 0;
+    for (AnalyticsAccumulator c : chunks) {
+      rows += c.rows;
+    }
+    return rows;
+  }
+
+  private static CustomerAnalyticsResponse toResponse(State s, Period period, int limit) {
+    CustomerAnalyticsResponse r = new CustomerAnalyticsResponse();
+    r.setComputedAt(s.computedAt);
+    r.setWatermark(s.total.maxUpdatedAt);
+    r.setRefreshMode(s.mode);
+    r.setChunksScanned(s.chunksScanned);
+    r.setChunksTotal(s.chunks.length);
+    r.setRowsScanned(s.rowsScanned);
+    r.setDurationMs(s.durationMs);
+    r.setTotalCustomers(s.total.rows);
+    r.setPeriod(period.name());
+    r.setCreated(series(s.total.created, period));
+    r.setUpdated(series(s.total.updated, period));
+    r.setDistinctDomains(s.total.domains.size());
+    r.setTopDomains(top(s.total.domains, limit));
+    r.setDistinctLastNames(s.total.lastNames.size());
+    r.setTopLastNames(top(s.total.lastNames, limit));
+    return r;
+  }
+
+  // Los días vienen en orden, así que las semanas y meses también quedan ordenados
+  private static List<PeriodCount> series(AnalyticsAccumulator.DayCounts days, Period period) {
+    Map<String, long[]> buckets = new LinkedHashMap<>();
+    days.forEach((day, count) -> {
+      String label = switch (period) {
+        case DAY -> day.toString();
+        case WEEK -> String.format("%d-W%02d", day.get(IsoFields.WEEK_BASED_YEAR), day.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR));
+        case MONTH -> YearMonth.from(day).toString();
+      };
+      buckets.computeIfAbsent(label, k -> new long[1])[0] += count;
+    });
+    List<PeriodCount> out = new ArrayList<>(buckets.size());
+    buckets.forEach((label, count) -> out.add(new PeriodCount(label, count[0])));
+    return out;
+  }
+
+  private static List<NameCount> top(Map<String, long[]> counts, int limit) {
+    return counts.entrySet().stream()
+        .sorted(Comparator.<Map.Entry<String, long[]>>comparingLong(e -> e.getValue()[0]).reversed()
+            .thenComparing(Map.Entry::getKey))
+        .limit(limit)
+        .map(e -> new NameCount(e.getKey(), e.getValue()[0]))
+        .toList();
+  }
+
+  /**
+   * Resultado de un refresco. Los acumuladores de los chunks no se modifican después de creados:
+   * el incremental arma un array nuevo reutilizando los que no cambiaron.
+   */
+  private static final class State {
+    final String mode;
+    final long base;
+    final long width;
+    final AnalyticsAccumulator[] chunks;
+    final AnalyticsAccumulator total;
+    final int chunksScanned;
+    final long rowsScanned;
+    final long durationMs;
+    final OffsetDateTime computedAt = OffsetDateTime.now();
+    final long computedAtNanos = System.nanoTime();
+
+    private State(String mode, long base, long width, AnalyticsAccumulator[] chunks, AnalyticsAccumulator total,
+        int chunksScanned, long rowsScanned, long durationMs) {
+      this.mode = mode;
+      this.base = base;
+      this.width = width;
+      this.chunks = chunks;
+      this.total = total;
+      this.chunksScanned = chunksScanned;
+      this.rowsScanned = rowsScanned;
+      this.durationMs = durationMs;
+    }
+
+    static State of(String mode, long base, long width, AnalyticsAccumulator[] chunks,
+        int chunksScanned, long rowsScanned, long nanos) {
+      AnalyticsAccumulator total = new AnalyticsAccumulator();
+      for (AnalyticsAccumulator c : chunks) {
+        total.addAll(c);
+      }
+      return new State(mode, base, width, chunks, total, chunksScanned, rowsScanned,
+          TimeUnit.NANOSECONDS.toMillis(nanos));
+    }
+  }
+}
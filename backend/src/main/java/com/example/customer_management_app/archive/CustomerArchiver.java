@@ -0,0 +1,109 @@
+package com.example.customer_management_app.archive;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Mueve clientes inactivos a la partición de archivo (ver V4__partition_customer_and_archive.sql).
+ *
+ * ¿Qué es "inactivo"?
+ * - updated_at más viejo que app.archive.inactive-after-days.
+ *
+ * ¿Cómo?
+ * - Archivar = UPDATE customer SET archived = TRUE: PostgreSQL mueve la fila de
+ *   customer_active_pN a customer_archive. El registro de emails no cambia.
+ * - Recorro la parte activa por rangos de id (keyset) en lotes de batch-size,
+ *   una transacción por lote: nada de locks largos ni transacciones gigantes.
+ * - Si alguien modificó un cliente archivado (updated_at reciente), lo vuelvo a activar.
+ *
+ * Para la API no cambia nada: las consultas van a la tabla padre y encuentran ambos.
+ * Es opt-in (app.archive.enabled=true) porque necesita el esquema particionado de PostgreSQL.
+ * Las shards (db/shard) no tienen ese esquema: con app.sharding.enabled=true no se crea.
+ */
+@Component
+@ConditionalOnExpression("${app.archive.enabled:false} and !${app.sharding.enabled:false}")
+public class CustomerArchiver {
+
+  private static final Logger log = LoggerFactory.getLogger(CustomerArchiver.class);
+
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final int inactiveAfterDays;
+  private final int batchSize;
+  private final Counter archived;
+  private final Counter reactivated;
+
+  public CustomerArchiver(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+      MeterRegistry meterRegistry,
+      @Value("${app.archive.inactive-after-days:730}") int inactiveAfterDays,
+      @Value("${app.archive.batch-size:5000}") int batchSize) {
+    if (batchSize < 1) {
+      throw new IllegalArgumentException("app.archive.batch-size must be >= 1");
+    }
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.inactiveAfterDays = inactiveAfterDays;
+    this.batchSize = batchSize;
+    this.archived = Counter.builder("customers.archive.moved")
+        .description("Customers moved between the active and archive partitions")
+        .tag("direction", "archived")
+        .register(meterRegistry);
+    this.reactivated = Counter.builder("customers.archive.moved")
+        .description("Customers moved between the active and archive partitions")
+        .tag("direction", "reactivated")
+        .register(meterRegistry);
+  }
+
+  @Scheduled(cron = "${app.archive.cron:0 30 3 * * *}")
+  public void scheduledRun() {
+    ArchiveResult result = run(LocalDateTime.now().minusDays(inactiveAfterDays));
+    log.info("Customer archive run: {} archived, {} reactivated", result.archived(), result.reactivated());
+  }
+
+  /**
+   * Archiva los activos con updated_at &lt; cutoff y reactiva los archivados con updated_at &gt;= cutoff.
+   */
+  public ArchiveResult run(LocalDateTime cutoff) {
+    Timestamp ts = Timestamp.valueOf(cutoff);
+
+    // 1) Reactivar: pocos casos, usa ix_customer_archive_updated_at
+    Integer back = transactionTemplate.execute(status -> jdbcTemplate.update(
+        "UPDATE customer SET archived = FALSE WHERE archived = TRUE AND updated_at >= ?", ts));
+    reactivated.increment(back);
+
+    // 2) Archivar por ventanas de id: [lastId+1 .. máximo id de los próximos batchSize activos]
+    long total = 0;
+    long lastId = 0;
+    while (true) {
+      Long windowEnd = jdbcTemplate.queryForObject(
+          "SELECT MAX(id) FROM (SELECT id FROM customer WHERE archived = FALSE AND id > ? ORDER BY id LIMIT ?) w",
+          Long.class, lastId, batchSize);
+      if (windowEnd == null) {
+        break;
+      }
+      long from = lastId;
+      Integer moved = transactionTemplate.execute(status -> jdbcTemplate.update(
+          "UPDATE customer SET archived = TRUE WHERE archived = FALSE AND id > ? AND id <= ? AND updated_at < ?",
+          from, windowEnd, ts));
+      total += moved;
+      archived.increment(moved);
+      lastId = windowEnd;
+    }
+    return new ArchiveResult(total, back);
+  }
+
+  public record ArchiveResult(long archived, long reactivated) {}
+}
@@ -0,0 +1,368 @@
+package com.example.customer_management_app.batch;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Locale;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.customer_management_app.Customer;
+import com.example.customer_management_app.DuplicateEmailException;
+import com.example.customer_management_app.events.CustomerChangedEvent;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Group-commit (micro-batching) para altas concurrentes de clientes.
+ *
+ * ¿Cómo funciona?
+ * - Cada createCustomer encola su cliente y espera un CompletableFuture.
+ * - Un único hilo "flusher" junta hasta max-batch-size altas, esperando como
+ *   máximo max-wait-micros desde la primera, y las escribe en UNA transacción:
+ *   1) un solo SELECT ... WHERE email IN (...) para detectar duplicados
+ *   2) un INSERT batcheado (JDBC batch) con las altas válidas
+ *   3) un solo commit (un fsync en vez de N)
+ * - Cada request recibe su resultado (cliente con ID) o su DuplicateEmailException (409).
+ *   Solo el UNIQUE de email es un 409: cualquier otra restricción rota sale como error tal cual.
+ * - El CustomerChangedEvent de cada alta lo publica el flusher después del commit, antes de
+ *   responder: aunque la request ya no esté esperando, los listeners se enteran de la fila.
+ * - Ninguna request queda colgada en la cola: si en submit-timeout-ms el flusher no la tomó, sale
+ *   con 504 y nunca se escribe. Una vez tomada espera el resultado real (no hay "timeout" de una
+ *   alta que después se confirma). Toda alta que el flusher tenía en la mano o que quedó en cola
+ *   al apagar se completa con error.
+ *
+ * ¿Por qué JDBC y no repository.saveAll?
+ * - Customer usa GenerationType.IDENTITY y Hibernate desactiva el batching de INSERT
+ *   con IDENTITY (necesita el ID fila por fila). Con JDBC batch + getGeneratedKeys
+ *   el driver de PostgreSQL devuelve todos los IDs en un solo round-trip.
+ *
+ * Es opt-in: app.create-batching.enabled=true.
+ */
+@Component
+@ConditionalOnProperty(name = "app.create-batching.enabled", havingValue = "true")
+public class CustomerCreateBatcher {
+
+  private static final Logger log = LoggerFactory.getLogger(CustomerCreateBatcher.class);
+
+  private static final String INSERT_SQL =
+      "INSERT INTO customer (first_name, last_name, email, phone, address, created_at, updated_at) "
+          + "VALUES (?, ?, ?, ?, ?, ?, ?)";
+  // SQLState estándar de unique_violation (PostgreSQL y H2)
+  private static final String UNIQUE_VIOLATION = "23505";
+
+  private final BlockingQueue<PendingCreate> queue = new LinkedBlockingQueue<>();
+  private final JdbcTemplate jdbcTemplate;
+  private final NamedParameterJdbcTemplate namedJdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final ApplicationEventPublisher eventPublisher;
+  private final int maxBatchSize;
+  private final long maxWaitNanos;
+  private final long submitTimeoutMs;
+  private final DistributionSummary batchSizes;
+  private final Timer flushTimer;
+
+  private volatile boolean running;
+  private Thread flusher;
+
+  public CustomerCreateBatcher(JdbcTemplate jdbcTemplate,
+      PlatformTransactionManager transactionManager,
+      MeterRegistry meterRegistry,
+      int maxBatchSize,
+      long maxWaitMicros) {
+    this(jdbcTemplate, transactionManager, meterRegistry, maxBatchSize, maxWaitMicros, 30_000);
+  }
+
+  public CustomerCreateBatcher(JdbcTemplate jdbcTemplate,
+      PlatformTransactionManager transactionManager,
+      MeterRegistry meterRegistry,
+      int maxBatchSize,
+      long maxWaitMicros,
+      long submitTimeoutMs) {
+    this(jdbcTemplate, transactionManager, event -> { }, meterRegistry, maxBatchSize, maxWaitMicros, submitTimeoutMs);
+  }
+
+  @Autowired
+  public CustomerCreateBatcher(JdbcTemplate jdbcTemplate,
+      PlatformTransactionManager transactionManager,
+      ApplicationEventPublisher eventPublisher,
+      MeterRegistry meterRegistry,
+      @Value("${app.create-batching.max-batch-size:64}") int maxBatchSize,
+      @Value("${app.create-batching.max-wait-micros:500}") long maxWaitMicros,
+      @Value("${app.create-batching.submit-timeout-ms:30000}") long submitTimeoutMs) {
+    if (maxBatchSize < 1) {
+      throw new IllegalArgumentException("app.create-batching.max-batch-size must be >= 1");
+    }
+    this.jdbcTemplate = jdbcTemplate;
+    this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.eventPublisher = eventPublisher;
+    this.maxBatchSize = maxBatchSize;
+    this.maxWaitNanos = TimeUnit.MICROSECONDS.toNanos(Math.max(0, maxWaitMicros));
+    this.submitTimeoutMs = submitTimeoutMs;
+    this.batchSizes = DistributionSummary.builder("customers.create.batch.size")
+        .description("Customers written per group-commit flush")
+        .register(meterRegistry);
+    this.flushTimer = Timer.builder("customers.create.batch.flush")
+        .description("Time spent writing one group-commit batch")
+        .register(meterRegistry);
+  }
+
+  @PostConstruct
+  public void start() {
+    running = true;
+    flusher = new Thread(this::runLoop, "customer-create-batcher");
+    flusher.setDaemon(true);
+    flusher.start();
+  }
+
+  @PreDestroy
+  public void stop() {
+    running = false;
+    flusher.interrupt();
+    // Lo que quedó en cola no se pierde en silencio: las requests reciben error
+    failQueued();
+  }
+
+  /**
+   * Encola el alta y bloquea hasta que su batch se confirme (o falle).
+   * El cliente ya tiene que venir validado y con timestamps. El CustomerChangedEvent lo publica el flusher.
+   */
+  public Customer submit(Customer customer) {
+    if (!running) {
+      throw new IllegalStateException("Create batcher is not running");
+    }
+    PendingCreate pending = new PendingCreate(customer);
+    queue.add(pending);
+    // stop() pudo vaciar la cola entre el chequeo de arriba y el add: nadie la va a procesar
+    if (!running && queue.remove(pending)) {
+      throw new IllegalStateException("Create batcher is not running");
+    }
+    try {
+      try {
+        return pending.result.get(submitTimeoutMs, TimeUnit.MILLISECONDS);
+      } catch (TimeoutException e) {
+        // Si sigue en cola, la saco y nunca se escribe. Si el flusher ya la tomó, el resultado
+        // real llega seguro (el flusher completa todo lo que tiene en la mano): lo espero
+        if (queue.remove(pending)) {
+          throw new QueryTimeoutException("Batched create was not picked up within " + submitTimeoutMs + " ms");
+        }
+        return pending.result.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for batched create", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException re) {
+        throw re;
+      }
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  private void runLoop() {
+    while (running) {
+      List<PendingCreate> batch = new ArrayList<>(maxBatchSize);
+      try {
+        batch.add(queue.take());
+        // Espero más altas hasta llenar el batch o vencer la ventana desde la primera
+        long deadline = System.nanoTime() + maxWaitNanos;
+        while (batch.size() < maxBatchSize) {
+          long remaining = deadline - System.nanoTime();
+          PendingCreate next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+          if (next == null) {
+            break;
+          }
+          batch.add(next);
+        }
+        flushTimer.record(() -> flush(batch));
+        batchSizes.record(batch.size());
+      } catch (InterruptedException e) {
+        // Apagado mientras juntaba el batch: esas altas ya no están en la cola
+        Thread.currentThread().interrupt();
+        fail(batch, new IllegalStateException("Create batcher is shutting down"));
+        break;
+      } catch (Throwable e) {
+        // Incluye Error: el hilo no muere en silencio y nadie queda esperando
+        log.error("Unexpected error in create batcher loop", e);
+        fail(batch, e);
+      }
+    }
+    failQueued();
+  }
+
+  private void failQueued() {
+    List<PendingCreate> leftovers = new ArrayList<>();
+    queue.drainTo(leftovers);
+    fail(leftovers, new IllegalStateException("Create batcher is shutting down"));
+  }
+
+  // completeExceptionally no pisa a los que ya tienen resultado
+  private static void fail(List<PendingCreate> batch, Throwable error) {
+    batch.forEach(p -> p.result.completeExceptionally(error));
+  }
+
+  private void flush(List<PendingCreate> batch) {
+    try {
+      List<PendingCreate> accepted = transactionTemplate.execute(status -> writeBatch(batch));
+      // Recién después del commit publico y respondo a las requests
+      accepted.forEach(this::confirm);
+    } catch (DataIntegrityViolationException e) {
+      // El UNIQUE de la base rechazó alguna fila (carrera con otra instancia/otro camino de
+      // escritura) u otra restricción: reintento fila por fila para no castigar a todo el batch.
+      log.debug("Batch insert hit a constraint violation, retrying {} creates one by one", batch.size());
+      batch.stream().filter(p -> !p.result.isDone()).forEach(this::flushSingle);
+    } catch (RuntimeException e) {
+      batch.forEach(p -> p.result.completeExceptionally(e));
+    }
+  }
+
+  // Fila confirmada: primero el evento (caches, read model, SSE...), después la respuesta
+  private void confirm(PendingCreate p) {
+    try {
+      eventPublisher.publishEvent(CustomerChangedEvent.created(p.saved));
+    } catch (RuntimeException e) {
+      // La fila ya está confirmada: un listener roto no convierte el alta en error
+      log.warn("Listener failed for batched create of customer {}", p.saved.getId(), e);
+    }
+    p.result.complete(p.saved);
+  }
+
+  // Se ejecuta dentro de la transacción: devuelve las altas insertadas (sin completar todavía)
+  private List<PendingCreate> writeBatch(List<PendingCreate> batch) {
+    Set<String> emails = new HashSet<>();
+    batch.forEach(p -> emails.add(p.customer.getEmail()));
+
+    // 1) Chequeo de duplicados set-based: una sola consulta para todo el batch
+    Set<String> taken = new HashSet<>(namedJdbcTemplate.queryForList(
+        "SELECT email FROM customer WHERE email IN (:emails)", Map.of("emails", emails), String.class));
+
+    List<PendingCreate> accepted = new ArrayList<>(batch.size());
+    for (PendingCreate p : batch) {
+      String email = p.customer.getEmail();
+      // "taken" también evita duplicados DENTRO del mismo batch: gana el primero
+      if (!taken.add(email)) {
+        p.result.completeExceptionally(new DuplicateEmailException("Email already exists: " + email));
+      } else {
+        accepted.add(p);
+      }
+    }
+    if (accepted.isEmpty()) {
+      return accepted;
+    }
+
+    // 2) INSERT batcheado devolviendo los IDs generados
+    GeneratedKeyHolder keys = new GeneratedKeyHolder();
+    jdbcTemplate.batchUpdate(
+        con -> con.prepareStatement(INSERT_SQL, new String[] { "id" }),
+        new BatchPreparedStatementSetter() {
+          @Override
+          public void setValues(PreparedStatement ps, int i) throws SQLException {
+            bind(ps, accepted.get(i).customer);
+          }
+
+          @Override
+          public int getBatchSize() {
+            return accepted.size();
+          }
+        },
+        keys);
+
+    List<Map<String, Object>> keyList = keys.getKeyList();
+    for (int i = 0; i < accepted.size(); i++) {
+      PendingCreate p = accepted.get(i);
+      p.saved = withId(((Number) keyList.get(i).get("id")).longValue(), p.customer);
+    }
+    return accepted;
+  }
+
+  // Camino de respaldo: una transacción por alta (mismo resultado que el modo normal)
+  private void flushSingle(PendingCreate p) {
+    try {
+      transactionTemplate.executeWithoutResult(status -> writeBatch(List.of(p)));
+      if (!p.result.isDone()) {
+        confirm(p);
+      }
+    } catch (DataIntegrityViolationException e) {
+      p.result.completeExceptionally(isDuplicateEmail(e)
+          ? new DuplicateEmailException("Email already exists: " + p.customer.getEmail())
+          : e);
+    } catch (RuntimeException e) {
+      p.result.completeExceptionally(e);
+    }
+  }
+
+  /**
+   * ¿Es el UNIQUE de email? unique_violation (23505) sobre el índice/constraint de email:
+   * ux_customer_email (V1) o la PK de customer_email (V4). El id lo genera la base, así que
+   * es el único UNIQUE que un INSERT puede romper; NOT NULL, largo, etc. no son un 409.
+   */
+  static boolean isDuplicateEmail(DataIntegrityViolationException e) {
+    for (Throwable t = e; t != null; t = t.getCause()) {
+      if (t instanceof SQLException sql && UNIQUE_VIOLATION.equals(sql.getSQLState())) {
+        String message = sql.getMessage();
+        return message != null && message.toLowerCase(Locale.ROOT).contains("email");
+      }
+    }
+    return false;
+  }
+
+  private static void bind(PreparedStatement ps, Customer c) throws SQLException {
+    ps.setString(1, c.getFirstName());
+    ps.setString(2, c.getLastName());
+    ps.setString(3, c.getEmail());
+    ps.setString(4, c.getPhone());
+    ps.setString(5, c.getAddress());
+    ps.setTimestamp(6, c.getCreatedAt() != null ? Timestamp.valueOf(c.getCreatedAt()) : null);
+    ps.setTimestamp(7, c.getUpdatedAt() != null ? Timestamp.valueOf(c.getUpdatedAt()) : null);
+  }
+
+  // Construyo el cliente "guardado" con el ID asignado por la base y los timestamps originales
+  private static Customer withId(long id, Customer source) {
+    Customer saved = new Customer(id, source.getFirstName(), source.getLastName(), source.getEmail(),
+        source.getPhone(), source.getAddress());
+    saved.setCreatedAt(source.getCreatedAt());
+    saved.setUpdatedAt(source.getUpdatedAt());
+    return saved;
+  }
+
+  // Alta encolada esperando su flush
+  private static final class PendingCreate {
+    private final Customer customer;
+    private final CompletableFuture<Customer> result = new CompletableFuture<>();
+    private Customer saved;
+
+    private PendingCreate(Customer customer) {
+      this.customer = customer;
+    }
+  }
+}
@@ -0,0 +1,267 @@
+package com.example.customer_management_app.bulk;
+
+import java.sql.Timestamp;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.customer_management_app.Customer;
+import com.example.customer_management_app.dto.BulkDeleteRequest;
+import com.example.customer_management_app.dto.BulkDeleteResponse;
+import com.example.customer_management_app.events.CustomerChangedEvent;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Borrado masivo por lista de IDs o por término de búsqueda, en chunks.
+ *
+ * ¿Por qué en chunks?
+ * - Un DELETE de 1M de filas en una sola transacción retiene locks todo el tiempo,
+ *   genera una ráfaga de WAL y, si falla al final, hace rollback de todo.
+ * - Acá cada chunk (app.bulk-delete.chunk-size filas) es una transacción corta:
+ *   1) SELECT de las filas del chunk (las necesito para publicar los eventos)
+ *   2) DELETE ... WHERE id IN (...)
+ *   3) commit -> el progreso avanza y los listeners (ej. autocompletado) se enteran
+ * - Entre chunks puedo dormir app.bulk-delete.pause-ms para darle aire a la réplica/vacuum.
+ *
+ * Por término de búsqueda recorro por keyset (id &gt; último) para no re-escanear lo ya visto.
+ *
+ * Si falla un chunk, los anteriores quedan confirmados: el resultado dice cuántos se borraron.
+ *
+ * Borra en la base principal: con app.sharding.enabled=true no se crea y el endpoint responde 501
+ * (si no, reportaría COMPLETED con 0 filas borradas).
+ */
+@Component
+@ConditionalOnExpression("!${app.sharding.enabled:false}")
+public class CustomerBulkDeleter {
+
+  private static final Logger log = LoggerFactory.getLogger(CustomerBulkDeleter.class);
+
+  private static final int MAX_TRACKED_JOBS = 100;
+
+  private static final String SELECT_COLUMNS =
+      "SELECT id, first_name, last_name, email, phone, address, created_at, updated_at FROM customer ";
+
+  private final NamedParameterJdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final ApplicationEventPublisher eventPublisher;
+  private final Counter deletedCounter;
+  private final int chunkSize;
+  private final long pauseMillis;
+
+  private final ExecutorService runner = Executors.newSingleThreadExecutor(r -> {
+    Thread t = new Thread(r, "customer-bulk-delete");
+    t.setDaemon(true);
+    return t;
+  });
+
+  // Últimos jobs (para consultar progreso); los más viejos se descartan
+  private final Map<String, Progress> jobs = Collections.synchronizedMap(new LinkedHashMap<>() {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, Progress> eldest) {
+      return size() > MAX_TRACKED_JOBS;
+    }
+  });
+
+  public CustomerBulkDeleter(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+      ApplicationEventPublisher eventPublisher, MeterRegistry meterRegistry,
+      @Value("${app.bulk-delete.chunk-size:500}") int chunkSize,
+      @Value("${app.bulk-delete.pause-ms:0}") long pauseMillis) {
+    if (chunkSize < 1) {
+      throw new IllegalArgumentException("app.bulk-delete.chunk-size must be >= 1");
+    }
+    this.jdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.eventPublisher = eventPublisher;
+    this.deletedCounter = Counter.builder("customers.bulk-delete.rows")
+        .description("Customers deleted by bulk delete")
+        .register(meterRegistry);
+    this.chunkSize = chunkSize;
+    this.pauseMillis = pauseMillis;
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    runner.shutdownNow();
+  }
+
+  /**
+   * Borra en el hilo actual y devuelve el resultado final.
+   */
+  public BulkDeleteResponse deleteNow(BulkDeleteRequest request) {
+    Progress progress = register();
+    execute(request, progress);
+    return progress.snapshot();
+  }
+
+  /**
+   * Lanza el borrado en background y devuelve enseguida (status RUNNING).
+   */
+  public BulkDeleteResponse deleteAsync(BulkDeleteRequest request) {
+    Progress progress = register();
+    runner.execute(() -> execute(request, progress));
+    return progress.snapshot();
+  }
+
+  public Optional<BulkDeleteResponse> progress(String jobId) {
+    return Optional.ofNullable(jobs.get(jobId)).map(Progress::snapshot);
+  }
+
+  private Progress register() {
+    Progress progress = new Progress(UUID.randomUUID().toString());
+    jobs.put(progress.jobId, progress);
+    return progress;
+  }
+
+  private void execute(BulkDeleteRequest request, Progress progress) {
+    try {
+      if (request.getIds() != null && !request.getIds().isEmpty()) {
+        deleteByIds(request.getIds(), progress);
+      } else {
+        deleteBySearch(request.getQ(), progress);
+      }
+      progress.finish("COMPLETED", null);
+    } catch (RuntimeException e) {
+      log.error("Bulk delete {} failed after {} rows", progress.jobId, progress.deleted, e);
+      progress.finish("FAILED", e.getMessage());
+    }
+    log.info("Bulk delete {} {}: {} rows in {} chunks", progress.jobId, progress.status, progress.deleted, progress.chunks);
+  }
+
+  private void deleteByIds(List<Long> ids, Progress progress) {
+    List<Long> distinct = new ArrayList<>(new LinkedHashSet<>(ids));
+    for (int from = 0; from < distinct.size(); from += chunkSize) {
+      List<Long> chunk = distinct.subList(from, Math.min(from + chunkSize, distinct.size()));
+      deleteChunk(SELECT_COLUMNS + "WHERE id IN (:ids)", Map.of("ids", chunk), progress);
+      pause();
+    }
+  }
+
+  private void deleteBySearch(String term, Progress progress) {
+    String pattern = "%" + escapeLike(term.trim().toLowerCase(Locale.ROOT)) + "%";
+    String sql = SELECT_COLUMNS
+        + "WHERE id > :lastId AND (LOWER(first_name) LIKE :p ESCAPE '\\' OR LOWER(last_name) LIKE :p ESCAPE '\\' "
+        + "OR LOWER(email) LIKE :p ESCAPE '\\' OR LOWER(phone) LIKE :p ESCAPE '\\' OR LOWER(address) LIKE :p ESCAPE '\\') "
+        + "ORDER BY id LIMIT :limit";
+    long lastId = 0;
+    while (true) {
+      Map<String, Object> params = Map.of("lastId", lastId, "p", pattern, "limit", chunkSize);
+      long maxId = deleteChunk(sql, params, progress);
+      if (maxId < 0) {
+        return;
+      }
+      lastId = maxId;
+      pause();
+    }
+  }
+
+  // Un chunk = una transacción corta. Devuelve el mayor id borrado (-1 si no había filas).
+  private long deleteChunk(String selectSql, Map<String, Object> params, Progress progress) {
+    ChunkResult result = transactionTemplate.execute(status -> {
+      List<Customer> rows = jdbcTemplate.query(selectSql, params, CUSTOMER_ROW);
+      if (rows.isEmpty()) {
+        return new ChunkResult(0, -1L);
+      }
+      List<Long> ids = rows.stream().map(Customer::getId).toList();
+      int deleted = jdbcTemplate.update("DELETE FROM customer WHERE id IN (:ids)", Map.of("ids", ids));
+      // Los listeners @TransactionalEventListener corren después del commit de este chunk
+      rows.forEach(c -> eventPublisher.publishEvent(CustomerChangedEvent.deleted(c.getId(), c)));
+      return new ChunkResult(deleted, ids.stream().mapToLong(Long::longValue).max().orElse(-1L));
+    });
+    // Recién confirmado el commit cuento el chunk como hecho
+    if (result.maxId() >= 0) {
+      progress.add(result.deleted());
+      deletedCounter.increment(result.deleted());
+    }
+    return result.maxId();
+  }
+
+  private record ChunkResult(int deleted, long maxId) {}
+
+  private void pause() {
+    if (pauseMillis <= 0) {
+      return;
+    }
+    try {
+      Thread.sleep(pauseMillis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Bulk delete interrupted", e);
+    }
+  }
+
+  private static String escapeLike(String s) {
+    return s.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+  }
+
+  private static final RowMapper<Customer> CUSTOMER_ROW = (rs, n) -> {
+    Customer c = new Customer(rs.getLong("id"), rs.getString("first_name"), rs.getString("last_name"),
+        rs.getString("email"), rs.getString("phone"), rs.getString("address"));
+    Timestamp created = rs.getTimestamp("created_at");
+    Timestamp updated = rs.getTimestamp("updated_at");
+    c.setCreatedAt(created != null ? created.toLocalDateTime() : null);
+    c.setUpdatedAt(updated != null ? updated.toLocalDateTime() : null);
+    return c;
+  };
+
+  // Estado mutable de un job (lo escribe un solo hilo; lo leen los GET de progreso)
+  private static final class Progress {
+    private final String jobId;
+    private final OffsetDateTime startedAt = OffsetDateTime.now();
+    private volatile String status = "RUNNING";
+    private volatile long deleted;
+    private volatile int chunks;
+    private volatile OffsetDateTime finishedAt;
+    private volatile String error;
+
+    private Progress(String jobId) {
+      this.jobId = jobId;
+    }
+
+    private void add(int rows) {
+      deleted += rows;
+      chunks++;
+    }
+
+    private void finish(String finalStatus, String errorMessage) {
+      error = errorMessage;
+      finishedAt = OffsetDateTime.now();
+      status = finalStatus;
+    }
+
+    private BulkDeleteResponse snapshot() {
+      BulkDeleteResponse r = new BulkDeleteResponse();
+      r.setJobId(jobId);
+      r.setStatus(status);
+      r.setDeleted(deleted);
+      r.setChunks(chunks);
+      r.setStartedAt(startedAt);
+      r.setFinishedAt(finishedAt);
+      r.setError(error);
+      return r;
+    }
+  }
+}
@@ -0,0 +1,229 @@
+package com.example.customer_management_app.coalescing;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.customer_management_app.events.CustomerChangedEvent;
+import com.example.customer_management_app.invalidation.CustomerInvalidation;
+import com.example.customer_management_app.invalidation.LocalCustomerCache;
+import com.example.customer_management_app.jdbc.QueryDeadline;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Single-flight para lecturas idénticas concurrentes.
+ *
+ * ¿Qué resuelve?
+ * - En campañas muchos usuarios piden el mismo /{id} o el mismo /search/page?q=... al mismo tiempo.
+ * - Sin esto, cada request ejecuta su propio SQL idéntico.
+ * - Con esto, el primero ("leader") ejecuta la consulta y los demás ("followers")
+ *   esperan y reciben el mismo resultado (cada uno su propia copia, ver execute).
+ *
+ * Consistencia:
+ * - Toda clave lleva el epoch de escrituras: cada CustomerChangedEvent (después del commit)
+ *   y cada cambio de otra instancia (LocalCustomerCache) lo incrementan.
+ * - Así un GET que llega después de un PUT confirmado nunca se suma a una lectura que
+ *   arrancó antes del commit (y que podría devolver la fila vieja).
+ *
+ * Un leader trabado no retiene a los followers para siempre: esperan como mucho
+ * app.coalescing.follower-timeout-ms y responden 504 (QueryTimeoutException).
+ *
+ * El SQL del leader corre con el plazo de SU request (QueryDeadline): si su cliente se desconecta
+ * o se le acaba el plazo, la consulta se cancela. Ese error es del leader, no de la lectura: los
+ * followers no lo reciben, vuelven a intentar (uno de ellos pasa a ser el leader) con su propio
+ * plazo, dentro del mismo follower-timeout-ms.
+ *
+ * ¿Qué NO es?
+ * - No es un cache: en cuanto la consulta termina, la clave se libera.
+ *   Una request que llega después ejecuta su propia consulta (datos frescos).
+ *
+ * Métricas (Micrometer):
+ * - customers.coalescing.requests{method, role=leader|follower|timeout}
+ *   Tasa de coalescing = follower / (leader + follower).
+ *   timeout = followers que se cansaron de esperar al leader.
+ *   retry = followers que volvieron a intentar porque el leader abandonó (cancelado o sin plazo).
+ */
+@Component
+@ConditionalOnProperty(name = "app.coalescing.enabled", havingValue = "true", matchIfMissing = true)
+public class ReadCoalescer implements LocalCustomerCache {
+
+  // Consultas en vuelo: clave normalizada -> resultado futuro compartido
+  private final ConcurrentMap<Key, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+  // Epoch de escrituras: va en todas las claves
+  private final AtomicLong writeEpoch = new AtomicLong();
+
+  private final MeterRegistry meterRegistry;
+  private final long followerTimeoutMs;
+
+  public ReadCoalescer(MeterRegistry meterRegistry) {
+    this(meterRegistry, 10_000);
+  }
+
+  @Autowired
+  public ReadCoalescer(MeterRegistry meterRegistry,
+                       @Value("${app.coalescing.follower-timeout-ms:10000}") long followerTimeoutMs) {
+    this.meterRegistry = meterRegistry;
+    this.followerTimeoutMs = followerTimeoutMs;
+  }
+
+  /**
+   * Ejecuta el loader una sola vez por clave mientras haya una ejecución en curso.
+   *
+   * @param method nombre lógico de la operación (parte de la clave y tag de métricas)
+   * @param args   argumentos YA normalizados (trim, lower-case, etc.)
+   * @param loader consulta real a la base
+   * @return resultado compartido entre todas las requests concurrentes con la misma clave
+   */
+  public <T> T execute(String method, List<?> args, Supplier<T> loader) {
+    return execute(method, args, loader, UnaryOperator.identity());
+  }
+
+  /**
+   * Igual que {@link #execute(String, List, Supplier)}, pero cada follower recibe
+   * copy(resultado): nadie comparte una instancia mutable (ej. un Customer) con otra request.
+   */
+  @SuppressWarnings("unchecked")
+  public <T> T execute(String method, List<?> args, Supplier<T> loader, UnaryOperator<T> copy) {
+    long waitUntil = 0L;
+    while (true) {
+      Key key = new Key(method, args, writeEpoch.get());
+      CompletableFuture<Object> mine = new CompletableFuture<>();
+      CompletableFuture<Object> existing = inFlight.putIfAbsent(key, mine);
+
+      if (existing != null) {
+        // Follower: espero el resultado del leader (acotado, también entre reintentos)
+        counter(method, "follower").increment();
+        if (waitUntil == 0L) {
+          waitUntil = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(followerTimeoutMs);
+        }
+        try {
+          return copy.apply((T) await(method, existing, waitUntil));
+        } catch (LeaderAbandoned e) {
+          counter(method, "retry").increment();
+          continue;
+        }
+      }
+
+      // Leader: ejecuto la consulta y publico el resultado (o el error) a los followers.
+      // Libero la clave ANTES de publicar: la próxima request (o el follower que reintenta)
+      // ejecuta una consulta nueva en vez de volver a encontrar este future ya resuelto.
+      counter(method, "leader").increment();
+      T result;
+      try {
+        result = loader.get();
+      } catch (RuntimeException | Error e) {
+        inFlight.remove(key, mine);
+        mine.completeExceptionally(abandoned(e) ? new LeaderAbandoned(e) : e);
+        throw e;
+      }
+      inFlight.remove(key, mine);
+      mine.complete(result);
+      return result;
+    }
+  }
+
+  // Cantidad de claves en vuelo (útil para tests y diagnóstico)
+  public int inFlightCount() {
+    return inFlight.size();
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onCustomerChanged(CustomerChangedEvent event) {
+    writeEpoch.incrementAndGet();
+  }
+
+  @Override
+  public void evict(CustomerInvalidation invalidation) {
+    writeEpoch.incrementAndGet();
+  }
+
+  @Override
+  public void evictAll() {
+    writeEpoch.incrementAndGet();
+  }
+
+  private Object await(String method, CompletableFuture<Object> future, long waitUntil) {
+    try {
+      // get(timeout) y no orTimeout: orTimeout completaría el future compartido para todos
+      return future.get(Math.max(0L, waitUntil - System.nanoTime()), TimeUnit.NANOSECONDS);
+    } catch (TimeoutException e) {
+      counter(method, "timeout").increment();
+      throw new QueryTimeoutException("Timed out after " + followerTimeoutMs + " ms waiting for in-flight " + method);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new QueryTimeoutException("Interrupted while waiting for in-flight " + method);
+    } catch (ExecutionException e) {
+      // Propago la misma excepción que vio el leader (ej. IllegalArgumentException)
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException re) {
+        throw re;
+      }
+      if (cause instanceof Error err) {
+        throw err;
+      }
+      throw new CompletionException(cause);
+    }
+  }
+
+  /**
+   * ¿El leader falló por su request y no por la lectura? Su cliente se fue (deadline cancelado)
+   * o la consulta se cortó por tiempo: con el plazo de cada follower puede que sí termine.
+   */
+  private static boolean abandoned(Throwable error) {
+    QueryDeadline deadline = QueryDeadline.current();
+    if (deadline != null && deadline.isCancelled()) {
+      return true;
+    }
+    for (Throwable t = error; t != null; t = t.getCause()) {
+      if (t instanceof QueryTimeoutException || t instanceof jakarta.persistence.QueryTimeoutException) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private Counter counter(String method, String role) {
+    // Micrometer cachea el meter por nombre+tags, así que registrar en cada llamada es barato
+    return Counter.builder("customers.coalescing.requests")
+        .description("Reads served by the single-flight layer (role=leader ran the query, role=follower shared it)")
+        .tag("method", method)
+        .tag("role", role)
+        .register(meterRegistry);
+  }
+
+  // Error del leader que los followers no heredan: reintentan (ver abandoned)
+  private static final class LeaderAbandoned extends RuntimeException {
+    LeaderAbandoned(Throwable cause) {
+      super(cause.getMessage(), cause, false, false);
+    }
+  }
+
+  // Clave: método + argumentos normalizados + epoch de escrituras
+  private record Key(String method, List<?> args, long epoch) {
+    Key {
+      Objects.requireNonNull(method);
+      args = Collections.unmodifiableList(new ArrayList<>(args));
+    }
+  }
+}
@@ -0,0 +1,106 @@
+package com.example.customer_management_app.config;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.springframework.core.env.Environment;
+
+/**
+ * Interruptores que Spring AOT deja fijos en el build (mvn -Pfast-startup, imagen runtime-fast).
+ *
+ * ¿Por qué?
+ * - process-aot evalúa @Profile, @ConditionalOnProperty y @ConditionalOnExpression UNA vez, con los
+ *   perfiles del pom (prod,fast-startup), y genera solo los beans que pasaron.
+ * - Con -Dspring.aot.enabled=true esas condiciones no se vuelven a evaluar: un SHARDING_ENABLED=true
+ *   en runtime no crearía los beans de sharding, pero sí apagaría los que dependen de que esté en false.
+ *
+ * Qué hago:
+ * - En process-aot ({@link FrozenConditionsAotProcessor}) guardo el valor efectivo de cada interruptor
+ *   de {@link #TOGGLES} y de cada perfil de {@link #BEAN_PROFILES} en {@value #RESOURCE}.
+ * - Al arrancar con AOT ({@link FrozenConditionsCheck}) comparo con el entorno real: si algo difiere,
+ *   la app no arranca y el error dice qué valor volver atrás (o que hay que reconstruir la imagen).
+ *
+ * Las propiedades que no están en condiciones (ej. app.response-cache.enabled) se leen en runtime
+ * como siempre. Las condiciones de las auto-configuraciones de Spring Boot (ej. spring.flyway.enabled)
+ * también quedan fijas, pero no se controlan acá: ver docs/09-deployment-docker.md.
+ */
+public final class FrozenConditions {
+
+  public static final String RESOURCE = "META-INF/customer-app/aot-conditions.properties";
+
+  /**
+   * Propiedades usadas en @ConditionalOnProperty / @ConditionalOnExpression de la app,
+   * con el valor que toma la condición si no están definidas (matchIfMissing o el default de ${...}).
+   * FrozenConditionsTest falla si una condición nueva usa una propiedad que no está acá.
+   */
+  public static final Map<String, Boolean> TOGGLES = Collections.unmodifiableMap(new TreeMap<>(Map.ofEntries(
+      Map.entry("app.sharding.enabled", false),
+      Map.entry("app.coalescing.enabled", true),
+      Map.entry("app.create-batching.enabled", false),
+      Map.entry("app.read-model.enabled", false),
+      Map.entry("app.snapshot.enabled", false),
+      Map.entry("app.archive.enabled", false),
+      Map.entry("app.invalidation.enabled", false),
+      Map.entry("app.warmup.enabled", false),
+      Map.entry("app.query-timeout.enabled", true),
+      Map.entry("app.sql-budget.enabled", true),
+      Map.entry("app.tracing.file.enabled", false),
+      Map.entry("app.jfr.continuous.enabled", false),
+      Map.entry("app.pool.adaptive.enabled", false))));
+
+  // Perfiles que habilitan beans (@Profile): el resto de los perfiles solo aporta propiedades
+  public static final Set<String> BEAN_PROFILES = Set.of("dev", "prod");
+
+  private static final String PROFILE_PREFIX = "profile.";
+
+  private FrozenConditions() {
+  }
+
+  /**
+   * Valores efectivos en este entorno: lo que ve process-aot en el build, o lo que ve el arranque.
+   */
+  public static Properties snapshot(Environment environment) {
+    Properties values = new Properties();
+    Set<String> active = Set.of(environment.getActiveProfiles());
+    for (String profile : BEAN_PROFILES) {
+      values.setProperty(PROFILE_PREFIX + profile, String.valueOf(active.contains(profile)));
+    }
+    TOGGLES.forEach((name, missing) -> values.setProperty(name,
+        String.valueOf(Boolean.parseBoolean(environment.getProperty(name, String.valueOf(missing))))));
+    return values;
+  }
+
+  /**
+   * Falla si el entorno no coincide con el del build. Una clave que el build no guardó
+   * (imagen anterior a un interruptor nuevo) no se compara.
+   */
+  public static void verify(Properties built, Environment environment) {
+    Properties now = snapshot(environment);
+    List<String> differences = new ArrayList<>();
+    for (String key : new TreeSet<>(now.stringPropertyNames())) {
+      String expected = built.getProperty(key);
+      String actual = now.getProperty(key);
+      if (expected == null || expected.equals(actual)) {
+        continue;
+      }
+      if (key.startsWith(PROFILE_PREFIX)) {
+        String profile = key.substring(PROFILE_PREFIX.length());
+        differences.add("profile '" + profile + "' is " + (Boolean.parseBoolean(actual) ? "active" : "not active")
+            + " (built " + (Boolean.parseBoolean(expected) ? "with" : "without") + " it)");
+      } else {
+        differences.add(key + "=" + actual + " (built with " + expected + ")");
+      }
+    }
+    if (!differences.isEmpty()) {
+      throw new IllegalStateException("This build was processed by Spring AOT, which fixed its bean conditions at build time. "
+          + "Runtime configuration differs: " + String.join("; ", differences)
+          + ". Restore the build-time values or rebuild with them (mvn -Pfast-startup, Dockerfile target runtime-fast).");
+    }
+  }
+}
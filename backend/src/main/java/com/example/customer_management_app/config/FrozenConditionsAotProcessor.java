@@ -0,0 +1,37 @@
+package com.example.customer_management_app.config;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.util.Properties;
+
+import org.springframework.beans.factory.aot.BeanFactoryInitializationAotContribution;
+import org.springframework.beans.factory.aot.BeanFactoryInitializationAotProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Environment;
+
+/**
+ * Solo corre en process-aot (registrado en META-INF/spring/aot.factories): guarda con qué valores
+ * se evaluaron las condiciones de beans, para que {@link FrozenConditionsCheck} los compare al arrancar.
+ */
+public class FrozenConditionsAotProcessor implements BeanFactoryInitializationAotProcessor {
+
+  @Override
+  public BeanFactoryInitializationAotContribution processAheadOfTime(ConfigurableListableBeanFactory beanFactory) {
+    Environment environment = beanFactory.getBean(ConfigurableApplicationContext.ENVIRONMENT_BEAN_NAME, Environment.class);
+    String content = store(FrozenConditions.snapshot(environment));
+    return (generationContext, code) ->
+        generationContext.getGeneratedFiles().addResourceFile(FrozenConditions.RESOURCE, content);
+  }
+
+  private static String store(Properties values) {
+    StringWriter out = new StringWriter();
+    try {
+      values.store(out, "Bean conditions as evaluated by process-aot (see FrozenConditions)");
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return out.toString();
+  }
+}
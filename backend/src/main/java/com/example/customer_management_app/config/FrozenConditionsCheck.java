@@ -0,0 +1,43 @@
+package com.example.customer_management_app.config;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import org.springframework.aot.AotDetector;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+
+/**
+ * Al arrancar con -Dspring.aot.enabled=true, antes de crear cualquier bean: si la configuración
+ * no coincide con la del build (ver {@link FrozenConditions}), la app no arranca.
+ *
+ * Sin AOT no hace nada: las condiciones se evalúan normalmente con la configuración real.
+ * Registrado en META-INF/spring.factories; corre después de cargar application-*.properties.
+ */
+public class FrozenConditionsCheck implements EnvironmentPostProcessor, Ordered {
+
+  @Override
+  public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+    if (!AotDetector.useGeneratedArtifacts()) {
+      return;
+    }
+    ClassPathResource resource = new ClassPathResource(FrozenConditions.RESOURCE, application.getClassLoader());
+    if (!resource.exists()) {
+      return;
+    }
+    try {
+      FrozenConditions.verify(PropertiesLoaderUtils.loadProperties(resource), environment);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not read " + FrozenConditions.RESOURCE, e);
+    }
+  }
+
+  @Override
+  public int getOrder() {
+    return Ordered.LOWEST_PRECEDENCE;
+  }
+}
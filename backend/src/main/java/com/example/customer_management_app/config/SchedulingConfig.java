@@ -0,0 +1,17 @@
+package com.example.customer_management_app.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Habilito @Scheduled para las tareas periódicas de la app
+ * (detector de fugas de conexiones, ajuste adaptativo del pool, etc.).
+ *
+ * ¿Por qué en una clase aparte?
+ * - Mantengo la clase principal limpia (solo arranque + endpoints).
+ * - Si en tests quiero apagar el scheduling, es un único lugar.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,45 @@
+package com.example.customer_management_app.dto;
+
+// DTO para el borrado masivo: o una lista de IDs, o un término de búsqueda
+// (mismo criterio que /search/page: "contiene", sin distinguir mayúsculas, en todos los campos).
+
+import java.util.List;
+
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.Size;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(name = "BulkDeleteRequest", description = "Bulk delete criteria: either ids or q (not both)")
+public class BulkDeleteRequest {
+
+    @Size(max = 100000, message = "At most 100000 ids per request")
+    @Schema(description = "Customer IDs to delete", example = "[1, 2, 3]")
+    private List<Long> ids;
+
+    @Schema(description = "Delete every customer matching this search term (contains, case-insensitive)", example = "@old-domain.com")
+    private String q;
+
+    public BulkDeleteRequest() {}
+
+    public BulkDeleteRequest(List<Long> ids, String q) {
+        this.ids = ids;
+        this.q = q;
+    }
+
+    // Exactamente un criterio. Un q vacío no se acepta: borraría toda la tabla.
+    @AssertTrue(message = "Provide either a non-empty ids list or a non-blank q")
+    @Schema(hidden = true)
+    public boolean isCriteriaValid() {
+        boolean hasIds = ids != null && !ids.isEmpty();
+        boolean hasQ = q != null && !q.isBlank();
+        return hasIds != hasQ;
+    }
+
+    // Getters y setters
+    public List<Long> getIds() { return ids; }
+    public void setIds(List<Long> ids) { this.ids = ids; }
+
+    public String getQ() { return q; }
+    public void setQ(String q) { this.q = q; }
+}
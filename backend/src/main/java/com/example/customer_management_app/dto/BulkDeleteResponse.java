@@ -0,0 +1,57 @@
+package com.example.customer_management_app.dto;
+
+// DTO con el progreso de un borrado masivo. Mientras corre, "deleted" y "chunks" van creciendo;
+// al terminar, "deleted" es la cantidad final de filas borradas.
+
+import java.time.OffsetDateTime;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(name = "BulkDeleteResponse", description = "Progress / result of a bulk delete")
+public class BulkDeleteResponse {
+
+    @Schema(description = "Job identifier (use it to poll progress)", example = "3f1c2b9e-...")
+    private String jobId;
+
+    @Schema(description = "Job status", example = "COMPLETED", allowableValues = {"RUNNING", "COMPLETED", "FAILED"})
+    private String status;
+
+    @Schema(description = "Rows deleted so far (final count when COMPLETED)", example = "1500")
+    private long deleted;
+
+    @Schema(description = "Chunks committed so far", example = "3")
+    private int chunks;
+
+    @Schema(description = "When the job started")
+    private OffsetDateTime startedAt;
+
+    @Schema(description = "When the job finished (null while running)")
+    private OffsetDateTime finishedAt;
+
+    @Schema(description = "Error message when status is FAILED")
+    private String error;
+
+    public BulkDeleteResponse() {}
+
+    // Getters y setters
+    public String getJobId() { return jobId; }
+    public void setJobId(String jobId) { this.jobId = jobId; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public long getDeleted() { return deleted; }
+    public void setDeleted(long deleted) { this.deleted = deleted; }
+
+    public int getChunks() { return chunks; }
+    public void setChunks(int chunks) { this.chunks = chunks; }
+
+    public OffsetDateTime getStartedAt() { return startedAt; }
+    public void setStartedAt(OffsetDateTime startedAt) { this.startedAt = startedAt; }
+
+    public OffsetDateTime getFinishedAt() { return finishedAt; }
+    public void setFinishedAt(OffsetDateTime finishedAt) { this.finishedAt = finishedAt; }
+
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+}
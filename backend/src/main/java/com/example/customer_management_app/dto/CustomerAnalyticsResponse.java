@@ -0,0 +1,147 @@
+package com.example.customer_management_app.dto;
+
+// DTO de las métricas de crecimiento: altas/modificaciones por período y distribuciones.
+// computedAt y watermark dicen qué tan fresco es el resultado (se sirve desde cache).
+
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(name = "CustomerAnalyticsResponse", description = "Customer growth and distribution aggregates")
+public class CustomerAnalyticsResponse {
+
+    @Schema(description = "When the aggregates were last refreshed")
+    private OffsetDateTime computedAt;
+
+    @Schema(description = "Latest updated_at seen by the last refresh; the next incremental refresh starts there")
+    private LocalDateTime watermark;
+
+    @Schema(description = "How the last refresh ran", example = "INCREMENTAL", allowableValues = {"FULL", "INCREMENTAL"})
+    private String refreshMode;
+
+    @Schema(description = "Id-range chunks re-read by the last refresh", example = "3")
+    private int chunksScanned;
+
+    @Schema(description = "Total id-range chunks", example = "32")
+    private int chunksTotal;
+
+    @Schema(description = "Rows read by the last refresh", example = "1250")
+    private long rowsScanned;
+
+    @Schema(description = "Duration of the last refresh in milliseconds", example = "84")
+    private long durationMs;
+
+    @Schema(description = "Customers counted", example = "100000")
+    private long totalCustomers;
+
+    @Schema(description = "Bucket of the series", example = "MONTH", allowableValues = {"DAY", "WEEK", "MONTH"})
+    private String period;
+
+    @Schema(description = "Customers created per period (ascending)")
+    private List<PeriodCount> created;
+
+    @Schema(description = "Customers whose last modification falls in the period (ascending)")
+    private List<PeriodCount> updated;
+
+    @Schema(description = "Distinct email domains", example = "412")
+    private long distinctDomains;
+
+    @Schema(description = "Most common email domains")
+    private List<NameCount> topDomains;
+
+    @Schema(description = "Distinct last names (case-insensitive)", example = "8731")
+    private long distinctLastNames;
+
+    @Schema(description = "Most common last names (lower-case)")
+    private List<NameCount> topLastNames;
+
+    @Schema(name = "PeriodCount", description = "Count for one period")
+    public static class PeriodCount {
+        @Schema(description = "Period label: 2025-08-13 (day), 2025-W33 (ISO week) or 2025-08 (month)", example = "2025-08")
+        private String period;
+        @Schema(example = "1520")
+        private long count;
+
+        public PeriodCount() {}
+
+        public PeriodCount(String period, long count) {
+            this.period = period;
+            this.count = count;
+        }
+
+        public String getPeriod() { return period; }
+        public void setPeriod(String period) { this.period = period; }
+
+        public long getCount() { return count; }
+        public void setCount(long count) { this.count = count; }
+    }
+
+    @Schema(name = "NameCount", description = "Count for one domain or last name")
+    public static class NameCount {
+        @Schema(example = "gmail.com")
+        private String name;
+        @Schema(example = "35120")
+        private long count;
+
+        public NameCount() {}
+
+        public NameCount(String name, long count) {
+            this.name = name;
+            this.count = count;
+        }
+
+        public String getName() { return name; }
+        public void setName(String name) { this.name = name; }
+
+        public long getCount() { return count; }
+        public void setCount(long count) { this.count = count; }
+    }
+
+    // Getters y setters
+    public OffsetDateTime getComputedAt() { return computedAt; }
+    public void setComputedAt(OffsetDateTime computedAt) { this.computedAt = computedAt; }
+
+    public LocalDateTime getWatermark() { return watermark; }
+    public void setWatermark(LocalDateTime watermark) { this.watermark = watermark; }
+
+    public String getRefreshMode() { return refreshMode; }
+    public void setRefreshMode(String refreshMode) { this.refreshMode = refreshMode; }
+
+    public int getChunksScanned() { return chunksScanned; }
+    public void setChunksScanned(int chunksScanned) { this.chunksScanned = chunksScanned; }
+
+    public int getChunksTotal() { return chunksTotal; }
+    public void setChunksTotal(int chunksTotal) { this.chunksTotal = chunksTotal; }
+
+    public long getRowsScanned() { return rowsScanned; }
+    public void setRowsScanned(long rowsScanned) { this.rowsScanned = rowsScanned; }
+
+    public long getDurationMs() { return durationMs; }
+    public void setDurationMs(long durationMs) { this.durationMs = durationMs; }
+
+    public long getTotalCustomers() { return totalCustomers; }
+    public void setTotalCustomers(long totalCustomers) { this.totalCustomers = totalCustomers; }
+
+    public String getPeriod() { return period; }
+    public void setPeriod(String period) { this.period = period; }
+
+    public List<PeriodCount> getCreated() { return created; }
+    public void setCreated(List<PeriodCount> created) { this.created = created; }
+
+    public List<PeriodCount> getUpdated() { return updated; }
+    public void setUpdated(List<PeriodCount> updated) { this.updated = updated; }
+
+    public long getDistinctDomains() { return distinctDomains; }
+    public void setDistinctDomains(long distinctDomains) { this.distinctDomains = distinctDomains; }
+
+    public List<NameCount> getTopDomains() { return topDomains; }
+    public void setTopDomains(List<NameCount> topDomains) { this.topDomains = topDomains; }
+
+    public long getDistinctLastNames() { return distinctLastNames; }
+    public void setDistinctLastNames(long distinctLastNames) { this.distinctLastNames = distinctLastNames; }
+
+    public List<NameCount> getTopLastNames() { return topLastNames; }
+    public void setTopLastNames(List<NameCount> topLastNames) { this.topLastNames = topLastNames; }
+}
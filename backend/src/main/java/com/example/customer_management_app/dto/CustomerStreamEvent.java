@@ -0,0 +1,38 @@
+package com.example.customer_management_app.dto;
+
+// DTO de los eventos "customer" de GET /api/customers/stream (SSE).
+// customer viene con los datos nuevos en CREATED/UPDATED; es null en DELETED
+// y cuando el cambio se hizo en otra instancia (el cliente lo vuelve a pedir si lo está mostrando).
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(name = "CustomerStreamEvent", description = "Customer change pushed by the SSE stream")
+public class CustomerStreamEvent {
+
+    @Schema(description = "CREATED, UPDATED or DELETED", example = "UPDATED")
+    private String type;
+
+    @Schema(description = "Customer id", example = "42")
+    private Long id;
+
+    @Schema(description = "Current customer data (null for DELETED or for changes made on another instance)")
+    private CustomerResponse customer;
+
+    public CustomerStreamEvent() {}
+
+    public CustomerStreamEvent(String type, Long id, CustomerResponse customer) {
+        this.type = type;
+        this.id = id;
+        this.customer = customer;
+    }
+
+    // Getters y setters
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public CustomerResponse getCustomer() { return customer; }
+    public void setCustomer(CustomerResponse customer) { this.customer = customer; }
+}
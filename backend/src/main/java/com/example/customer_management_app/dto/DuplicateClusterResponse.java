@@ -0,0 +1,32 @@
+package com.example.customer_management_app.dto;
+
+// DTO para un grupo de clientes que probablemente son la misma persona.
+// El score es el promedio de similitud de los pares que formaron el grupo.
+
+import java.util.List;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(name = "DuplicateClusterResponse", description = "Group of customers that are probably the same person")
+public class DuplicateClusterResponse {
+
+    @Schema(description = "Average similarity of the matched pairs (0..1)", example = "0.93")
+    private double score;
+
+    @Schema(description = "IDs of the customers in the cluster (ascending)", example = "[12, 845]")
+    private List<Long> customerIds;
+
+    public DuplicateClusterResponse() {}
+
+    public DuplicateClusterResponse(double score, List<Long> customerIds) {
+        this.score = score;
+        this.customerIds = customerIds;
+    }
+
+    // Getters y setters
+    public double getScore() { return score; }
+    public void setScore(double score) { this.score = score; }
+
+    public List<Long> getCustomerIds() { return customerIds; }
+    public void setCustomerIds(List<Long> customerIds) { this.customerIds = customerIds; }
+}
@@ -0,0 +1,76 @@
+package com.example.customer_management_app.dto;
+
+// DTO con el estado y el resultado de la última corrida de detección de duplicados.
+// Los clusters se devuelven ordenados por score; el listado completo queda en outputFile.
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(name = "DuplicateReportResponse", description = "Status and result of the duplicate-detection job")
+public class DuplicateReportResponse {
+
+    @Schema(description = "Job status", example = "COMPLETED", allowableValues = {"IDLE", "RUNNING", "COMPLETED", "FAILED"})
+    private String status;
+
+    @Schema(description = "When the job started")
+    private OffsetDateTime startedAt;
+
+    @Schema(description = "When the job finished (null while running)")
+    private OffsetDateTime finishedAt;
+
+    @Schema(description = "Customers read from the table", example = "1000000")
+    private long rowsScanned;
+
+    @Schema(description = "Pairs above the similarity threshold", example = "5321")
+    private long matchedPairs;
+
+    @Schema(description = "Blocks skipped because they were too large to compare pairwise", example = "2")
+    private long oversizedBlocks;
+
+    @Schema(description = "Total number of clusters found", example = "4210")
+    private long clusterCount;
+
+    @Schema(description = "JSON Lines file with every cluster", example = "/tmp/customer-duplicates/duplicates-20250101-120000.jsonl")
+    private String outputFile;
+
+    @Schema(description = "Error message when status is FAILED")
+    private String error;
+
+    @Schema(description = "Top clusters by score (see outputFile for the full list)")
+    private List<DuplicateClusterResponse> clusters;
+
+    public DuplicateReportResponse() {}
+
+    // Getters y setters
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public OffsetDateTime getStartedAt() { return startedAt; }
+    public void setStartedAt(OffsetDateTime startedAt) { this.startedAt = startedAt; }
+
+    public OffsetDateTime getFinishedAt() { return finishedAt; }
+    public void setFinishedAt(OffsetDateTime finishedAt) { this.finishedAt = finishedAt; }
+
+    public long getRowsScanned() { return rowsScanned; }
+    public void setRowsScanned(long rowsScanned) { this.rowsScanned = rowsScanned; }
+
+    public long getMatchedPairs() { return matchedPairs; }
+    public void setMatchedPairs(long matchedPairs) { this.matchedPairs = matchedPairs; }
+
+    public long getOversizedBlocks() { return oversizedBlocks; }
+    public void setOversizedBlocks(long oversizedBlocks) { this.oversizedBlocks = oversizedBlocks; }
+
+    public long getClusterCount() { return clusterCount; }
+    public void setClusterCount(long clusterCount) { this.clusterCount = clusterCount; }
+
+    public String getOutputFile() { return outputFile; }
+    public void setOutputFile(String outputFile) { this.outputFile = outputFile; }
+
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+
+    public List<DuplicateClusterResponse> getClusters() { return clusters; }
+    public void setClusters(List<DuplicateClusterResponse> clusters) { this.clusters = clusters; }
+}
@@ -0,0 +1,30 @@
+package com.example.customer_management_app.dto;
+
+// DTO para el autocompletado: el término sugerido y cuántos clientes lo tienen
+// (la frecuencia es lo que usamos para ordenar las sugerencias).
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(name = "SuggestionResponse", description = "Typeahead suggestion with its frequency")
+public class SuggestionResponse {
+
+    @Schema(description = "Suggested term (lower-case first name, last name or email)", example = "john")
+    private String value;
+
+    @Schema(description = "Number of customers with this term", example = "42")
+    private long count;
+
+    public SuggestionResponse() {}
+
+    public SuggestionResponse(String value, long count) {
+        this.value = value;
+        this.count = count;
+    }
+
+    // Getters y setters
+    public String getValue() { return value; }
+    public void setValue(String value) { this.value = value; }
+
+    public long getCount() { return count; }
+    public void setCount(long count) { this.count = count; }
+}
@@ -0,0 +1,435 @@
+package com.example.customer_management_app.duplicates;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.customer_management_app.dto.DuplicateClusterResponse;
+import com.example.customer_management_app.dto.DuplicateReportResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Job de detección de clientes duplicados (misma persona, distinto email/typo en el nombre/mismo teléfono).
+ *
+ * ¿Cómo escala a millones de filas con memoria acotada?
+ * 1) Scan: recorro la tabla en streaming (fetch size) y por cada cliente calculo sus claves
+ *    de bloqueo (ver {@link DuplicateMatcher}). Cada (clave, cliente) se escribe en uno de N
+ *    archivos temporales según hash(clave): todos los clientes de un mismo bloque terminan
+ *    en el mismo archivo.
+ * 2) Compare: proceso los archivos en paralelo en un ForkJoinPool. Cada tarea carga UN archivo
+ *    (≈ filas*3/N registros), agrupa por clave y compara los pares dentro de cada bloque.
+ *    Los bloques gigantes (ej. un teléfono "000-0000" compartido por miles) se saltean y se cuentan.
+ * 3) Cluster: los pares por encima del umbral se unen con union-find y se ordenan por score.
+ *    El resultado completo va a un archivo JSON Lines y los mejores quedan en memoria para el endpoint.
+ *
+ * Memoria ≈ parallelism * (registros por partición), no el tamaño de la tabla.
+ * Con 10M de clientes y 256 particiones cada partición tiene ~120k registros.
+ *
+ * No existe con app.sharding.enabled=true: el scan es sobre la base principal y no compararía
+ * clientes de distintas shards.
+ */
+@Component
+@ConditionalOnExpression("!${app.sharding.enabled:false}")
+public class DuplicateDetectionJob {
+
+  private static final Logger log = LoggerFactory.getLogger(DuplicateDetectionJob.class);
+
+  private static final DateTimeFormatter FILE_TS = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate readOnlyTx;
+  private final ObjectMapper objectMapper;
+  private final Timer runTimer;
+  private final double threshold;
+  private final int partitions;
+  private final int parallelism;
+  private final int maxBlockSize;
+  private final int maxClustersInMemory;
+  private final Path outputDir;
+
+  // Un solo job a la vez, en su propio hilo (no ocupa hilos de Tomcat)
+  private final ExecutorService runner = Executors.newSingleThreadExecutor(r -> {
+    Thread t = new Thread(r, "duplicate-detection");
+    t.setDaemon(true);
+    return t;
+  });
+  private final AtomicBoolean running = new AtomicBoolean();
+  private volatile DuplicateReportResponse lastReport = report("IDLE");
+
+  public DuplicateDetectionJob(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+      ObjectMapper objectMapper, MeterRegistry meterRegistry,
+      @Value("${app.duplicates.threshold:0.85}") double threshold,
+      @Value("${app.duplicates.partitions:256}") int partitions,
+      @Value("${app.duplicates.parallelism:0}") int parallelism,
+      @Value("${app.duplicates.max-block-size:1000}") int maxBlockSize,
+      @Value("${app.duplicates.max-clusters-in-memory:1000}") int maxClustersInMemory,
+      @Value("${app.duplicates.output-dir:${java.io.tmpdir}/customer-duplicates}") String outputDir) {
+    if (partitions < 1) {
+      throw new IllegalArgumentException("app.duplicates.partitions must be >= 1");
+    }
+    // JdbcTemplate propio con fetchSize: PostgreSQL trae la tabla por cursor y no toda junta
+    this.jdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+    this.jdbcTemplate.setFetchSize(1000);
+    this.readOnlyTx = new TransactionTemplate(transactionManager);
+    this.readOnlyTx.setReadOnly(true);
+    this.objectMapper = objectMapper;
+    this.runTimer = Timer.builder("customers.duplicates.run")
+        .description("Duration of a full duplicate-detection run")
+        .register(meterRegistry);
+    this.threshold = threshold;
+    this.partitions = partitions;
+    this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+    this.maxBlockSize = maxBlockSize;
+    this.maxClustersInMemory = maxClustersInMemory;
+    this.outputDir = Path.of(outputDir);
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    runner.shutdownNow();
+  }
+
+  /**
+   * Lanza el job en background.
+   *
+   * @return false si ya hay una corrida en curso
+   */
+  public boolean start() {
+    if (!running.compareAndSet(false, true)) {
+      return false;
+    }
+    DuplicateReportResponse started = report("RUNNING");
+    started.setStartedAt(OffsetDateTime.now());
+    lastReport = started;
+    runner.execute(() -> {
+      try {
+        run();
+      } finally {
+        running.set(false);
+      }
+    });
+    return true;
+  }
+
+  /**
+   * Estado de la última corrida con, como máximo, "limit" clusters.
+   */
+  public DuplicateReportResponse lastReport(int limit) {
+    DuplicateReportResponse current = lastReport;
+    List<DuplicateClusterResponse> clusters = current.getClusters();
+    if (clusters == null || clusters.size() <= limit) {
+      return current;
+    }
+    DuplicateReportResponse copy = copyOf(current);
+    copy.setClusters(clusters.subList(0, Math.max(0, limit)));
+    return copy;
+  }
+
+  /**
+   * Corrida sincrónica completa (start() la usa desde el hilo del job; los tests la llaman directo).
+   */
+  public DuplicateReportResponse run() {
+    OffsetDateTime startedAt = OffsetDateTime.now();
+    long t0 = System.nanoTime();
+    Path workDir = null;
+    DuplicateReportResponse result;
+    try {
+      workDir = Files.createTempDirectory("customer-dup-");
+      int[] recordsPerPartition = new int[partitions];
+      long rows = scan(workDir, recordsPerPartition);
+
+      ConcurrentMap<Pair, Double> pairs = new ConcurrentHashMap<>();
+      LongAdder oversized = new LongAdder();
+      ForkJoinPool pool = new ForkJoinPool(parallelism);
+      try {
+        pool.invoke(new CompareTask(workDir, recordsPerPartition, 0, partitions, pairs, oversized));
+      } finally {
+        pool.shutdown();
+      }
+
+      List<DuplicateClusterResponse> clusters = cluster(pairs);
+      Path file = writeClusters(clusters, startedAt);
+
+      result = report("COMPLETED");
+      result.setRowsScanned(rows);
+      result.setMatchedPairs(pairs.size());
+      result.setOversizedBlocks(oversized.sum());
+      result.setClusterCount(clusters.size());
+      result.setOutputFile(file.toAbsolutePath().toString());
+      result.setClusters(List.copyOf(clusters.subList(0, Math.min(clusters.size(), maxClustersInMemory))));
+      log.info("Duplicate detection finished: {} rows, {} pairs, {} clusters -> {}",
+          rows, pairs.size(), clusters.size(), file);
+    } catch (IOException | RuntimeException e) {
+      log.error("Duplicate detection failed", e);
+      result = report("FAILED");
+      result.setError(e.getMessage());
+    } finally {
+      deleteQuietly(workDir);
+      runTimer.record(System.nanoTime() - t0, TimeUnit.NANOSECONDS);
+    }
+    result.setStartedAt(startedAt);
+    result.setFinishedAt(OffsetDateTime.now());
+    lastReport = result;
+    return result;
+  }
+
+  // 1) Scan en streaming: (clave, fila) -> archivo de partición según hash(clave)
+  private long scan(Path workDir, int[] recordsPerPartition) throws IOException {
+    DataOutputStream[] out = new DataOutputStream[partitions];
+    try {
+      for (int p = 0; p < partitions; p++) {
+        out[p] = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(partitionFile(workDir, p)), 16 * 1024));
+      }
+      long[] rows = new long[1];
+      readOnlyTx.executeWithoutResult(status -> jdbcTemplate.query(
+          "SELECT id, first_name, last_name, email, phone FROM customer",
+          rs -> {
+            String firstName = rs.getString(2);
+            String lastName = rs.getString(3);
+            DuplicateMatcher.Row row = DuplicateMatcher.Row.of(rs.getLong(1), firstName, lastName,
+                rs.getString(4), rs.getString(5));
+            for (String key : DuplicateMatcher.blockingKeys(row, firstName, lastName)) {
+              int p = Math.floorMod(key.hashCode(), partitions);
+              write(out[p], key, row);
+              recordsPerPartition[p]++;
+            }
+            rows[0]++;
+          }));
+      return rows[0];
+    } finally {
+      for (DataOutputStream o : out) {
+        if (o != null) {
+          o.close();
+        }
+      }
+    }
+  }
+
+  // 2) Compare: divide el rango de particiones hasta llegar a una por tarea
+  private final class CompareTask extends RecursiveAction {
+    private final Path workDir;
+    private final int[] recordsPerPartition;
+    private final int from;
+    private final int to;
+    private final ConcurrentMap<Pair, Double> pairs;
+    private final LongAdder oversized;
+
+    private CompareTask(Path workDir, int[] recordsPerPartition, int from, int to,
+        ConcurrentMap<Pair, Double> pairs, LongAdder oversized) {
+      this.workDir = workDir;
+      this.recordsPerPartition = recordsPerPartition;
+      this.from = from;
+      this.to = to;
+      this.pairs = pairs;
+      this.oversized = oversized;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from == 1) {
+        comparePartition(workDir, from, recordsPerPartition[from], pairs, oversized);
+        return;
+      }
+      int mid = (from + to) >>> 1;
+      invokeAll(new CompareTask(workDir, recordsPerPartition, from, mid, pairs, oversized),
+          new CompareTask(workDir, recordsPerPartition, mid, to, pairs, oversized));
+    }
+  }
+
+  private void comparePartition(Path workDir, int partition, int records,
+      ConcurrentMap<Pair, Double> pairs, LongAdder oversized) {
+    if (records < 2) {
+      return;
+    }
+    Map<String, List<DuplicateMatcher.Row>> blocks = new HashMap<>();
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+        Files.newInputStream(partitionFile(workDir, partition)), 16 * 1024))) {
+      for (int i = 0; i < records; i++) {
+        String key = in.readUTF();
+        DuplicateMatcher.Row row = new DuplicateMatcher.Row(in.readLong(), in.readUTF(), in.readUTF(),
+            in.readUTF(), in.readUTF());
+        blocks.computeIfAbsent(key, k -> new ArrayList<>(2)).add(row);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    for (List<DuplicateMatcher.Row> block : blocks.values()) {
+      if (block.size() < 2) {
+        continue;
+      }
+      if (block.size() > maxBlockSize) {
+        oversized.increment();
+        continue;
+      }
+      for (int i = 0; i < block.size(); i++) {
+        for (int j = i + 1; j < block.size(); j++) {
+          DuplicateMatcher.Row a = block.get(i);
+          DuplicateMatcher.Row b = block.get(j);
+          double score = DuplicateMatcher.score(a, b);
+          if (score >= threshold) {
+            // El mismo par puede aparecer en varios bloques (mismo teléfono Y mismo email)
+            pairs.merge(Pair.of(a.id(), b.id()), score, Math::max);
+          }
+        }
+      }
+    }
+  }
+
+  // 3) Union-find sobre los pares; score del cluster = promedio de sus pares
+  private static List<DuplicateClusterResponse> cluster(Map<Pair, Double> pairs) {
+    Map<Long, Long> parent = new HashMap<>();
+    for (Pair pair : pairs.keySet()) {
+      union(parent, pair.a(), pair.b());
+    }
+    Map<Long, List<Long>> members = new HashMap<>();
+    for (Long id : parent.keySet()) {
+      members.computeIfAbsent(find(parent, id), r -> new ArrayList<>()).add(id);
+    }
+    Map<Long, double[]> scoreSums = new HashMap<>();
+    pairs.forEach((pair, score) -> {
+      double[] acc = scoreSums.computeIfAbsent(find(parent, pair.a()), r -> new double[2]);
+      acc[0] += score;
+      acc[1]++;
+    });
+    List<DuplicateClusterResponse> clusters = new ArrayList<>(members.size());
+    members.forEach((root, ids) -> {
+      ids.sort(null);
+      double[] acc = scoreSums.get(root);
+      double avg = Math.round(acc[0] / acc[1] * 1000) / 1000.0;
+      clusters.add(new DuplicateClusterResponse(avg, ids));
+    });
+    clusters.sort(Comparator.comparingDouble(DuplicateClusterResponse::getScore).reversed()
+        .thenComparing(c -> c.getCustomerIds().get(0)));
+    return clusters;
+  }
+
+  private static long find(Map<Long, Long> parent, long id) {
+    long root = id;
+    Long p;
+    while ((p = parent.get(root)) != null && p != root) {
+      root = p;
+    }
+    // Compresión de camino
+    long cur = id;
+    while (cur != root) {
+      long next = parent.get(cur);
+      parent.put(cur, root);
+      cur = next;
+    }
+    return root;
+  }
+
+  private static void union(Map<Long, Long> parent, long a, long b) {
+    parent.putIfAbsent(a, a);
+    parent.putIfAbsent(b, b);
+    long ra = find(parent, a);
+    long rb = find(parent, b);
+    if (ra != rb) {
+      parent.put(Math.max(ra, rb), Math.min(ra, rb));
+    }
+  }
+
+  private Path writeClusters(List<DuplicateClusterResponse> clusters, OffsetDateTime startedAt) throws IOException {
+    Files.createDirectories(outputDir);
+    Path file = outputDir.resolve("duplicates-" + FILE_TS.format(startedAt) + ".jsonl");
+    try (BufferedWriter w = Files.newBufferedWriter(file)) {
+      for (DuplicateClusterResponse c : clusters) {
+        w.write(objectMapper.writeValueAsString(c));
+        w.newLine();
+      }
+    }
+    return file;
+  }
+
+  private static void write(DataOutputStream out, String key, DuplicateMatcher.Row row) {
+    try {
+      out.writeUTF(key);
+      out.writeLong(row.id());
+      out.writeUTF(row.fullName());
+      out.writeUTF(row.email());
+      out.writeUTF(row.emailLocal());
+      out.writeUTF(row.phone());
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static Path partitionFile(Path workDir, int partition) {
+    return workDir.resolve("part-" + partition + ".bin");
+  }
+
+  private static void deleteQuietly(Path dir) {
+    if (dir == null) {
+      return;
+    }
+    try (Stream<Path> files = Files.list(dir)) {
+      files.forEach(f -> f.toFile().delete());
+      Files.deleteIfExists(dir);
+    } catch (IOException e) {
+      log.warn("Could not delete duplicate-detection work dir {}", dir);
+    }
+  }
+
+  private static DuplicateReportResponse report(String status) {
+    DuplicateReportResponse r = new DuplicateReportResponse();
+    r.setStatus(status);
+    return r;
+  }
+
+  private static DuplicateReportResponse copyOf(DuplicateReportResponse source) {
+    DuplicateReportResponse r = report(source.getStatus());
+    r.setStartedAt(source.getStartedAt());
+    r.setFinishedAt(source.getFinishedAt());
+    r.setRowsScanned(source.getRowsScanned());
+    r.setMatchedPairs(source.getMatchedPairs());
+    r.setOversizedBlocks(source.getOversizedBlocks());
+    r.setClusterCount(source.getClusterCount());
+    r.setOutputFile(source.getOutputFile());
+    r.setError(source.getError());
+    r.setClusters(source.getClusters());
+    return r;
+  }
+
+  // Par no ordenado de IDs (a < b)
+  private record Pair(long a, long b) {
+    static Pair of(long x, long y) {
+      return x < y ? new Pair(x, y) : new Pair(y, x);
+    }
+  }
+}
@@ -0,0 +1,199 @@
+package com.example.customer_management_app.duplicates;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Reglas de matching para la detección de duplicados.
+ *
+ * Blocking (para no comparar todos contra todos):
+ * - "p:" teléfono normalizado (solo dígitos, mínimo 7)
+ * - "e:" parte local del email normalizada (sin puntos ni sufijo +tag)
+ * - "n:" Soundex del apellido + inicial del nombre
+ * Dos clientes solo se comparan si comparten al menos una clave.
+ *
+ * Scoring (0..1) dentro de cada bloque:
+ * - nombre completo: Jaro-Winkler (peso 0.5)
+ * - parte local del email: Jaro-Winkler (peso 0.3)
+ * - teléfono: igual / distinto (peso 0.2, solo si ambos tienen teléfono)
+ * - mismo email ignorando mayúsculas: 1.0 directo
+ */
+public final class DuplicateMatcher {
+
+  private DuplicateMatcher() {}
+
+  /**
+   * Fila ya normalizada (lo único que necesito para bloquear y comparar).
+   */
+  public record Row(long id, String fullName, String email, String emailLocal, String phone) {
+
+    public static Row of(long id, String firstName, String lastName, String email, String phone) {
+      String first = normalizeText(firstName);
+      String last = normalizeText(lastName);
+      String mail = email == null ? "" : email.trim().toLowerCase(Locale.ROOT);
+      return new Row(id, (first + " " + last).trim(), mail, localPart(mail), digits(phone));
+    }
+  }
+
+  /**
+   * Claves de bloqueo de un cliente (puede haber hasta 3).
+   */
+  public static List<String> blockingKeys(Row row, String firstName, String lastName) {
+    List<String> keys = new ArrayList<>(3);
+    if (row.phone().length() >= 7) {
+      keys.add("p:" + row.phone());
+    }
+    if (row.emailLocal().length() >= 3) {
+      keys.add("e:" + row.emailLocal());
+    }
+    String phonetic = soundex(lastName);
+    String first = normalizeText(firstName);
+    if (!phonetic.isEmpty() && !first.isEmpty()) {
+      keys.add("n:" + phonetic + first.charAt(0));
+    }
+    return keys;
+  }
+
+  /**
+   * Score de similitud entre dos clientes (0 = nada que ver, 1 = mismo cliente).
+   */
+  public static double score(Row a, Row b) {
+    if (!a.email().isEmpty() && a.email().equals(b.email())) {
+      return 1.0;
+    }
+    double name = jaroWinkler(a.fullName(), b.fullName());
+    double email = jaroWinkler(a.emailLocal(), b.emailLocal());
+    if (a.phone().isEmpty() || b.phone().isEmpty()) {
+      // Sin teléfono para comparar: reparto su peso entre nombre y email
+      return (0.5 * name + 0.3 * email) / 0.8;
+    }
+    double phone = a.phone().equals(b.phone()) ? 1.0 : 0.0;
+    return 0.5 * name + 0.3 * email + 0.2 * phone;
+  }
+
+  // Parte local del email sin puntos ni "+tag" (john.doe+promo@x.com -> johndoe)
+  static String localPart(String email) {
+    int at = email.indexOf('@');
+    String local = at >= 0 ? email.substring(0, at) : email;
+    int plus = local.indexOf('+');
+    if (plus >= 0) {
+      local = local.substring(0, plus);
+    }
+    return local.replace(".", "");
+  }
+
+  static String digits(String phone) {
+    if (phone == null) {
+      return "";
+    }
+    StringBuilder sb = new StringBuilder(phone.length());
+    for (int i = 0; i < phone.length(); i++) {
+      char c = phone.charAt(i);
+      if (c >= '0' && c <= '9') {
+        sb.append(c);
+      }
+    }
+    return sb.toString();
+  }
+
+  static String normalizeText(String s) {
+    return s == null ? "" : s.trim().toLowerCase(Locale.ROOT);
+  }
+
+  /**
+   * Soundex americano clásico (ej. Robert/Rupert -> R163). Ignora caracteres no ASCII.
+   */
+  static String soundex(String s) {
+    String in = normalizeText(s);
+    StringBuilder out = new StringBuilder(4);
+    char last = 0;
+    for (int i = 0; i < in.length() && out.length() < 4; i++) {
+      char c = in.charAt(i);
+      if (c < 'a' || c > 'z') {
+        continue;
+      }
+      char code = soundexCode(c);
+      if (out.length() == 0) {
+        out.append(Character.toUpperCase(c));
+        last = code;
+      } else if (code != '0' && code != last) {
+        out.append(code);
+        last = code;
+      } else if (c != 'h' && c != 'w') {
+        // Las vocales separan códigos iguales; h y w no
+        last = code;
+      }
+    }
+    if (out.length() == 0) {
+      return "";
+    }
+    while (out.length() < 4) {
+      out.append('0');
+    }
+    return out.toString();
+  }
+
+  private static char soundexCode(char c) {
+    return switch (c) {
+      case 'b', 'f', 'p', 'v' -> '1';
+      case 'c', 'g', 'j', 'k', 'q', 's', 'x', 'z' -> '2';
+      case 'd', 't' -> '3';
+      case 'l' -> '4';
+      case 'm', 'n' -> '5';
+      case 'r' -> '6';
+      default -> '0';
+    };
+  }
+
+  /**
+   * Similitud Jaro-Winkler (0..1), tolerante a typos y transposiciones.
+   */
+  static double jaroWinkler(String a, String b) {
+    if (a.isEmpty() || b.isEmpty()) {
+      return 0.0;
+    }
+    if (a.equals(b)) {
+      return 1.0;
+    }
+    int window = Math.max(0, Math.max(a.length(), b.length()) / 2 - 1);
+    boolean[] matchedA = new boolean[a.length()];
+    boolean[] matchedB = new boolean[b.length()];
+    int matches = 0;
+    for (int i = 0; i < a.length(); i++) {
+      int from = Math.max(0, i - window);
+      int to = Math.min(b.length() - 1, i + window);
+      for (int j = from; j <= to; j++) {
+        if (!matchedB[j] && a.charAt(i) == b.charAt(j)) {
+          matchedA[i] = true;
+          matchedB[j] = true;
+          matches++;
+          break;
+        }
+      }
+    }
+    if (matches == 0) {
+      return 0.0;
+    }
+    int transpositions = 0;
+    for (int i = 0, j = 0; i < a.length(); i++) {
+      if (!matchedA[i]) {
+        continue;
+      }
+      while (!matchedB[j]) {
+        j++;
+      }
+      if (a.charAt(i) != b.charAt(j)) {
+        transpositions++;
+      }
+      j++;
+    }
+    double m = matches;
+    double jaro = (m / a.length() + m / b.length() + (m - transpositions / 2.0) / m) / 3.0;
+    int prefix = 0;
+    while (prefix < 4 && prefix < a.length() && prefix < b.length() && a.charAt(prefix) == b.charAt(prefix)) {
+      prefix++;
+    }
+    return jaro + prefix * 0.1 * (1 - jaro);
+  }
+}
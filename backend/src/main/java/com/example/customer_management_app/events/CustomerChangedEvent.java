@@ -0,0 +1,47 @@
+package com.example.customer_management_app.events;
+
+import com.example.customer_management_app.Customer;
+
+/**
+ * Evento de dominio: un cliente se creó, actualizó o eliminó.
+ *
+ * ¿Por qué un evento y no llamar directo a cada interesado?
+ * - CustomerServiceImpl no necesita conocer índices, caches, streams, etc.
+ * - Los interesados escuchan con @TransactionalEventListener(fallbackExecution = true):
+ *   se ejecutan DESPUÉS del commit (nunca ven datos que terminaron en rollback)
+ *   o enseguida si la escritura no corrió dentro de una transacción.
+ *
+ * before/after son COPIAS desacopladas de la entidad JPA (nunca la instancia managed),
+ * así los listeners pueden leerlas desde otro hilo sin riesgo.
+ * - CREATED: before = null
+ * - DELETED: after = null (before puede ser null si no se pudo leer la fila)
+ */
+public record CustomerChangedEvent(Type type, Long id, Customer before, Customer after) {
+
+  public enum Type { CREATED, UPDATED, DELETED }
+
+  public static CustomerChangedEvent created(Customer saved) {
+    return new CustomerChangedEvent(Type.CREATED, saved.getId(), null, copyOf(saved));
+  }
+
+  public static CustomerChangedEvent updated(Customer before, Customer after) {
+    return new CustomerChangedEvent(Type.UPDATED, after.getId(), before, copyOf(after));
+  }
+
+  public static CustomerChangedEvent deleted(Long id, Customer before) {
+    return new CustomerChangedEvent(Type.DELETED, id, before, null);
+  }
+
+  /**
+   * Copia desacoplada (no managed) de un cliente, incluyendo timestamps.
+   */
+  public static Customer copyOf(Customer c) {
+    if (c == null) {
+      return null;
+    }
+    Customer copy = new Customer(c.getId(), c.getFirstName(), c.getLastName(), c.getEmail(), c.getPhone(), c.getAddress());
+    copy.setCreatedAt(c.getCreatedAt());
+    copy.setUpdatedAt(c.getUpdatedAt());
+    return copy;
+  }
+}
@@ -0,0 +1,146 @@
+package com.example.customer_management_app.filter;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import com.example.customer_management_app.Customer;
+
+import jakarta.persistence.criteria.Predicate;
+
+/**
+ * Filtro estructurado de clientes: AND de predicados campo.operador=valor.
+ *
+ * ¿Por qué no alcanza con /search?
+ * - /search/firstname, /search/lastname y /search/contains corren el mismo OR de
+ *   LIKE '%x%' sobre todos los campos: ningún índice sirve y se recorre toda la tabla.
+ * - Acá el que llama dice qué campo y qué operador quiere, y cada predicado usa su índice
+ *   (igualdad, prefijo, dominio de email, rango de fechas).
+ *
+ * Plan:
+ * - Los predicados se ordenan por selectividad estimada (FilterParam): primero el más
+ *   selectivo con índice, los contains (residuales) siempre al final. Ese orden es el del AND
+ *   y el que se informa en X-Filter-Plan.
+ * - Un contains (LIKE '%x%', sin índice) solo se acepta si hay al menos un predicado con índice
+ *   que acote las filas; solo, recorrería toda la tabla y se responde 400.
+ *
+ * Inmutable: se arma con parse() y se puede compartir entre hilos.
+ */
+public final class CustomerFilter {
+
+  public static final int MAX_VALUE_LENGTH = 100;
+
+  // Parámetros del Pageable: llegan en el mismo mapa y no son filtros
+  private static final Set<String> PAGING_PARAMS = Set.of("page", "size", "sort");
+
+  private final List<FilterPredicate> predicates;
+
+  private CustomerFilter(List<FilterPredicate> predicates) {
+    this.predicates = predicates;
+  }
+
+  /**
+   * Arma el filtro desde los query params (page/size/sort se ignoran).
+   *
+   * @throws InvalidFilterException si hay parámetros desconocidos, valores inválidos o
+   *         un contains sin predicado con índice
+   */
+  public static CustomerFilter parse(Map<String, String> params) {
+    List<FilterPredicate> predicates = new ArrayList<>();
+    for (Map.Entry<String, String> e : params.entrySet()) {
+      if (PAGING_PARAMS.contains(e.getKey())) {
+        continue;
+      }
+      FilterParam param = FilterParam.of(e.getKey());
+      if (param == null) {
+        throw new InvalidFilterException("Unknown filter '" + e.getKey() + "'. Supported: " + supported());
+      }
+      String raw = e.getValue() == null ? "" : e.getValue().trim();
+      if (raw.isEmpty() || raw.length() > MAX_VALUE_LENGTH) {
+        throw new InvalidFilterException(param.key() + " must have between 1 and " + MAX_VALUE_LENGTH + " characters");
+      }
+      predicates.add(new FilterPredicate(param, param.normalize(raw)));
+    }
+    if (predicates.isEmpty()) {
+      throw new InvalidFilterException("At least one filter is required. Supported: " + supported());
+    }
+    validateRange(predicates);
+    if (predicates.stream().noneMatch(p -> p.param().indexed())) {
+      throw new InvalidFilterException("Contains filters match with a leading wildcard and cannot use an index: "
+          + "combine them with at least one indexed filter (" + indexed() + ")");
+    }
+    // Más selectivo primero; a igual estimación, el orden de los parámetros (estable)
+    predicates.sort(Comparator.comparingDouble(FilterPredicate::selectivity));
+    return new CustomerFilter(List.copyOf(predicates));
+  }
+
+  private static void validateRange(List<FilterPredicate> predicates) {
+    LocalDateTime from = null;
+    LocalDateTime to = null;
+    for (FilterPredicate p : predicates) {
+      if (p.param() == FilterParam.CREATED_AT_FROM) {
+        from = (LocalDateTime) p.value();
+      } else if (p.param() == FilterParam.CREATED_AT_TO) {
+        to = (LocalDateTime) p.value();
+      }
+    }
+    if (from != null && to != null && !from.isBefore(to)) {
+      throw new InvalidFilterException("createdAt.from must be before createdAt.to");
+    }
+  }
+
+  /**
+   * Predicados en el orden del AND (el primero es el que conduce la consulta).
+   */
+  public List<FilterPredicate> predicates() {
+    return predicates;
+  }
+
+  /**
+   * Specification para CustomerRepository (JpaSpecificationExecutor).
+   */
+  public Specification<Customer> toSpecification() {
+    return (root, query, cb) -> cb.and(predicates.stream()
+        .map(p -> p.param().toPredicate(root, cb, p.value()))
+        .toArray(Predicate[]::new));
+  }
+
+  /**
+   * Mismo filtro en SQL ("WHERE a AND b "), para las consultas JDBC (ShardedCustomerService).
+   */
+  public String whereSql() {
+    return predicates.stream().map(p -> p.param().sql())
+        .collect(Collectors.joining(" AND ", "WHERE ", " "));
+  }
+
+  public Object[] sqlParams() {
+    return predicates.stream().map(p -> p.param().sqlValue(p.value())).toArray();
+  }
+
+  /**
+   * Plan legible: "lastName.eq=lopez[ix_customer_last_first_id] AND email.contains=x[residual]".
+   */
+  public String plan() {
+    return predicates.stream().map(FilterPredicate::toString).collect(Collectors.joining(" AND "));
+  }
+
+  public static List<String> supported() {
+    return Arrays.stream(FilterParam.values()).map(FilterParam::key).toList();
+  }
+
+  private static List<String> indexed() {
+    return Arrays.stream(FilterParam.values()).filter(FilterParam::indexed).map(FilterParam::key).toList();
+  }
+
+  @Override
+  public String toString() {
+    return plan();
+  }
+}
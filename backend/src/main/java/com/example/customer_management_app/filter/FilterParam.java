@@ -0,0 +1,246 @@
+package com.example.customer_management_app.filter;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+
+import com.example.customer_management_app.Customer;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+/**
+ * Parámetros que acepta GET /api/customers/filter (campo.operador=valor).
+ *
+ * Cada uno sabe:
+ * - normalizar su valor (trim, minúsculas, fecha ISO)
+ * - armar el predicado JPA (CustomerServiceImpl) y el SQL equivalente (ShardedCustomerService)
+ * - qué índice lo respalda (null = residual: se evalúa sobre las filas que trajo otro predicado)
+ * - una selectividad estimada para ordenar el AND (los defaults del planner de PostgreSQL
+ *   cuando no hay nada mejor: 0.005 igualdad, 1/3 desigualdad)
+ *
+ * Las expresiones SQL son exactamente las de los índices (V1, V5, V6): si no coinciden
+ * carácter por carácter (salvo espacios), PostgreSQL no usa el índice de expresión.
+ */
+enum FilterParam {
+
+  FIRST_NAME_EQ("firstName.eq", "ix_customer_first_id", 0.005, "first_name = ?") {
+    @Override
+    Predicate toPredicate(Root<Customer> root, CriteriaBuilder cb, Object value) {
+      return cb.equal(root.get("firstName"), value);
+    }
+  },
+  FIRST_NAME_PREFIX("firstName.prefix", "ix_customer_first_name_lower_pattern", -1,
+      "LOWER(first_name) LIKE ? ESCAPE '\\'") {
+    @Override
+    Object normalize(String raw) {
+      return lower(raw);
+    }
+
+    @Override
+    Object sqlValue(Object value) {
+      return escapeLike((String) value) + "%";
+    }
+
+    @Override
+    Predicate toPredicate(Root<Customer> root, CriteriaBuilder cb, Object value) {
+      return cb.like(cb.lower(root.get("firstName")), (String) sqlValue(value), '\\');
+    }
+  },
+  LAST_NAME_EQ("lastName.eq", "ix_customer_last_first_id", 0.002, "last_name = ?") {
+    @Override
+    Predicate toPredicate(Root<Customer> root, CriteriaBuilder cb, Object value) {
+      return cb.equal(root.get("lastName"), value);
+    }
+  },
+  LAST_NAME_PREFIX("lastName.prefix", "ix_customer_last_name_lower_pattern", -1,
+      "LOWER(last_name) LIKE ? ESCAPE '\\'") {
+    @Override
+    Object normalize(String raw) {
+      return lower(raw);
+    }
+
+    @Override
+    Object sqlValue(Object value) {
+      return escapeLike((String) value) + "%";
+    }
+
+    @Override
+    Predicate toPredicate(Root<Customer> root, CriteriaBuilder cb, Object value) {
+      return cb.like(cb.lower(root.get("lastName")), (String) sqlValue(value), '\\');
+    }
+  },
+  // email es único: a lo sumo una fila
+  EMAIL_EQ("email.eq", "ix_customer_email", 0.000001, "email = ?") {
+    @Override
+    Predicate toPredicate(Root<Customer> root, CriteriaBuilder cb, Object value) {
+      return cb.equal(root.get("email"), value);
+    }
+  },
+  // Pocos dominios concentran casi todos los emails: poco selectivo
+  EMAIL_DOMAIN("email.domain", "ix_customer_email_domain", 0.05,
+      "LOWER(SUBSTRING(email, POSITION('@' IN email) + 1)) = ?") {
+    @Override
+    Object normalize(String raw) {
+      String domain = lower(raw);
+      return domain.startsWith("@") ? domain.substring(1) : domain;
+    }
+
+    @Override
+    Predicate toPredicate(Root<Customer> root, CriteriaBuilder cb, Object value) {
+      // Literales (no parámetros): la expresión tiene que ser la del índice
+      Expression<String> email = root.get("email");
+      Expression<Integer> start = cb.sum(cb.locate(email, cb.literal("@")), cb.literal(1));
+      return cb.equal(cb.lower(cb.substring(email, start)), value);
+    }
+  },
+  PHONE_EQ("phone.eq", "ix_customer_active_phone", 0.0001, "phone = ?") {
+    @Override
+    Predicate toPredicate(Root<Customer> root, CriteriaBuilder cb, Object value) {
+      return cb.equal(root.get("phone"), value);
+    }
+  },
+  // Desde (inclusive)
+  CREATED_AT_FROM("createdAt.from", "ix_customer_created_id", 1.0 / 3, "created_at >= ?") {
+    @Override
+    Object normalize(String raw) {
+      return dateTime(key(), raw);
+    }
+
+    @Override
+    Object sqlValue(Object value) {
+      return Timestamp.valueOf((LocalDateTime) value);
+    }
+
+    @Override
+    Predicate toPredicate(Root<Customer> root, CriteriaBuilder cb, Object value) {
+      return cb.greaterThanOrEqualTo(root.get("createdAt"), (LocalDateTime) value);
+    }
+  },
+  // Hasta (exclusivo): createdAt.from=2025-05-01&createdAt.to=2025-06-01 es "mayo"
+  CREATED_AT_TO("createdAt.to", "ix_customer_created_id", 1.0 / 3, "created_at < ?") {
+    @Override
+    Object normalize(String raw) {
+      return dateTime(key(), raw);
+    }
+
+    @Override
+    Object sqlValue(Object value) {
+      return Timestamp.valueOf((LocalDateTime) value);
+    }
+
+    @Override
+    Predicate toPredicate(Root<Customer> root, CriteriaBuilder cb, Object value) {
+      return cb.lessThan(root.get("createdAt"), (LocalDateTime) value);
+    }
+  },
+  // Contains (LIKE '%x%'): ningún índice B-tree sirve, solo como filtro residual
+  FIRST_NAME_CONTAINS("firstName.contains", "firstName", "first_name"),
+  LAST_NAME_CONTAINS("lastName.contains", "lastName", "last_name"),
+  EMAIL_CONTAINS("email.contains", "email", "email"),
+  ADDRESS_CONTAINS("address.contains", "address", "address");
+
+  private final String key;
+  private final String index;
+  private final double selectivity;
+  private final String sql;
+  private final String containsProperty;
+
+  FilterParam(String key, String index, double selectivity, String sql) {
+    this(key, index, selectivity, sql, null);
+  }
+
+  FilterParam(String key, String property, String column) {
+    this(key, null, 1.0, "LOWER(" + column + ") LIKE ? ESCAPE '\\'", property);
+  }
+
+  FilterParam(String key, String index, double selectivity, String sql, String containsProperty) {
+    this.key = key;
+    this.index = index;
+    this.selectivity = selectivity;
+    this.sql = sql;
+    this.containsProperty = containsProperty;
+  }
+
+  static FilterParam of(String key) {
+    for (FilterParam p : values()) {
+      if (p.key.equals(key)) {
+        return p;
+      }
+    }
+    return null;
+  }
+
+  String key() {
+    return key;
+  }
+
+  String index() {
+    return index;
+  }
+
+  boolean indexed() {
+    return index != null;
+  }
+
+  String sql() {
+    return sql;
+  }
+
+  boolean isCreatedAt() {
+    return this == CREATED_AT_FROM || this == CREATED_AT_TO;
+  }
+
+  /**
+   * Selectividad estimada (fracción de filas que pasan). Prefijos: cada carácter
+   * divide por ~5 (heurística, sin estadísticas de la base).
+   */
+  double selectivity(Object value) {
+    if (this == FIRST_NAME_PREFIX || this == LAST_NAME_PREFIX) {
+      return Math.max(Math.pow(0.2, ((String) value).length()), 0.0001);
+    }
+    return selectivity;
+  }
+
+  // Valor normalizado (el que se muestra en el plan)
+  Object normalize(String raw) {
+    if (containsProperty != null) {
+      return lower(raw);
+    }
+    return raw.trim();
+  }
+
+  // Valor que va como parámetro del SQL
+  Object sqlValue(Object value) {
+    if (containsProperty != null) {
+      return "%" + escapeLike((String) value) + "%";
+    }
+    return value;
+  }
+
+  Predicate toPredicate(Root<Customer> root, CriteriaBuilder cb, Object value) {
+    return cb.like(cb.lower(root.get(containsProperty)), (String) sqlValue(value), '\\');
+  }
+
+  static String escapeLike(String s) {
+    return s.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+  }
+
+  private static String lower(String raw) {
+    return raw.trim().toLowerCase(Locale.ROOT);
+  }
+
+  // ISO: 2025-05-01 (inicio del día) o 2025-05-01T10:30:00
+  private static LocalDateTime dateTime(String key, String raw) {
+    String value = raw.trim();
+    try {
+      return value.length() == 10 ? LocalDate.parse(value).atStartOfDay() : LocalDateTime.parse(value);
+    } catch (DateTimeParseException e) {
+      throw new InvalidFilterException(key + " must be an ISO date (2025-05-01) or date-time (2025-05-01T10:30:00)");
+    }
+  }
+}
@@ -0,0 +1,25 @@
+package com.example.customer_management_app.filter;
+
+/**
+ * Un predicado del filtro: parámetro + valor ya normalizado.
+ */
+public record FilterPredicate(FilterParam param, Object value) {
+
+  public String key() {
+    return param.key();
+  }
+
+  // null = residual (se evalúa sobre las filas que trajeron los predicados con índice)
+  public String index() {
+    return param.index();
+  }
+
+  public double selectivity() {
+    return param.selectivity(value);
+  }
+
+  @Override
+  public String toString() {
+    return param.key() + "=" + value + "[" + (param.indexed() ? param.index() : "residual") + "]";
+  }
+}
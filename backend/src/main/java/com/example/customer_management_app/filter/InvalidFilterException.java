@@ -0,0 +1,11 @@
+package com.example.customer_management_app.filter;
+
+/**
+ * Filtro inválido en GET /api/customers/filter (parámetro desconocido, valor mal formado
+ * o un contains sin un predicado con índice que lo acote). Se responde 400.
+ */
+public class InvalidFilterException extends RuntimeException {
+  public InvalidFilterException(String message) {
+    super(message);
+  }
+}
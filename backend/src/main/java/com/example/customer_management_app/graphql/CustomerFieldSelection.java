@@ -0,0 +1,48 @@
+package com.example.customer_management_app.graphql;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import graphql.schema.DataFetchingFieldSelectionSet;
+
+/**
+ * Campos GraphQL de Customer -> columnas SQL que necesitan.
+ *
+ * Los derivados también cuentan: emailDomain y sameDomainCount necesitan email.
+ * id siempre va (clave del DataLoader y del cursor).
+ */
+final class CustomerFieldSelection {
+
+  private static final Map<String, String> FIELD_COLUMNS = new LinkedHashMap<>();
+
+  static {
+    FIELD_COLUMNS.put("firstName", "first_name");
+    FIELD_COLUMNS.put("lastName", "last_name");
+    FIELD_COLUMNS.put("email", "email");
+    FIELD_COLUMNS.put("phone", "phone");
+    FIELD_COLUMNS.put("address", "address");
+    FIELD_COLUMNS.put("createdAt", "created_at");
+    FIELD_COLUMNS.put("updatedAt", "updated_at");
+    FIELD_COLUMNS.put("emailDomain", "email");
+    FIELD_COLUMNS.put("sameDomainCount", "email");
+  }
+
+  private CustomerFieldSelection() {
+  }
+
+  /**
+   * @param prefix camino hasta el Customer dentro de la selección ("" o "edges/node/")
+   */
+  static Set<String> columns(DataFetchingFieldSelectionSet selection, String prefix) {
+    Set<String> columns = new LinkedHashSet<>();
+    columns.add("id");
+    FIELD_COLUMNS.forEach((field, column) -> {
+      if (selection.contains(prefix + field)) {
+        columns.add(column);
+      }
+    });
+    return columns;
+  }
+}
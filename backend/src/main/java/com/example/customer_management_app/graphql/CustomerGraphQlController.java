@@ -0,0 +1,190 @@
+package com.example.customer_management_app.graphql;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import org.dataloader.DataLoader;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.graphql.data.method.annotation.Argument;
+import org.springframework.graphql.data.method.annotation.BatchMapping;
+import org.springframework.graphql.data.method.annotation.QueryMapping;
+import org.springframework.graphql.data.method.annotation.SchemaMapping;
+import org.springframework.graphql.execution.BatchLoaderRegistry;
+import org.springframework.stereotype.Controller;
+
+import com.example.customer_management_app.Customer;
+import com.example.customer_management_app.CustomerService;
+
+import graphql.schema.DataFetchingFieldSelectionSet;
+import reactor.core.publisher.Mono;
+
+/**
+ * Resolvers del esquema graphql/customer.graphqls.
+ *
+ * ¿Cómo evito el N+1?
+ * - Todo lookup por id pasa por un DataLoader: los customer(id:) de una misma consulta
+ *   (alias, listas) se juntan en UN SELECT ... WHERE id IN (...).
+ * - Cada load lleva como contexto las columnas que pide su selección; el batch lee la unión.
+ *   Sin cache por key: dos alias del mismo id con campos distintos van al mismo batch
+ *   y ambos reciben la fila con todas las columnas necesarias.
+ * - sameDomainCount es @BatchMapping: un GROUP BY para todos los clientes de la respuesta.
+ */
+@Controller
+public class CustomerGraphQlController {
+
+  private static final String CURSOR_PREFIX = "id:";
+
+  private final CustomerGraphRepository repository;
+  private final CustomerService customerService;
+  private final int maxPageSize;
+
+  public CustomerGraphQlController(CustomerGraphRepository repository, CustomerService customerService,
+      BatchLoaderRegistry batchLoaderRegistry,
+      @Value("${app.graphql.max-page-size:100}") int maxPageSize) {
+    this.repository = repository;
+    this.customerService = customerService;
+    this.maxPageSize = maxPageSize;
+
+    batchLoaderRegistry.forTypePair(Long.class, Customer.class)
+        .withOptions(options -> options.setCachingEnabled(false))
+        .registerMappedBatchLoader((ids, env) -> Mono.fromCallable(
+            () -> repository.findByIds(ids, unionOfColumns(env.getKeyContextsList()))));
+  }
+
+  @QueryMapping
+  public CompletableFuture<Customer> customer(@Argument String id, DataLoader<Long, Customer> loader,
+      DataFetchingFieldSelectionSet selection) {
+    return loader.load(parseId(id), CustomerFieldSelection.columns(selection, ""));
+  }
+
+  @QueryMapping
+  public CompletableFuture<List<Customer>> customers(@Argument List<String> ids, DataLoader<Long, Customer> loader,
+      DataFetchingFieldSelectionSet selection) {
+    if (ids.size() > maxPageSize) {
+      throw new IllegalArgumentException("At most " + maxPageSize + " ids per request");
+    }
+    Set<String> columns = CustomerFieldSelection.columns(selection, "");
+    List<Long> keys = ids.stream().map(CustomerGraphQlController::parseId).toList();
+    return loader.loadMany(keys, keys.stream().<Object>map(k -> columns).toList());
+  }
+
+  @QueryMapping
+  public CustomerConnection customersConnection(@Argument int first, @Argument String after,
+      @Argument String search, DataFetchingFieldSelectionSet selection) {
+    if (first < 1 || first > maxPageSize) {
+      throw new IllegalArgumentException("first must be between 1 and " + maxPageSize);
+    }
+    String term = search == null || search.isBlank() ? null : search;
+    Set<String> columns = CustomerFieldSelection.columns(selection, "edges/node/");
+
+    // Una fila de más me dice si hay otra página sin hacer COUNT
+    List<Customer> rows = repository.findPage(decodeCursor(after), term, first + 1, columns);
+    boolean hasNext = rows.size() > first;
+    List<Customer> page = hasNext ? rows.subList(0, first) : rows;
+
+    List<CustomerEdge> edges = new ArrayList<>(page.size());
+    for (Customer c : page) {
+      edges.add(new CustomerEdge(encodeCursor(c.getId()), c));
+    }
+    String endCursor = edges.isEmpty() ? null : edges.get(edges.size() - 1).cursor();
+    Long total = selection.contains("totalCount") ? repository.count(term) : null;
+    return new CustomerConnection(edges, new PageInfo(hasNext, endCursor), total);
+  }
+
+  @QueryMapping
+  public CustomerService.CustomerStats customerStats() {
+    return customerService.getStatistics();
+  }
+
+  @QueryMapping
+  public List<DomainCount> emailDomains(@Argument int top) {
+    if (top < 1 || top > maxPageSize) {
+      throw new IllegalArgumentException("top must be between 1 and " + maxPageSize);
+    }
+    return repository.topDomains(top).entrySet().stream()
+        .map(e -> new DomainCount(e.getKey(), e.getValue()))
+        .toList();
+  }
+
+  @SchemaMapping(typeName = "Customer")
+  public String emailDomain(Customer customer) {
+    return domainOf(customer.getEmail());
+  }
+
+  @BatchMapping(typeName = "Customer")
+  public Map<Customer, Long> sameDomainCount(List<Customer> customers) {
+    Set<String> domains = new HashSet<>();
+    customers.forEach(c -> domains.add(domainOf(c.getEmail())));
+    domains.remove(null);
+    Map<String, Long> counts = repository.countByDomains(domains);
+
+    // Customer no redefine equals: uso identidad (cada fila es una instancia distinta)
+    Map<Customer, Long> result = new IdentityHashMap<>();
+    customers.forEach(c -> result.put(c, counts.getOrDefault(domainOf(c.getEmail()), 0L)));
+    return result;
+  }
+
+  public record CustomerConnection(List<CustomerEdge> edges, PageInfo pageInfo, Long totalCount) {}
+
+  public record CustomerEdge(String cursor, Customer node) {}
+
+  public record PageInfo(boolean hasNextPage, String endCursor) {}
+
+  public record DomainCount(String domain, long count) {}
+
+  static String domainOf(String email) {
+    if (email == null) {
+      return null;
+    }
+    int at = email.indexOf('@');
+    return at < 0 ? null : email.substring(at + 1).toLowerCase(Locale.ROOT);
+  }
+
+  // Los cursores son opacos para el cliente: base64("id:123")
+  static String encodeCursor(long id) {
+    return Base64.getUrlEncoder().withoutPadding()
+        .encodeToString((CURSOR_PREFIX + id).getBytes(StandardCharsets.UTF_8));
+  }
+
+  static Long decodeCursor(String cursor) {
+    if (cursor == null || cursor.isEmpty()) {
+      return null;
+    }
+    try {
+      String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+      if (!raw.startsWith(CURSOR_PREFIX)) {
+        throw new IllegalArgumentException("Invalid cursor");
+      }
+      return Long.parseLong(raw.substring(CURSOR_PREFIX.length()));
+    } catch (IllegalArgumentException e) {
+      // NumberFormatException también es IllegalArgumentException
+      throw new IllegalArgumentException("Invalid cursor: " + cursor);
+    }
+  }
+
+  private static Long parseId(String id) {
+    try {
+      return Long.valueOf(id);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Invalid customer id: " + id);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Set<String> unionOfColumns(List<Object> keyContexts) {
+    Set<String> columns = new LinkedHashSet<>();
+    columns.add("id");
+    keyContexts.stream().filter(Objects::nonNull).forEach(ctx -> columns.addAll((Set<String>) ctx));
+    return columns;
+  }
+}
@@ -0,0 +1,139 @@
+package com.example.customer_management_app.graphql;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.example.customer_management_app.Customer;
+
+/**
+ * Lecturas de GraphQL con SOLO las columnas pedidas.
+ *
+ * ¿Por qué JDBC y no el repositorio JPA?
+ * - La entidad siempre trae todas las columnas; una pantalla que pide id + nombre
+ *   no necesita address ni timestamps.
+ * - El Customer que devuelvo no es managed y tiene en null lo que no se pidió
+ *   (GraphQL nunca lo expone porque no está en la selección).
+ *
+ * Las columnas llegan de {@link CustomerFieldSelection} (whitelist fija: nunca texto del cliente).
+ */
+@Component
+public class CustomerGraphRepository {
+
+  // Dominio del email en SQL portable (PostgreSQL y H2)
+  static final String DOMAIN_SQL = "LOWER(SUBSTRING(email FROM POSITION('@' IN email) + 1))";
+
+  private static final String SEARCH_WHERE =
+      "(LOWER(first_name) LIKE :p ESCAPE '\\' OR LOWER(last_name) LIKE :p ESCAPE '\\' OR LOWER(email) LIKE :p ESCAPE '\\' "
+          + "OR LOWER(phone) LIKE :p ESCAPE '\\' OR LOWER(address) LIKE :p ESCAPE '\\')";
+
+  private final NamedParameterJdbcTemplate jdbcTemplate;
+
+  public CustomerGraphRepository(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+  }
+
+  /**
+   * Un solo SELECT ... WHERE id IN (...) para todo el batch del DataLoader.
+   */
+  public Map<Long, Customer> findByIds(Collection<Long> ids, Set<String> columns) {
+    Map<Long, Customer> byId = new HashMap<>();
+    if (ids.isEmpty()) {
+      return byId;
+    }
+    jdbcTemplate.query("SELECT " + String.join(", ", columns) + " FROM customer WHERE id IN (:ids)",
+        Map.of("ids", ids), (RowMapper<Customer>) (rs, n) -> {
+          Customer c = map(rs, columns);
+          byId.put(c.getId(), c);
+          return c;
+        });
+    return byId;
+  }
+
+  /**
+   * Keyset: id &lt; afterId, más nuevos primero. Pido limit filas (el llamador pide una de más para hasNextPage).
+   */
+  public List<Customer> findPage(Long afterId, String search, int limit, Set<String> columns) {
+    MapSqlParameterSource params = new MapSqlParameterSource("limit", limit);
+    StringBuilder sql = new StringBuilder("SELECT ").append(String.join(", ", columns)).append(" FROM customer WHERE 1 = 1");
+    if (afterId != null) {
+      sql.append(" AND id < :after");
+      params.addValue("after", afterId);
+    }
+    if (search != null) {
+      sql.append(" AND ").append(SEARCH_WHERE);
+      params.addValue("p", pattern(search));
+    }
+    sql.append(" ORDER BY id DESC LIMIT :limit");
+    return jdbcTemplate.query(sql.toString(), params, (rs, n) -> map(rs, columns));
+  }
+
+  public long count(String search) {
+    if (search == null) {
+      return jdbcTemplate.getJdbcTemplate().queryForObject("SELECT COUNT(*) FROM customer", Long.class);
+    }
+    return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM customer WHERE " + SEARCH_WHERE,
+        Map.of("p", pattern(search)), Long.class);
+  }
+
+  /**
+   * Cantidad de clientes por dominio, solo para los dominios pedidos (un GROUP BY para todo el batch).
+   */
+  public Map<String, Long> countByDomains(Collection<String> domains) {
+    Map<String, Long> counts = new HashMap<>();
+    if (domains.isEmpty()) {
+      return counts;
+    }
+    jdbcTemplate.query("SELECT " + DOMAIN_SQL + " AS domain, COUNT(*) AS total FROM customer "
+        + "WHERE " + DOMAIN_SQL + " IN (:domains) GROUP BY " + DOMAIN_SQL,
+        Map.of("domains", domains), rs -> {
+          counts.put(rs.getString("domain"), rs.getLong("total"));
+        });
+    return counts;
+  }
+
+  public Map<String, Long> topDomains(int top) {
+    Map<String, Long> counts = new LinkedHashMap<>();
+    jdbcTemplate.query("SELECT " + DOMAIN_SQL + " AS domain, COUNT(*) AS total FROM customer "
+        + "GROUP BY " + DOMAIN_SQL + " ORDER BY total DESC, domain LIMIT :top",
+        Map.of("top", top), rs -> {
+          counts.put(rs.getString("domain"), rs.getLong("total"));
+        });
+    return counts;
+  }
+
+  private static Customer map(ResultSet rs, Set<String> columns) throws SQLException {
+    Customer c = new Customer(rs.getLong("id"),
+        columns.contains("first_name") ? rs.getString("first_name") : null,
+        columns.contains("last_name") ? rs.getString("last_name") : null,
+        columns.contains("email") ? rs.getString("email") : null,
+        columns.contains("phone") ? rs.getString("phone") : null,
+        columns.contains("address") ? rs.getString("address") : null);
+    c.setCreatedAt(columns.contains("created_at") ? toLocal(rs.getTimestamp("created_at")) : null);
+    c.setUpdatedAt(columns.contains("updated_at") ? toLocal(rs.getTimestamp("updated_at")) : null);
+    return c;
+  }
+
+  private static LocalDateTime toLocal(Timestamp ts) {
+    return ts != null ? ts.toLocalDateTime() : null;
+  }
+
+  private static String pattern(String search) {
+    String s = search.trim().toLowerCase(Locale.ROOT);
+    return "%" + s.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+  }
+}
@@ -0,0 +1,152 @@
+package com.example.customer_management_app.graphql;
+
+import java.util.Collection;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.graphql.execution.DataFetcherExceptionResolver;
+import org.springframework.graphql.execution.ErrorType;
+import org.springframework.graphql.server.WebGraphQlInterceptor;
+import org.springframework.graphql.server.WebGraphQlResponse;
+import org.springframework.graphql.support.DefaultExecutionGraphQlResponse;
+
+import graphql.ErrorClassification;
+import graphql.ExecutionResult;
+import graphql.GraphQLError;
+import graphql.GraphqlErrorBuilder;
+import graphql.analysis.FieldComplexityCalculator;
+import graphql.analysis.MaxQueryComplexityInstrumentation;
+import graphql.analysis.MaxQueryDepthInstrumentation;
+import reactor.core.publisher.Mono;
+
+/**
+ * Límites de costo para GraphQL.
+ *
+ * ¿Por qué?
+ * - Con REST cada endpoint tiene un costo acotado; con GraphQL el cliente arma la consulta
+ *   y puede pedir 100 conexiones de 100 nodos con sameDomainCount en cada uno.
+ * - Antes de ejecutar nada, graphql-java recorre la consulta y suma el costo de cada campo:
+ *   si supera app.graphql.max-complexity la rechaza sin tocar la base.
+ *
+ * Costos (aproximan filas leídas / consultas SQL):
+ * - customersConnection: 1 + first * (costo de un nodo)
+ * - customers(ids): 1 + cantidad de ids * (costo de un nodo)
+ * - emailDomains: 50 (GROUP BY sobre toda la tabla) + top * hijos
+ * - customerStats: 20, totalCount: 20 (recorren la tabla)
+ * - sameDomainCount: 10 (GROUP BY por dominio)
+ * - resto: 1 + hijos
+ */
+@Configuration
+public class GraphQlConfig {
+
+  @Bean
+  public MaxQueryComplexityInstrumentation maxQueryComplexityInstrumentation(
+      @Value("${app.graphql.max-complexity:1000}") int maxComplexity) {
+    return new MaxQueryComplexityInstrumentation(maxComplexity, complexityCalculator());
+  }
+
+  @Bean
+  public MaxQueryDepthInstrumentation maxQueryDepthInstrumentation(
+      @Value("${app.graphql.max-depth:8}") int maxDepth) {
+    return new MaxQueryDepthInstrumentation(maxDepth);
+  }
+
+  /**
+   * Los IllegalArgumentException de los resolvers (id o cursor inválido, first fuera de rango)
+   * son errores del cliente, no INTERNAL_ERROR.
+   */
+  @Bean
+  public DataFetcherExceptionResolver badRequestExceptionResolver() {
+    return DataFetcherExceptionResolver.forSingleError((ex, env) -> {
+      if (ex instanceof IllegalArgumentException) {
+        return GraphqlErrorBuilder.newError(env)
+            .errorType(ErrorType.BAD_REQUEST)
+            .message(ex.getMessage())
+            .build();
+      }
+      return null;
+    });
+  }
+
+  /**
+   * SQL cortado por el plazo de la request (QueryTimeoutInterceptor): se marca QUERY_TIMEOUT para que
+   * {@link #queryTimeoutResponseInterceptor()} responda 504 como el resto de la API. Del batch de un DataLoader
+   * llega envuelto (CompletionException): busco en las causas.
+   */
+  @Bean
+  public DataFetcherExceptionResolver queryTimeoutExceptionResolver() {
+    return DataFetcherExceptionResolver.forSingleError((ex, env) -> {
+      for (Throwable t = ex; t != null; t = t.getCause()) {
+        if (t instanceof QueryTimeoutException || t instanceof jakarta.persistence.QueryTimeoutException) {
+          return GraphqlErrorBuilder.newError(env)
+              .errorType(QueryTimeoutError.QUERY_TIMEOUT)
+              .message("The query took too long and was cancelled")
+              .build();
+        }
+      }
+      return null;
+    });
+  }
+
+  /**
+   * Con un plazo vencido el resto de las sentencias de la request tampoco corren: en vez de un 200
+   * con datos a medias, la request termina en QueryTimeoutException y GlobalExceptionHandler
+   * responde el 504 con ErrorResponse.
+   */
+  @Bean
+  public WebGraphQlInterceptor queryTimeoutResponseInterceptor() {
+    return (request, chain) -> chain.next(request).map(response -> {
+      if (response.getErrors().stream().anyMatch(e -> e.getErrorType() == QueryTimeoutError.QUERY_TIMEOUT)) {
+        throw new QueryTimeoutException("GraphQL query ran out of its query time");
+      }
+      return response;
+    });
+  }
+
+  enum QueryTimeoutError implements ErrorClassification {
+    QUERY_TIMEOUT
+  }
+
+  /**
+   * Los resolvers leen la base principal (CustomerGraphRepository): con shards devolverían solo
+   * parte de los clientes. Mientras no lean de las shards, la consulta se rechaza sin ejecutarse.
+   */
+  @Bean
+  @ConditionalOnProperty(name = "app.sharding.enabled", havingValue = "true")
+  public WebGraphQlInterceptor rejectWhenShardedInterceptor() {
+    return (request, chain) -> {
+      GraphQLError error = GraphqlErrorBuilder.newError()
+          .errorType(ErrorType.BAD_REQUEST)
+          .message("GraphQL is not available when customers are sharded (app.sharding.enabled=true)")
+          .build();
+      ExecutionResult result = ExecutionResult.newExecutionResult().addError(error).build();
+      return Mono.just(new WebGraphQlResponse(
+          new DefaultExecutionGraphQlResponse(request.toExecutionInput(), result)));
+    };
+  }
+
+  static FieldComplexityCalculator complexityCalculator() {
+    return (env, childComplexity) -> {
+      String field = env.getField().getName();
+      return switch (field) {
+        case "customersConnection" -> 1 + intArg(env.getArguments().get("first"), 20) * Math.max(childComplexity, 1);
+        case "customers" -> 1 + sizeArg(env.getArguments().get("ids")) * Math.max(childComplexity, 1);
+        case "emailDomains" -> 50 + intArg(env.getArguments().get("top"), 10) * childComplexity;
+        case "customerStats", "totalCount" -> 20 + childComplexity;
+        case "sameDomainCount" -> 10;
+        default -> 1 + childComplexity;
+      };
+    };
+  }
+
+  private static int intArg(Object value, int defaultValue) {
+    return value instanceof Number n ? Math.max(n.intValue(), 0) : defaultValue;
+  }
+
+  private static int sizeArg(Object value) {
+    return value instanceof Collection<?> c ? c.size() : 1;
+  }
+}
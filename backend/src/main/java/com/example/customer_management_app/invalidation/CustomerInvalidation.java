@@ -0,0 +1,52 @@
+package com.example.customer_management_app.invalidation;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.example.customer_management_app.Customer;
+import com.example.customer_management_app.events.CustomerChangedEvent;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Mensaje de invalidación entre instancias (payload de NOTIFY, en JSON con nombres cortos).
+ *
+ * @param origin  instancia que hizo el cambio (la propia ignora sus mensajes)
+ * @param type    CREATED / UPDATED / DELETED
+ * @param id      cliente afectado
+ * @param version updated_at en microsegundos (0 si no hay); una cache con una versión igual
+ *                o más nueva puede conservar su entrada
+ * @param keys    claves secundarias afectadas (ej. "email:ana@example.com", antes y después)
+ */
+public record CustomerInvalidation(
+    @JsonProperty("o") String origin,
+    @JsonProperty("t") CustomerChangedEvent.Type type,
+    @JsonProperty("i") long id,
+    @JsonProperty("v") long version,
+    @JsonProperty("k") List<String> keys) {
+
+  public static CustomerInvalidation of(String origin, CustomerChangedEvent event) {
+    List<String> keys = new ArrayList<>(2);
+    addEmailKey(keys, event.before());
+    addEmailKey(keys, event.after());
+    Customer current = event.after() != null ? event.after() : event.before();
+    long version = current != null ? versionOf(current.getUpdatedAt()) : 0L;
+    return new CustomerInvalidation(origin, event.type(), event.id(), version, keys);
+  }
+
+  /**
+   * Versión de un cliente: updated_at en microsegundos (la precisión de TIMESTAMP).
+   */
+  public static long versionOf(LocalDateTime updatedAt) {
+    return updatedAt == null ? 0L : ChronoUnit.MICROS.between(Instant.EPOCH, updatedAt.toInstant(ZoneOffset.UTC));
+  }
+
+  private static void addEmailKey(List<String> keys, Customer c) {
+    if (c != null && c.getEmail() != null && !keys.contains("email:" + c.getEmail())) {
+      keys.add("email:" + c.getEmail());
+    }
+  }
+}
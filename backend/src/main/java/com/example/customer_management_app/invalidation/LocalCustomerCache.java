@@ -0,0 +1,15 @@
+package com.example.customer_management_app.invalidation;
+
+/**
+ * Cache en memoria de clientes (o de algo derivado de ellos) que se invalida desde otras instancias.
+ *
+ * Los beans que implementan esta interfaz reciben lo que llega por {@link PgInvalidationBus}:
+ * - evict: cambió un cliente en otra instancia (las escrituras locales ya llegan por CustomerChangedEvent)
+ * - evictAll: se perdió la conexión de LISTEN y pudieron perderse mensajes
+ */
+public interface LocalCustomerCache {
+
+  void evict(CustomerInvalidation invalidation);
+
+  void evictAll();
+}
@@ -0,0 +1,252 @@
+package com.example.customer_management_app.invalidation;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.customer_management_app.events.CustomerChangedEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Invalidación de caches entre instancias con LISTEN/NOTIFY de PostgreSQL.
+ *
+ * ¿Por qué LISTEN/NOTIFY?
+ * - Con varias réplicas detrás de nginx, una escritura en la instancia A deja caches viejas en B.
+ * - PostgreSQL ya está: no hace falta Redis, Kafka ni nada nuevo que operar.
+ *
+ * Publicar:
+ * - Escucho CustomerChangedEvent en BEFORE_COMMIT y hago pg_notify dentro de la MISMA transacción:
+ *   PostgreSQL entrega el NOTIFY recién cuando la transacción confirma (y nunca si hace rollback).
+ * - Sin transacción (ej. alta sin batcher) corre enseguida, después del INSERT ya confirmado.
+ *
+ * Escuchar:
+ * - Un hilo con una conexión propia (fuera del pool Hikari) hace LISTEN y reparte cada mensaje
+ *   a los {@link LocalCustomerCache}. Los mensajes propios se ignoran.
+ * - Si la conexión se cae, se reconecta; al (re)conectar SIEMPRE vacío las caches completas,
+ *   porque los mensajes enviados mientras no escuchaba se perdieron.
+ * - Cada keepalive-ms sin mensajes hago SELECT 1 para detectar conexiones muertas.
+ *
+ * Solo PostgreSQL: se activa con app.invalidation.enabled=true.
+ */
+@Component
+@ConditionalOnProperty(name = "app.invalidation.enabled", havingValue = "true")
+public class PgInvalidationBus {
+
+  private static final Logger log = LoggerFactory.getLogger(PgInvalidationBus.class);
+
+  // Límite de payload de NOTIFY: 8000 bytes
+  private static final int MAX_PAYLOAD_BYTES = 7900;
+
+  private final JdbcTemplate jdbcTemplate;
+  private final DataSourceProperties dataSourceProperties;
+  private final ObjectProvider<LocalCustomerCache> caches;
+  private final ObjectMapper objectMapper;
+  private final String channel;
+  private final int pollMillis;
+  private final long keepaliveMillis;
+  private final long reconnectDelayMillis;
+
+  private final String nodeId = UUID.randomUUID().toString().substring(0, 8);
+  private final AtomicBoolean running = new AtomicBoolean();
+  private final AtomicBoolean connected = new AtomicBoolean();
+  private volatile Connection listenConnection;
+  private Thread listener;
+
+  private final Counter sent;
+  private final Counter received;
+  private final Counter fullFlushes;
+
+  public PgInvalidationBus(JdbcTemplate jdbcTemplate, DataSourceProperties dataSourceProperties,
+      ObjectProvider<LocalCustomerCache> caches, ObjectMapper objectMapper, MeterRegistry meterRegistry,
+      @Value("${app.invalidation.channel:customer_invalidation}") String channel,
+      @Value("${app.invalidation.poll-ms:500}") int pollMillis,
+      @Value("${app.invalidation.keepalive-ms:30000}") long keepaliveMillis,
+      @Value("${app.invalidation.reconnect-delay-ms:2000}") long reconnectDelayMillis) {
+    if (!channel.matches("[a-z_][a-z0-9_]*")) {
+      throw new IllegalArgumentException("app.invalidation.channel must be a lowercase SQL identifier");
+    }
+    this.jdbcTemplate = jdbcTemplate;
+    this.dataSourceProperties = dataSourceProperties;
+    this.caches = caches;
+    this.objectMapper = objectMapper;
+    this.channel = channel;
+    this.pollMillis = pollMillis;
+    this.keepaliveMillis = keepaliveMillis;
+    this.reconnectDelayMillis = reconnectDelayMillis;
+    this.sent = Counter.builder("customers.invalidation.messages").tag("direction", "sent").register(meterRegistry);
+    this.received = Counter.builder("customers.invalidation.messages").tag("direction", "received").register(meterRegistry);
+    this.fullFlushes = Counter.builder("customers.invalidation.full-flushes")
+        .description("Local caches flushed because the LISTEN connection was (re)established")
+        .register(meterRegistry);
+    Gauge.builder("customers.invalidation.connected", connected, c -> c.get() ? 1 : 0)
+        .description("1 while the LISTEN connection is up")
+        .register(meterRegistry);
+  }
+
+  @PostConstruct
+  public void start() {
+    running.set(true);
+    listener = new Thread(this::listenLoop, "customer-invalidation-listener");
+    listener.setDaemon(true);
+    listener.start();
+  }
+
+  @PreDestroy
+  public void stop() {
+    running.set(false);
+    closeQuietly(listenConnection);
+    if (listener != null) {
+      listener.interrupt();
+    }
+  }
+
+  public String nodeId() {
+    return nodeId;
+  }
+
+  public boolean isConnected() {
+    return connected.get();
+  }
+
+  /**
+   * NOTIFY dentro de la transacción de la escritura: se entrega solo si confirma.
+   */
+  @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+  public void onCustomerChanged(CustomerChangedEvent event) {
+    CustomerInvalidation invalidation = CustomerInvalidation.of(nodeId, event);
+    String payload = encode(invalidation);
+    if (payload.getBytes(StandardCharsets.UTF_8).length > MAX_PAYLOAD_BYTES) {
+      // Emails enormes: mando el mensaje sin claves secundarias
+      payload = encode(new CustomerInvalidation(nodeId, event.type(), event.id(), invalidation.version(), List.of()));
+    }
+    jdbcTemplate.queryForList("SELECT pg_notify(?, ?)", channel, payload);
+    sent.increment();
+  }
+
+  /**
+   * Procesa un payload recibido por LISTEN (público para poder probarlo sin PostgreSQL).
+   */
+  public void dispatch(String payload) {
+    CustomerInvalidation invalidation;
+    try {
+      invalidation = objectMapper.readValue(payload, CustomerInvalidation.class);
+    } catch (JsonProcessingException e) {
+      log.warn("Unreadable invalidation message, flushing local caches: {}", e.getOriginalMessage());
+      flushAll();
+      return;
+    }
+    if (nodeId.equals(invalidation.origin())) {
+      return; // ya lo procesaron los listeners locales
+    }
+    received.increment();
+    caches.orderedStream().forEach(cache -> cache.evict(invalidation));
+  }
+
+  private void listenLoop() {
+    while (running.get()) {
+      try (Connection connection = openListenConnection()) {
+        listenConnection = connection;
+        try (Statement st = connection.createStatement()) {
+          st.execute("LISTEN " + channel);
+        }
+        connected.set(true);
+        // Lo que se publicó mientras no escuchaba se perdió: vacío todo
+        flushAll();
+        log.info("Listening for customer invalidations on channel '{}' (node {})", channel, nodeId);
+
+        PGConnection pg = connection.unwrap(PGConnection.class);
+        long lastActivity = System.currentTimeMillis();
+        while (running.get()) {
+          PGNotification[] notifications = pg.getNotifications(pollMillis);
+          if (notifications != null && notifications.length > 0) {
+            for (PGNotification n : notifications) {
+              dispatch(n.getParameter());
+            }
+            lastActivity = System.currentTimeMillis();
+          } else if (System.currentTimeMillis() - lastActivity >= keepaliveMillis) {
+            try (Statement st = connection.createStatement()) {
+              st.execute("SELECT 1");
+            }
+            lastActivity = System.currentTimeMillis();
+          }
+        }
+      } catch (SQLException | RuntimeException e) {
+        if (running.get()) {
+          log.warn("Invalidation listener disconnected ({}), reconnecting in {} ms", e.getMessage(), reconnectDelayMillis);
+        }
+      } finally {
+        connected.set(false);
+        listenConnection = null;
+      }
+      sleepBeforeReconnect();
+    }
+  }
+
+  private Connection openListenConnection() throws SQLException {
+    Connection connection = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+        dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword());
+    connection.setAutoCommit(true);
+    return connection;
+  }
+
+  private void flushAll() {
+    fullFlushes.increment();
+    caches.orderedStream().forEach(LocalCustomerCache::evictAll);
+  }
+
+  private void sleepBeforeReconnect() {
+    if (!running.get()) {
+      return;
+    }
+    try {
+      Thread.sleep(reconnectDelayMillis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      running.set(false);
+    }
+  }
+
+  private String encode(CustomerInvalidation invalidation) {
+    try {
+      return objectMapper.writeValueAsString(invalidation);
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("Cannot encode invalidation message", e);
+    }
+  }
+
+  private static void closeQuietly(Connection connection) {
+    if (connection == null) {
+      return;
+    }
+    try {
+      connection.close();
+    } catch (SQLException ignored) {
+      // se está cerrando igual
+    }
+  }
+}
@@ -0,0 +1,114 @@
+package com.example.customer_management_app.jdbc;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.jdbc.DataSourceUnwrapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.zaxxer.hikari.HikariConfigMXBean;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Ajuste adaptativo del tamaño máximo del pool (opcional).
+ *
+ * Idea (ley de Little): conexiones necesarias ≈ tasa de uso × tiempo de retención.
+ * - Cada intervalo tomo la ventana de ConnectionPoolMetrics:
+ *   tasa = adquisiciones/seg, hold = tiempo promedio en la base (respuesta de la BD)
+ * - objetivo = ceil(tasa × hold × headroom), acotado a [min, max]
+ * - Solo CRECE si además hay espera real por conexión (acquire promedio > wait-threshold-ms
+ *   o hilos pendientes): si la base ya está saturada, sumar conexiones no ayuda.
+ * - ACHICA de a 1 por intervalo, sin espera, para no oscilar.
+ *
+ * HikariCP permite cambiar maximumPoolSize en caliente vía HikariConfigMXBean.
+ * Activación: app.pool.adaptive.enabled=true
+ */
+@Component
+@ConditionalOnProperty(name = "app.pool.adaptive.enabled", havingValue = "true")
+public class AdaptivePoolSizer {
+
+  private static final Logger log = LoggerFactory.getLogger(AdaptivePoolSizer.class);
+
+  private final HikariDataSource hikari;
+  private final ConnectionPoolMetrics metrics;
+  private final int minSize;
+  private final int maxSize;
+  private final double waitThresholdMillis;
+  private final double headroom;
+  private final long intervalMillis;
+
+  public AdaptivePoolSizer(DataSource dataSource, ConnectionPoolMetrics metrics, MeterRegistry meterRegistry,
+      @Value("${app.pool.adaptive.min-size:5}") int minSize,
+      @Value("${app.pool.adaptive.max-size:30}") int maxSize,
+      @Value("${app.pool.adaptive.wait-threshold-ms:5}") double waitThresholdMillis,
+      @Value("${app.pool.adaptive.headroom:1.2}") double headroom,
+      @Value("${app.pool.adaptive.interval-ms:10000}") long intervalMillis) {
+    this.hikari = DataSourceUnwrapper.unwrap(dataSource, HikariConfigMXBean.class, HikariDataSource.class);
+    if (this.hikari == null) {
+      throw new IllegalStateException("app.pool.adaptive.enabled=true requires a HikariCP DataSource");
+    }
+    if (minSize < 1 || maxSize < minSize) {
+      throw new IllegalArgumentException("Invalid app.pool.adaptive bounds: min=" + minSize + ", max=" + maxSize);
+    }
+    this.metrics = metrics;
+    this.minSize = minSize;
+    this.maxSize = maxSize;
+    this.waitThresholdMillis = waitThresholdMillis;
+    this.headroom = headroom;
+    this.intervalMillis = intervalMillis;
+    Gauge.builder("db.pool.adaptive.max-size", hikari, HikariDataSource::getMaximumPoolSize)
+        .description("Current maximumPoolSize chosen by the adaptive sizer")
+        .register(meterRegistry);
+  }
+
+  @Scheduled(fixedDelayString = "${app.pool.adaptive.interval-ms:10000}",
+      initialDelayString = "${app.pool.adaptive.interval-ms:10000}")
+  public void adjust() {
+    HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+    if (pool == null) {
+      return; // el pool todavía no arrancó
+    }
+    ConnectionPoolMetrics.WindowStats window = metrics.drainWindow();
+    int current = hikari.getMaximumPoolSize();
+    int next = decide(current, window, pool.getThreadsAwaitingConnection(), intervalMillis);
+    if (next != current) {
+      HikariConfigMXBean config = hikari.getHikariConfigMXBean();
+      // minimumIdle nunca puede superar al máximo
+      if (config.getMinimumIdle() > next) {
+        config.setMinimumIdle(next);
+      }
+      config.setMaximumPoolSize(next);
+      log.info("Adaptive pool sizing: maximumPoolSize {} -> {} (avg acquire {} ms, avg hold {} ms, pending {})",
+          current, next, String.format("%.2f", window.avgAcquireMillis()),
+          String.format("%.2f", window.avgHoldMillis()), pool.getThreadsAwaitingConnection());
+    }
+  }
+
+  /**
+   * Regla de decisión pura (sin efectos): devuelve el nuevo maximumPoolSize.
+   */
+  int decide(int current, ConnectionPoolMetrics.WindowStats window, int pending, long windowMillis) {
+    double seconds = windowMillis / 1000.0;
+    double rate = seconds > 0 ? window.acquisitions() / seconds : 0.0;
+    double holdSeconds = window.avgHoldMillis() / 1000.0;
+    int target = (int) Math.ceil(rate * holdSeconds * headroom);
+    target = Math.max(minSize, Math.min(maxSize, target));
+
+    boolean waiting = window.avgAcquireMillis() > waitThresholdMillis || pending > 0;
+    if (target > current && waiting) {
+      return target;
+    }
+    if (target < current && !waiting) {
+      return Math.max(minSize, current - 1);
+    }
+    return Math.max(minSize, Math.min(maxSize, current));
+  }
+}
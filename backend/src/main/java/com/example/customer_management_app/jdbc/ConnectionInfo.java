@@ -0,0 +1,16 @@
+package com.example.customer_management_app.jdbc;
+
+/**
+ * Datos de una conexión tomada del pool mientras está en uso.
+ *
+ * - owner: método de CustomerService que pidió la conexión (o "other" si fue fuera del servicio)
+ * - acquireNanos: cuánto esperé al pool para obtenerla
+ * - acquiredAtNanos: System.nanoTime() del momento en que la obtuve (para medir el hold time)
+ */
+public record ConnectionInfo(long id, String owner, String threadName, long acquireNanos, long acquiredAtNanos) {
+
+  // Tiempo que la conexión lleva tomada hasta "now"
+  public long heldNanos(long now) {
+    return now - acquiredAtNanos;
+  }
+}
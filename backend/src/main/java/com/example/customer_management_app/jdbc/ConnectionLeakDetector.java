@@ -0,0 +1,86 @@
+package com.example.customer_management_app.jdbc;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Detector de conexiones retenidas demasiado tiempo.
+ *
+ * ¿Por qué no alcanza con leakDetectionThreshold de HikariCP?
+ * - Hikari avisa la fuga pero solo con un stack trace; acá reporto directamente
+ *   qué método de CustomerService (y qué hilo) tiene la conexión.
+ *
+ * Cada conexión se reporta una sola vez (WARN + contador db.connection.leak.suspected{method}).
+ * Si después se devuelve, lo dejo registrado en INFO con el tiempo total.
+ */
+@Component
+public class ConnectionLeakDetector implements JdbcEventListener {
+
+  private static final Logger log = LoggerFactory.getLogger(ConnectionLeakDetector.class);
+
+  private final Map<Long, Tracked> open = new ConcurrentHashMap<>();
+  private final MeterRegistry meterRegistry;
+  private final long thresholdNanos;
+
+  public ConnectionLeakDetector(MeterRegistry meterRegistry,
+      @Value("${app.pool.leak-threshold-ms:10000}") long thresholdMillis) {
+    this.meterRegistry = meterRegistry;
+    this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+  }
+
+  @Override
+  public void onConnectionAcquired(ConnectionInfo info) {
+    open.put(info.id(), new Tracked(info));
+  }
+
+  @Override
+  public void onConnectionReleased(ConnectionInfo info, long heldNanos) {
+    Tracked tracked = open.remove(info.id());
+    if (tracked != null && tracked.reported) {
+      log.info("Connection {} previously reported as leaked was returned by {} after {} ms",
+          info.id(), info.owner(), TimeUnit.NANOSECONDS.toMillis(heldNanos));
+    }
+  }
+
+  @Scheduled(fixedDelayString = "${app.pool.leak-check-interval-ms:5000}")
+  public void checkForLeaks() {
+    long now = System.nanoTime();
+    for (Tracked t : open.values()) {
+      long held = t.info.heldNanos(now);
+      if (!t.reported && held > thresholdNanos) {
+        t.reported = true;
+        log.warn("Possible connection leak: connection {} held for {} ms by {} on thread {}",
+            t.info.id(), TimeUnit.NANOSECONDS.toMillis(held), t.info.owner(), t.info.threadName());
+        Counter.builder("db.connection.leak.suspected")
+            .description("Connections held longer than app.pool.leak-threshold-ms")
+            .tag("method", t.info.owner())
+            .register(meterRegistry)
+            .increment();
+      }
+    }
+  }
+
+  // Conexiones abiertas ahora mismo (diagnóstico)
+  public int openConnections() {
+    return open.size();
+  }
+
+  private static final class Tracked {
+    private final ConnectionInfo info;
+    private volatile boolean reported;
+
+    private Tracked(ConnectionInfo info) {
+      this.info = info;
+    }
+  }
+}
@@ -0,0 +1,83 @@
+package com.example.customer_management_app.jdbc;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Métricas de uso de conexiones por método de CustomerService.
+ *
+ * Complementa las métricas que HikariCP ya publica vía Micrometer
+ * (hikaricp.connections.active/idle/pending/acquire/usage), que son globales del pool:
+ * - db.connection.acquire{method}: espera por una conexión (histograma)
+ * - db.connection.hold{method}: tiempo que el método retuvo la conexión (histograma)
+ *
+ * Con las dos juntas se ve si la latencia viene de ESPERAR el pool o de USAR la conexión.
+ * También acumulo totales por ventana para el ajuste adaptativo del pool.
+ */
+@Component
+public class ConnectionPoolMetrics implements JdbcEventListener {
+
+  private final MeterRegistry meterRegistry;
+
+  // Acumuladores de la ventana actual (los lee y resetea AdaptivePoolSizer)
+  private final LongAdder windowAcquisitions = new LongAdder();
+  private final LongAdder windowAcquireNanos = new LongAdder();
+  private final LongAdder windowReleases = new LongAdder();
+  private final LongAdder windowHoldNanos = new LongAdder();
+
+  public ConnectionPoolMetrics(MeterRegistry meterRegistry) {
+    this.meterRegistry = meterRegistry;
+  }
+
+  @Override
+  public void onConnectionAcquired(ConnectionInfo info) {
+    timer("db.connection.acquire", "Time waiting for a pooled connection", info.owner())
+        .record(info.acquireNanos(), TimeUnit.NANOSECONDS);
+    windowAcquisitions.increment();
+    windowAcquireNanos.add(info.acquireNanos());
+  }
+
+  @Override
+  public void onConnectionReleased(ConnectionInfo info, long heldNanos) {
+    timer("db.connection.hold", "Time a pooled connection was held", info.owner())
+        .record(heldNanos, TimeUnit.NANOSECONDS);
+    windowReleases.increment();
+    windowHoldNanos.add(heldNanos);
+  }
+
+  /**
+   * Devuelve y resetea los acumulados de la ventana.
+   * No es atómico entre contadores, pero para promedios de control alcanza.
+   */
+  public WindowStats drainWindow() {
+    return new WindowStats(windowAcquisitions.sumThenReset(), windowAcquireNanos.sumThenReset(),
+        windowReleases.sumThenReset(), windowHoldNanos.sumThenReset());
+  }
+
+  private Timer timer(String name, String description, String method) {
+    return Timer.builder(name)
+        .description(description)
+        .tag("method", method)
+        .publishPercentileHistogram()
+        .register(meterRegistry);
+  }
+
+  /**
+   * Totales de una ventana de medición.
+   */
+  public record WindowStats(long acquisitions, long acquireNanos, long releases, long holdNanos) {
+
+    public double avgAcquireMillis() {
+      return acquisitions == 0 ? 0.0 : acquireNanos / 1_000_000.0 / acquisitions;
+    }
+
+    public double avgHoldMillis() {
+      return releases == 0 ? 0.0 : holdNanos / 1_000_000.0 / releases;
+    }
+  }
+}
@@ -0,0 +1,48 @@
+package com.example.customer_management_app.jdbc;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Envuelve el DataSource del pool en un {@link InstrumentedDataSource}.
+ *
+ * ¿Por qué un BeanPostProcessor y no declarar yo el DataSource?
+ * - Sigo usando la autoconfiguración de Spring Boot (spring.datasource.*, spring.datasource.hikari.*).
+ * - Solo "decoro" el bean ya creado: todo el que inyecte DataSource (JPA, Flyway, JdbcTemplate)
+ *   pasa por la instrumentación.
+ */
+@Configuration(proxyBeanMethods = false)
+public class DataSourceInstrumentationConfig {
+
+  // static: los BeanPostProcessor se crean muy temprano, antes que el resto de la config
+  @Bean
+  static BeanPostProcessor instrumentedDataSourcePostProcessor() {
+    return new BeanPostProcessor() {
+      @Override
+      public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource ds && !(bean instanceof InstrumentedDataSource)) {
+          return new InstrumentedDataSource(ds);
+        }
+        return bean;
+      }
+    };
+  }
+
+  /**
+   * Conecto los listeners cuando ya existen todos los singletons.
+   * Las conexiones que se piden antes (ej. Flyway al arrancar) no se observan, y está bien.
+   */
+  @Bean
+  static SmartInitializingSingleton jdbcListenersRegistrar(ObjectProvider<DataSource> dataSources,
+      ObjectProvider<JdbcEventListener> listeners) {
+    return () -> dataSources.orderedStream()
+        .filter(InstrumentedDataSource.class::isInstance)
+        .map(InstrumentedDataSource.class::cast)
+        .forEach(ds -> ds.setListeners(listeners.orderedStream().toList()));
+  }
+}
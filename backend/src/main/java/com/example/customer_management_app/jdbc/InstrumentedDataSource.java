@@ -0,0 +1,318 @@
+package com.example.customer_management_app.jdbc;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * DataSource que envuelve al pool (HikariCP) para observar el uso de conexiones.
+ *
+ * ¿Qué mide?
+ * - Tiempo de espera para obtener una conexión (acquire)
+ * - Tiempo que la conexión estuvo tomada (hold) y por qué método de CustomerService
+ * - Cada sentencia SQL ejecutada (y su duración) y las filas leídas de cada ResultSet
+ *
+ * ¿Cómo?
+ * - Cada Connection devuelta es un proxy dinámico (java.lang.reflect.Proxy) que avisa
+ *   a los {@link JdbcEventListener} cuando se obtiene y cuando vuelve al pool.
+ * - Los Statement/PreparedStatement/CallableStatement que crea también son proxies:
+ *   avisan antes y después de cada execute* (con el SQL, para tracing) y envuelven
+ *   el ResultSet para contar filas (next() == true).
+ * - Si la request tiene plazo ({@link QueryDeadline}), cada execute* sale con setQueryTimeout
+ *   y se puede cancelar desde otro hilo (cliente desconectado).
+ * - Extiendo DelegatingDataSource para que Spring Boot pueda seguir haciendo unwrap
+ *   hasta HikariDataSource (métricas hikaricp.*, health, etc.).
+ */
+public class InstrumentedDataSource extends DelegatingDataSource {
+
+  private static final Logger log = LoggerFactory.getLogger(InstrumentedDataSource.class);
+
+  private final AtomicLong connectionIds = new AtomicLong();
+
+  // Se completa cuando el contexto terminó de crear todos los beans (ver DataSourceInstrumentationConfig)
+  private volatile List<JdbcEventListener> listeners = List.of();
+
+  public InstrumentedDataSource(DataSource target) {
+    super(target);
+  }
+
+  public void setListeners(List<JdbcEventListener> listeners) {
+    this.listeners = List.copyOf(listeners);
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    long start = System.nanoTime();
+    return wrap(obtainTargetDataSource().getConnection(), start);
+  }
+
+  @Override
+  public Connection getConnection(String username, String password) throws SQLException {
+    long start = System.nanoTime();
+    return wrap(obtainTargetDataSource().getConnection(username, password), start);
+  }
+
+  private Connection wrap(Connection target, long start) {
+    long acquiredAt = System.nanoTime();
+    ConnectionInfo info = new ConnectionInfo(connectionIds.incrementAndGet(), ServiceMethodContext.current(),
+        Thread.currentThread().getName(), acquiredAt - start, acquiredAt);
+    for (JdbcEventListener l : listeners) {
+      safely(() -> l.onConnectionAcquired(info));
+    }
+    return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+        new Class<?>[] { Connection.class }, new ConnectionHandler(target, info));
+  }
+
+  // Un listener roto nunca debe romper la request
+  private static void safely(Runnable r) {
+    try {
+      r.run();
+    } catch (RuntimeException e) {
+      log.warn("JDBC listener failed", e);
+    }
+  }
+
+  /**
+   * Handler del proxy de Connection: delega todo y avisa el close() una sola vez.
+   */
+  private final class ConnectionHandler implements InvocationHandler {
+
+    private final Connection target;
+    private final ConnectionInfo info;
+    private boolean released;
+
+    private ConnectionHandler(Connection target, ConnectionInfo info) {
+      this.target = target;
+      this.info = info;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      switch (method.getName()) {
+        case "equals":
+          return proxy == args[0];
+        case "hashCode":
+          return System.identityHashCode(proxy);
+        case "toString":
+          return "InstrumentedConnection[" + info.id() + ", owner=" + info.owner() + "] -> " + target;
+        case "unwrap":
+          if (((Class<?>) args[0]).isInstance(target)) {
+            return target;
+          }
+          break;
+        case "isWrapperFor":
+          if (((Class<?>) args[0]).isInstance(target)) {
+            return true;
+          }
+          break;
+        default:
+          break;
+      }
+      try {
+        Object result = method.invoke(target, args);
+        if (result instanceof Statement statement) {
+          // prepareStatement/prepareCall reciben el SQL; createStatement lo recibe en cada execute
+          String sql = args != null && args.length > 0 && args[0] instanceof String s ? s : null;
+          return wrapStatement(statement, sql, (Connection) proxy);
+        }
+        return result;
+      } catch (InvocationTargetException e) {
+        throw e.getTargetException();
+      } finally {
+        if ("close".equals(method.getName()) && !released) {
+          released = true;
+          long held = info.heldNanos(System.nanoTime());
+          for (JdbcEventListener l : listeners) {
+            safely(() -> l.onConnectionReleased(info, held));
+          }
+        }
+      }
+    }
+
+    private Statement wrapStatement(Statement statement, String sql, Connection connectionProxy) {
+      Class<?> type = statement instanceof CallableStatement ? CallableStatement.class
+          : statement instanceof PreparedStatement ? PreparedStatement.class
+          : Statement.class;
+      return (Statement) Proxy.newProxyInstance(Statement.class.getClassLoader(),
+          new Class<?>[] { type }, new StatementHandler(statement, sql, connectionProxy, info));
+    }
+  }
+
+  /**
+   * Handler del proxy de Statement: mide cada execute* y envuelve los ResultSet.
+   */
+  private final class StatementHandler implements InvocationHandler {
+
+    private final Statement target;
+    private final Connection connectionProxy;
+    private final ConnectionInfo info;
+    private String sql;
+    private ResultSetHandler openResultSet;
+
+    private StatementHandler(Statement target, String sql, Connection connectionProxy, ConnectionInfo info) {
+      this.target = target;
+      this.sql = sql;
+      this.connectionProxy = connectionProxy;
+      this.info = info;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      String name = method.getName();
+      switch (name) {
+        case "equals":
+          return proxy == args[0];
+        case "hashCode":
+          return System.identityHashCode(proxy);
+        case "getConnection":
+          return connectionProxy;
+        case "unwrap":
+          if (((Class<?>) args[0]).isInstance(target)) {
+            return target;
+          }
+          break;
+        case "isWrapperFor":
+          if (((Class<?>) args[0]).isInstance(target)) {
+            return true;
+          }
+          break;
+        default:
+          break;
+      }
+      boolean execute = name.startsWith("execute");
+      if (execute && args != null && args.length > 0 && args[0] instanceof String s) {
+        sql = s;
+      }
+      // Plazo de la request (timeout + cancelación si el cliente se va); antes de avisar el inicio
+      QueryDeadline deadline = execute ? QueryDeadline.current() : null;
+      if (deadline != null) {
+        deadline.beforeExecute(target);
+      }
+      if (execute) {
+        String executed = sql;
+        for (JdbcEventListener l : listeners) {
+          safely(() -> l.onStatementStarted(info, executed));
+        }
+      }
+      long start = execute ? System.nanoTime() : 0L;
+      try {
+        Object result = method.invoke(target, args);
+        if (result instanceof ResultSet rs && ("executeQuery".equals(name) || "getResultSet".equals(name))) {
+          return wrapResultSet(rs, proxy);
+        }
+        return result;
+      } catch (InvocationTargetException e) {
+        Throwable failure = e.getTargetException();
+        SQLException timeout = deadline != null ? deadline.afterExecute(target, failure) : null;
+        deadline = null; // ya se cerró
+        throw timeout != null ? timeout : failure;
+      } finally {
+        if (deadline != null) {
+          deadline.afterExecute(target, null);
+        }
+        if (execute) {
+          long elapsed = System.nanoTime() - start;
+          for (JdbcEventListener l : listeners) {
+            safely(() -> l.onStatementExecuted(info, elapsed));
+          }
+        } else if ("close".equals(name)) {
+          // Si cierran el Statement sin cerrar el ResultSet, igual reporto sus filas
+          flushResultSet();
+        }
+      }
+    }
+
+    private ResultSet wrapResultSet(ResultSet rs, Object statementProxy) {
+      flushResultSet();
+      openResultSet = new ResultSetHandler(rs, statementProxy, info);
+      return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+          new Class<?>[] { ResultSet.class }, openResultSet);
+    }
+
+    private void flushResultSet() {
+      if (openResultSet != null) {
+        openResultSet.report();
+        openResultSet = null;
+      }
+    }
+  }
+
+  /**
+   * Handler del proxy de ResultSet: cuenta filas y tiempo de fetch, y lo reporta una vez al cerrarse.
+   */
+  private final class ResultSetHandler implements InvocationHandler {
+
+    private final ResultSet target;
+    private final Object statementProxy;
+    private final ConnectionInfo info;
+    private long rows;
+    private long fetchNanos;
+    private boolean reported;
+
+    private ResultSetHandler(ResultSet target, Object statementProxy, ConnectionInfo info) {
+      this.target = target;
+      this.statementProxy = statementProxy;
+      this.info = info;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      switch (method.getName()) {
+        case "equals":
+          return proxy == args[0];
+        case "hashCode":
+          return System.identityHashCode(proxy);
+        case "getStatement":
+          return statementProxy;
+        case "next": {
+          long start = System.nanoTime();
+          try {
+            boolean hasRow = target.next();
+            if (hasRow) {
+              rows++;
+            }
+            return hasRow;
+          } finally {
+            fetchNanos += System.nanoTime() - start;
+          }
+        }
+        default:
+          break;
+      }
+      try {
+        return method.invoke(target, args);
+      } catch (InvocationTargetException e) {
+        throw e.getTargetException();
+      } finally {
+        if ("close".equals(method.getName())) {
+          report();
+        }
+      }
+    }
+
+    private void report() {
+      if (reported) {
+        return;
+      }
+      reported = true;
+      for (JdbcEventListener l : listeners) {
+        safely(() -> l.onRowsFetched(info, rows, fetchNanos));
+      }
+    }
+  }
+}
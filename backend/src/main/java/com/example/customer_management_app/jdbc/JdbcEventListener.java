@@ -0,0 +1,34 @@
+package com.example.customer_management_app.jdbc;
+
+/**
+ * Hook para observar la actividad JDBC que pasa por {@link InstrumentedDataSource}.
+ *
+ * ¿Por qué métodos default?
+ * - Cada listener implementa solo lo que le interesa (métricas, fugas, etc.).
+ * - Los listeners son beans de Spring: se registran solos al declararlos.
+ *
+ * Importante: se ejecutan en el hilo de la request, así que tienen que ser baratos.
+ */
+public interface JdbcEventListener {
+
+  // Se obtuvo una conexión del pool
+  default void onConnectionAcquired(ConnectionInfo info) {
+  }
+
+  // La conexión volvió al pool (close) después de heldNanos
+  default void onConnectionReleased(ConnectionInfo info, long heldNanos) {
+  }
+
+  // Está por ejecutarse una sentencia (sql puede ser null si no se conoce, ej. executeBatch de Statement).
+  // Siempre le sigue onStatementExecuted en el mismo hilo, aunque la sentencia falle.
+  default void onStatementStarted(ConnectionInfo info, String sql) {
+  }
+
+  // Se ejecutó una sentencia (execute/executeQuery/executeUpdate/executeBatch) en elapsedNanos
+  default void onStatementExecuted(ConnectionInfo info, long elapsedNanos) {
+  }
+
+  // Se cerró un ResultSet del que se leyeron rows filas (fetchNanos = tiempo dentro de next())
+  default void onRowsFetched(ConnectionInfo info, long rows, long fetchNanos) {
+  }
+}
@@ -0,0 +1,158 @@
+package com.example.customer_management_app.jdbc;
+
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.micrometer.core.instrument.Counter;
+
+/**
+ * Plazo y cancelación de las consultas SQL de una request HTTP.
+ *
+ * ¿Cómo se aplica?
+ * - {@link QueryTimeoutInterceptor} lo abre con el plazo del endpoint ({@link QueryTimeout}).
+ * - {@link InstrumentedDataSource} lo consulta antes de cada sentencia: le pone setQueryTimeout
+ *   con lo que le queda a la request (redondeado hacia arriba: JDBC usa segundos) y la registra
+ *   mientras corre. Si el plazo ya venció, ni la ejecuta.
+ * - Si el cliente se desconecta de una request async (AsyncListener.onError), cancel() llama a
+ *   Statement.cancel() de lo que esté corriendo: PostgreSQL corta la consulta y libera la conexión.
+ *
+ * El plazo es por request, no por sentencia: un endpoint con página + COUNT no puede tardar
+ * el doble del límite. Las sentencias de otros hilos (batcher, jobs) no tienen plazo.
+ */
+public final class QueryDeadline {
+
+  private static final Logger log = LoggerFactory.getLogger(QueryDeadline.class);
+
+  private static final ThreadLocal<QueryDeadline> CURRENT = new ThreadLocal<>();
+
+  // SQLState de "consulta cancelada" (PostgreSQL y H2), también para setQueryTimeout
+  static final String QUERY_CANCELED = "57014";
+
+  private final long deadlineNanos;
+  private final int timeoutSeconds;
+  private final Counter timeouts;
+  private final Counter cancellations;
+  private final Set<Statement> running = ConcurrentHashMap.newKeySet();
+  private volatile String cancelReason;
+
+  /**
+   * @param timeoutSeconds plazo total de la request (0 = sin plazo, solo cancelación)
+   */
+  QueryDeadline(int timeoutSeconds, Counter timeouts, Counter cancellations) {
+    this.timeoutSeconds = timeoutSeconds;
+    this.deadlineNanos = timeoutSeconds > 0 ? System.nanoTime() + TimeUnit.SECONDS.toNanos(timeoutSeconds) : 0L;
+    this.timeouts = timeouts;
+    this.cancellations = cancellations;
+  }
+
+  // Plazo del hilo actual, o null si no hay
+  public static QueryDeadline current() {
+    return CURRENT.get();
+  }
+
+  // Devuelve el anterior para poder restaurarlo (ver ContextRegistry en QueryTimeoutInterceptor)
+  static QueryDeadline bind(QueryDeadline deadline) {
+    QueryDeadline previous = CURRENT.get();
+    if (deadline != null) {
+      CURRENT.set(deadline);
+    } else {
+      CURRENT.remove();
+    }
+    return previous;
+  }
+
+  public int timeoutSeconds() {
+    return timeoutSeconds;
+  }
+
+  public boolean isCancelled() {
+    return cancelReason != null;
+  }
+
+  boolean expired() {
+    return deadlineNanos != 0L && System.nanoTime() - deadlineNanos >= 0;
+  }
+
+  /**
+   * Antes de ejecutar: falla si ya venció o se canceló; si no, fija el timeout de la sentencia
+   * (sin agrandar uno más chico que ya tuviera) y la registra para poder cancelarla.
+   */
+  void beforeExecute(Statement statement) throws SQLException {
+    if (cancelReason != null) {
+      throw cancelled();
+    }
+    if (deadlineNanos != 0L) {
+      long remaining = deadlineNanos - System.nanoTime();
+      if (remaining <= 0) {
+        timeouts.increment();
+        throw timeout(null);
+      }
+      int seconds = (int) Math.max(1, (remaining + 999_999_999L) / 1_000_000_000L);
+      int current = statement.getQueryTimeout();
+      if (current == 0 || seconds < current) {
+        statement.setQueryTimeout(seconds);
+      }
+    }
+    running.add(statement);
+    // cancel() pudo recorrer "running" justo antes del add
+    if (cancelReason != null) {
+      running.remove(statement);
+      throw cancelled();
+    }
+  }
+
+  /**
+   * Después de ejecutar (con o sin error). Si la sentencia falló por el plazo o por una
+   * cancelación, devuelve la excepción a propagar (SQLTimeoutException para el plazo:
+   * Spring la traduce a QueryTimeoutException); si no, null.
+   */
+  SQLException afterExecute(Statement statement, Throwable error) {
+    running.remove(statement);
+    if (!(error instanceof SQLException e)) {
+      return null;
+    }
+    if (cancelReason != null) {
+      cancellations.increment();
+      return null;
+    }
+    if (e instanceof SQLTimeoutException || (QUERY_CANCELED.equals(e.getSQLState()) && expired())) {
+      timeouts.increment();
+      return e instanceof SQLTimeoutException ? null : timeout(e);
+    }
+    return null;
+  }
+
+  /**
+   * Cancela lo que esté corriendo y todo lo que venga después (el cliente ya no espera la respuesta).
+   */
+  public void cancel(String reason) {
+    if (cancelReason != null) {
+      return;
+    }
+    cancelReason = reason;
+    for (Statement statement : running) {
+      try {
+        statement.cancel();
+      } catch (SQLException | RuntimeException e) {
+        log.debug("Could not cancel statement ({})", reason, e);
+      }
+    }
+  }
+
+  private SQLException cancelled() {
+    cancellations.increment();
+    return new SQLException("Query cancelled: " + cancelReason, QUERY_CANCELED);
+  }
+
+  private SQLTimeoutException timeout(SQLException cause) {
+    return new SQLTimeoutException("Query timed out: the request exceeded its " + timeoutSeconds + "s database budget",
+        QUERY_CANCELED, cause);
+  }
+}
@@ -0,0 +1,22 @@
+package com.example.customer_management_app.jdbc;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Tiempo máximo que pueden tardar las consultas SQL de un endpoint (todas juntas, por request).
+ *
+ * - Lo aplica {@link QueryTimeoutInterceptor}: cada sentencia sale con setQueryTimeout
+ *   igual al tiempo que le queda a la request; si se pasa, 504 (ver GlobalExceptionHandler).
+ * - Endpoints GET sin anotación usan app.query-timeout.default-seconds; el resto no tiene límite.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface QueryTimeout {
+
+  int seconds();
+}
@@ -0,0 +1,154 @@
+package com.example.customer_management_app.jdbc;
+
+import java.io.IOException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import io.micrometer.context.ContextRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Abre un {@link QueryDeadline} por request: plazo para el SQL y cancelación si el cliente se va.
+ *
+ * ¿Por qué hace falta?
+ * - Una búsqueda patológica (q=a contra los cinco LIKE de /search/page) puede seguir corriendo
+ *   segundos después de que el cliente se rindió, con una conexión del pool tomada.
+ *
+ * Reglas:
+ * - Plazo: {@link QueryTimeout} del endpoint; GET sin anotación usa app.query-timeout.default-seconds;
+ *   escrituras sin plazo (0). GraphQL llega por POST pero el esquema solo tiene Query: su path
+ *   (spring.graphql.http.path) usa app.query-timeout.graphql-seconds.
+ * - Requests async (GraphQL, Callable/DeferredResult): si el contenedor avisa que el cliente se
+ *   desconectó (AsyncListener.onError) o que venció el timeout async, se cancela lo que esté corriendo.
+ *   En requests síncronas el contenedor recién se entera al escribir la respuesta: ahí solo vale el plazo.
+ * - El plazo viaja a otros hilos con context-propagation (ContextRegistry), como el trace.
+ *
+ * Métricas (por method + uri con el patrón, igual que {@link SqlBudgetFilter}):
+ * - http.server.requests.sql.timeouts: sentencias cortadas por el plazo
+ * - http.server.requests.sql.cancelled: sentencias canceladas (o no iniciadas) porque el cliente se fue
+ */
+@Component
+@ConditionalOnProperty(name = "app.query-timeout.enabled", havingValue = "true", matchIfMissing = true)
+public class QueryTimeoutInterceptor implements AsyncHandlerInterceptor, WebMvcConfigurer {
+
+  static final String ATTRIBUTE = QueryDeadline.class.getName();
+
+  static {
+    ContextRegistry.getInstance().registerThreadLocalAccessor(ATTRIBUTE,
+        QueryDeadline::current, QueryDeadline::bind, () -> QueryDeadline.bind(null));
+  }
+
+  private final MeterRegistry meterRegistry;
+  private final int defaultSeconds;
+  private final int graphQlSeconds;
+  // null: sin plazo especial para GraphQL
+  private final String graphQlPath;
+
+  public QueryTimeoutInterceptor(MeterRegistry meterRegistry, int defaultSeconds) {
+    this(meterRegistry, defaultSeconds, defaultSeconds, null);
+  }
+
+  @Autowired
+  public QueryTimeoutInterceptor(MeterRegistry meterRegistry,
+      @Value("${app.query-timeout.default-seconds:10}") int defaultSeconds,
+      @Value("${app.query-timeout.graphql-seconds:10}") int graphQlSeconds,
+      @Value("${spring.graphql.http.path:/graphql}") String graphQlPath) {
+    this.meterRegistry = meterRegistry;
+    this.defaultSeconds = defaultSeconds;
+    this.graphQlSeconds = graphQlSeconds;
+    this.graphQlPath = graphQlPath;
+  }
+
+  @Override
+  public void addInterceptors(InterceptorRegistry registry) {
+    registry.addInterceptor(this);
+  }
+
+  @Override
+  public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+    // En el dispatch de vuelta de una request async sigue valiendo el plazo original
+    QueryDeadline deadline = (QueryDeadline) request.getAttribute(ATTRIBUTE);
+    if (deadline == null) {
+      deadline = open(request, handler);
+      request.setAttribute(ATTRIBUTE, deadline);
+    }
+    QueryDeadline.bind(deadline);
+    return true;
+  }
+
+  @Override
+  public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+    QueryDeadline.bind(null); // el hilo vuelve al contenedor; la request sigue en otro
+    QueryDeadline deadline = (QueryDeadline) request.getAttribute(ATTRIBUTE);
+    if (deadline != null && request.isAsyncStarted()) {
+      request.getAsyncContext().addListener(new CancelOnDisconnect(deadline));
+    }
+  }
+
+  @Override
+  public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+    QueryDeadline.bind(null);
+  }
+
+  private QueryDeadline open(HttpServletRequest request, Object handler) {
+    QueryTimeout annotation = handler instanceof HandlerMethod hm ? hm.getMethodAnnotation(QueryTimeout.class) : null;
+    int seconds = annotation != null ? annotation.seconds()
+        : isGraphQl(request) ? graphQlSeconds
+        : "GET".equals(request.getMethod()) ? defaultSeconds : 0;
+    Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+    String method = request.getMethod();
+    String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+    // Micrometer cachea el meter por nombre+tags, así que registrar por request es barato
+    Counter timeouts = Counter.builder("http.server.requests.sql.timeouts")
+        .description("SQL statements stopped because the HTTP request ran out of its query time")
+        .tags("method", method, "uri", uri)
+        .register(meterRegistry);
+    Counter cancelled = Counter.builder("http.server.requests.sql.cancelled")
+        .description("SQL statements cancelled because the client disconnected")
+        .tags("method", method, "uri", uri)
+        .register(meterRegistry);
+    return new QueryDeadline(seconds, timeouts, cancelled);
+  }
+
+  // El endpoint GraphQL es una RouterFunction (no HandlerMethod): lo reconozco por el path
+  private boolean isGraphQl(HttpServletRequest request) {
+    return graphQlPath != null
+        && graphQlPath.equals(request.getRequestURI().substring(request.getContextPath().length()));
+  }
+
+  private record CancelOnDisconnect(QueryDeadline deadline) implements AsyncListener {
+
+    @Override
+    public void onError(AsyncEvent event) {
+      deadline.cancel("client disconnected");
+    }
+
+    @Override
+    public void onTimeout(AsyncEvent event) {
+      deadline.cancel("async request timed out");
+    }
+
+    @Override
+    public void onComplete(AsyncEvent event) {
+    }
+
+    @Override
+    public void onStartAsync(AsyncEvent event) throws IOException {
+      // Un nuevo startAsync descarta los listeners: me vuelvo a registrar
+      event.getAsyncContext().addListener(this);
+    }
+  }
+}
@@ -0,0 +1,33 @@
+package com.example.customer_management_app.jdbc;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Marca en {@link ServiceMethodContext} qué método de CustomerService está corriendo.
+ *
+ * ¿Por qué @Order con precedencia alta?
+ * - El advice de @Transactional toma la conexión al empezar la transacción.
+ * - Este aspecto tiene que envolverlo (ejecutarse ANTES) para que la conexión
+ *   ya quede atribuida al método correcto.
+ * - Si el servicio se llama a sí mismo, conservo el método externo (el que entró por el proxy).
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class ServiceMethodAspect {
+
+  @Around("execution(public * com.example.customer_management_app.CustomerService+.*(..))")
+  public Object track(ProceedingJoinPoint pjp) throws Throwable {
+    String previous = ServiceMethodContext.enter("CustomerService." + pjp.getSignature().getName());
+    try {
+      return pjp.proceed();
+    } finally {
+      ServiceMethodContext.exit(previous);
+    }
+  }
+}
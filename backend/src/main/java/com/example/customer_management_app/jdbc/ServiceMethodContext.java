@@ -0,0 +1,38 @@
+package com.example.customer_management_app.jdbc;
+
+/**
+ * Guarda (por hilo) qué método de CustomerService se está ejecutando.
+ *
+ * ¿Para qué?
+ * - Atribuir cada conexión del pool al método de negocio que la pidió:
+ *   hold time por método y reporte de fugas con nombre y apellido.
+ */
+public final class ServiceMethodContext {
+
+  public static final String NONE = "other";
+
+  private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+  private ServiceMethodContext() { /* utility class */ }
+
+  // Método actual, o "other" si la conexión se pidió fuera del servicio (Flyway, health, etc.)
+  public static String current() {
+    String method = CURRENT.get();
+    return method != null ? method : NONE;
+  }
+
+  // Devuelve el valor anterior para poder restaurarlo (llamadas anidadas)
+  static String enter(String method) {
+    String previous = CURRENT.get();
+    if (previous == null) {
+      CURRENT.set(method);
+    }
+    return previous;
+  }
+
+  static void exit(String previous) {
+    if (previous == null) {
+      CURRENT.remove();
+    }
+  }
+}
@@ -0,0 +1,23 @@
+package com.example.customer_management_app.jdbc;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Máximo de sentencias SQL que puede ejecutar un endpoint por request.
+ *
+ * - Lo controla {@link SqlBudgetFilter}: si se pasa, log WARN + métrica
+ *   http.server.requests.sql.budget.exceeded (la request NO falla).
+ * - En tests se verifica con el header Server-Timing (ver SqlBudgetMatchers).
+ * - Endpoints sin anotación usan app.sql-budget.default-statements.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface SqlBudget {
+
+  int statements();
+}
@@ -0,0 +1,167 @@
+package com.example.customer_management_app.jdbc;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+/**
+ * Mide el SQL de cada request HTTP y lo expone.
+ *
+ * ¿Qué hace?
+ * - Abre un {@link SqlRequestStats} para el hilo de la request.
+ * - Agrega el header Server-Timing (db;dur=...;desc="N statements, M rows") justo antes
+ *   de que se escriba el body: el navegador lo muestra en DevTools -> Timing.
+ * - Publica por endpoint (method + uri con el patrón, ej. /api/customers/{id}):
+ *   - http.server.requests.sql.statements / http.server.requests.sql.rows (distribuciones)
+ *   - http.server.requests.sql.time (timer)
+ * - Compara contra el presupuesto del endpoint ({@link SqlBudget} o app.sql-budget.default-statements):
+ *   si se pasa, log WARN + http.server.requests.sql.budget.exceeded.
+ */
+@Component
+@ConditionalOnProperty(name = "app.sql-budget.enabled", havingValue = "true", matchIfMissing = true)
+public class SqlBudgetFilter extends OncePerRequestFilter {
+
+  private static final Logger log = LoggerFactory.getLogger(SqlBudgetFilter.class);
+
+  public static final String SERVER_TIMING = "Server-Timing";
+
+  private final MeterRegistry meterRegistry;
+  private final int defaultStatements;
+
+  public SqlBudgetFilter(MeterRegistry meterRegistry,
+      @Value("${app.sql-budget.default-statements:10}") int defaultStatements) {
+    this.meterRegistry = meterRegistry;
+    this.defaultStatements = defaultStatements;
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+      throws ServletException, IOException {
+    SqlRequestStats stats = SqlRequestStats.begin();
+    ServerTimingResponse wrapped = new ServerTimingResponse(response, stats);
+    try {
+      chain.doFilter(request, wrapped);
+    } finally {
+      SqlRequestStats.end();
+      wrapped.addServerTiming(); // respuestas sin body (ej. 204)
+      record(request, stats);
+    }
+  }
+
+  private void record(HttpServletRequest request, SqlRequestStats stats) {
+    Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+    if (pattern == null) {
+      return; // no llegó a un controller (404, estáticos, etc.)
+    }
+    String method = request.getMethod();
+    String uri = pattern.toString();
+
+    DistributionSummary.builder("http.server.requests.sql.statements")
+        .description("SQL statements executed per HTTP request")
+        .tags("method", method, "uri", uri)
+        .register(meterRegistry)
+        .record(stats.statements());
+    DistributionSummary.builder("http.server.requests.sql.rows")
+        .description("Rows fetched per HTTP request")
+        .tags("method", method, "uri", uri)
+        .register(meterRegistry)
+        .record(stats.rows());
+    Timer.builder("http.server.requests.sql.time")
+        .description("Time spent executing SQL and fetching rows per HTTP request")
+        .tags("method", method, "uri", uri)
+        .register(meterRegistry)
+        .record(stats.dbNanos(), TimeUnit.NANOSECONDS);
+
+    int budget = budgetOf(request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE));
+    if (stats.statements() > budget) {
+      Counter.builder("http.server.requests.sql.budget.exceeded")
+          .description("HTTP requests that executed more SQL statements than their budget")
+          .tags("method", method, "uri", uri)
+          .register(meterRegistry)
+          .increment();
+      log.warn("SQL budget exceeded: {} {} executed {} statements (budget {})", method, uri, stats.statements(), budget);
+    }
+  }
+
+  private int budgetOf(Object handler) {
+    if (handler instanceof HandlerMethod hm) {
+      SqlBudget budget = hm.getMethodAnnotation(SqlBudget.class);
+      if (budget != null) {
+        return budget.statements();
+      }
+    }
+    return defaultStatements;
+  }
+
+  /**
+   * Agrega Server-Timing la primera vez que alguien empieza a escribir la respuesta
+   * (después, con la respuesta comprometida, los headers ya no se pueden tocar).
+   */
+  private static final class ServerTimingResponse extends HttpServletResponseWrapper {
+
+    private final SqlRequestStats stats;
+    private boolean added;
+
+    private ServerTimingResponse(HttpServletResponse response, SqlRequestStats stats) {
+      super(response);
+      this.stats = stats;
+    }
+
+    private void addServerTiming() {
+      if (!added && !isCommitted()) {
+        added = true;
+        addHeader(SERVER_TIMING, stats.serverTiming());
+      }
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+      addServerTiming();
+      return super.getOutputStream();
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+      addServerTiming();
+      return super.getWriter();
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+      addServerTiming();
+      super.flushBuffer();
+    }
+
+    @Override
+    public void sendError(int sc, String msg) throws IOException {
+      addServerTiming();
+      super.sendError(sc, msg);
+    }
+
+    @Override
+    public void sendError(int sc) throws IOException {
+      addServerTiming();
+      super.sendError(sc);
+    }
+  }
+}
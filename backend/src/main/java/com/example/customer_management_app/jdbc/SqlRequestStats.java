@@ -0,0 +1,66 @@
+package com.example.customer_management_app.jdbc;
+
+import java.util.Locale;
+
+/**
+ * Contadores de SQL de la request HTTP en curso (por hilo).
+ *
+ * ¿Para qué?
+ * - Ver cuántas sentencias, filas y tiempo de base gasta cada endpoint
+ *   (ej. los chequeos previos de create/update/delete que no se ven en el código del controller).
+ *
+ * Lo abre y cierra {@link SqlBudgetFilter}; lo alimenta {@link SqlStatsCollector}.
+ * El SQL que corre en otros hilos (batcher de altas, jobs en background) no se atribuye a la request.
+ */
+public final class SqlRequestStats {
+
+  private static final ThreadLocal<SqlRequestStats> CURRENT = new ThreadLocal<>();
+
+  private int statements;
+  private long rows;
+  private long dbNanos;
+
+  // Abre la medición para el hilo actual
+  static SqlRequestStats begin() {
+    SqlRequestStats stats = new SqlRequestStats();
+    CURRENT.set(stats);
+    return stats;
+  }
+
+  static void end() {
+    CURRENT.remove();
+  }
+
+  // Medición del hilo actual, o null si no hay request en curso
+  static SqlRequestStats current() {
+    return CURRENT.get();
+  }
+
+  void addStatement(long elapsedNanos) {
+    statements++;
+    dbNanos += elapsedNanos;
+  }
+
+  void addRows(long fetched, long fetchNanos) {
+    rows += fetched;
+    dbNanos += fetchNanos;
+  }
+
+  public int statements() {
+    return statements;
+  }
+
+  public long rows() {
+    return rows;
+  }
+
+  public long dbNanos() {
+    return dbNanos;
+  }
+
+  // Valor del header Server-Timing, ej.: db;dur=1.84;desc="3 statements, 20 rows"
+  public String serverTiming() {
+    return String.format(Locale.ROOT, "db;dur=%.2f;desc=\"%d statements, %d rows\"",
+        dbNanos / 1_000_000.0, statements, rows);
+  }
+}
@@ -0,0 +1,28 @@
+package com.example.customer_management_app.jdbc;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Suma cada sentencia y cada ResultSet a la medición de la request en curso ({@link SqlRequestStats}).
+ *
+ * Corre en el hilo que usa la conexión: si no hay request HTTP en ese hilo, no hace nada.
+ */
+@Component
+public class SqlStatsCollector implements JdbcEventListener {
+
+  @Override
+  public void onStatementExecuted(ConnectionInfo info, long elapsedNanos) {
+    SqlRequestStats stats = SqlRequestStats.current();
+    if (stats != null) {
+      stats.addStatement(elapsedNanos);
+    }
+  }
+
+  @Override
+  public void onRowsFetched(ConnectionInfo info, long rows, long fetchNanos) {
+    SqlRequestStats stats = SqlRequestStats.current();
+    if (stats != null) {
+      stats.addRows(rows, fetchNanos);
+    }
+  }
+}
@@ -0,0 +1,186 @@
+package com.example.customer_management_app.jfr;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.customer_management_app.warmup.ApplicationWarmup;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationHandler;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpServletRequest;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
+/**
+ * Grabación JFR continua (ring buffer) que se vuelca sola cuando la latencia se dispara.
+ *
+ * ¿Cómo?
+ * - Al arrancar inicio una grabación "default" que solo retiene los últimos
+ *   app.jfr.continuous.max-age-minutes (ring buffer en disco, ~1% de overhead).
+ * - Mido la latencia de cada request HTTP como ObservationHandler de la observation
+ *   http.server.requests (la misma que usan las métricas y el tracing, sin filtro extra).
+ * - Cada app.jfr.continuous.check-interval-ms calculo el p99 de la ventana: si supera
+ *   app.jfr.continuous.p99-threshold-ms (con un mínimo de muestras), vuelco el ring buffer
+ *   a un .jfr ("breach-...") descargable desde /actuator/jfr.
+ * - Después de un volcado espero app.jfr.continuous.cooldown-minutes para no llenar el disco
+ *   durante un incidente largo.
+ */
+@Component
+@ConditionalOnProperty(name = "app.jfr.continuous.enabled", havingValue = "true")
+public class ContinuousJfrRecorder implements ObservationHandler<ServerRequestObservationContext> {
+
+  private static final Logger log = LoggerFactory.getLogger(ContinuousJfrRecorder.class);
+
+  private static final String START_KEY = ContinuousJfrRecorder.class.getName() + ".start";
+
+  private final JfrRecordings jfrRecordings;
+  private final Duration maxAge;
+  private final long thresholdNanos;
+  private final int minSamples;
+  private final long cooldownNanos;
+  private final LatencyWindow window = new LatencyWindow(8192);
+
+  private Recording recording;
+  private long lastDumpNanos;
+  private boolean dumped;
+
+  public ContinuousJfrRecorder(JfrRecordings jfrRecordings,
+      @Value("${app.jfr.continuous.max-age-minutes:10}") long maxAgeMinutes,
+      @Value("${app.jfr.continuous.p99-threshold-ms:500}") long thresholdMillis,
+      @Value("${app.jfr.continuous.min-samples:100}") int minSamples,
+      @Value("${app.jfr.continuous.cooldown-minutes:15}") long cooldownMinutes) {
+    this.jfrRecordings = jfrRecordings;
+    this.maxAge = Duration.ofMinutes(maxAgeMinutes);
+    this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+    this.minSamples = minSamples;
+    this.cooldownNanos = TimeUnit.MINUTES.toNanos(cooldownMinutes);
+  }
+
+  @PostConstruct
+  public void start() throws IOException, ParseException {
+    recording = new Recording(Configuration.getConfiguration("default"));
+    recording.setName("customer-continuous");
+    recording.setToDisk(true);
+    recording.setMaxAge(maxAge);
+    recording.start();
+    log.info("Continuous JFR recording started (max age {}, p99 threshold {} ms)",
+        maxAge, TimeUnit.NANOSECONDS.toMillis(thresholdNanos));
+  }
+
+  @PreDestroy
+  public void stop() {
+    if (recording != null) {
+      recording.close();
+    }
+  }
+
+  @Override
+  public boolean supportsContext(Observation.Context context) {
+    // Las requests del warm-up de arranque son lentas a propósito: no cuentan para el p99
+    return context instanceof ServerRequestObservationContext server
+        && !isWarmupRequest(server.getCarrier());
+  }
+
+  private static boolean isWarmupRequest(HttpServletRequest request) {
+    String remote = request.getRemoteAddr();
+    return request.getHeader(ApplicationWarmup.HEADER) != null
+        && ("127.0.0.1".equals(remote) || "0:0:0:0:0:0:0:1".equals(remote) || "::1".equals(remote));
+  }
+
+  @Override
+  public void onStart(ServerRequestObservationContext context) {
+    context.put(START_KEY, System.nanoTime());
+  }
+
+  @Override
+  public void onStop(ServerRequestObservationContext context) {
+    Long start = context.get(START_KEY);
+    if (start != null) {
+      window.record(System.nanoTime() - start);
+    }
+  }
+
+  /**
+   * Revisa el p99 de la ventana y vuelca la grabación si se pasó del umbral.
+   *
+   * @return el archivo generado, o null si no hubo volcado
+   */
+  @Scheduled(fixedDelayString = "${app.jfr.continuous.check-interval-ms:30000}",
+      initialDelayString = "${app.jfr.continuous.check-interval-ms:30000}")
+  public synchronized Path checkLatency() {
+    long[] samples = window.drain();
+    if (samples.length < minSamples) {
+      return null;
+    }
+    long p99 = percentile(samples, 0.99);
+    if (p99 <= thresholdNanos) {
+      return null;
+    }
+    long now = System.nanoTime();
+    if (dumped && now - lastDumpNanos < cooldownNanos) {
+      log.debug("p99 {} ms over threshold, dump skipped (cooldown)", TimeUnit.NANOSECONDS.toMillis(p99));
+      return null;
+    }
+    try {
+      Path file = jfrRecordings.dump(recording, "breach-p99-" + TimeUnit.NANOSECONDS.toMillis(p99) + "ms");
+      dumped = true;
+      lastDumpNanos = now;
+      log.warn("HTTP p99 latency {} ms over {} ms ({} samples): JFR dumped to {}",
+          TimeUnit.NANOSECONDS.toMillis(p99), TimeUnit.NANOSECONDS.toMillis(thresholdNanos), samples.length, file);
+      return file;
+    } catch (IOException e) {
+      log.error("Could not dump continuous JFR recording", e);
+      return null;
+    }
+  }
+
+  static long percentile(long[] samples, double p) {
+    long[] sorted = samples.clone();
+    Arrays.sort(sorted);
+    int index = (int) Math.ceil(p * sorted.length) - 1;
+    return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+  }
+
+  /**
+   * Últimas N latencias desde la última revisión (si llegan más, piso las más viejas).
+   */
+  static final class LatencyWindow {
+
+    private final long[] samples;
+    private int next;
+    private int size;
+
+    LatencyWindow(int capacity) {
+      this.samples = new long[capacity];
+    }
+
+    synchronized void record(long nanos) {
+      samples[next] = nanos;
+      next = (next + 1) % samples.length;
+      size = Math.min(size + 1, samples.length);
+    }
+
+    synchronized long[] drain() {
+      long[] copy = new long[size];
+      for (int i = 0; i < size; i++) {
+        copy[i] = samples[(next - size + i + samples.length) % samples.length];
+      }
+      size = 0;
+      return copy;
+    }
+  }
+}
@@ -0,0 +1,59 @@
+package com.example.customer_management_app.jfr;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.boot.actuate.endpoint.web.annotation.WebEndpoint;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+/**
+ * Endpoint de actuator para grabar con JFR sin conectarse a la JVM (sin jcmd ni JMC remoto).
+ *
+ * - GET  /actuator/jfr                 -> grabaciones en curso y archivos disponibles
+ * - POST /actuator/jfr                 -> {"profile": "default|profile", "durationSeconds": 60}
+ * - GET  /actuator/jfr/{archivo}.jfr   -> descarga (abrir con JDK Mission Control o `jfr print`)
+ *
+ * Es @WebEndpoint (no JMX) porque la descarga devuelve un archivo.
+ * Como cualquier endpoint de actuator, hay que exponerlo: management.endpoints.web.exposure.include=...,jfr
+ */
+@Component
+@WebEndpoint(id = "jfr")
+public class JfrEndpoint {
+
+  private final JfrRecordings jfrRecordings;
+
+  public JfrEndpoint(JfrRecordings jfrRecordings) {
+    this.jfrRecordings = jfrRecordings;
+  }
+
+  @ReadOperation
+  public Map<String, Object> list() {
+    return Map.of("recordings", jfrRecordings.recordings(), "files", jfrRecordings.files());
+  }
+
+  @WriteOperation
+  public WebEndpointResponse<Object> start(@Nullable String profile, @Nullable Integer durationSeconds) {
+    try {
+      Duration duration = Duration.ofSeconds(durationSeconds == null ? 60 : durationSeconds);
+      return new WebEndpointResponse<>(jfrRecordings.start(profile, duration), WebEndpointResponse.STATUS_OK);
+    } catch (IllegalArgumentException e) {
+      return new WebEndpointResponse<>(Map.of("message", e.getMessage()), WebEndpointResponse.STATUS_BAD_REQUEST);
+    }
+  }
+
+  @ReadOperation
+  public WebEndpointResponse<Resource> download(@Selector String file) {
+    return jfrRecordings.file(file)
+        .map(Path::toFile)
+        .<WebEndpointResponse<Resource>>map(f -> new WebEndpointResponse<>(new FileSystemResource(f)))
+        .orElseGet(() -> new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND));
+  }
+}
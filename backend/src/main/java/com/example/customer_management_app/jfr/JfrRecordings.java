@@ -0,0 +1,181 @@
+package com.example.customer_management_app.jfr;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+
+/**
+ * Grabaciones JFR bajo demanda y los archivos .jfr que quedan en disco.
+ *
+ * - start(profile, duración): graba con "default" (~1% overhead) o "profile" (más detalle, ~2%)
+ *   y JFR escribe el archivo solo al terminar la duración.
+ * - La duración está acotada por app.jfr.max-duration-seconds (nadie deja un "profile" de horas).
+ * - Los archivos van a app.jfr.directory; conservo los últimos app.jfr.max-files.
+ *
+ * Lo usan el endpoint de actuator ({@link JfrEndpoint}) y el volcado automático por latencia
+ * ({@link ContinuousJfrRecorder}).
+ */
+@Component
+public class JfrRecordings {
+
+  private static final Logger log = LoggerFactory.getLogger(JfrRecordings.class);
+
+  // Solo nombres generados por esta clase: nada de "../"
+  private static final Pattern FILE_NAME = Pattern.compile("[A-Za-z0-9._-]+\\.jfr");
+  private static final DateTimeFormatter STAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+  private final Path directory;
+  private final Duration maxDuration;
+  private final int maxFiles;
+
+  // Grabaciones bajo demanda de este proceso (por id de JFR)
+  private final Map<Long, Recording> recordings = new ConcurrentHashMap<>();
+
+  public JfrRecordings(@Value("${app.jfr.directory:${java.io.tmpdir}/customer-jfr}") String directory,
+      @Value("${app.jfr.max-duration-seconds:600}") long maxDurationSeconds,
+      @Value("${app.jfr.max-files:20}") int maxFiles) {
+    this.directory = Path.of(directory);
+    this.maxDuration = Duration.ofSeconds(maxDurationSeconds);
+    this.maxFiles = maxFiles;
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    recordings.values().forEach(Recording::close);
+  }
+
+  /**
+   * Arranca una grabación acotada en el tiempo.
+   *
+   * @throws IllegalArgumentException si el profile no existe o la duración no es válida
+   */
+  public RecordingInfo start(String profile, Duration duration) {
+    if (duration.isNegative() || duration.isZero() || duration.compareTo(maxDuration) > 0) {
+      throw new IllegalArgumentException("Duration must be between 1s and " + maxDuration.toSeconds() + "s");
+    }
+    Configuration configuration = configuration(profile);
+    Recording recording = new Recording(configuration);
+    String name = "customer-" + LocalDateTime.now().format(STAMP) + "-" + configuration.getName();
+    recording.setName(name);
+    recording.setToDisk(true);
+    recording.setDuration(duration);
+    try {
+      recording.setDestination(prepareFile(name + ".jfr"));
+    } catch (IOException e) {
+      recording.close();
+      throw new UncheckedIOException(e);
+    }
+    recording.start();
+    recordings.put(recording.getId(), recording);
+    log.info("JFR recording {} started ({} profile, {}s)", name, configuration.getName(), duration.toSeconds());
+    return info(recording);
+  }
+
+  /**
+   * Vuelca el contenido actual de una grabación (que sigue corriendo) a un archivo nuevo.
+   */
+  public Path dump(Recording recording, String prefix) throws IOException {
+    Path file = prepareFile(prefix + "-" + LocalDateTime.now().format(STAMP) + ".jfr");
+    recording.dump(file);
+    return file;
+  }
+
+  public List<RecordingInfo> recordings() {
+    // Las que ya terminaron y escribieron su archivo no hace falta seguir reteniéndolas
+    recordings.values().removeIf(r -> {
+      if (r.getState() == RecordingState.CLOSED || r.getState() == RecordingState.STOPPED) {
+        r.close();
+        return true;
+      }
+      return false;
+    });
+    return recordings.values().stream().map(JfrRecordings::info).toList();
+  }
+
+  public List<FileInfo> files() {
+    if (!Files.isDirectory(directory)) {
+      return List.of();
+    }
+    try (Stream<Path> list = Files.list(directory)) {
+      return list.filter(p -> FILE_NAME.matcher(p.getFileName().toString()).matches())
+          .map(JfrRecordings::fileInfo)
+          .sorted(Comparator.comparing(FileInfo::lastModified).reversed())
+          .toList();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Archivo .jfr terminado por nombre (vacío si no existe o el nombre no es válido).
+   */
+  public Optional<Path> file(String name) {
+    if (name == null || !FILE_NAME.matcher(name).matches()) {
+      return Optional.empty();
+    }
+    Path file = directory.resolve(name);
+    return Files.isRegularFile(file) ? Optional.of(file) : Optional.empty();
+  }
+
+  private static Configuration configuration(String profile) {
+    String name = profile == null || profile.isBlank() ? "default" : profile.trim();
+    try {
+      return Configuration.getConfiguration(name);
+    } catch (IOException | ParseException e) {
+      throw new IllegalArgumentException("Unknown JFR profile '" + name + "'. Available: "
+          + Configuration.getConfigurations().stream().map(Configuration::getName).toList(), e);
+    }
+  }
+
+  // Crea el directorio y borra los archivos más viejos si me paso de maxFiles
+  private Path prepareFile(String name) throws IOException {
+    Files.createDirectories(directory);
+    List<FileInfo> existing = files();
+    for (int i = maxFiles - 1; i < existing.size(); i++) {
+      Files.deleteIfExists(directory.resolve(existing.get(i).name()));
+    }
+    return directory.resolve(name);
+  }
+
+  private static RecordingInfo info(Recording r) {
+    Path destination = r.getDestination();
+    return new RecordingInfo(r.getId(), r.getName(), r.getState().name(), r.getStartTime(),
+        r.getDuration() == null ? null : r.getDuration().toSeconds(),
+        destination == null ? null : destination.getFileName().toString());
+  }
+
+  private static FileInfo fileInfo(Path p) {
+    try {
+      return new FileInfo(p.getFileName().toString(), Files.size(p), Files.getLastModifiedTime(p).toInstant());
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  public record RecordingInfo(long id, String name, String state, Instant startTime, Long durationSeconds, String file) {}
+
+  public record FileInfo(String name, long sizeBytes, Instant lastModified) {}
+}
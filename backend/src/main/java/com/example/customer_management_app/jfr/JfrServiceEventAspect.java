@@ -0,0 +1,75 @@
+package com.example.customer_management_app.jfr;
+
+import java.util.Collection;
+import java.util.Optional;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Page;
+import org.springframework.stereotype.Component;
+
+import com.example.customer_management_app.Customer;
+
+/**
+ * Emite un {@link ServiceOperationEvent} por cada método de CustomerService.
+ *
+ * ¿Costo sin grabación activa?
+ * - isEnabled() es falso y no se hace nada más que crear el objeto (que el JIT elimina).
+ * - Con grabación activa, commit() descarta los eventos por debajo del threshold configurado.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 20)
+public class JfrServiceEventAspect {
+
+  @Around("execution(public * com.example.customer_management_app.CustomerService+.*(..))")
+  public Object record(ProceedingJoinPoint pjp) throws Throwable {
+    ServiceOperationEvent event = new ServiceOperationEvent();
+    if (!event.isEnabled()) {
+      return pjp.proceed();
+    }
+    event.begin();
+    Object result = null;
+    try {
+      result = pjp.proceed();
+      return result;
+    } catch (Throwable t) {
+      event.failed = true;
+      throw t;
+    } finally {
+      event.end();
+      if (event.shouldCommit()) {
+        event.method = pjp.getSignature().getName();
+        describeArguments(event, pjp.getArgs());
+        event.rowsReturned = rows(result);
+        event.commit();
+      }
+    }
+  }
+
+  private static void describeArguments(ServiceOperationEvent event, Object[] args) {
+    for (Object arg : args) {
+      if (arg instanceof Long id && event.customerId == 0) {
+        event.customerId = id;
+      } else if (arg instanceof String term && event.searchTermLength < 0) {
+        event.searchTermLength = term.length();
+      }
+    }
+  }
+
+  static long rows(Object result) {
+    if (result instanceof Collection<?> c) {
+      return c.size();
+    }
+    if (result instanceof Page<?> p) {
+      return p.getNumberOfElements();
+    }
+    if (result instanceof Optional<?> o) {
+      return o.isPresent() ? 1 : 0;
+    }
+    return result instanceof Customer ? 1 : 0;
+  }
+}
@@ -0,0 +1,52 @@
+package com.example.customer_management_app.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Evento JFR para la conversión de la respuesta: entidades -> DTOs (phase=map)
+ * y DTO -> JSON (phase=serialize).
+ *
+ * Sirve para ver en JDK Mission Control si una request lenta gasta el tiempo
+ * en la base o armando/escribiendo la respuesta.
+ *
+ * Uso: MappingEvent e = MappingEvent.start("map", "CustomerResponse"); ...; e.finish(items);
+ */
+@Name("com.example.customer.Mapping")
+@Label("Customer Response Mapping")
+@Category({ "Customer Management", "Mapping" })
+@StackTrace(false)
+public class MappingEvent extends jdk.jfr.Event {
+
+  @Label("Phase")
+  String phase;
+
+  @Label("Type")
+  String type;
+
+  @Label("Items")
+  int items;
+
+  public static MappingEvent start(String phase, String type) {
+    MappingEvent event = new MappingEvent();
+    if (event.isEnabled()) {
+      event.phase = phase;
+      event.type = type;
+      event.begin();
+    }
+    return event;
+  }
+
+  public void finish(int itemCount) {
+    if (!isEnabled()) {
+      return;
+    }
+    end();
+    if (shouldCommit()) {
+      items = itemCount;
+      commit();
+    }
+  }
+}
@@ -0,0 +1,38 @@
+package com.example.customer_management_app.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Evento JFR por cada llamada a CustomerService (lo emite {@link JfrServiceEventAspect}).
+ *
+ * La duración es la del propio evento (begin/commit). Del término de búsqueda solo guardo
+ * el largo: el .jfr se comparte para analizarlo y no debe llevar datos de clientes.
+ */
+@Name("com.example.customer.ServiceOperation")
+@Label("Customer Service Operation")
+@Category({ "Customer Management", "Service" })
+@Description("A call to a CustomerService method")
+@StackTrace(false)
+public class ServiceOperationEvent extends jdk.jfr.Event {
+
+  @Label("Method")
+  String method;
+
+  @Label("Customer ID")
+  @Description("ID argument of the call, 0 if the method has none")
+  long customerId;
+
+  @Label("Search Term Length")
+  @Description("Length of the search term argument, -1 if the method has none")
+  int searchTermLength = -1;
+
+  @Label("Rows Returned")
+  long rowsReturned;
+
+  @Label("Failed")
+  boolean failed;
+}
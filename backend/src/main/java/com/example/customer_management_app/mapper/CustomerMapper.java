@@ -10,6 +10,7 @@ import java.util.stream.Collectors;
 import com.example.customer_management_app.Customer;
 import com.example.customer_management_app.dto.CustomerRequest;
 import com.example.customer_management_app.dto.CustomerResponse;
+import com.example.customer_management_app.jfr.MappingEvent;
 
 public final class CustomerMapper {
 
@@ -31,12 +32,16 @@ public final class CustomerMapper {
     }
 
     // Convierto una lista de entidades a una lista de DTOs de respuesta
+    // (evento JFR "Customer Response Mapping": cuánto cuesta convertir páginas/listas grandes)
     public static List<CustomerResponse> toResponseList(List<Customer> customers) {
         if (customers == null) return List.of();
-        return customers.stream()
+        MappingEvent event = MappingEvent.start("map", "CustomerResponse");
+        List<CustomerResponse> responses = customers.stream()
                 .filter(Objects::nonNull)
                 .map(CustomerMapper::toResponse)
                 .collect(Collectors.toList());
+        event.finish(responses.size());
+        return responses;
     }
 
     // Construyo una entidad nueva a partir de un CustomerRequest (para POST)
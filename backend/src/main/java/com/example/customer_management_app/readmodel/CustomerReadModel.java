@@ -0,0 +1,446 @@
+package com.example.customer_management_app.readmodel;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.customer_management_app.Customer;
+import com.example.customer_management_app.events.CustomerChangedEvent;
+import com.example.customer_management_app.invalidation.CustomerInvalidation;
+import com.example.customer_management_app.invalidation.LocalCustomerCache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Read model en memoria (CQRS): todas las lecturas de /api/customers sin ir a la base.
+ *
+ * - Carga: al arrancar (ApplicationRunner, antes del warm-up) leo la tabla completa en streaming
+ *   y armo un {@link ReadModelState}. Readiness recién pasa a UP cuando termina.
+ * - Escrituras: cada cambio confirmado (CustomerChangedEvent después del commit, o el mensaje de otra
+ *   réplica vía {@link LocalCustomerCache}) produce un estado nuevo que se publica con una referencia
+ *   volatile. Los escritores se serializan entre sí; los lectores no toman ningún lock.
+ * - Compactación: cuando el delta pasa app.read-model.compact-threshold, en background armo una base
+ *   nueva y vuelvo a aplicar lo que llegó mientras tanto.
+ * - Consistencia: {@link #check(boolean)} compara fila por fila contra la base (periódico y por
+ *   /actuator/readmodel). Si difiere, recargo.
+ *
+ * Mientras no hay un estado al día (arranque, recarga, LISTEN perdido) las lecturas van a la base.
+ * Opt-in (app.read-model.enabled=true); con sharding no se usa porque lee solo el datasource principal.
+ */
+@Component
+@Order(0) // antes del warm-up: las requests de warm-up ya se sirven desde memoria
+@ConditionalOnExpression("${app.read-model.enabled:false} and !${app.sharding.enabled:false}")
+public class CustomerReadModel implements ApplicationRunner, LocalCustomerCache {
+
+  private static final Logger log = LoggerFactory.getLogger(CustomerReadModel.class);
+
+  private static final String SELECT_COLUMNS =
+      "SELECT id, first_name, last_name, email, phone, address, created_at, updated_at FROM customer ";
+  // Pares que por código Unicode (COLLATE "C", H2) ordenan al revés que en una collation lingüística
+  // (en_US.UTF-8, ICU): mayúscula antes que minúscula, el guion cuenta, la 'é' va después de la 'z'
+  private static final String CODE_POINT_PROBE =
+      "SELECT CASE WHEN 'B' < 'a' AND 'a-c' < 'ab' AND 'z' < '\u00e9' THEN 1 ELSE 0 END";
+  // Cuántos ids distintos informo en el resultado del chequeo
+  private static final int MAX_SAMPLE = 20;
+  // Sospechosos a re-verificar uno por uno; más que esto ya es "recargar todo"
+  private static final int MAX_SUSPECTS = 1000;
+
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate readOnlyTx;
+  private final int compactThreshold;
+  private final Timer loadTimer;
+  private final Timer compactTimer;
+  private final Timer checkTimer;
+  private final Counter mismatches;
+
+  private final Object writeLock = new Object();
+  // Una recarga a la vez (arranque, evictAll, chequeo con diferencias)
+  private final Object reloadLock = new Object();
+  private final AtomicBoolean compacting = new AtomicBoolean();
+  private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+    Thread t = new Thread(r, "customer-read-model");
+    t.setDaemon(true);
+    return t;
+  });
+
+  private volatile ReadModelState state;
+  private volatile boolean serving;
+  // Cambios que llegan durante una carga: se aplican sobre el estado recién armado (guardado por writeLock)
+  private List<PendingChange> pendingChanges;
+  private volatile CheckResult lastCheck;
+
+  private record PendingChange(long id, Customer after) {}
+
+  /**
+   * Resultado del chequeo de consistencia (ver /actuator/readmodel).
+   *
+   * @param missing filas de la base que no están en memoria
+   * @param extra   filas en memoria que ya no están en la base
+   * @param stale   filas con algún campo distinto
+   */
+  public record CheckResult(OffsetDateTime checkedAt, long databaseRows, long memoryRows, int missing, int extra,
+      int stale, List<Long> sampleIds, boolean reloaded, long durationMs) {
+
+    public boolean consistent() {
+      return missing == 0 && extra == 0 && stale == 0;
+    }
+  }
+
+  public CustomerReadModel(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+      MeterRegistry meterRegistry,
+      @Value("${app.read-model.compact-threshold:1000}") int compactThreshold) {
+    // JdbcTemplate propio con fetchSize: PostgreSQL trae la tabla por cursor y no toda junta
+    this.jdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+    this.jdbcTemplate.setFetchSize(1000);
+    this.readOnlyTx = new TransactionTemplate(transactionManager);
+    this.readOnlyTx.setReadOnly(true);
+    this.compactThreshold = Math.max(1, compactThreshold);
+    this.loadTimer = Timer.builder("customers.read-model.load")
+        .description("Time to load the customer read model from the database")
+        .register(meterRegistry);
+    this.compactTimer = Timer.builder("customers.read-model.compaction")
+        .description("Time to fold pending changes into a new read model base")
+        .register(meterRegistry);
+    this.checkTimer = Timer.builder("customers.read-model.check")
+        .description("Time to compare the read model with the database")
+        .register(meterRegistry);
+    this.mismatches = Counter.builder("customers.read-model.mismatches")
+        .description("Rows found different from the database by the consistency check")
+        .register(meterRegistry);
+    Gauge.builder("customers.read-model.rows", this, m -> m.state != null ? m.state.count() : 0)
+        .description("Customers held by the read model")
+        .register(meterRegistry);
+    Gauge.builder("customers.read-model.delta", this, m -> m.state != null ? m.state.deltaSize() : 0)
+        .description("Changes not yet compacted into the read model base")
+        .register(meterRegistry);
+    Gauge.builder("customers.read-model.serving", this, m -> m.serving ? 1 : 0)
+        .description("1 when reads are served from memory")
+        .register(meterRegistry);
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    worker.shutdownNow();
+  }
+
+  /**
+   * Estado para responder lecturas, o null si hay que ir a la base.
+   */
+  public ReadModelState current() {
+    return serving ? state : null;
+  }
+
+  public CheckResult lastCheck() {
+    return lastCheck;
+  }
+
+  @Override
+  public void run(ApplicationArguments args) {
+    try {
+      reload();
+    } catch (RuntimeException e) {
+      log.warn("Customer read model could not be loaded; reads go to the database", e);
+      scheduleReload();
+    }
+  }
+
+  /**
+   * Lee la tabla completa y publica un estado nuevo. Mientras carga, las lecturas van a la base.
+   */
+  public void reload() {
+    synchronized (reloadLock) {
+      load();
+    }
+  }
+
+  private void load() {
+    long t0 = System.nanoTime();
+    synchronized (writeLock) {
+      serving = false;
+      pendingChanges = new ArrayList<>();
+    }
+    ReadModelState.Builder builder = new ReadModelState.Builder();
+    boolean codePointOrder;
+    try {
+      codePointOrder = readOnlyTx.execute(status -> {
+        jdbcTemplate.query(SELECT_COLUMNS + "ORDER BY id", (RowCallbackHandler) rs -> builder.add(mapRow(rs)));
+        return sortsByCodePoint();
+      });
+    } catch (RuntimeException e) {
+      synchronized (writeLock) {
+        pendingChanges = null;
+      }
+      throw e;
+    }
+    if (!codePointOrder) {
+      log.info("The database does not sort strings by code point: pages sorted by email, lastName "
+          + "or firstName are read from the database");
+    }
+    ReadModelState built = builder.build(codePointOrder);
+    synchronized (writeLock) {
+      // Lo que se confirmó durante la carga puede o no estar en el SELECT: lo aplico igual (es más nuevo)
+      for (PendingChange change : pendingChanges) {
+        built = built.withChange(change.id(), change.after());
+      }
+      pendingChanges = null;
+      state = built;
+      serving = true;
+    }
+    loadTimer.record(System.nanoTime() - t0, TimeUnit.NANOSECONDS);
+    log.info("Customer read model loaded: {} customers in {} ms", built.count(),
+        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0));
+    maybeCompact();
+  }
+
+  /**
+   * ¿La base ordena los strings como String.compareTo? Si no, los sorts por email/lastName/firstName
+   * desde memoria no coincidirían con los de la base (ver {@link SortKey}).
+   */
+  private boolean sortsByCodePoint() {
+    Integer result = jdbcTemplate.queryForObject(CODE_POINT_PROBE, Integer.class);
+    return result != null && result == 1;
+  }
+
+  // Escrituras locales: después del commit
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onCustomerChanged(CustomerChangedEvent event) {
+    apply(event.id(), event.type() == CustomerChangedEvent.Type.DELETED ? null : event.after());
+  }
+
+  // Escritura en otra instancia: el mensaje no trae la fila, la leo por PK
+  @Override
+  public void evict(CustomerInvalidation invalidation) {
+    try {
+      List<Customer> rows = jdbcTemplate.query(SELECT_COLUMNS + "WHERE id = ?", (rs, n) -> mapRow(rs),
+          invalidation.id());
+      apply(invalidation.id(), rows.isEmpty() ? null : rows.get(0));
+    } catch (RuntimeException e) {
+      log.warn("Could not reload customer {} for the read model", invalidation.id(), e);
+      evictAll();
+    }
+  }
+
+  // Se pudieron perder mensajes: dejo de servir y recargo
+  @Override
+  public void evictAll() {
+    serving = false;
+    scheduleReload();
+  }
+
+  /**
+   * Aplica un cambio confirmado (after == null: borrado).
+   */
+  public void apply(long id, Customer after) {
+    synchronized (writeLock) {
+      if (pendingChanges != null) {
+        pendingChanges.add(new PendingChange(id, CustomerChangedEvent.copyOf(after)));
+        return;
+      }
+      if (state == null) {
+        return;
+      }
+      state = state.withChange(id, after);
+    }
+    maybeCompact();
+  }
+
+  /**
+   * Compara el read model con la base, fila por fila.
+   *
+   * Un cambio que se confirma durante el recorrido puede aparecer como diferencia: antes de contarla
+   * releo esa fila por PK y la comparo con el estado de ese momento.
+   *
+   * @param reloadOnMismatch si hay diferencias reales, recargar todo
+   */
+  public CheckResult check(boolean reloadOnMismatch) {
+    long t0 = System.nanoTime();
+    ReadModelState snapshot = state;
+    if (snapshot == null) {
+      throw new IllegalStateException("The read model is not loaded yet");
+    }
+    List<Long> suspects = new ArrayList<>();
+    long[] databaseRows = new long[1];
+    readOnlyTx.executeWithoutResult(status -> {
+      List<Customer> memory = new ArrayList<>((int) snapshot.count());
+      snapshot.forEachById(memory::add);
+      int[] next = new int[1];
+      jdbcTemplate.query(SELECT_COLUMNS + "ORDER BY id", (RowCallbackHandler) rs -> {
+        Customer row = mapRow(rs);
+        databaseRows[0]++;
+        while (next[0] < memory.size() && memory.get(next[0]).getId() < row.getId()) {
+          suspect(suspects, memory.get(next[0]++).getId());
+        }
+        if (next[0] < memory.size() && memory.get(next[0]).getId().equals(row.getId())) {
+          if (!sameContent(memory.get(next[0]), row)) {
+            suspect(suspects, row.getId());
+          }
+          next[0]++;
+        } else {
+          suspect(suspects, row.getId());
+        }
+      });
+      while (next[0] < memory.size()) {
+        suspect(suspects, memory.get(next[0]++).getId());
+      }
+    });
+
+    // Segunda pasada: releo cada sospechoso y lo comparo con el estado actual
+    int missing = 0;
+    int extra = 0;
+    int stale = 0;
+    List<Long> sample = new ArrayList<>();
+    boolean overflow = suspects.size() >= MAX_SUSPECTS;
+    ReadModelState now = state;
+    for (Long id : suspects) {
+      List<Customer> rows = jdbcTemplate.query(SELECT_COLUMNS + "WHERE id = ?", (rs, n) -> mapRow(rs), id);
+      Customer inDatabase = rows.isEmpty() ? null : rows.get(0);
+      Customer inMemory = now.findById(id).orElse(null);
+      if (inDatabase == null && inMemory == null) {
+        continue;
+      }
+      if (inMemory == null) {
+        missing++;
+      } else if (inDatabase == null) {
+        extra++;
+      } else if (!sameContent(inMemory, inDatabase)) {
+        stale++;
+      } else {
+        continue;
+      }
+      if (sample.size() < MAX_SAMPLE) {
+        sample.add(id);
+      }
+    }
+    int different = missing + extra + stale;
+    mismatches.increment(different);
+    boolean reload = reloadOnMismatch && (different > 0 || overflow);
+    if (different > 0) {
+      log.warn("Customer read model differs from the database: {} missing, {} extra, {} stale (e.g. ids {})",
+          missing, extra, stale, sample);
+    }
+    if (reload) {
+      reload();
+    }
+    long duration = System.nanoTime() - t0;
+    checkTimer.record(duration, TimeUnit.NANOSECONDS);
+    CheckResult result = new CheckResult(OffsetDateTime.now(), databaseRows[0], snapshot.count(), missing, extra,
+        stale, sample, reload, TimeUnit.NANOSECONDS.toMillis(duration));
+    lastCheck = result;
+    return result;
+  }
+
+  @Scheduled(fixedDelayString = "${app.read-model.check-interval-ms:3600000}",
+      initialDelayString = "${app.read-model.check-interval-ms:3600000}")
+  public void scheduledCheck() {
+    if (!serving) {
+      return;
+    }
+    try {
+      check(true);
+    } catch (RuntimeException e) {
+      log.warn("Customer read model consistency check failed", e);
+    }
+  }
+
+  private void maybeCompact() {
+    ReadModelState s = state;
+    if (s == null || s.deltaSize() < compactThreshold || !compacting.compareAndSet(false, true)) {
+      return;
+    }
+    worker.execute(() -> {
+      try {
+        compact();
+      } catch (RuntimeException e) {
+        log.warn("Customer read model compaction failed", e);
+      } finally {
+        compacting.set(false);
+      }
+      // Lo que llegó durante la compactación puede haber vuelto a pasar el umbral
+      maybeCompact();
+    });
+  }
+
+  // La base nueva se arma sin lock; al publicarla reaplico lo que llegó mientras tanto
+  void compact() {
+    long t0 = System.nanoTime();
+    ReadModelState captured = state;
+    ReadModelState compacted = captured.compact();
+    synchronized (writeLock) {
+      if (!captured.sameBase(state)) {
+        return; // hubo una recarga en el medio: esta compactación ya no sirve
+      }
+      state = compacted.withChangesSince(captured, state);
+    }
+    compactTimer.record(System.nanoTime() - t0, TimeUnit.NANOSECONDS);
+  }
+
+  private void scheduleReload() {
+    worker.execute(() -> {
+      try {
+        reload();
+      } catch (RuntimeException e) {
+        log.warn("Customer read model reload failed; reads go to the database", e);
+      }
+    });
+  }
+
+  private static void suspect(List<Long> suspects, long id) {
+    if (suspects.size() < MAX_SUSPECTS) {
+      suspects.add(id);
+    }
+  }
+
+  // PostgreSQL guarda microsegundos: comparo los timestamps a esa precisión (redondeados igual que al guardar)
+  static boolean sameContent(Customer a, Customer b) {
+    return Objects.equals(a.getId(), b.getId())
+        && Objects.equals(a.getFirstName(), b.getFirstName())
+        && Objects.equals(a.getLastName(), b.getLastName())
+        && Objects.equals(a.getEmail(), b.getEmail())
+        && Objects.equals(a.getPhone(), b.getPhone())
+        && Objects.equals(a.getAddress(), b.getAddress())
+        && Objects.equals(micros(a.getCreatedAt()), micros(b.getCreatedAt()))
+        && Objects.equals(micros(a.getUpdatedAt()), micros(b.getUpdatedAt()));
+  }
+
+  private static LocalDateTime micros(LocalDateTime t) {
+    return ReadModelState.micros(t);
+  }
+
+  private static Customer mapRow(ResultSet rs) throws SQLException {
+    Customer c = new Customer(rs.getLong("id"), rs.getString("first_name"), rs.getString("last_name"),
+        rs.getString("email"), rs.getString("phone"), rs.getString("address"));
+    Timestamp created = rs.getTimestamp("created_at");
+    Timestamp updated = rs.getTimestamp("updated_at");
+    c.setCreatedAt(created != null ? created.toLocalDateTime() : null);
+    c.setUpdatedAt(updated != null ? updated.toLocalDateTime() : null);
+    return c;
+  }
+}
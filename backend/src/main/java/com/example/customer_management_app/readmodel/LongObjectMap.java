@@ -0,0 +1,120 @@
+package com.example.customer_management_app.readmodel;
+
+import java.util.Arrays;
+
+/**
+ * Mapa long -> objeto con direccionamiento abierto (sondeo lineal), sin boxing de las claves.
+ *
+ * ¿Por qué no HashMap<Long, V>?
+ * - Con cientos de miles de clientes, cada entrada de HashMap es un Node + un Long (~48 bytes extra).
+ *   Acá son dos arreglos planos: 8 bytes por clave y una referencia por valor.
+ *
+ * No es thread-safe para escribir. En el read model se arma una vez y después solo se lee
+ * (publicado con una referencia volatile); para cambiarlo se usa {@link #copy()}.
+ * No permite borrar: los borrados del read model son entradas "tombstone".
+ */
+final class LongObjectMap<V> {
+
+  // Los ids son BIGSERIAL (positivos): Long.MIN_VALUE nunca es una clave real
+  private static final long EMPTY = Long.MIN_VALUE;
+
+  private long[] keys;
+  private Object[] values;
+  private int size;
+
+  LongObjectMap(int expectedSize) {
+    int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+    keys = new long[capacity];
+    Arrays.fill(keys, EMPTY);
+    values = new Object[capacity];
+  }
+
+  int size() {
+    return size;
+  }
+
+  @SuppressWarnings("unchecked")
+  V get(long key) {
+    int mask = keys.length - 1;
+    for (int i = slot(key, mask); ; i = (i + 1) & mask) {
+      long k = keys[i];
+      if (k == key) {
+        return (V) values[i];
+      }
+      if (k == EMPTY) {
+        return null;
+      }
+    }
+  }
+
+  boolean containsKey(long key) {
+    return get(key) != null;
+  }
+
+  void put(long key, V value) {
+    if (key == EMPTY || value == null) {
+      throw new IllegalArgumentException("Unsupported key or null value");
+    }
+    int mask = keys.length - 1;
+    int i = slot(key, mask);
+    while (keys[i] != EMPTY && keys[i] != key) {
+      i = (i + 1) & mask;
+    }
+    if (keys[i] == EMPTY) {
+      keys[i] = key;
+      size++;
+    }
+    values[i] = value;
+    // Factor de carga máximo 0.5: los sondeos quedan cortos
+    if (size * 2 > keys.length) {
+      resize(keys.length << 1);
+    }
+  }
+
+  LongObjectMap<V> copy() {
+    LongObjectMap<V> copy = new LongObjectMap<>(1);
+    copy.keys = keys.clone();
+    copy.values = values.clone();
+    copy.size = size;
+    return copy;
+  }
+
+  @SuppressWarnings("unchecked")
+  void forEach(Visitor<? super V> visitor) {
+    for (int i = 0; i < keys.length; i++) {
+      if (keys[i] != EMPTY) {
+        visitor.visit(keys[i], (V) values[i]);
+      }
+    }
+  }
+
+  @FunctionalInterface
+  interface Visitor<V> {
+    void visit(long key, V value);
+  }
+
+  private void resize(int capacity) {
+    long[] oldKeys = keys;
+    Object[] oldValues = values;
+    keys = new long[capacity];
+    Arrays.fill(keys, EMPTY);
+    values = new Object[capacity];
+    int mask = capacity - 1;
+    for (int j = 0; j < oldKeys.length; j++) {
+      if (oldKeys[j] != EMPTY) {
+        int i = slot(oldKeys[j], mask);
+        while (keys[i] != EMPTY) {
+          i = (i + 1) & mask;
+        }
+        keys[i] = oldKeys[j];
+        values[i] = oldValues[j];
+      }
+    }
+  }
+
+  // Mezclo los bits: ids consecutivos no deben caer en slots consecutivos
+  private static int slot(long key, int mask) {
+    long h = key * 0x9E3779B97F4A7C15L;
+    return (int) (h ^ (h >>> 32)) & mask;
+  }
+}
@@ -0,0 +1,53 @@
+package com.example.customer_management_app.readmodel;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.boot.actuate.endpoint.web.annotation.WebEndpoint;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+/**
+ * Endpoint de actuator del read model en memoria.
+ *
+ * - GET  /actuator/readmodel -> si está sirviendo, filas, cambios sin compactar y el último chequeo
+ * - POST /actuator/readmodel -> {"reload": true} compara contra la base ahora (y recarga si difiere)
+ *
+ * Como cualquier endpoint de actuator, hay que exponerlo: management.endpoints.web.exposure.include=...,readmodel
+ */
+@Component
+@WebEndpoint(id = "readmodel")
+@ConditionalOnExpression("${app.read-model.enabled:false} and !${app.sharding.enabled:false}")
+public class ReadModelEndpoint {
+
+  private final CustomerReadModel readModel;
+
+  public ReadModelEndpoint(CustomerReadModel readModel) {
+    this.readModel = readModel;
+  }
+
+  @ReadOperation
+  public Map<String, Object> status() {
+    ReadModelState state = readModel.current();
+    Map<String, Object> status = new LinkedHashMap<>();
+    status.put("serving", state != null);
+    status.put("rows", state != null ? state.count() : null);
+    status.put("pendingChanges", state != null ? state.deltaSize() : null);
+    status.put("lastCheck", readModel.lastCheck());
+    return status;
+  }
+
+  @WriteOperation
+  public WebEndpointResponse<Object> check(@Nullable Boolean reload) {
+    try {
+      return new WebEndpointResponse<>(readModel.check(reload == null || reload), WebEndpointResponse.STATUS_OK);
+    } catch (IllegalStateException e) {
+      return new WebEndpointResponse<>(Map.of("message", e.getMessage()),
+          WebEndpointResponse.STATUS_SERVICE_UNAVAILABLE);
+    }
+  }
+}
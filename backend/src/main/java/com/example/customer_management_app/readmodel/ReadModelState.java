@@ -0,0 +1,492 @@
+package com.example.customer_management_app.readmodel;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import com.example.customer_management_app.Customer;
+import com.example.customer_management_app.events.CustomerChangedEvent;
+
+/**
+ * Estado inmutable del read model: una base grande + un delta chico con lo que cambió después.
+ *
+ * - Base: todos los clientes en un {@link LongObjectMap} por id, índices hash por email y teléfono,
+ *   conteos por apellido y gmail, y un arreglo de ids ordenado por cada {@link SortKey}.
+ * - Delta: los cambios confirmados desde la última compactación (borrados incluidos). Cada escritura
+ *   arma un delta nuevo (copy-on-write); como es chico, copiarlo cuesta poco.
+ *
+ * Los lectores toman la referencia al estado una vez y trabajan sobre ella: nunca bloquean
+ * y nunca ven un cambio a medias. Las páginas mezclan el índice de la base con el del delta.
+ */
+public final class ReadModelState {
+
+  // Mismo criterio que CustomerRepository.countByEmailDomainNative: email LIKE '%gmail.com%'
+  private static final String GMAIL = "gmail.com";
+  private static final long[] NO_IDS = new long[0];
+  private static final Row[] NO_ROWS = new Row[0];
+
+  private final Base base;
+  private final Delta delta;
+
+  private ReadModelState(Base base, Delta delta) {
+    this.base = base;
+    this.delta = delta;
+  }
+
+  /**
+   * Fila guardada: una copia privada del cliente (nunca se modifica ni se entrega)
+   * y el texto en minúsculas de los cinco campos que recorre /search/page.
+   */
+  record Row(Customer customer, String searchText) {
+
+    static Row of(Customer c) {
+      Customer copy = CustomerChangedEvent.copyOf(c);
+      // Guardo lo mismo que guarda la base: los eventos traen nanos, PostgreSQL redondea a microsegundos
+      copy.setCreatedAt(micros(copy.getCreatedAt()));
+      copy.setUpdatedAt(micros(copy.getUpdatedAt()));
+      return new Row(copy, searchText(copy));
+    }
+
+    // Borrado: una instancia nueva por cambio (la compactación compara filas por identidad)
+    static Row deleted() {
+      return new Row(null, null);
+    }
+
+    boolean isDeleted() {
+      return customer == null;
+    }
+
+    boolean matches(String term) {
+      return searchText.contains(term);
+    }
+
+    // Separo los campos con \n para que un término no matchee "cruzando" dos campos
+    private static String searchText(Customer c) {
+      StringBuilder sb = new StringBuilder(96);
+      for (String field : new String[] {c.getFirstName(), c.getLastName(), c.getEmail(), c.getPhone(), c.getAddress()}) {
+        if (field != null) {
+          sb.append(field.toLowerCase(Locale.ROOT));
+        }
+        sb.append('\n');
+      }
+      return sb.toString();
+    }
+  }
+
+  /**
+   * Carga inicial (o recarga): se agregan las filas leídas de la base y se arma la base.
+   */
+  static final class Builder {
+    private final List<Row> rows = new ArrayList<>();
+
+    void add(Customer c) {
+      rows.add(Row.of(c));
+    }
+
+    /**
+     * @param textSorts la base ordena strings por código Unicode: email/lastName/firstName se sirven desde memoria
+     */
+    ReadModelState build(boolean textSorts) {
+      Base base = Base.of(rows, textSorts);
+      return new ReadModelState(base, Delta.of(base, new LongObjectMap<>(16)));
+    }
+  }
+
+  // ---------------------------------------------------------------------------
+  // Escrituras (cada una devuelve un estado nuevo)
+  // ---------------------------------------------------------------------------
+
+  /**
+   * Aplica un cambio confirmado. after == null: se borró.
+   *
+   * Los eventos de escrituras concurrentes pueden llegar desordenados: un borrado no se deshace
+   * (los ids no se reutilizan) y una versión con updated_at anterior a la que ya tengo se ignora.
+   */
+  ReadModelState withChange(long id, Customer after) {
+    Row current = delta.changes.get(id);
+    if (current == null) {
+      current = base.byId.get(id);
+    }
+    if (current != null) {
+      if (current.isDeleted() || (after != null && isOlder(after, current.customer()))) {
+        return this;
+      }
+    }
+    LongObjectMap<Row> changes = delta.changes.copy();
+    changes.put(id, after == null ? Row.deleted() : Row.of(after));
+    return new ReadModelState(base, Delta.of(base, changes));
+  }
+
+  /**
+   * Nueva base con el delta aplicado (y delta vacío). Es O(n log n): corre en background.
+   */
+  ReadModelState compact() {
+    List<Row> rows = new ArrayList<>((int) Math.max(0, count()));
+    base.byId.forEach((id, row) -> {
+      if (!delta.changes.containsKey(id)) {
+        rows.add(row);
+      }
+    });
+    delta.changes.forEach((id, row) -> {
+      if (!row.isDeleted()) {
+        rows.add(row);
+      }
+    });
+    Base compacted = Base.of(rows, base.textSorts);
+    return new ReadModelState(compacted, Delta.of(compacted, new LongObjectMap<>(16)));
+  }
+
+  /**
+   * Sobre un estado compactado a partir de {@code captured}: vuelve a aplicar los cambios que
+   * llegaron a {@code current} mientras se compactaba (las filas del delta se comparan por identidad).
+   */
+  ReadModelState withChangesSince(ReadModelState captured, ReadModelState current) {
+    LongObjectMap<Row> changes = new LongObjectMap<>(16);
+    current.delta.changes.forEach((id, row) -> {
+      if (captured.delta.changes.get(id) != row) {
+        changes.put(id, row);
+      }
+    });
+    return changes.size() == 0 ? this : new ReadModelState(base, Delta.of(base, changes));
+  }
+
+  // ¿Los dos estados comparten la base? (si no, hubo una recarga en el medio)
+  boolean sameBase(ReadModelState other) {
+    return other != null && base == other.base;
+  }
+
+  // ---------------------------------------------------------------------------
+  // Lecturas
+  // ---------------------------------------------------------------------------
+
+  public int deltaSize() {
+    return delta.changes.size();
+  }
+
+  public long count() {
+    return base.byId.size() + delta.total;
+  }
+
+  public long countGmailUsers() {
+    return base.gmailUsers + delta.gmailUsers;
+  }
+
+  public long countByLastName(String lastName) {
+    return base.lastNames.getOrDefault(lastName, 0L) + delta.lastNames.getOrDefault(lastName, 0L);
+  }
+
+  public Optional<Customer> findById(long id) {
+    Row row = row(id);
+    return row == null ? Optional.empty() : Optional.of(CustomerChangedEvent.copyOf(row.customer()));
+  }
+
+  // Igual que la base: el email es case-sensitive y único
+  public Optional<Customer> findByEmail(String email) {
+    Long id = delta.byEmail.get(email);
+    if (id == null) {
+      Long inBase = base.byEmail.get(email);
+      id = inBase != null && !delta.changes.containsKey(inBase) ? inBase : null;
+    }
+    return id == null ? Optional.empty() : findById(id);
+  }
+
+  public boolean existsByEmail(String email) {
+    return findByEmail(email).isPresent();
+  }
+
+  // El teléfono no es único: si lo comparten varios, devuelvo el de menor id
+  public Optional<Customer> findByPhone(String phone) {
+    long best = Long.MAX_VALUE;
+    for (long id : delta.byPhone.getOrDefault(phone, NO_IDS)) {
+      best = Math.min(best, id);
+    }
+    for (long id : base.byPhone.getOrDefault(phone, NO_IDS)) {
+      if (!delta.changes.containsKey(id)) {
+        best = Math.min(best, id);
+      }
+    }
+    return best == Long.MAX_VALUE ? Optional.empty() : findById(best);
+  }
+
+  public List<Customer> findAll() {
+    List<Customer> all = new ArrayList<>((int) Math.max(0, count()));
+    scan(SortKey.ID, false, null, 0, Integer.MAX_VALUE, all);
+    return all;
+  }
+
+  /**
+   * Página ordenada por uno de los índices, o null si el sort no tiene índice (o es unpaged, o
+   * es por un string y la base no ordena por código Unicode): en ese caso la consulta va a la base.
+   */
+  public Page<Customer> page(Pageable pageable) {
+    SortKey key = sortKey(pageable);
+    if (key == null) {
+      return null;
+    }
+    List<Customer> content = new ArrayList<>(pageable.getPageSize());
+    scan(key, isDescending(pageable.getSort()), null, pageable.getOffset(), pageable.getPageSize(), content);
+    return new PageImpl<>(content, pageable, count());
+  }
+
+  /**
+   * Búsqueda "contains" case-insensitive en nombre, apellido, email, teléfono y dirección.
+   * Recorre todo el índice (igual que el LIKE en la base), pero sin I/O ni conexiones.
+   *
+   * @param term término ya normalizado (trim + minúsculas)
+   */
+  public Page<Customer> search(String term, Pageable pageable) {
+    SortKey key = sortKey(pageable);
+    if (key == null) {
+      return null;
+    }
+    List<Customer> content = new ArrayList<>(pageable.getPageSize());
+    long total = scan(key, isDescending(pageable.getSort()), term, pageable.getOffset(), pageable.getPageSize(), content);
+    return new PageImpl<>(content, pageable, total);
+  }
+
+  // Índice que sirve el sort, o null si la página tiene que ir a la base
+  private SortKey sortKey(Pageable pageable) {
+    SortKey key = pageable.isPaged() ? SortKey.of(pageable.getSort()) : null;
+    return key != null && base.sorted.containsKey(key) ? key : null;
+  }
+
+  /**
+   * Recorre los clientes por id ascendente, sin copiarlos (solo lectura; para el chequeo de consistencia).
+   */
+  void forEachById(Consumer<Customer> action) {
+    walk(SortKey.ID, false, row -> {
+      action.accept(row.customer());
+      return true;
+    });
+  }
+
+  private Row row(long id) {
+    Row changed = delta.changes.get(id);
+    if (changed != null) {
+      return changed.isDeleted() ? null : changed;
+    }
+    return base.byId.get(id);
+  }
+
+  /**
+   * Copia a {@code out} las filas [offset, offset + limit) del orden pedido que matchean el término.
+   *
+   * @return cuántas filas matchean en total (sin término: hasta donde se recorrió)
+   */
+  private long scan(SortKey key, boolean descending, String term, long offset, int limit, List<Customer> out) {
+    if (term == null && delta.changes.size() == 0) {
+      // Sin cambios pendientes: la página es un rango directo del arreglo ordenado
+      long[] ids = base.sorted.get(key);
+      long end = Math.min(ids.length, offset + limit);
+      for (long i = offset; i < end; i++) {
+        int index = descending ? ids.length - 1 - (int) i : (int) i;
+        out.add(CustomerChangedEvent.copyOf(base.byId.get(ids[index]).customer()));
+      }
+      return end;
+    }
+    long[] matched = new long[1];
+    walk(key, descending, row -> {
+      if (term != null && !row.matches(term)) {
+        return true;
+      }
+      if (matched[0] >= offset && out.size() < limit) {
+        out.add(CustomerChangedEvent.copyOf(row.customer()));
+      }
+      matched[0]++;
+      // Sin término el total ya se conoce: corto apenas se llena la página
+      return term != null || out.size() < limit;
+    });
+    return matched[0];
+  }
+
+  @FunctionalInterface
+  private interface RowVisitor {
+    // false = cortar el recorrido
+    boolean visit(Row row);
+  }
+
+  // Merge del arreglo ordenado de la base (salteando los ids que cambiaron) con el del delta
+  private void walk(SortKey key, boolean descending, RowVisitor visitor) {
+    long[] ids = base.sorted.get(key);
+    Row[] changed = delta.sorted.get(key);
+    Comparator<Customer> order = descending ? key.order.reversed() : key.order;
+    int step = descending ? -1 : 1;
+    int b = descending ? ids.length - 1 : 0;
+    int d = descending ? changed.length - 1 : 0;
+    boolean hasChanges = delta.changes.size() > 0;
+    while (true) {
+      while (hasChanges && b >= 0 && b < ids.length && delta.changes.containsKey(ids[b])) {
+        b += step;
+      }
+      Row fromBase = b >= 0 && b < ids.length ? base.byId.get(ids[b]) : null;
+      Row fromDelta = d >= 0 && d < changed.length ? changed[d] : null;
+      Row next;
+      if (fromBase == null && fromDelta == null) {
+        return;
+      }
+      if (fromDelta == null || (fromBase != null && order.compare(fromBase.customer(), fromDelta.customer()) <= 0)) {
+        next = fromBase;
+        b += step;
+      } else {
+        next = fromDelta;
+        d += step;
+      }
+      if (!visitor.visit(next)) {
+        return;
+      }
+    }
+  }
+
+  private static boolean isDescending(Sort sort) {
+    return sort.iterator().next().isDescending();
+  }
+
+  private static boolean isOlder(Customer candidate, Customer current) {
+    return candidate.getUpdatedAt() != null && current.getUpdatedAt() != null
+        && candidate.getUpdatedAt().isBefore(current.getUpdatedAt());
+  }
+
+  // Redondeo (no trunco) a microsegundos, como PostgreSQL y H2 al guardar un TIMESTAMP
+  static LocalDateTime micros(LocalDateTime t) {
+    return t == null ? null : t.plusNanos(500).truncatedTo(ChronoUnit.MICROS);
+  }
+
+  private static boolean isGmail(Customer c) {
+    return c.getEmail() != null && c.getEmail().contains(GMAIL);
+  }
+
+  private static long[] append(long[] ids, long[] more) {
+    long[] merged = Arrays.copyOf(ids, ids.length + more.length);
+    System.arraycopy(more, 0, merged, ids.length, more.length);
+    return merged;
+  }
+
+  private static Row[] sorted(Row[] rows, SortKey key) {
+    Row[] copy = rows.clone();
+    Arrays.parallelSort(copy, (x, y) -> key.order.compare(x.customer(), y.customer()));
+    return copy;
+  }
+
+  private static final class Base {
+    final LongObjectMap<Row> byId;
+    final Map<String, Long> byEmail;
+    final Map<String, long[]> byPhone;
+    final Map<String, Long> lastNames;
+    final long gmailUsers;
+    final boolean textSorts;
+    // Solo los sorts que se sirven desde memoria (sin textSorts, los de strings no se arman)
+    final EnumMap<SortKey, long[]> sorted = new EnumMap<>(SortKey.class);
+
+    private Base(List<Row> rows, boolean textSorts) {
+      this.textSorts = textSorts;
+      byId = new LongObjectMap<>(rows.size());
+      byEmail = new HashMap<>(rows.size() * 2);
+      byPhone = new HashMap<>(rows.size() * 2);
+      lastNames = new HashMap<>();
+      long gmail = 0;
+      for (Row row : rows) {
+        Customer c = row.customer();
+        long id = c.getId();
+        byId.put(id, row);
+        if (c.getEmail() != null) {
+          byEmail.put(c.getEmail(), id);
+        }
+        if (c.getPhone() != null) {
+          byPhone.merge(c.getPhone(), new long[] {id}, ReadModelState::append);
+        }
+        if (c.getLastName() != null) {
+          lastNames.merge(c.getLastName(), 1L, Long::sum);
+        }
+        if (isGmail(c)) {
+          gmail++;
+        }
+      }
+      gmailUsers = gmail;
+      Row[] array = rows.toArray(NO_ROWS);
+      for (SortKey key : SortKey.values()) {
+        if (key.text && !textSorts) {
+          continue;
+        }
+        Row[] ordered = ReadModelState.sorted(array, key);
+        long[] ids = new long[ordered.length];
+        for (int i = 0; i < ordered.length; i++) {
+          ids[i] = ordered[i].customer().getId();
+        }
+        sorted.put(key, ids);
+      }
+    }
+
+    static Base of(List<Row> rows, boolean textSorts) {
+      return new Base(rows, textSorts);
+    }
+  }
+
+  private static final class Delta {
+    final LongObjectMap<Row> changes;
+    final Map<String, Long> byEmail = new HashMap<>();
+    final Map<String, long[]> byPhone = new HashMap<>();
+    // Ajustes sobre los conteos de la base
+    final Map<String, Long> lastNames = new HashMap<>();
+    final long total;
+    final long gmailUsers;
+    // Filas vivas del delta, ordenadas por cada índice de la base
+    final EnumMap<SortKey, Row[]> sorted = new EnumMap<>(SortKey.class);
+
+    private Delta(Base base, LongObjectMap<Row> changes) {
+      this.changes = changes;
+      List<Row> live = new ArrayList<>(changes.size());
+      long[] counters = new long[2]; // total, gmail
+      changes.forEach((id, row) -> {
+        Row before = base.byId.get(id);
+        if (before != null) {
+          adjust(before.customer(), -1, counters);
+        }
+        if (!row.isDeleted()) {
+          Customer c = row.customer();
+          adjust(c, +1, counters);
+          live.add(row);
+          if (c.getEmail() != null) {
+            byEmail.put(c.getEmail(), id);
+          }
+          if (c.getPhone() != null) {
+            byPhone.merge(c.getPhone(), new long[] {id}, ReadModelState::append);
+          }
+        }
+      });
+      total = counters[0];
+      gmailUsers = counters[1];
+      Row[] array = live.toArray(NO_ROWS);
+      for (SortKey key : base.sorted.keySet()) {
+        sorted.put(key, ReadModelState.sorted(array, key));
+      }
+    }
+
+    static Delta of(Base base, LongObjectMap<Row> changes) {
+      return new Delta(base, changes);
+    }
+
+    private void adjust(Customer c, int delta, long[] counters) {
+      counters[0] += delta;
+      if (isGmail(c)) {
+        counters[1] += delta;
+      }
+      if (c.getLastName() != null) {
+        lastNames.merge(c.getLastName(), (long) delta, Long::sum);
+      }
+    }
+  }
+}
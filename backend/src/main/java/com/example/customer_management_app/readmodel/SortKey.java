@@ -0,0 +1,73 @@
+package com.example.customer_management_app.readmodel;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+
+import org.springframework.data.domain.Sort;
+
+import com.example.customer_management_app.Customer;
+
+/**
+ * Índices ordenados del read model: los mismos que respaldan los sorts de SortWhitelist
+ * (ver V5__sort_indexes.sql).
+ *
+ * Los nulls van al final en ASC y al principio en DESC (default de PostgreSQL).
+ * Los strings se comparan por código Unicode (String.compareTo), como COLLATE "C". Es el orden
+ * de la base solo si su collation también es así (C/POSIX, o H2); con otra (en_US.UTF-8, ICU)
+ * las mayúsculas, acentos y signos ordenan distinto. Por eso los sorts con {@link #text} se sirven
+ * desde memoria solo si CustomerReadModel comprobó que la base ordena por código; si no, van a la base
+ * y una página no cambia de orden según de dónde salga.
+ */
+enum SortKey {
+
+  ID(List.of("id"), false, Comparator.comparing(Customer::getId)),
+  EMAIL(List.of("email"), true, by(Customer::getEmail).thenComparing(Customer::getId)),
+  LAST_NAME(List.of("lastName", "firstName", "id"), true,
+      by(Customer::getLastName).thenComparing(by(Customer::getFirstName)).thenComparing(Customer::getId)),
+  FIRST_NAME(List.of("firstName", "id"), true, by(Customer::getFirstName).thenComparing(Customer::getId)),
+  CREATED_AT(List.of("createdAt", "id"), false, by(Customer::getCreatedAt).thenComparing(Customer::getId));
+
+  private final List<String> properties;
+  // Ordena por un string: depende de la collation de la base
+  final boolean text;
+  // Orden ascendente total (siempre desempata por id)
+  final Comparator<Customer> order;
+
+  SortKey(List<String> properties, boolean text, Comparator<Customer> order) {
+    this.properties = properties;
+    this.text = text;
+    this.order = order;
+  }
+
+  /**
+   * Índice que corresponde exactamente al sort (ya normalizado por SortWhitelist), o null.
+   */
+  static SortKey of(Sort sort) {
+    List<Sort.Order> orders = sort.toList();
+    if (orders.isEmpty()) {
+      return null;
+    }
+    Sort.Direction direction = orders.get(0).getDirection();
+    for (SortKey key : values()) {
+      if (key.properties.size() == orders.size() && matches(key, orders, direction)) {
+        return key;
+      }
+    }
+    return null;
+  }
+
+  private static boolean matches(SortKey key, List<Sort.Order> orders, Sort.Direction direction) {
+    for (int i = 0; i < orders.size(); i++) {
+      Sort.Order o = orders.get(i);
+      if (!o.getProperty().equals(key.properties.get(i)) || o.getDirection() != direction || o.isIgnoreCase()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static <T extends Comparable<? super T>> Comparator<Customer> by(Function<Customer, T> field) {
+    return Comparator.comparing(field, Comparator.nullsLast(Comparator.naturalOrder()));
+  }
+}
@@ -0,0 +1,303 @@
+package com.example.customer_management_app.responsecache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.customer_management_app.Customer;
+import com.example.customer_management_app.events.CustomerChangedEvent;
+import com.example.customer_management_app.invalidation.CustomerInvalidation;
+import com.example.customer_management_app.invalidation.LocalCustomerCache;
+import com.example.customer_management_app.jfr.MappingEvent;
+import com.example.customer_management_app.mapper.CustomerMapper;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+
+/**
+ * Cache de respuestas YA SERIALIZADAS de GET /api/customers/{id} (bytes JSON + variante gzip).
+ *
+ * ¿Por qué bytes y no entidades?
+ * - Aun teniendo la entidad a mano, cada request volvía a pasar por CustomerMapper y Jackson.
+ * - Un hit escribe el byte[] directo al output stream (ByteArrayHttpMessageConverter):
+ *   sin servicio, sin base, sin mapper, sin Jackson.
+ *
+ * Reglas:
+ * - Límite en BYTES (app.response-cache.max-bytes), no en cantidad de entradas; LRU.
+ * - Versión = updatedAt: va como ETag débil, así un If-None-Match igual responde 304 sin body.
+ * - gzip se calcula la primera vez que alguien lo pide, y solo si el JSON supera
+ *   app.response-cache.gzip-min-bytes y realmente achica (un cliente suelto ~250 bytes casi nunca).
+ * - Invalidación: CustomerChangedEvent (después del commit) borra la entrada del ID.
+ *   Los cambios de otras instancias llegan como {@link LocalCustomerCache} (ver PgInvalidationBus).
+ * - Carrera lectura/escritura: guardo el "epoch" antes de leer de la base; si hubo una
+ *   invalidación mientras tanto, la respuesta se devuelve pero NO se cachea.
+ */
+@Component
+public class CustomerResponseCache implements LocalCustomerCache {
+
+  // Objeto entrada + nodo del LinkedHashMap + clave (estimado)
+  private static final int ENTRY_OVERHEAD_BYTES = 128;
+  private static final byte[] NO_GZIP = new byte[0];
+
+  private final ObjectMapper objectMapper;
+  private final ObservationRegistry observationRegistry;
+  private final boolean enabled;
+  private final long maxBytes;
+  private final int gzipMinBytes;
+
+  private final LinkedHashMap<Long, CachedBody> entries = new LinkedHashMap<>(256, 0.75f, true);
+  private long totalBytes;
+  private final AtomicLong epoch = new AtomicLong();
+
+  private final Counter hits;
+  private final Counter misses;
+  private final Counter evictions;
+
+  public CustomerResponseCache(ObjectMapper objectMapper, ObservationRegistry observationRegistry,
+      MeterRegistry meterRegistry,
+      @Value("${app.response-cache.enabled:true}") boolean enabled,
+      @Value("${app.response-cache.max-bytes:16777216}") long maxBytes,
+      @Value("${app.response-cache.gzip-min-bytes:512}") int gzipMinBytes) {
+    this.objectMapper = objectMapper;
+    this.observationRegistry = observationRegistry;
+    this.enabled = enabled;
+    this.maxBytes = maxBytes;
+    this.gzipMinBytes = gzipMinBytes;
+    this.hits = Counter.builder("customers.response-cache.requests").tag("result", "hit").register(meterRegistry);
+    this.misses = Counter.builder("customers.response-cache.requests").tag("result", "miss").register(meterRegistry);
+    this.evictions = Counter.builder("customers.response-cache.evictions").register(meterRegistry);
+    Gauge.builder("customers.response-cache.bytes", this, CustomerResponseCache::sizeInBytes)
+        .description("Bytes held by the serialized response cache")
+        .register(meterRegistry);
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Respuesta de GET /{id}: desde la cache si está, si no con el loader (y la cachea).
+   *
+   * @param loader lectura real (servicio); vacío -> 404
+   */
+  public ResponseEntity<byte[]> getOrLoad(long id, Supplier<Optional<Customer>> loader,
+      String acceptEncoding, String ifNoneMatch) {
+    CachedBody body = get(id);
+    if (body != null) {
+      hits.increment();
+    } else {
+      misses.increment();
+      long startEpoch = epoch.get();
+      Optional<Customer> customer = loader.get();
+      if (customer.isEmpty()) {
+        return ResponseEntity.notFound().build();
+      }
+      body = serialize(customer.get());
+      putIfUnchanged(body, startEpoch);
+    }
+    return respond(body, acceptEncoding, ifNoneMatch);
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onCustomerChanged(CustomerChangedEvent event) {
+    invalidate(event.id());
+  }
+
+  /**
+   * Cambio en otra instancia: si tengo una versión igual o más nueva, la conservo.
+   */
+  @Override
+  public void evict(CustomerInvalidation invalidation) {
+    synchronized (entries) {
+      epoch.incrementAndGet();
+      CachedBody cached = entries.get(invalidation.id());
+      if (cached != null && (invalidation.type() == CustomerChangedEvent.Type.DELETED
+          || cached.version < invalidation.version())) {
+        entries.remove(invalidation.id());
+        totalBytes -= cached.weight();
+      }
+    }
+  }
+
+  @Override
+  public void evictAll() {
+    invalidateAll();
+  }
+
+  public void invalidate(long id) {
+    synchronized (entries) {
+      epoch.incrementAndGet();
+      CachedBody removed = entries.remove(id);
+      if (removed != null) {
+        totalBytes -= removed.weight();
+      }
+    }
+  }
+
+  public void invalidateAll() {
+    synchronized (entries) {
+      epoch.incrementAndGet();
+      entries.clear();
+      totalBytes = 0;
+    }
+  }
+
+  public long sizeInBytes() {
+    synchronized (entries) {
+      return totalBytes;
+    }
+  }
+
+  public int size() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  CachedBody get(long id) {
+    if (!enabled) {
+      return null;
+    }
+    synchronized (entries) {
+      return entries.get(id);
+    }
+  }
+
+  private void putIfUnchanged(CachedBody body, long startEpoch) {
+    if (!enabled || body.weight() > maxBytes) {
+      return;
+    }
+    synchronized (entries) {
+      if (epoch.get() != startEpoch) {
+        return; // hubo una escritura mientras leía: puede estar vieja
+      }
+      CachedBody previous = entries.put(body.id, body);
+      totalBytes += body.weight() - (previous != null ? previous.weight() : 0);
+      evictIfNeeded();
+    }
+  }
+
+  // Llamar con el lock tomado
+  private void evictIfNeeded() {
+    Iterator<CachedBody> it = entries.values().iterator();
+    while (totalBytes > maxBytes && it.hasNext()) {
+      totalBytes -= it.next().weight();
+      it.remove();
+      evictions.increment();
+    }
+  }
+
+  // Solo en un miss: mismo span y evento JFR que ObservedJacksonConverter
+  private CachedBody serialize(Customer customer) {
+    Observation observation = Observation.createNotStarted("http.response.serialization", observationRegistry)
+        .contextualName("json serialize")
+        .lowCardinalityKeyValue("format", "json")
+        .highCardinalityKeyValue("type", "CustomerResponse")
+        .start();
+    MappingEvent event = MappingEvent.start("serialize", "CustomerResponse");
+    try (Observation.Scope scope = observation.openScope()) {
+      byte[] json = objectMapper.writeValueAsBytes(CustomerMapper.toResponse(customer));
+      event.finish(1);
+      // Microsegundos (la precisión de TIMESTAMP): dos updates en el mismo milisegundo no comparten ETag
+      long version = CustomerInvalidation.versionOf(customer.getUpdatedAt());
+      return new CachedBody(customer.getId(), version, "W/\"" + customer.getId() + "-" + version + "\"", json);
+    } catch (JsonProcessingException e) {
+      observation.error(e);
+      throw new UncheckedIOException(e);
+    } finally {
+      observation.stop();
+    }
+  }
+
+  private ResponseEntity<byte[]> respond(CachedBody body, String acceptEncoding, String ifNoneMatch) {
+    HttpHeaders headers = new HttpHeaders();
+    headers.setETag(body.etag);
+    headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+    if (ifNoneMatch != null && ifNoneMatch.contains(body.etag)) {
+      return new ResponseEntity<>(headers, HttpStatus.NOT_MODIFIED);
+    }
+    headers.setContentType(MediaType.APPLICATION_JSON);
+    if (acceptsGzip(acceptEncoding)) {
+      byte[] gzip = gzipOf(body);
+      if (gzip != NO_GZIP) {
+        headers.add(HttpHeaders.CONTENT_ENCODING, "gzip");
+        return new ResponseEntity<>(gzip, headers, HttpStatus.OK);
+      }
+    }
+    return new ResponseEntity<>(body.json, headers, HttpStatus.OK);
+  }
+
+  private byte[] gzipOf(CachedBody body) {
+    byte[] gzip = body.gzip;
+    if (gzip != null) {
+      return gzip;
+    }
+    gzip = body.json.length < gzipMinBytes ? NO_GZIP : compress(body.json);
+    synchronized (entries) {
+      if (body.gzip == null) {
+        body.gzip = gzip;
+        if (entries.get(body.id) == body) {
+          totalBytes += gzip.length;
+          evictIfNeeded();
+        }
+      }
+      return body.gzip;
+    }
+  }
+
+  private static byte[] compress(byte[] json) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 2);
+    try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+      gz.write(json);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return out.size() < json.length ? out.toByteArray() : NO_GZIP;
+  }
+
+  private static boolean acceptsGzip(String acceptEncoding) {
+    return acceptEncoding != null && acceptEncoding.contains("gzip");
+  }
+
+  /**
+   * Cuerpo serializado de un cliente. gzip se completa la primera vez que se pide.
+   */
+  static final class CachedBody {
+    final long id;
+    final long version;
+    final String etag;
+    final byte[] json;
+    volatile byte[] gzip;
+
+    CachedBody(long id, long version, String etag, byte[] json) {
+      this.id = id;
+      this.version = version;
+      this.etag = etag;
+      this.json = json;
+    }
+
+    long weight() {
+      byte[] g = gzip;
+      return ENTRY_OVERHEAD_BYTES + etag.length() * 2L + json.length + (g != null ? g.length : 0);
+    }
+  }
+}
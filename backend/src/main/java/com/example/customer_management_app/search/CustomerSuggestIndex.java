@@ -0,0 +1,325 @@
+package com.example.customer_management_app.search;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.customer_management_app.Customer;
+import com.example.customer_management_app.dto.SuggestionResponse;
+import com.example.customer_management_app.events.CustomerChangedEvent;
+import com.example.customer_management_app.invalidation.CustomerInvalidation;
+import com.example.customer_management_app.invalidation.LocalCustomerCache;
+import com.example.customer_management_app.sharding.CustomerShards;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Índice en memoria para el autocompletado (GET /api/customers/suggest?prefix=...).
+ *
+ * ¿Cómo se mantiene actualizado?
+ * - Base: un {@link PrefixDictionary} inmutable (comprimido) con nombres, apellidos y emails.
+ * - Cambios: create/update/delete publican CustomerChangedEvent y acá sumo/resto
+ *   frecuencias en un mapa de "deltas" chico.
+ * - Rebuild en background (@Scheduled): recorro la tabla en streaming, armo un
+ *   diccionario nuevo y recién ahí publico diccionario + deltas juntos (un solo holder).
+ *
+ * ¿Qué pasa con los cambios durante el rebuild?
+ * - Siguen aplicándose a los deltas publicados (las lecturas no pierden altas ni
+ *   reviven bajas mientras se recorre la tabla).
+ * - Además se registran aparte desde justo antes del SELECT: el SELECT ve la tabla como
+ *   estaba al empezar, así que esos cambios pasan como deltas del diccionario nuevo.
+ * - Si el recorrido falla, no se publica nada: el índice anterior sigue con todos sus deltas.
+ *
+ * Con app.sharding.enabled=true recorro cada shard (una tras otra) en lugar de la base principal.
+ * El registro de cambios es por shard: un cambio se anota para el diccionario nuevo solo si
+ * el SELECT de SU shard ya empezó (si no, ese SELECT todavía lo va a ver).
+ *
+ * Cambios hechos en otras instancias (LocalCustomerCache, vía PgInvalidationBus):
+ * - Alta: releo la fila por id y la sumo como delta, igual que un alta local.
+ * - Modificación o baja: el mensaje no trae los nombres anteriores y el índice solo guarda
+ *   frecuencias, así que no sé qué restar. Programo un rebuild.
+ * - evictAll (se pudieron perder mensajes): rebuild.
+ * Los rebuilds pedidos así esperan app.suggest.remote-rebuild-delay-ms y se juntan: una ráfaga
+ * de cambios remotos produce un solo recorrido de la tabla.
+ *
+ * Las lecturas nunca bloquean: leen una referencia volatile al holder actual.
+ *
+ * Nota: un cambio que se confirma entre que empiezo a registrar y que el SELECT toma su
+ * snapshot puede quedar contado dos veces hasta el próximo rebuild. La ventana es de
+ * un round-trip y para ordenar sugerencias por frecuencia es aceptable.
+ */
+@Component
+public class CustomerSuggestIndex implements LocalCustomerCache {
+
+  private static final Logger log = LoggerFactory.getLogger(CustomerSuggestIndex.class);
+
+  public static final int MAX_LIMIT = 50;
+
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate readOnlyTx;
+  private final CustomerShards shards;
+  private final Timer rebuildTimer;
+  private final long remoteRebuildDelayMs;
+
+  // Rebuild pedido por un cambio remoto que todavía no arrancó (los siguientes se suman a ese)
+  private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+  private final ScheduledExecutorService worker = Executors.newSingleThreadScheduledExecutor(r -> {
+    Thread t = new Thread(r, "customer-suggest-rebuild");
+    t.setDaemon(true);
+    return t;
+  });
+
+  private volatile Index current = new Index(PrefixDictionary.empty(), new ConcurrentHashMap<>());
+
+  // Deltas del rebuild en curso (null si no hay): los de current y estos se actualizan juntos
+  private final Object deltasLock = new Object();
+  private ConcurrentMap<String, Integer> scanDeltas;
+  // Bases (0 = principal, o índice de shard) cuyo SELECT del rebuild en curso ya empezó
+  private final Set<Integer> scanStarted = new HashSet<>();
+
+  public CustomerSuggestIndex(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+      MeterRegistry meterRegistry) {
+    this(jdbcTemplate, transactionManager, meterRegistry, (CustomerShards) null);
+  }
+
+  @Autowired
+  public CustomerSuggestIndex(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+      MeterRegistry meterRegistry, ObjectProvider<CustomerShards> shards,
+      @Value("${app.suggest.remote-rebuild-delay-ms:5000}") long remoteRebuildDelayMs) {
+    this(jdbcTemplate, transactionManager, meterRegistry, shards.getIfAvailable(), remoteRebuildDelayMs);
+  }
+
+  // shards null: se indexa la base principal
+  public CustomerSuggestIndex(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+      MeterRegistry meterRegistry, CustomerShards shards) {
+    this(jdbcTemplate, transactionManager, meterRegistry, shards, 5000);
+  }
+
+  public CustomerSuggestIndex(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+      MeterRegistry meterRegistry, CustomerShards shards, long remoteRebuildDelayMs) {
+    // JdbcTemplate propio con fetchSize: PostgreSQL trae la tabla por cursor y no toda junta
+    this.jdbcTemplate = streaming(jdbcTemplate);
+    this.readOnlyTx = new TransactionTemplate(transactionManager);
+    this.readOnlyTx.setReadOnly(true);
+    this.shards = shards;
+    this.remoteRebuildDelayMs = remoteRebuildDelayMs;
+    this.rebuildTimer = Timer.builder("customers.suggest.rebuild")
+        .description("Time to rebuild the typeahead prefix index from the database")
+        .register(meterRegistry);
+    Gauge.builder("customers.suggest.terms", this, idx -> idx.current.dictionary().size())
+        .description("Distinct terms in the typeahead prefix index")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Top-K términos que empiezan con el prefijo, ordenados por frecuencia.
+   */
+  public List<SuggestionResponse> suggest(String prefix, int limit) {
+    String p = normalize(prefix);
+    int k = Math.max(1, Math.min(limit, MAX_LIMIT));
+    if (p == null) {
+      return List.of();
+    }
+    // Diccionario y deltas del mismo holder: siempre consistentes entre sí
+    Index index = current;
+    Map<String, Integer> pending = index.deltas();
+
+    // Pido algunos candidatos de más: un delta negativo puede sacar a alguno del top-K
+    Map<String, Long> candidates = new LinkedHashMap<>();
+    for (PrefixDictionary.Entry e : index.dictionary().topK(p, k * 2 + 8)) {
+      candidates.put(e.term(), (long) e.count() + pending.getOrDefault(e.term(), 0));
+    }
+    // Términos nuevos desde el último rebuild (el mapa de deltas es chico)
+    for (Map.Entry<String, Integer> d : pending.entrySet()) {
+      if (d.getValue() > 0 && d.getKey().startsWith(p) && !candidates.containsKey(d.getKey())) {
+        candidates.put(d.getKey(), (long) d.getValue());
+      }
+    }
+    List<SuggestionResponse> result = new ArrayList<>();
+    candidates.forEach((term, count) -> {
+      if (count > 0) {
+        result.add(new SuggestionResponse(term, count));
+      }
+    });
+    result.sort(Comparator.comparingLong(SuggestionResponse::getCount).reversed()
+        .thenComparing(SuggestionResponse::getValue));
+    return result.size() > k ? result.subList(0, k) : result;
+  }
+
+  /**
+   * Mantengo los deltas al día después de cada commit de create/update/delete.
+   */
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onCustomerChanged(CustomerChangedEvent event) {
+    int source = shards != null && event.id() != null ? shards.forId(event.id()).index() : 0;
+    synchronized (deltasLock) {
+      adjust(event.before(), -1, source);
+      adjust(event.after(), +1, source);
+    }
+  }
+
+  @Override
+  public void evict(CustomerInvalidation invalidation) {
+    if (invalidation.type() != CustomerChangedEvent.Type.CREATED) {
+      scheduleRebuild();
+      return;
+    }
+    try {
+      JdbcTemplate jdbc = shards != null ? shards.forId(invalidation.id()).jdbc() : jdbcTemplate;
+      List<Customer> rows = jdbc.query("SELECT id, first_name, last_name, email FROM customer WHERE id = ?",
+          (rs, n) -> new Customer(rs.getLong(1), rs.getString(2), rs.getString(3), rs.getString(4), null, null),
+          invalidation.id());
+      if (!rows.isEmpty()) {
+        onCustomerChanged(CustomerChangedEvent.created(rows.get(0)));
+      }
+    } catch (RuntimeException e) {
+      log.warn("Could not read customer {} for the typeahead index", invalidation.id(), e);
+      scheduleRebuild();
+    }
+  }
+
+  @Override
+  public void evictAll() {
+    scheduleRebuild();
+  }
+
+  /**
+   * Rebuild completo en background (al arrancar y después cada rebuild-interval-ms).
+   */
+  @Scheduled(initialDelayString = "${app.suggest.initial-delay-ms:0}",
+      fixedDelayString = "${app.suggest.rebuild-interval-ms:600000}")
+  public void rebuild() {
+    rebuildTimer.record(() -> {
+      try {
+        Map<String, int[]> counts = new HashMap<>();
+        synchronized (deltasLock) {
+          scanDeltas = new ConcurrentHashMap<>();
+        }
+        for (Source source : sources()) {
+          source.tx().executeWithoutResult(status -> {
+            // Desde acá, los cambios de esta base también se anotan para el diccionario nuevo
+            synchronized (deltasLock) {
+              scanStarted.add(source.key());
+            }
+            source.jdbc().query(
+                "SELECT first_name, last_name, email FROM customer",
+                rs -> {
+                  increment(counts, rs.getString(1));
+                  increment(counts, rs.getString(2));
+                  increment(counts, rs.getString(3));
+                });
+          });
+        }
+        TreeMap<String, Integer> sorted = new TreeMap<>();
+        counts.forEach((term, c) -> sorted.put(term, c[0]));
+        PrefixDictionary rebuilt = PrefixDictionary.build(sorted);
+        // Publico diccionario y deltas juntos, sin que se cuele un cambio en el medio
+        synchronized (deltasLock) {
+          current = new Index(rebuilt, scanDeltas);
+        }
+        log.debug("Typeahead index rebuilt with {} terms", sorted.size());
+      } catch (RuntimeException e) {
+        log.warn("Typeahead index rebuild failed, keeping previous index: {}", e.getMessage());
+      } finally {
+        synchronized (deltasLock) {
+          scanDeltas = null;
+          scanStarted.clear();
+        }
+      }
+    });
+  }
+
+  // Uno solo pendiente a la vez: lo libero justo antes de recorrer, así un cambio que llega
+  // durante el recorrido pide otro rebuild
+  private void scheduleRebuild() {
+    if (rebuildScheduled.compareAndSet(false, true)) {
+      worker.schedule(() -> {
+        rebuildScheduled.set(false);
+        rebuild();
+      }, remoteRebuildDelayMs, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  // Se llama con deltasLock tomado
+  private void adjust(Customer c, int delta, int source) {
+    if (c == null) {
+      return;
+    }
+    boolean forRebuild = scanDeltas != null && scanStarted.contains(source);
+    for (String raw : new String[] { c.getFirstName(), c.getLastName(), c.getEmail() }) {
+      String term = normalize(raw);
+      if (term != null) {
+        current.deltas().merge(term, delta, Integer::sum);
+        if (forRebuild) {
+          scanDeltas.merge(term, delta, Integer::sum);
+        }
+      }
+    }
+  }
+
+  // La base principal, o cada shard con app.sharding.enabled=true
+  private List<Source> sources() {
+    if (shards == null) {
+      return List.of(new Source(0, jdbcTemplate, readOnlyTx));
+    }
+    return shards.all().stream()
+        .map(s -> new Source(s.index(), streaming(s.jdbc()), s.tx()))
+        .toList();
+  }
+
+  private static JdbcTemplate streaming(JdbcTemplate jdbc) {
+    JdbcTemplate template = new JdbcTemplate(jdbc.getDataSource());
+    template.setFetchSize(1000);
+    return template;
+  }
+
+  private static void increment(Map<String, int[]> counts, String raw) {
+    String term = normalize(raw);
+    if (term != null) {
+      counts.computeIfAbsent(term, t -> new int[1])[0]++;
+    }
+  }
+
+  private record Source(int key, JdbcTemplate jdbc, TransactionTemplate tx) {
+  }
+
+  // Diccionario base + cambios desde que se armó (se publican siempre juntos)
+  private record Index(PrefixDictionary dictionary, ConcurrentMap<String, Integer> deltas) {
+  }
+
+  // Normalizo igual al indexar y al consultar: trim + minúsculas
+  private static String normalize(String raw) {
+    if (raw == null) {
+      return null;
+    }
+    String t = raw.trim().toLowerCase(Locale.ROOT);
+    return t.isEmpty() ? null : t;
+  }
+}
@@ -0,0 +1,232 @@
+package com.example.customer_management_app.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Diccionario de términos inmutable y comprimido, pensado para autocompletado.
+ *
+ * Estructura (similar al diccionario de términos de Lucene):
+ * - Términos ordenados, codificados con "front coding" en bloques de 16:
+ *   el primero del bloque se guarda completo y el resto solo como
+ *   (largo del prefijo compartido con el anterior, sufijo).
+ *   Con nombres y emails ordenados el ahorro de memoria es grande.
+ * - Todos los términos con un prefijo dado forman un RANGO contiguo [lo, hi)
+ *   que se encuentra con dos búsquedas binarias.
+ * - Un segment tree sobre las frecuencias permite sacar el top-K del rango
+ *   en O(k log n), sin recorrer todo el rango (clave para prefijos cortos como "a").
+ */
+public final class PrefixDictionary {
+
+  private static final int BLOCK = 16;
+  private static final int MAX_SHARED = 255;
+
+  private static final PrefixDictionary EMPTY = build(new TreeMap<>());
+
+  private final int size;
+  private final String[] heads;     // término completo al inicio de cada bloque
+  private final byte[] shared;      // prefijo compartido con el término anterior (0..255)
+  private final int[] suffixStart;  // offset del sufijo de cada término en "suffixes" (size + 1 entradas)
+  private final char[] suffixes;    // sufijos concatenados
+  private final int[] counts;       // frecuencia de cada término
+  private final int[] tree;         // segment tree: índice del término con mayor frecuencia en cada nodo
+  private final int leaves;         // cantidad de hojas (potencia de 2 >= size)
+
+  private PrefixDictionary(int size, String[] heads, byte[] shared, int[] suffixStart, char[] suffixes, int[] counts) {
+    this.size = size;
+    this.heads = heads;
+    this.shared = shared;
+    this.suffixStart = suffixStart;
+    this.suffixes = suffixes;
+    this.counts = counts;
+    int n = 1;
+    while (n < Math.max(1, size)) {
+      n <<= 1;
+    }
+    this.leaves = n;
+    this.tree = new int[2 * n];
+    Arrays.fill(tree, -1);
+    for (int i = 0; i < size; i++) {
+      tree[n + i] = i;
+    }
+    for (int p = n - 1; p >= 1; p--) {
+      tree[p] = better(tree[2 * p], tree[2 * p + 1]);
+    }
+  }
+
+  public static PrefixDictionary empty() {
+    return EMPTY;
+  }
+
+  /**
+   * Construye el diccionario a partir de términos ORDENADOS con su frecuencia.
+   */
+  public static PrefixDictionary build(SortedMap<String, Integer> termCounts) {
+    int size = termCounts.size();
+    String[] heads = new String[(size + BLOCK - 1) / BLOCK];
+    byte[] shared = new byte[size];
+    int[] suffixStart = new int[size + 1];
+    int[] counts = new int[size];
+    StringBuilder suffixes = new StringBuilder();
+
+    String previous = "";
+    int i = 0;
+    for (Map.Entry<String, Integer> e : termCounts.entrySet()) {
+      String term = e.getKey();
+      counts[i] = e.getValue();
+      suffixStart[i] = suffixes.length();
+      if (i % BLOCK == 0) {
+        heads[i / BLOCK] = term;
+      } else {
+        int common = Math.min(commonPrefix(previous, term), MAX_SHARED);
+        shared[i] = (byte) common;
+        suffixes.append(term, common, term.length());
+      }
+      previous = term;
+      i++;
+    }
+    suffixStart[size] = suffixes.length();
+    char[] chars = new char[suffixes.length()];
+    suffixes.getChars(0, suffixes.length(), chars, 0);
+    return new PrefixDictionary(size, heads, shared, suffixStart, chars, counts);
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public int count(int index) {
+    return counts[index];
+  }
+
+  // Decodifico el término i partiendo del inicio de su bloque
+  public String term(int index) {
+    int block = index / BLOCK;
+    StringBuilder sb = new StringBuilder(heads[block]);
+    for (int j = block * BLOCK + 1; j <= index; j++) {
+      applyNext(sb, j);
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Los K términos más frecuentes que empiezan con el prefijo (más frecuente primero).
+   */
+  public List<Entry> topK(String prefix, int k) {
+    List<Entry> result = new ArrayList<>(Math.max(0, k));
+    if (size == 0 || k <= 0) {
+      return result;
+    }
+    int lo = lowerBound(prefix);
+    int hi = lowerBound(prefix + Character.MAX_VALUE);
+    if (lo >= hi) {
+      return result;
+    }
+    // Cola de rangos ordenada por la mayor frecuencia de cada rango
+    PriorityQueue<int[]> ranges = new PriorityQueue<>(
+        Comparator.<int[]>comparingInt(r -> counts[r[2]]).reversed().thenComparingInt(r -> r[2]));
+    ranges.add(new int[] { lo, hi, rangeMax(lo, hi) });
+    while (!ranges.isEmpty() && result.size() < k) {
+      int[] r = ranges.poll();
+      int best = r[2];
+      result.add(new Entry(term(best), counts[best]));
+      if (r[0] < best) {
+        ranges.add(new int[] { r[0], best, rangeMax(r[0], best) });
+      }
+      if (best + 1 < r[1]) {
+        ranges.add(new int[] { best + 1, r[1], rangeMax(best + 1, r[1]) });
+      }
+    }
+    return result;
+  }
+
+  // Primer índice cuyo término es >= key
+  int lowerBound(String key) {
+    if (size == 0) {
+      return 0;
+    }
+    // 1) Último bloque cuyo head es <= key
+    int lo = 0;
+    int hi = heads.length - 1;
+    int block = -1;
+    while (lo <= hi) {
+      int mid = (lo + hi) >>> 1;
+      if (heads[mid].compareTo(key) <= 0) {
+        block = mid;
+        lo = mid + 1;
+      } else {
+        hi = mid - 1;
+      }
+    }
+    if (block < 0) {
+      return 0;
+    }
+    // 2) Recorrido lineal dentro del bloque (a lo sumo 16 términos)
+    int start = block * BLOCK;
+    int end = Math.min(size, start + BLOCK);
+    StringBuilder sb = new StringBuilder(heads[block]);
+    for (int j = start; j < end; j++) {
+      if (j > start) {
+        applyNext(sb, j);
+      }
+      if (sb.toString().compareTo(key) >= 0) {
+        return j;
+      }
+    }
+    return end;
+  }
+
+  private void applyNext(StringBuilder sb, int j) {
+    sb.setLength(shared[j] & 0xFF);
+    sb.append(suffixes, suffixStart[j], suffixStart[j + 1] - suffixStart[j]);
+  }
+
+  // Índice con mayor frecuencia en [from, to)
+  private int rangeMax(int from, int to) {
+    int best = -1;
+    for (int l = from + leaves, r = to + leaves; l < r; l >>= 1, r >>= 1) {
+      if ((l & 1) == 1) {
+        best = better(best, tree[l++]);
+      }
+      if ((r & 1) == 1) {
+        best = better(best, tree[--r]);
+      }
+    }
+    return best;
+  }
+
+  // A igual frecuencia gana el término menor (orden alfabético estable)
+  private int better(int a, int b) {
+    if (a < 0) {
+      return b;
+    }
+    if (b < 0) {
+      return a;
+    }
+    if (counts[a] != counts[b]) {
+      return counts[a] > counts[b] ? a : b;
+    }
+    return Math.min(a, b);
+  }
+
+  private static int commonPrefix(String a, String b) {
+    int n = Math.min(a.length(), b.length());
+    int i = 0;
+    while (i < n && a.charAt(i) == b.charAt(i)) {
+      i++;
+    }
+    return i;
+  }
+
+  /**
+   * Término sugerido con su frecuencia.
+   */
+  public record Entry(String term, int count) {
+  }
+}
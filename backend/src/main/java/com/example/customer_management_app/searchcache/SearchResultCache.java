@@ -0,0 +1,207 @@
+package com.example.customer_management_app.searchcache;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.customer_management_app.Customer;
+import com.example.customer_management_app.events.CustomerChangedEvent;
+import com.example.customer_management_app.invalidation.CustomerInvalidation;
+import com.example.customer_management_app.invalidation.LocalCustomerCache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Cache de resultados de /search/page: solo ids + total, invalidada por un "write epoch" global.
+ *
+ * ¿Por qué?
+ * - Los términos populares se repiten todo el tiempo y cada uno cuesta el LIKE sobre 5 columnas + COUNT.
+ *
+ * ¿Qué guardo?
+ * - Clave: término normalizado (trim + minúsculas, la búsqueda es case-insensitive), página, tamaño y sort.
+ * - Valor: los ids de la página y el total. NO las filas: un hit las trae por PK
+ *   (un SELECT ... WHERE id IN (...)), así nunca devuelvo datos viejos de un cliente.
+ *
+ * ¿Cómo invalido sin saber qué búsquedas afecta cada escritura?
+ * - Un contador global (epoch) que sube después de cada create/update/delete que hace commit
+ *   (CustomerChangedEvent) y con cada cambio de otra instancia (LocalCustomerCache).
+ * - Cada entrada guarda el epoch con el que EMPEZÓ su consulta; solo sirve si sigue siendo el actual.
+ *   Una consulta que corrió en paralelo con una escritura queda con un epoch viejo y nunca se usa.
+ * - Con muchas escrituras la cache rinde poco, pero nunca es incorrecta. El TTL acota lo que
+ *   se pueda escapar (ej. escrituras por fuera de la app).
+ *
+ * Métricas: customers.search-cache.requests{result=hit|miss|stale}, .hit-ratio y .size.
+ */
+@Component
+public class SearchResultCache implements LocalCustomerCache {
+
+  // Había entrada pero de un epoch viejo o vencida (se cuenta como stale, no como miss)
+  private static final Entry STALE = new Entry(-1, List.of(), 0, 0);
+
+  private final boolean enabled;
+  private final int maxEntries;
+  private final long ttlNanos;
+
+  private final AtomicLong epoch = new AtomicLong();
+  // LRU por acceso, acotado a maxEntries (guardado por this)
+  private final LinkedHashMap<Key, Entry> entries;
+
+  private final Counter hits;
+  private final Counter misses;
+  private final Counter stale;
+
+  public SearchResultCache(MeterRegistry meterRegistry,
+      @Value("${app.search-cache.enabled:true}") boolean enabled,
+      @Value("${app.search-cache.max-entries:10000}") int maxEntries,
+      @Value("${app.search-cache.ttl-ms:60000}") long ttlMillis) {
+    this.enabled = enabled;
+    this.maxEntries = maxEntries;
+    this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+    this.entries = new LinkedHashMap<>(256, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+        return size() > SearchResultCache.this.maxEntries;
+      }
+    };
+    this.hits = requests(meterRegistry, "hit");
+    this.misses = requests(meterRegistry, "miss");
+    this.stale = requests(meterRegistry, "stale");
+    Gauge.builder("customers.search-cache.size", this, SearchResultCache::size)
+        .description("Cached search result pages")
+        .register(meterRegistry);
+    Gauge.builder("customers.search-cache.hit-ratio", this, SearchResultCache::hitRatio)
+        .description("Search result cache hits / lookups since startup")
+        .register(meterRegistry);
+  }
+
+  private static Counter requests(MeterRegistry registry, String result) {
+    return Counter.builder("customers.search-cache.requests")
+        .description("Search result cache lookups (stale = invalidated by a write or expired)")
+        .tag("result", result)
+        .register(registry);
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Página de una búsqueda: ids desde la cache + filas por PK, o la consulta real.
+   *
+   * @param term    término ya normalizado (trim + minúsculas)
+   * @param query   búsqueda real (LIKE + COUNT)
+   * @param hydrate lectura por PK de los ids (en cualquier orden)
+   */
+  public Page<Customer> search(String term, Pageable pageable, Supplier<Page<Customer>> query,
+      Function<List<Long>, List<Customer>> hydrate) {
+    if (!enabled) {
+      return query.get();
+    }
+    Key key = new Key(term, pageable.getPageNumber(), pageable.getPageSize(), pageable.getSort().toString());
+    Entry entry = lookup(key);
+    if (entry == null) {
+      misses.increment();
+    } else if (entry != STALE) {
+      Page<Customer> page = hydrated(entry, pageable, hydrate);
+      if (page != null) {
+        hits.increment();
+        return page;
+      }
+      // Alguna fila ya no existe: la escritura todavía no subió el epoch. Recalculo.
+      stale.increment();
+    }
+
+    long startEpoch = epoch.get();
+    Page<Customer> page = query.get();
+    List<Long> ids = page.getContent().stream().map(Customer::getId).toList();
+    synchronized (this) {
+      if (epoch.get() == startEpoch) {
+        entries.put(key, new Entry(startEpoch, ids, page.getTotalElements(), System.nanoTime()));
+      }
+    }
+    return page;
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onCustomerChanged(CustomerChangedEvent event) {
+    bump();
+  }
+
+  @Override
+  public void evict(CustomerInvalidation invalidation) {
+    bump();
+  }
+
+  @Override
+  public void evictAll() {
+    bump();
+  }
+
+  /**
+   * Sube el epoch: todas las entradas actuales dejan de servir (se limpian al cruzarlas o por LRU).
+   */
+  public void bump() {
+    epoch.incrementAndGet();
+  }
+
+  public long epoch() {
+    return epoch.get();
+  }
+
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  private double hitRatio() {
+    double lookups = hits.count() + misses.count() + stale.count();
+    return lookups == 0 ? 0 : hits.count() / lookups;
+  }
+
+  // Entrada válida, STALE o null
+  private synchronized Entry lookup(Key key) {
+    Entry entry = entries.get(key);
+    if (entry == null) {
+      return null;
+    }
+    if (entry.epoch() != epoch.get() || System.nanoTime() - entry.storedAt() > ttlNanos) {
+      entries.remove(key);
+      stale.increment();
+      return STALE;
+    }
+    return entry;
+  }
+
+  // null si falta alguna fila
+  private static Page<Customer> hydrated(Entry entry, Pageable pageable, Function<List<Long>, List<Customer>> hydrate) {
+    if (entry.ids().isEmpty()) {
+      return new PageImpl<>(List.of(), pageable, entry.total());
+    }
+    Map<Long, Customer> byId = new HashMap<>();
+    for (Customer c : hydrate.apply(entry.ids())) {
+      byId.put(c.getId(), c);
+    }
+    if (byId.size() != entry.ids().size()) {
+      return null;
+    }
+    List<Customer> rows = entry.ids().stream().map(byId::get).toList();
+    return new PageImpl<>(rows, pageable, entry.total());
+  }
+
+  private record Key(String term, int page, int size, String sort) {}
+
+  private record Entry(long epoch, List<Long> ids, long total, long storedAt) {}
+}
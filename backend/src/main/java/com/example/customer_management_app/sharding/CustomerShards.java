@@ -0,0 +1,166 @@
+package com.example.customer_management_app.sharding;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.flywaydb.core.Flyway;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.customer_management_app.jdbc.InstrumentedDataSource;
+import com.example.customer_management_app.jdbc.JdbcEventListener;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Las bases de las shards: un pool Hikari por URL de app.sharding.urls, ruteo y fan-out.
+ *
+ * ¿Por qué no son beans DataSource?
+ * - Spring Boot solo autoconfigura el DataSource principal si no hay otro: declarar N
+ *   DataSource apagaría JPA/Flyway de la base principal.
+ * - Igual los envuelvo en {@link InstrumentedDataSource}: Server-Timing, presupuestos de SQL
+ *   y spans JDBC también ven las consultas a las shards.
+ *
+ * Al arrancar aplica db/shard en cada shard (Flyway, historial shard_schema_history).
+ *
+ * Fan-out: una tarea por shard en un pool propio; se espera a todas hasta
+ * app.sharding.fanout-timeout-ms. Ojo: lo que corre en el pool no entra en las estadísticas
+ * de SQL por request (son por hilo), solo lo que va a una única shard (corre en el hilo de la request).
+ */
+@Component
+@ConditionalOnProperty(name = "app.sharding.enabled", havingValue = "true")
+public class CustomerShards implements SmartInitializingSingleton {
+
+  private static final Logger log = LoggerFactory.getLogger(CustomerShards.class);
+
+  /**
+   * Una shard: su índice en app.sharding.urls, JdbcTemplate y transacciones locales.
+   */
+  public record Shard(int index, JdbcTemplate jdbc, TransactionTemplate tx) {}
+
+  private final List<HikariDataSource> pools = new ArrayList<>();
+  private final List<InstrumentedDataSource> dataSources = new ArrayList<>();
+  private final List<Shard> shards = new ArrayList<>();
+  private final ShardRouter router;
+  private final ObjectProvider<JdbcEventListener> listeners;
+  private final ExecutorService fanout;
+  private final long fanoutTimeoutMillis;
+
+  public CustomerShards(ObjectProvider<JdbcEventListener> listeners,
+      @Value("${app.sharding.urls}") List<String> urls,
+      @Value("${app.sharding.username:}") String username,
+      @Value("${app.sharding.password:}") String password,
+      @Value("${app.sharding.pool-size:5}") int poolSize,
+      @Value("${app.sharding.virtual-nodes:128}") int virtualNodes,
+      @Value("${app.sharding.migrate:true}") boolean migrate,
+      @Value("${app.sharding.fanout-threads:16}") int fanoutThreads,
+      @Value("${app.sharding.fanout-timeout-ms:5000}") long fanoutTimeoutMillis) {
+    if (urls.isEmpty() || urls.stream().anyMatch(String::isBlank)) {
+      throw new IllegalArgumentException("app.sharding.urls must list at least one JDBC URL");
+    }
+    this.listeners = listeners;
+    this.router = new ShardRouter(urls.size(), virtualNodes);
+    this.fanoutTimeoutMillis = fanoutTimeoutMillis;
+
+    for (int i = 0; i < urls.size(); i++) {
+      HikariConfig config = new HikariConfig();
+      config.setPoolName("shard-" + i);
+      config.setJdbcUrl(urls.get(i).trim());
+      config.setUsername(username);
+      config.setPassword(password);
+      config.setMaximumPoolSize(poolSize);
+      HikariDataSource pool = new HikariDataSource(config);
+      pools.add(pool);
+      if (migrate) {
+        Flyway.configure().dataSource(pool).locations("classpath:db/shard")
+            .table("shard_schema_history").load().migrate();
+      }
+      InstrumentedDataSource ds = new InstrumentedDataSource(pool);
+      dataSources.add(ds);
+      shards.add(new Shard(i, new JdbcTemplate(ds), new TransactionTemplate(new DataSourceTransactionManager(ds))));
+    }
+
+    AtomicInteger threadIds = new AtomicInteger();
+    this.fanout = Executors.newFixedThreadPool(Math.max(1, fanoutThreads), r -> {
+      Thread t = new Thread(r, "customer-shard-fanout-" + threadIds.incrementAndGet());
+      t.setDaemon(true);
+      return t;
+    });
+    log.info("Customer sharding enabled: {} shards, {} virtual nodes each", urls.size(), virtualNodes);
+  }
+
+  // Igual que DataSourceInstrumentationConfig con el DataSource principal
+  @Override
+  public void afterSingletonsInstantiated() {
+    List<JdbcEventListener> all = listeners.orderedStream().toList();
+    dataSources.forEach(ds -> ds.setListeners(all));
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    fanout.shutdownNow();
+    pools.forEach(HikariDataSource::close);
+  }
+
+  public List<Shard> all() {
+    return shards;
+  }
+
+  public Shard forId(long id) {
+    return shards.get(router.shardFor(id));
+  }
+
+  // Shard del directorio de emails (no es la del cliente)
+  public Shard forEmail(String email) {
+    return shards.get(router.shardFor(email));
+  }
+
+  /**
+   * Ejecuta la consulta en todas las shards en paralelo. Resultados en el orden de las shards.
+   *
+   * @throws QueryTimeoutException si alguna shard no responde en app.sharding.fanout-timeout-ms
+   */
+  public <T> List<T> fanOut(Function<Shard, T> query) {
+    if (shards.size() == 1) {
+      return List.of(query.apply(shards.get(0)));
+    }
+    List<CompletableFuture<T>> futures = shards.stream()
+        .map(shard -> CompletableFuture.supplyAsync(() -> query.apply(shard), fanout))
+        .toList();
+    try {
+      CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+          .get(fanoutTimeoutMillis, TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      futures.forEach(f -> f.cancel(true));
+      throw new QueryTimeoutException("Shard fan-out timed out after " + fanoutTimeoutMillis + " ms", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException re) {
+        throw re;
+      }
+      throw new IllegalStateException("Shard query failed", e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted waiting for shards", e);
+    }
+    return futures.stream().map(CompletableFuture::join).toList();
+  }
+}
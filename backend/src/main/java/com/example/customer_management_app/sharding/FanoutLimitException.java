@@ -0,0 +1,10 @@
+package com.example.customer_management_app.sharding;
+
+/**
+ * Página demasiado profunda para armarla con fan-out (app.sharding.max-fanout-rows). Se responde 400.
+ */
+public class FanoutLimitException extends RuntimeException {
+  public FanoutLimitException(String message) {
+    super(message);
+  }
+}
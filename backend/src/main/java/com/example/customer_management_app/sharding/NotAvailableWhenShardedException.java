@@ -0,0 +1,11 @@
+package com.example.customer_management_app.sharding;
+
+/**
+ * La operación lee/escribe solo la base principal y no está disponible con app.sharding.enabled=true
+ * (bulk delete, detección de duplicados, analytics). Se responde 501 en vez de un resultado parcial.
+ */
+public class NotAvailableWhenShardedException extends RuntimeException {
+  public NotAvailableWhenShardedException(String feature) {
+    super(feature + " is not available when customers are sharded (app.sharding.enabled=true)");
+  }
+}
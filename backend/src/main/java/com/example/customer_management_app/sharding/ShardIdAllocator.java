@@ -0,0 +1,53 @@
+package com.example.customer_management_app.sharding;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Ids únicos entre shards (hi/lo).
+ *
+ * ¿Cómo?
+ * - La shard 0 guarda el próximo id libre (customer_id_allocator).
+ * - Cada instancia reserva un bloque de app.sharding.id-block-size ids con un UPDATE
+ *   (el lock de fila serializa a las instancias) y los reparte en memoria.
+ * - Un viaje a la base cada block-size altas; si la instancia se reinicia, el resto del bloque
+ *   se pierde (quedan huecos, no duplicados).
+ *
+ * Los ids no son secuenciales entre instancias: solo únicos.
+ */
+@Component
+@ConditionalOnProperty(name = "app.sharding.enabled", havingValue = "true")
+public class ShardIdAllocator {
+
+  private final CustomerShards shards;
+  private final int blockSize;
+
+  private long next;
+  private long limit;
+
+  public ShardIdAllocator(CustomerShards shards, @Value("${app.sharding.id-block-size:1000}") int blockSize) {
+    if (blockSize < 1) {
+      throw new IllegalArgumentException("app.sharding.id-block-size must be >= 1");
+    }
+    this.shards = shards;
+    this.blockSize = blockSize;
+  }
+
+  public synchronized long nextId() {
+    if (next >= limit) {
+      reserveBlock();
+    }
+    return next++;
+  }
+
+  private void reserveBlock() {
+    CustomerShards.Shard sequence = shards.all().get(0);
+    Long end = sequence.tx().execute(status -> {
+      sequence.jdbc().update("UPDATE customer_id_allocator SET next_id = next_id + ? WHERE name = 'customer'", blockSize);
+      return sequence.jdbc().queryForObject("SELECT next_id FROM customer_id_allocator WHERE name = 'customer'", Long.class);
+    });
+    next = end - blockSize;
+    limit = end;
+  }
+}
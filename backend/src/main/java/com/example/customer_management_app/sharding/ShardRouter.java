@@ -0,0 +1,73 @@
+package com.example.customer_management_app.sharding;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Anillo de hashing consistente: id (o email) -> índice de shard.
+ *
+ * ¿Por qué consistente y no id % N?
+ * - Con módulo, agregar una shard mueve casi todas las claves de lugar.
+ * - Con el anillo, agregar la shard N+1 solo le pasa ~1/(N+1) de las claves a la nueva;
+ *   el resto no cambia de shard.
+ *
+ * Cada shard aparece virtualNodes veces en el anillo (reparto parejo). La posición de
+ * cada nodo depende solo del índice de la shard: el orden de app.sharding.urls importa
+ * y las shards nuevas se agregan AL FINAL.
+ */
+public final class ShardRouter {
+
+  private final TreeMap<Long, Integer> ring = new TreeMap<>();
+  private final int shardCount;
+
+  public ShardRouter(int shardCount, int virtualNodes) {
+    if (shardCount < 1 || virtualNodes < 1) {
+      throw new IllegalArgumentException("shardCount and virtualNodes must be >= 1");
+    }
+    this.shardCount = shardCount;
+    for (int shard = 0; shard < shardCount; shard++) {
+      for (int v = 0; v < virtualNodes; v++) {
+        // Etiqueta en texto: si hasheara números chicos, los ids 1..N caerían justo sobre los nodos
+        ring.put(mix(fnv1a("shard-" + shard + "#" + v)), shard);
+      }
+    }
+  }
+
+  public int shardCount() {
+    return shardCount;
+  }
+
+  public int shardFor(long id) {
+    return lookup(mix(id));
+  }
+
+  public int shardFor(String key) {
+    return lookup(mix(fnv1a(key)));
+  }
+
+  private int lookup(long hash) {
+    Map.Entry<Long, Integer> node = ring.ceilingEntry(hash);
+    return (node != null ? node : ring.firstEntry()).getValue();
+  }
+
+  // Finalizador de MurmurHash3 (fmix64): ids consecutivos quedan bien repartidos en el anillo
+  private static long mix(long k) {
+    k ^= k >>> 33;
+    k *= 0xff51afd7ed558ccdL;
+    k ^= k >>> 33;
+    k *= 0xc4ceb9fe1a85ec53L;
+    k ^= k >>> 33;
+    return k;
+  }
+
+  // FNV-1a de 64 bits sobre UTF-8: estable entre JVMs (String.hashCode es de 32 bits)
+  private static long fnv1a(String key) {
+    long hash = 0xcbf29ce484222325L;
+    for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+      hash ^= b & 0xff;
+      hash *= 0x100000001b3L;
+    }
+    return hash;
+  }
+}
@@ -0,0 +1,514 @@
+package com.example.customer_management_app.sharding;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Primary;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+
+import com.example.customer_management_app.Customer;
+import com.example.customer_management_app.CustomerNotFoundException;
+import com.example.customer_management_app.CustomerService;
+import com.example.customer_management_app.CustomerServiceImpl;
+import com.example.customer_management_app.DuplicateEmailException;
+import com.example.customer_management_app.events.CustomerChangedEvent;
+import com.example.customer_management_app.filter.CustomerFilter;
+import com.example.customer_management_app.sharding.CustomerShards.Shard;
+import com.example.customer_management_app.sorting.UnsupportedSortException;
+
+/**
+ * CustomerService sobre varias bases (app.sharding.enabled=true). Reemplaza a CustomerServiceImpl.
+ *
+ * Ruteo:
+ * - Un cliente vive en la shard de hash(id) (ShardRouter); el id lo asigna ShardIdAllocator.
+ * - Unicidad de email y /by-email: directorio customer_email_directory en la shard de hash(email).
+ *   Alta = reservar el email en el directorio (PK, pendiente) + INSERT del cliente en su shard
+ *   + confirmar la reserva.
+ * - Búsquedas, páginas y conteos: fan-out en paralelo a todas las shards y merge.
+ *
+ * ¿Por qué no hay transacciones distribuidas?
+ * - Cada paso es una operación local de una shard, en un orden que deja, ante una falla,
+ *   a lo sumo una reserva de email huérfana (apunta a un cliente que no tiene ese email).
+ * - Una reserva pendiente con el dueño todavía sin escribir es exactamente lo que se ve
+ *   durante un alta en curso: solo se reutiliza pasado app.sharding.email-reservation-grace-ms.
+ *   Una confirmada cuyo dueño ya no tiene el email se reutiliza enseguida (el dueño se borró
+ *   o cambió de email y falló la liberación).
+ * - Si al confirmar la reserva ya no es mía (me la reutilizaron por pasarme del período de
+ *   gracia), deshago la escritura y respondo 409: nunca quedan dos clientes con el mismo email.
+ *
+ * Páginas: cada shard devuelve su top (offset + size) con el mismo ORDER BY y se hace un merge
+ * k-way. El costo crece con la profundidad: hay un tope (app.sharding.max-fanout-rows).
+ * El merge compara strings como Java (binario): conviene collation "C" en las shards PostgreSQL.
+ *
+ * Los eventos (CustomerChangedEvent) se publican igual que en CustomerServiceImpl; como no hay
+ * transacción de Spring, los listeners corren enseguida (fallbackExecution).
+ */
+@Service
+@Primary
+@ConditionalOnProperty(name = "app.sharding.enabled", havingValue = "true")
+public class ShardedCustomerService implements CustomerService {
+
+  private static final Logger log = LoggerFactory.getLogger(ShardedCustomerService.class);
+
+  private static final String SELECT_COLUMNS =
+      "SELECT id, first_name, last_name, email, phone, address, created_at, updated_at FROM customer ";
+
+  private static final String SEARCH_WHERE =
+      "WHERE LOWER(first_name) LIKE ? ESCAPE '\\' OR LOWER(last_name) LIKE ? ESCAPE '\\' "
+          + "OR LOWER(email) LIKE ? ESCAPE '\\' OR LOWER(phone) LIKE ? ESCAPE '\\' OR LOWER(address) LIKE ? ESCAPE '\\' ";
+
+  private final CustomerShards shards;
+  private final ShardIdAllocator idAllocator;
+  private final ApplicationEventPublisher eventPublisher;
+  private final int maxFanoutRows;
+  private final long reservationGraceMs;
+
+  public ShardedCustomerService(CustomerShards shards, ShardIdAllocator idAllocator,
+      ApplicationEventPublisher eventPublisher, int maxFanoutRows) {
+    this(shards, idAllocator, eventPublisher, maxFanoutRows, 60_000);
+  }
+
+  @Autowired
+  public ShardedCustomerService(CustomerShards shards, ShardIdAllocator idAllocator,
+      ApplicationEventPublisher eventPublisher,
+      @Value("${app.sharding.max-fanout-rows:10000}") int maxFanoutRows,
+      @Value("${app.sharding.email-reservation-grace-ms:60000}") long reservationGraceMs) {
+    this.shards = shards;
+    this.idAllocator = idAllocator;
+    this.eventPublisher = eventPublisher;
+    this.maxFanoutRows = maxFanoutRows;
+    this.reservationGraceMs = reservationGraceMs;
+  }
+
+  // ---------------------------------------------------------------- lecturas de una shard
+
+  @Override
+  public Optional<Customer> getCustomerById(Long id) {
+    if (id == null) {
+      throw new IllegalArgumentException("Customer ID cannot be null");
+    }
+    return findById(shards.forId(id), id);
+  }
+
+  @Override
+  public Optional<Customer> getByEmail(String email) {
+    if (email == null || email.trim().isEmpty()) {
+      return Optional.empty();
+    }
+    String normalized = email.trim();
+    // Directorio (shard del email) -> cliente (shard del id). Verifico el email por si la reserva quedó huérfana.
+    return ownerOf(normalized)
+        .flatMap(id -> findById(shards.forId(id), id))
+        .filter(c -> normalized.equals(c.getEmail()));
+  }
+
+  @Override
+  public boolean existsByEmail(String email) {
+    return getByEmail(email).isPresent();
+  }
+
+  // ---------------------------------------------------------------- escrituras
+
+  @Override
+  public Customer createCustomer(Customer customer) {
+    CustomerServiceImpl.validateCustomerForCreation(customer);
+
+    LocalDateTime now = LocalDateTime.now();
+    Customer saved = new Customer(idAllocator.nextId(), customer.getFirstName(), customer.getLastName(),
+        customer.getEmail(), customer.getPhone(), customer.getAddress());
+    saved.setCreatedAt(now);
+    saved.setUpdatedAt(now);
+
+    // 1) Reservo el email (pendiente) 2) inserto el cliente; si falla, libero la reserva 3) confirmo
+    Shard shard = shards.forId(saved.getId());
+    reserveEmail(saved.getEmail(), saved.getId());
+    try {
+      shard.jdbc().update(
+          "INSERT INTO customer (id, first_name, last_name, email, phone, address, created_at, updated_at) "
+              + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)",
+          saved.getId(), saved.getFirstName(), saved.getLastName(), saved.getEmail(), saved.getPhone(),
+          saved.getAddress(), Timestamp.valueOf(now), Timestamp.valueOf(now));
+    } catch (RuntimeException e) {
+      releaseEmail(saved.getEmail(), saved.getId());
+      throw e;
+    }
+    if (!confirmEmail(saved.getEmail(), saved.getId())) {
+      shard.jdbc().update("DELETE FROM customer WHERE id = ?", saved.getId());
+      throw new DuplicateEmailException("Email already exists: " + saved.getEmail());
+    }
+    eventPublisher.publishEvent(CustomerChangedEvent.created(saved));
+    return saved;
+  }
+
+  @Override
+  public Customer updateCustomer(Long id, Customer customerUpdates) {
+    Shard shard = shards.forId(id);
+    Customer existing = findById(shard, id).orElseThrow(() -> new CustomerNotFoundException(id));
+    Customer before = CustomerChangedEvent.copyOf(existing);
+
+    boolean emailChanged = !existing.getEmail().equals(customerUpdates.getEmail());
+    if (emailChanged) {
+      reserveEmail(customerUpdates.getEmail(), id);
+    }
+
+    existing.setFirstName(customerUpdates.getFirstName());
+    existing.setLastName(customerUpdates.getLastName());
+    existing.setEmail(customerUpdates.getEmail());
+    existing.setPhone(customerUpdates.getPhone());
+    existing.setAddress(customerUpdates.getAddress());
+    existing.setUpdatedAt(LocalDateTime.now());
+
+    int updated;
+    try {
+      updated = shard.jdbc().update(
+          "UPDATE customer SET first_name = ?, last_name = ?, email = ?, phone = ?, address = ?, updated_at = ? WHERE id = ?",
+          existing.getFirstName(), existing.getLastName(), existing.getEmail(), existing.getPhone(),
+          existing.getAddress(), Timestamp.valueOf(existing.getUpdatedAt()), id);
+    } catch (RuntimeException e) {
+      if (emailChanged) {
+        releaseEmail(customerUpdates.getEmail(), id);
+      }
+      throw e;
+    }
+    if (updated == 0) {
+      // Lo borraron entre la lectura y el UPDATE
+      if (emailChanged) {
+        releaseEmail(customerUpdates.getEmail(), id);
+      }
+      throw new CustomerNotFoundException(id);
+    }
+    if (emailChanged) {
+      if (!confirmEmail(existing.getEmail(), id)) {
+        // Me reutilizaron la reserva: vuelvo la fila a como estaba
+        shard.jdbc().update(
+            "UPDATE customer SET first_name = ?, last_name = ?, email = ?, phone = ?, address = ?, updated_at = ? WHERE id = ?",
+            before.getFirstName(), before.getLastName(), before.getEmail(), before.getPhone(), before.getAddress(),
+            before.getUpdatedAt() != null ? Timestamp.valueOf(before.getUpdatedAt()) : null, id);
+        throw new DuplicateEmailException("Email already exists: " + existing.getEmail());
+      }
+      releaseEmail(before.getEmail(), id);
+    }
+    eventPublisher.publishEvent(CustomerChangedEvent.updated(before, existing));
+    return existing;
+  }
+
+  @Override
+  public void deleteCustomer(Long id) {
+    Shard shard = shards.forId(id);
+    Customer before = findById(shard, id).orElseThrow(() -> new CustomerNotFoundException(id));
+    if (shard.jdbc().update("DELETE FROM customer WHERE id = ?", id) == 0) {
+      throw new CustomerNotFoundException(id);
+    }
+    releaseEmail(before.getEmail(), id);
+    eventPublisher.publishEvent(CustomerChangedEvent.deleted(id, before));
+  }
+
+  // ---------------------------------------------------------------- fan-out
+
+  @Override
+  public List<Customer> getAllCustomers() {
+    return mergeAll(shards.fanOut(s -> s.jdbc().query(SELECT_COLUMNS + "ORDER BY id", CUSTOMER_ROW)));
+  }
+
+  @Override
+  public Page<Customer> getAllCustomers(Pageable pageable) {
+    return page("", new Object[0], pageable);
+  }
+
+  @Override
+  public List<Customer> searchCustomers(String searchTerm) {
+    if (searchTerm == null || searchTerm.trim().isEmpty()) {
+      return getAllCustomers();
+    }
+    // Igual que findByFirstNameContainingOrLastNameContaining: contains, sensible a mayúsculas
+    String pattern = "%" + escapeLike(searchTerm.trim()) + "%";
+    return mergeAll(shards.fanOut(s -> s.jdbc().query(
+        SELECT_COLUMNS + "WHERE first_name LIKE ? ESCAPE '\\' OR last_name LIKE ? ESCAPE '\\' ORDER BY id",
+        CUSTOMER_ROW, pattern, pattern)));
+  }
+
+  @Override
+  public Page<Customer> searchCustomers(String searchTerm, Pageable pageable) {
+    if (searchTerm == null || searchTerm.trim().isEmpty()) {
+      return getAllCustomers(pageable);
+    }
+    String p = "%" + escapeLike(searchTerm.trim().toLowerCase(Locale.ROOT)) + "%";
+    return page(SEARCH_WHERE, new Object[] { p, p, p, p, p }, pageable);
+  }
+
+  @Override
+  public Page<Customer> filterCustomers(CustomerFilter filter, Pageable pageable) {
+    return page(filter.whereSql(), filter.sqlParams(), pageable);
+  }
+
+  @Override
+  public Optional<Customer> getByPhone(String phone) {
+    if (phone == null || phone.trim().isEmpty()) {
+      return Optional.empty();
+    }
+    String normalized = phone.trim();
+    // El teléfono no es único: me quedo con el de menor id (determinista entre shards)
+    return shards.fanOut(s -> s.jdbc().query(SELECT_COLUMNS + "WHERE phone = ? ORDER BY id LIMIT 1",
+            CUSTOMER_ROW, normalized))
+        .stream().flatMap(List::stream)
+        .min(Comparator.comparing(Customer::getId));
+  }
+
+  @Override
+  public long countByLastName(String lastName) {
+    if (lastName == null || lastName.trim().isEmpty()) {
+      return 0;
+    }
+    String normalized = lastName.trim();
+    return sum(shards.fanOut(s -> s.jdbc().queryForObject(
+        "SELECT COUNT(*) FROM customer WHERE last_name = ?", Long.class, normalized)));
+  }
+
+  @Override
+  public CustomerStats getStatistics() {
+    // Un solo recorrido por shard para los dos conteos
+    List<long[]> perShard = shards.fanOut(s -> s.jdbc().queryForObject(
+        "SELECT COUNT(*), COALESCE(SUM(CASE WHEN email LIKE ? THEN 1 ELSE 0 END), 0) FROM customer",
+        (rs, n) -> new long[] { rs.getLong(1), rs.getLong(2) }, "%gmail.com%"));
+    long total = perShard.stream().mapToLong(c -> c[0]).sum();
+    long gmail = perShard.stream().mapToLong(c -> c[1]).sum();
+    return new CustomerStats(total, gmail);
+  }
+
+  // ---------------------------------------------------------------- páginas
+
+  private Page<Customer> page(String where, Object[] params, Pageable pageable) {
+    int offset = pageable.isPaged() ? (int) pageable.getOffset() : 0;
+    int size = pageable.isPaged() ? pageable.getPageSize() : maxFanoutRows;
+    if ((long) offset + size > maxFanoutRows) {
+      throw new FanoutLimitException("Page too deep for a sharded query: offset + size must be <= "
+          + maxFanoutRows + ". Narrow the search instead of paging further.");
+    }
+    Sort sort = withIdTieBreaker(pageable.getSort());
+    String sql = SELECT_COLUMNS + where + orderBy(sort) + " LIMIT ?";
+    Object[] pageParams = append(params, offset + size);
+
+    List<ShardPage> perShard = shards.fanOut(s -> new ShardPage(
+        s.jdbc().query(sql, CUSTOMER_ROW, pageParams),
+        s.jdbc().queryForObject("SELECT COUNT(*) FROM customer " + where, Long.class, params)));
+
+    List<Customer> merged = merge(perShard.stream().map(ShardPage::rows).toList(), comparator(sort), offset + size);
+    List<Customer> content = offset >= merged.size() ? List.of() : merged.subList(offset, merged.size());
+    return new PageImpl<>(new ArrayList<>(content), pageable, perShard.stream().mapToLong(ShardPage::total).sum());
+  }
+
+  private record ShardPage(List<Customer> rows, long total) {}
+
+  // Merge k-way de listas ya ordenadas por el mismo criterio
+  static List<Customer> merge(List<List<Customer>> sortedLists, Comparator<Customer> order, int limit) {
+    PriorityQueue<Head> heads = new PriorityQueue<>((a, b) -> order.compare(a.current, b.current));
+    for (List<Customer> list : sortedLists) {
+      Iterator<Customer> it = list.iterator();
+      if (it.hasNext()) {
+        heads.add(new Head(it.next(), it));
+      }
+    }
+    List<Customer> out = new ArrayList<>(Math.min(limit, sortedLists.stream().mapToInt(List::size).sum()));
+    while (!heads.isEmpty() && out.size() < limit) {
+      Head head = heads.poll();
+      out.add(head.current);
+      if (head.rest.hasNext()) {
+        heads.add(new Head(head.rest.next(), head.rest));
+      }
+    }
+    return out;
+  }
+
+  private static final class Head {
+    private final Customer current;
+    private final Iterator<Customer> rest;
+
+    private Head(Customer current, Iterator<Customer> rest) {
+      this.current = current;
+      this.rest = rest;
+    }
+  }
+
+  private static List<Customer> mergeAll(List<List<Customer>> sortedById) {
+    return merge(sortedById, Comparator.comparing(Customer::getId), Integer.MAX_VALUE);
+  }
+
+  // El id al final: orden total, así el merge y las páginas siguientes son estables
+  private static Sort withIdTieBreaker(Sort sort) {
+    if (sort.isUnsorted()) {
+      return Sort.by(Sort.Direction.DESC, "id");
+    }
+    return sort.getOrderFor("id") != null ? sort : sort.and(Sort.by(Sort.Direction.ASC, "id"));
+  }
+
+  // Nulls explícitos: PostgreSQL y H2 no coinciden por defecto, y el comparator tiene que coincidir con ambos
+  private static String orderBy(Sort sort) {
+    List<String> parts = new ArrayList<>();
+    for (Sort.Order o : sort) {
+      parts.add(column(o.getProperty()) + (o.isAscending() ? " ASC NULLS LAST" : " DESC NULLS FIRST"));
+    }
+    return "ORDER BY " + String.join(", ", parts);
+  }
+
+  private static Comparator<Customer> comparator(Sort sort) {
+    Comparator<Customer> result = null;
+    for (Sort.Order o : sort) {
+      Comparator<Customer> c = Comparator.comparing(property(o.getProperty()), Comparator.nullsLast(Comparator.naturalOrder()));
+      c = o.isAscending() ? c : c.reversed();
+      result = result == null ? c : result.thenComparing(c);
+    }
+    return result;
+  }
+
+  private static String column(String property) {
+    return switch (property) {
+      case "id" -> "id";
+      case "firstName" -> "first_name";
+      case "lastName" -> "last_name";
+      case "email" -> "email";
+      case "phone" -> "phone";
+      case "address" -> "address";
+      case "createdAt" -> "created_at";
+      case "updatedAt" -> "updated_at";
+      default -> throw new UnsupportedSortException("Unsupported sort property: " + property);
+    };
+  }
+
+  @SuppressWarnings({ "unchecked", "rawtypes" })
+  private static Function<Customer, Comparable> property(String property) {
+    return switch (property) {
+      case "id" -> Customer::getId;
+      case "firstName" -> Customer::getFirstName;
+      case "lastName" -> Customer::getLastName;
+      case "email" -> Customer::getEmail;
+      case "phone" -> Customer::getPhone;
+      case "address" -> Customer::getAddress;
+      case "createdAt" -> Customer::getCreatedAt;
+      case "updatedAt" -> Customer::getUpdatedAt;
+      default -> throw new UnsupportedSortException("Unsupported sort property: " + property);
+    };
+  }
+
+  // ---------------------------------------------------------------- directorio de emails
+
+  private Optional<Long> ownerOf(String email) {
+    return shards.forEmail(email).jdbc()
+        .query("SELECT customer_id FROM customer_email_directory WHERE email = ?", (rs, n) -> rs.getLong(1), email)
+        .stream().findFirst();
+  }
+
+  /**
+   * Reserva el email para customerId, pendiente de confirmar (la PK del directorio es la
+   * garantía de unicidad).
+   *
+   * Si ya hay una reserva, la reutilizo solo si es huérfana:
+   * - su dueño no existe o ya no tiene ese email, y
+   * - está confirmada (el dueño llegó a escribirse y después lo borraron/cambió de email)
+   *   o lleva pendiente más que el período de gracia (el alta que la tomó se cayó).
+   * El UPDATE condicionado al dueño y al estado leídos hace que solo una alta gane la carrera.
+   */
+  private void reserveEmail(String email, long customerId) {
+    Shard directory = shards.forEmail(email);
+    Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+    try {
+      directory.jdbc().update(
+          "INSERT INTO customer_email_directory (email, customer_id, confirmed, reserved_at) VALUES (?, ?, FALSE, ?)",
+          email, customerId, now);
+      return;
+    } catch (DuplicateKeyException e) {
+      Optional<Reservation> current = directory.jdbc().query(
+          "SELECT customer_id, confirmed, reserved_at FROM customer_email_directory WHERE email = ?",
+          (rs, n) -> new Reservation(rs.getLong(1), rs.getBoolean(2), rs.getTimestamp(3)), email)
+          .stream().findFirst();
+      if (current.isPresent() && isOrphan(email, current.get())
+          && directory.jdbc().update(
+              "UPDATE customer_email_directory SET customer_id = ?, confirmed = FALSE, reserved_at = ? "
+                  + "WHERE email = ? AND customer_id = ? AND confirmed = ?",
+              customerId, now, email, current.get().customerId(), current.get().confirmed()) == 1) {
+        log.warn("Reclaimed orphan email reservation (previous owner id={}, confirmed={})",
+            current.get().customerId(), current.get().confirmed());
+        return;
+      }
+    }
+    throw new DuplicateEmailException("Email already exists: " + email);
+  }
+
+  private boolean isOrphan(String email, Reservation reservation) {
+    boolean ownerHasEmail = findById(shards.forId(reservation.customerId()), reservation.customerId())
+        .filter(c -> email.equals(c.getEmail()))
+        .isPresent();
+    if (ownerHasEmail) {
+      return false;
+    }
+    long pendingMs = System.currentTimeMillis() - reservation.reservedAt().getTime();
+    return reservation.confirmed() || pendingMs > reservationGraceMs;
+  }
+
+  /**
+   * Confirma la reserva después de escribir el cliente. false = ya no es mía
+   * (otra alta la reutilizó porque me pasé del período de gracia).
+   */
+  private boolean confirmEmail(String email, long customerId) {
+    return shards.forEmail(email).jdbc().update(
+        "UPDATE customer_email_directory SET confirmed = TRUE WHERE email = ? AND customer_id = ?",
+        email, customerId) == 1;
+  }
+
+  private record Reservation(long customerId, boolean confirmed, Timestamp reservedAt) {}
+
+  private void releaseEmail(String email, long customerId) {
+    shards.forEmail(email).jdbc()
+        .update("DELETE FROM customer_email_directory WHERE email = ? AND customer_id = ?", email, customerId);
+  }
+
+  // ---------------------------------------------------------------- helpers
+
+  private static Optional<Customer> findById(Shard shard, long id) {
+    return shard.jdbc().query(SELECT_COLUMNS + "WHERE id = ?", CUSTOMER_ROW, id).stream().findFirst();
+  }
+
+  private static long sum(List<Long> counts) {
+    return counts.stream().mapToLong(Long::longValue).sum();
+  }
+
+  private static Object[] append(Object[] params, Object last) {
+    Object[] all = new Object[params.length + 1];
+    System.arraycopy(params, 0, all, 0, params.length);
+    all[params.length] = last;
+    return all;
+  }
+
+  private static String escapeLike(String s) {
+    return s.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+  }
+
+  private static final RowMapper<Customer> CUSTOMER_ROW = (rs, n) -> {
+    Customer c = new Customer(rs.getLong("id"), rs.getString("first_name"), rs.getString("last_name"),
+        rs.getString("email"), rs.getString("phone"), rs.getString("address"));
+    Timestamp created = rs.getTimestamp("created_at");
+    Timestamp updated = rs.getTimestamp("updated_at");
+    c.setCreatedAt(created != null ? created.toLocalDateTime() : null);
+    c.setUpdatedAt(updated != null ? updated.toLocalDateTime() : null);
+    return c;
+  };
+}
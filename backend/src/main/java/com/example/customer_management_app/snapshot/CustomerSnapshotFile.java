@@ -0,0 +1,343 @@
+package com.example.customer_management_app.snapshot;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.example.customer_management_app.Customer;
+
+/**
+ * Formato binario del snapshot de la tabla customer, pensado para leerse con mmap.
+ *
+ * Layout (big-endian):
+ * <pre>
+ * [0]   header (64 bytes): magic, versión, filas, watermark, escrito, cantidad y offset del diccionario, largo
+ * [64]  filas ordenadas por id, 44 bytes cada una:
+ *       id(8) firstName(4) lastName(4) email(4) phone(4) address(4) createdAt(8) updatedAt(8)
+ *       - los strings son referencias al diccionario (-1 = null)
+ *       - los timestamps son microsegundos UTC (Long.MIN_VALUE = null)
+ * [dictOffset] diccionario: (cantidad + 1) offsets int y después los bytes UTF-8 de todos los strings
+ * </pre>
+ *
+ * ¿Por qué así?
+ * - Ancho fijo + orden por id: un lookup es una búsqueda binaria sobre el archivo mapeado,
+ *   sin deserializar nada ni cargarlo en el heap.
+ * - Nombres y apellidos se repiten mucho: van deduplicados en el diccionario.
+ * - Se escribe a un .tmp y se renombra: un lector nunca ve un archivo a medio escribir.
+ *   Si la instancia ya tiene mapeado el archivo anterior, ese mapping sigue siendo válido.
+ *
+ * Límite: cada región (filas, diccionario) se mapea con un MappedByteBuffer, o sea hasta 2 GB cada una
+ * (≈ 48M filas).
+ */
+public final class CustomerSnapshotFile {
+
+  static final long MAGIC = 0x43555354534E5031L; // "CUSTSNP1"
+  static final int VERSION = 1;
+  static final int HEADER_BYTES = 64;
+  static final int ROW_BYTES = 44;
+  static final int NULL_REF = -1;
+  static final long NULL_TIME = Long.MIN_VALUE;
+
+  // Nombres distintos que deduplico como máximo (después se escriben repetidos)
+  private static final int MAX_DEDUP_ENTRIES = 1 << 20;
+
+  private final Path path;
+  private final int rowCount;
+  private final LocalDateTime watermark;
+  private final Instant writtenAt;
+  private final int dictCount;
+  private final ByteBuffer rows;
+  private final ByteBuffer dict;
+
+  private CustomerSnapshotFile(Path path, int rowCount, LocalDateTime watermark, Instant writtenAt, int dictCount,
+      ByteBuffer rows, ByteBuffer dict) {
+    this.path = path;
+    this.rowCount = rowCount;
+    this.watermark = watermark;
+    this.writtenAt = writtenAt;
+    this.dictCount = dictCount;
+    this.rows = rows;
+    this.dict = dict;
+  }
+
+  /**
+   * Mapea un snapshot existente. Valida magic, versión y largo (un archivo truncado falla acá).
+   */
+  public static CustomerSnapshotFile open(Path path) throws IOException {
+    try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+      long size = ch.size();
+      if (size < HEADER_BYTES) {
+        throw new IOException("Snapshot too short: " + path);
+      }
+      MappedByteBuffer header = ch.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+      if (header.getLong(0) != MAGIC || header.getInt(8) != VERSION) {
+        throw new IOException("Not a customer snapshot (or unsupported version): " + path);
+      }
+      int rowCount = header.getInt(12);
+      long watermark = header.getLong(16);
+      long writtenAtMillis = header.getLong(24);
+      int dictCount = header.getInt(32);
+      long dictOffset = header.getLong(40);
+      long length = header.getLong(48);
+      if (length != size || dictOffset != HEADER_BYTES + (long) rowCount * ROW_BYTES) {
+        throw new IOException("Snapshot is truncated or corrupt: " + path);
+      }
+      // El mapping sigue vivo después de cerrar el canal
+      MappedByteBuffer rows = ch.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES, (long) rowCount * ROW_BYTES);
+      MappedByteBuffer dict = ch.map(FileChannel.MapMode.READ_ONLY, dictOffset, size - dictOffset);
+      return new CustomerSnapshotFile(path, rowCount, fromMicros(watermark), Instant.ofEpochMilli(writtenAtMillis),
+          dictCount, rows, dict);
+    }
+  }
+
+  public Path path() { return path; }
+
+  public int rowCount() { return rowCount; }
+
+  /**
+   * Mayor updated_at de las filas del snapshot (null si está vacío): los cambios posteriores
+   * se traen de la base al arrancar.
+   */
+  public LocalDateTime watermark() { return watermark; }
+
+  public Instant writtenAt() { return writtenAt; }
+
+  /**
+   * Posición de la fila con ese id (búsqueda binaria), o -1.
+   */
+  public int indexOf(long id) {
+    int lo = 0;
+    int hi = rowCount - 1;
+    while (lo <= hi) {
+      int mid = (lo + hi) >>> 1;
+      long midId = idAt(mid);
+      if (midId < id) {
+        lo = mid + 1;
+      } else if (midId > id) {
+        hi = mid - 1;
+      } else {
+        return mid;
+      }
+    }
+    return -1;
+  }
+
+  public long idAt(int index) {
+    return rows.getLong(index * ROW_BYTES);
+  }
+
+  /**
+   * Cliente completo de una fila (nuevo objeto, no managed).
+   */
+  public Customer customerAt(int index) {
+    int at = index * ROW_BYTES;
+    Customer c = new Customer(rows.getLong(at), string(rows.getInt(at + 8)), string(rows.getInt(at + 12)),
+        string(rows.getInt(at + 16)), string(rows.getInt(at + 20)), string(rows.getInt(at + 24)));
+    c.setCreatedAt(fromMicros(rows.getLong(at + 28)));
+    c.setUpdatedAt(fromMicros(rows.getLong(at + 36)));
+    return c;
+  }
+
+  // Referencia al diccionario del apellido de una fila (para contar sin decodificar)
+  int lastNameRef(int index) {
+    return rows.getInt(index * ROW_BYTES + 12);
+  }
+
+  // ¿El email de la fila contiene el patrón? Compara bytes directo sobre el mapping
+  boolean emailContains(int index, byte[] pattern) {
+    int ref = rows.getInt(index * ROW_BYTES + 16);
+    if (ref == NULL_REF) {
+      return false;
+    }
+    int start = stringStart(ref);
+    int end = stringStart(ref + 1);
+    for (int i = start; i <= end - pattern.length; i++) {
+      int j = 0;
+      while (j < pattern.length && dict.get(i + j) == pattern[j]) {
+        j++;
+      }
+      if (j == pattern.length) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  String string(int ref) {
+    if (ref == NULL_REF) {
+      return null;
+    }
+    int start = stringStart(ref);
+    byte[] bytes = new byte[stringStart(ref + 1) - start];
+    dict.get(start, bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  // Los bytes empiezan después de la tabla de offsets
+  private int stringStart(int ref) {
+    return (dictCount + 1) * 4 + dict.getInt(ref * 4);
+  }
+
+  static long toMicros(LocalDateTime t) {
+    return t == null ? NULL_TIME : ChronoUnit.MICROS.between(Instant.EPOCH, t.toInstant(ZoneOffset.UTC));
+  }
+
+  static LocalDateTime fromMicros(long micros) {
+    return micros == NULL_TIME ? null
+        : LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000), (int) Math.floorMod(micros, 1_000_000) * 1000,
+            ZoneOffset.UTC);
+  }
+
+  /**
+   * Escritor en streaming: las filas van directo al archivo final (.tmp) y los strings a archivos
+   * temporales que se concatenan al cerrar. En el heap solo queda el mapa de nombres deduplicados.
+   */
+  public static Writer writer(Path target) throws IOException {
+    return new Writer(target);
+  }
+
+  public static final class Writer implements AutoCloseable {
+    private final Path target;
+    private final Path tmp;
+    private final Path offsetsTmp;
+    private final Path bytesTmp;
+    private final DataOutputStream rowsOut;
+    private final DataOutputStream offsetsOut;
+    private final BufferedOutputStream bytesOut;
+    private final Map<String, Integer> names = new HashMap<>();
+    private int rowCount;
+    private int dictCount;
+    private long bytesWritten;
+    private long lastId = Long.MIN_VALUE;
+    private long maxUpdated = NULL_TIME;
+    private boolean finished;
+
+    private Writer(Path target) throws IOException {
+      this.target = target;
+      Path dir = target.toAbsolutePath().getParent();
+      Files.createDirectories(dir);
+      String name = target.getFileName().toString();
+      this.tmp = dir.resolve(name + ".tmp");
+      this.offsetsTmp = dir.resolve(name + ".offsets.tmp");
+      this.bytesTmp = dir.resolve(name + ".strings.tmp");
+      this.rowsOut = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 64 * 1024));
+      this.offsetsOut = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(offsetsTmp), 64 * 1024));
+      this.bytesOut = new BufferedOutputStream(Files.newOutputStream(bytesTmp), 64 * 1024);
+      rowsOut.write(new byte[HEADER_BYTES]); // el header se completa al final
+      offsetsOut.writeInt(0);
+    }
+
+    /**
+     * Agrega un cliente. Tienen que llegar ordenados por id ascendente.
+     */
+    public void add(Customer c) throws IOException {
+      if (c.getId() <= lastId) {
+        throw new IllegalArgumentException("Snapshot rows must be in ascending id order");
+      }
+      lastId = c.getId();
+      rowsOut.writeLong(c.getId());
+      rowsOut.writeInt(name(c.getFirstName()));
+      rowsOut.writeInt(name(c.getLastName()));
+      rowsOut.writeInt(append(c.getEmail()));
+      rowsOut.writeInt(append(c.getPhone()));
+      rowsOut.writeInt(append(c.getAddress()));
+      rowsOut.writeLong(toMicros(c.getCreatedAt()));
+      long updated = toMicros(c.getUpdatedAt());
+      rowsOut.writeLong(updated);
+      maxUpdated = Math.max(maxUpdated, updated);
+      rowCount++;
+    }
+
+    public int rowCount() { return rowCount; }
+
+    /**
+     * Completa el archivo y lo renombra sobre el destino (atómico).
+     */
+    public Path finish() throws IOException {
+      rowsOut.close();
+      offsetsOut.close();
+      bytesOut.close();
+      long dictOffset = HEADER_BYTES + (long) rowCount * ROW_BYTES;
+      try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+        append(out, offsetsTmp);
+        append(out, bytesTmp);
+      }
+      try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putLong(MAGIC).putInt(VERSION).putInt(rowCount).putLong(maxUpdated)
+            .putLong(System.currentTimeMillis()).putInt(dictCount).putInt(0).putLong(dictOffset)
+            .putLong(out.size()).flip();
+        out.write(header, 0);
+        out.force(true);
+      }
+      Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      finished = true;
+      return target;
+    }
+
+    @Override
+    public void close() throws IOException {
+      rowsOut.close();
+      offsetsOut.close();
+      bytesOut.close();
+      Files.deleteIfExists(offsetsTmp);
+      Files.deleteIfExists(bytesTmp);
+      if (!finished) {
+        Files.deleteIfExists(tmp);
+      }
+    }
+
+    private int name(String s) throws IOException {
+      if (s == null) {
+        return NULL_REF;
+      }
+      Integer ref = names.get(s);
+      if (ref != null) {
+        return ref;
+      }
+      int created = append(s);
+      if (names.size() < MAX_DEDUP_ENTRIES) {
+        names.put(s, created);
+      }
+      return created;
+    }
+
+    private int append(String s) throws IOException {
+      if (s == null) {
+        return NULL_REF;
+      }
+      byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+      bytesOut.write(bytes);
+      bytesWritten += bytes.length;
+      if (bytesWritten + (dictCount + 2L) * 4 > Integer.MAX_VALUE) {
+        throw new IOException("Snapshot string dictionary exceeds 2 GB");
+      }
+      offsetsOut.writeInt((int) bytesWritten);
+      return dictCount++;
+    }
+
+    private static void append(FileChannel out, Path part) throws IOException {
+      try (FileChannel in = FileChannel.open(part, StandardOpenOption.READ)) {
+        long position = 0;
+        long size = in.size();
+        while (position < size) {
+          position += in.transferTo(position, size - position, out);
+        }
+      }
+    }
+  }
+}
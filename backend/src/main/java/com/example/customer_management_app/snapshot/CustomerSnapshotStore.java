@@ -0,0 +1,348 @@
+package com.example.customer_management_app.snapshot;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.customer_management_app.Customer;
+import com.example.customer_management_app.events.CustomerChangedEvent;
+import com.example.customer_management_app.invalidation.CustomerInvalidation;
+import com.example.customer_management_app.invalidation.LocalCustomerCache;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Snapshot binario de la tabla customer para arrancar "en caliente" (ver {@link CustomerSnapshotFile}).
+ *
+ * Ciclo de vida:
+ * 1) Al crear el bean mapeo el último snapshot (app.snapshot.file). Es instantáneo: no se lee nada
+ *    al heap, así que GET /{id}, /count/lastname y /stats se pueden responder desde el primer momento.
+ * 2) Como ApplicationRunner (antes del warm-up) hago el catch-up contra la base:
+ *    - filas con updated_at &gt; watermark - overlap (altas y modificaciones posteriores al snapshot)
+ *    - un recorrido de ids ordenados (solo la PK) contra los ids del snapshot: bajas, y altas que
+ *      confirmaron tarde con un updated_at viejo
+ *    Readiness recién pasa a UP cuando terminan los runners, o sea con la vista ya consistente.
+ * 3) Las escrituras locales (CustomerChangedEvent) y de otras instancias (LocalCustomerCache)
+ *    se aplican al overlay. Si se pierde el LISTEN (evictAll), dejo de servir y rehago el catch-up.
+ * 4) Cada app.snapshot.write-interval-ms escribo un snapshot nuevo (SELECT ordenado por id en streaming),
+ *    le hago catch-up y recién ahí reemplaza a la vista activa (el overlay vuelve a arrancar vacío).
+ *
+ * Si no hay archivo al arrancar, se escribe el primero en background y la app lee de la base mientras tanto.
+ * Opt-in (app.snapshot.enabled=true); con sharding no se usa porque lee solo el datasource principal.
+ */
+@Component
+@Order(0) // antes del warm-up: las requests de warm-up ya encuentran la vista cargada
+@ConditionalOnExpression("${app.snapshot.enabled:false} and !${app.sharding.enabled:false}")
+public class CustomerSnapshotStore implements ApplicationRunner, LocalCustomerCache {
+
+  private static final Logger log = LoggerFactory.getLogger(CustomerSnapshotStore.class);
+
+  private static final String SELECT_COLUMNS =
+      "SELECT id, first_name, last_name, email, phone, address, created_at, updated_at FROM customer ";
+  private static final int FETCH_BATCH = 500;
+
+  private final JdbcTemplate jdbcTemplate;
+  private final NamedParameterJdbcTemplate namedJdbcTemplate;
+  private final TransactionTemplate readOnlyTx;
+  private final Path file;
+  private final long overlapMillis;
+  private final Timer writeTimer;
+  private final Timer catchUpTimer;
+  private final Object writeLock = new Object();
+
+  private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+    Thread t = new Thread(r, "customer-snapshot");
+    t.setDaemon(true);
+    return t;
+  });
+
+  private volatile CustomerSnapshotView active;
+  // Vista nueva mientras le hago catch-up: los eventos en vivo se aplican a las dos
+  private volatile CustomerSnapshotView pending;
+  // Durante el arranque sirvo aunque el catch-up no haya terminado (readiness todavía está abajo)
+  private volatile boolean starting = true;
+
+  public CustomerSnapshotStore(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+      MeterRegistry meterRegistry,
+      @Value("${app.snapshot.file:${java.io.tmpdir}/customer-snapshot.bin}") String file,
+      @Value("${app.snapshot.watermark-overlap-ms:5000}") long overlapMillis) {
+    // JdbcTemplate propio con fetchSize: PostgreSQL trae la tabla por cursor y no toda junta
+    this.jdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+    this.jdbcTemplate.setFetchSize(1000);
+    this.namedJdbcTemplate = new NamedParameterJdbcTemplate(this.jdbcTemplate);
+    this.readOnlyTx = new TransactionTemplate(transactionManager);
+    this.readOnlyTx.setReadOnly(true);
+    this.file = Path.of(file);
+    this.overlapMillis = overlapMillis;
+    this.writeTimer = Timer.builder("customers.snapshot.write")
+        .description("Time to write a new customer snapshot")
+        .register(meterRegistry);
+    this.catchUpTimer = Timer.builder("customers.snapshot.catch-up")
+        .description("Time to apply the changes made after a snapshot")
+        .register(meterRegistry);
+    Gauge.builder("customers.snapshot.rows", this, s -> s.active != null ? s.active.file().rowCount() : 0)
+        .description("Rows in the mapped customer snapshot")
+        .register(meterRegistry);
+    Gauge.builder("customers.snapshot.overlay", this, s -> s.active != null ? s.active.overlaySize() : 0)
+        .description("Customers changed since the snapshot (kept on the heap)")
+        .register(meterRegistry);
+    Gauge.builder("customers.snapshot.age", this, CustomerSnapshotStore::ageSeconds)
+        .description("Seconds since the mapped snapshot was written")
+        .baseUnit("seconds")
+        .register(meterRegistry);
+    Gauge.builder("customers.snapshot.consistent", this, s -> s.servingView() != null && !s.starting ? 1 : 0)
+        .description("1 when lookups and counts are served from the snapshot")
+        .register(meterRegistry);
+    this.active = load();
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    worker.shutdownNow();
+  }
+
+  /**
+   * Vista para responder lecturas, o null si hay que ir a la base (sin snapshot, o catch-up pendiente).
+   */
+  public CustomerSnapshotView servingView() {
+    CustomerSnapshotView view = active;
+    return view != null && (view.isConsistent() || starting) ? view : null;
+  }
+
+  @Override
+  public void run(ApplicationArguments args) {
+    try {
+      CustomerSnapshotView view = active;
+      if (view != null) {
+        catchUp(view);
+      } else {
+        worker.execute(this::writeSafely);
+      }
+    } catch (RuntimeException e) {
+      log.warn("Customer snapshot catch-up failed; reads go to the database until the next snapshot", e);
+    } finally {
+      starting = false;
+    }
+  }
+
+  @Scheduled(fixedDelayString = "${app.snapshot.write-interval-ms:600000}",
+      initialDelayString = "${app.snapshot.write-interval-ms:600000}")
+  public void scheduledWrite() {
+    writeSafely();
+  }
+
+  /**
+   * Escribe un snapshot nuevo, le hace catch-up y lo deja como vista activa.
+   */
+  public void writeAndSwap() throws IOException {
+    synchronized (writeLock) {
+      long t0 = System.nanoTime();
+      int rows;
+      try (CustomerSnapshotFile.Writer writer = CustomerSnapshotFile.writer(file)) {
+        readOnlyTx.executeWithoutResult(status -> jdbcTemplate.query(SELECT_COLUMNS + "ORDER BY id",
+            (RowCallbackHandler) rs -> {
+              try {
+                writer.add(mapRow(rs));
+              } catch (IOException e) {
+                throw new UncheckedIOException(e);
+              }
+            }));
+        writer.finish();
+        rows = writer.rowCount();
+      } catch (UncheckedIOException e) {
+        throw e.getCause();
+      }
+      writeTimer.record(System.nanoTime() - t0, TimeUnit.NANOSECONDS);
+      log.info("Customer snapshot written: {} rows, {} bytes in {} ms", rows, Files.size(file),
+          TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0));
+
+      CustomerSnapshotView next = new CustomerSnapshotView(CustomerSnapshotFile.open(file));
+      pending = next;
+      try {
+        catchUp(next);
+        active = next;
+      } finally {
+        pending = null;
+      }
+    }
+  }
+
+  // Escrituras locales: después del commit
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onCustomerChanged(CustomerChangedEvent event) {
+    applyLive(event.id(), event.type() == CustomerChangedEvent.Type.DELETED ? null : event.after());
+  }
+
+  // Escritura en otra instancia: el mensaje no trae la fila, la leo por PK
+  @Override
+  public void evict(CustomerInvalidation invalidation) {
+    if (active == null && pending == null) {
+      return;
+    }
+    try {
+      List<Customer> rows = jdbcTemplate.query(SELECT_COLUMNS + "WHERE id = ?", (rs, n) -> mapRow(rs), invalidation.id());
+      applyLive(invalidation.id(), rows.isEmpty() ? null : rows.get(0));
+    } catch (RuntimeException e) {
+      log.warn("Could not reload customer {} for the snapshot overlay", invalidation.id(), e);
+      evictAll();
+    }
+  }
+
+  // Se pudieron perder mensajes: dejo de servir hasta rehacer el catch-up
+  @Override
+  public void evictAll() {
+    CustomerSnapshotView view = active;
+    if (view == null) {
+      return;
+    }
+    view.markInconsistent();
+    worker.execute(() -> {
+      try {
+        catchUp(view);
+      } catch (RuntimeException e) {
+        log.warn("Customer snapshot catch-up failed; reads go to the database until the next snapshot", e);
+      }
+    });
+  }
+
+  private void applyLive(long id, Customer after) {
+    CustomerSnapshotView view = active;
+    if (view != null) {
+      view.applyLive(id, after);
+    }
+    CustomerSnapshotView next = pending;
+    if (next != null) {
+      next.applyLive(id, after);
+    }
+  }
+
+  private CustomerSnapshotView load() {
+    if (!Files.exists(file)) {
+      log.info("No customer snapshot at {}; the first one is written after startup", file);
+      return null;
+    }
+    long t0 = System.nanoTime();
+    try {
+      CustomerSnapshotView view = new CustomerSnapshotView(CustomerSnapshotFile.open(file));
+      log.info("Customer snapshot mapped: {} rows written at {} ({} ms)", view.file().rowCount(),
+          view.file().writtenAt(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0));
+      return view;
+    } catch (IOException | RuntimeException e) {
+      log.warn("Ignoring unreadable customer snapshot {}", file, e);
+      return null;
+    }
+  }
+
+  /**
+   * Trae de la base lo que cambió después del snapshot y marca la vista como consistente.
+   */
+  void catchUp(CustomerSnapshotView view) {
+    long t0 = System.nanoTime();
+    int generation = view.generation();
+    CustomerSnapshotFile snapshot = view.file();
+    int[] changed = new int[1];
+    int[] deleted = new int[1];
+    List<Long> missing = new ArrayList<>();
+    readOnlyTx.executeWithoutResult(status -> {
+      // 1) Altas y modificaciones posteriores al watermark
+      LocalDateTime watermark = snapshot.watermark();
+      if (watermark != null) {
+        Timestamp since = Timestamp.valueOf(watermark.minus(Duration.ofMillis(overlapMillis)));
+        jdbcTemplate.query(SELECT_COLUMNS + "WHERE updated_at > ?", (RowCallbackHandler) rs -> {
+          Customer row = mapRow(rs);
+          view.applyCatchUp(row.getId(), row);
+          changed[0]++;
+        }, since);
+      }
+
+      // 2) Merge de ids ordenados (base vs snapshot): las bajas no dejan rastro en updated_at
+      int[] next = new int[1];
+      int rows = snapshot.rowCount();
+      jdbcTemplate.query("SELECT id FROM customer ORDER BY id", (RowCallbackHandler) rs -> {
+        long id = rs.getLong(1);
+        while (next[0] < rows && snapshot.idAt(next[0]) < id) {
+          view.applyCatchUp(snapshot.idAt(next[0]++), null);
+          deleted[0]++;
+        }
+        if (next[0] < rows && snapshot.idAt(next[0]) == id) {
+          next[0]++;
+        } else if (!view.hasOverlay(id)) {
+          missing.add(id);
+        }
+      });
+      while (next[0] < rows) {
+        view.applyCatchUp(snapshot.idAt(next[0]++), null);
+        deleted[0]++;
+      }
+
+      // 3) Filas que no están en el snapshot y tampoco aparecieron en 1)
+      for (int from = 0; from < missing.size(); from += FETCH_BATCH) {
+        List<Long> batch = missing.subList(from, Math.min(from + FETCH_BATCH, missing.size()));
+        namedJdbcTemplate.query(SELECT_COLUMNS + "WHERE id IN (:ids)", Map.of("ids", batch),
+            (RowCallbackHandler) rs -> {
+              Customer row = mapRow(rs);
+              view.applyCatchUp(row.getId(), row);
+            });
+      }
+    });
+    view.markConsistent(generation);
+    catchUpTimer.record(System.nanoTime() - t0, TimeUnit.NANOSECONDS);
+    log.info("Customer snapshot caught up: {} changed, {} deleted, {} late rows in {} ms", changed[0], deleted[0],
+        missing.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0));
+  }
+
+  private void writeSafely() {
+    try {
+      writeAndSwap();
+    } catch (IOException | RuntimeException e) {
+      log.warn("Could not write customer snapshot {}", file, e);
+    }
+  }
+
+  private double ageSeconds() {
+    CustomerSnapshotView view = active;
+    return view == null ? 0 : Duration.between(view.file().writtenAt(), Instant.now()).toSeconds();
+  }
+
+  private static Customer mapRow(ResultSet rs) throws SQLException {
+    Customer c = new Customer(rs.getLong("id"), rs.getString("first_name"), rs.getString("last_name"),
+        rs.getString("email"), rs.getString("phone"), rs.getString("address"));
+    Timestamp created = rs.getTimestamp("created_at");
+    Timestamp updated = rs.getTimestamp("updated_at");
+    c.setCreatedAt(created != null ? created.toLocalDateTime() : null);
+    c.setUpdatedAt(updated != null ? updated.toLocalDateTime() : null);
+    return c;
+  }
+}
@@ -0,0 +1,171 @@
+package com.example.customer_management_app.snapshot;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.example.customer_management_app.Customer;
+import com.example.customer_management_app.events.CustomerChangedEvent;
+
+/**
+ * Vista de la tabla = snapshot mapeado (off-heap) + overlay en el heap con lo que cambió después.
+ *
+ * - Lookup por id: primero el overlay (incluye borrados), después la búsqueda binaria en el archivo.
+ * - Conteos (total, por apellido, emails de gmail): se calculan una vez sobre el archivo al abrirlo
+ *   (una pasada comparando referencias y bytes, sin decodificar filas) y se ajustan con cada cambio
+ *   que entra al overlay.
+ *
+ * Hasta que {@link #markConsistent(int)} no se llama (catch-up terminado), puede estar atrasada.
+ */
+public final class CustomerSnapshotView {
+
+  // Mismo criterio que CustomerRepository.countByEmailDomainNative: email LIKE '%gmail.com%'
+  private static final String GMAIL = "gmail.com";
+  private static final byte[] GMAIL_BYTES = GMAIL.getBytes(StandardCharsets.UTF_8);
+
+  private final CustomerSnapshotFile file;
+  private final Map<Long, Entry> overlay = new ConcurrentHashMap<>();
+  // Conteos mutables: se leen y ajustan bajo el lock de la vista
+  private final Map<String, long[]> lastNameCounts;
+  private long total;
+  private long gmailUsers;
+  private volatile boolean consistent;
+  // Cada markInconsistent() invalida los catch-up que ya estaban corriendo
+  private final AtomicInteger generation = new AtomicInteger();
+
+  /**
+   * Cambio aplicado sobre el snapshot. customer == null: borrado.
+   * live: vino de un evento (más nuevo que cualquier fila que lea el catch-up).
+   */
+  private record Entry(Customer customer, boolean live) {}
+
+  public CustomerSnapshotView(CustomerSnapshotFile file) {
+    this.file = file;
+    Map<Integer, long[]> byRef = new HashMap<>();
+    long gmail = 0;
+    for (int i = 0; i < file.rowCount(); i++) {
+      byRef.computeIfAbsent(file.lastNameRef(i), r -> new long[1])[0]++;
+      if (file.emailContains(i, GMAIL_BYTES)) {
+        gmail++;
+      }
+    }
+    // Los nombres están deduplicados en el diccionario: decodifico una vez por apellido distinto
+    Map<String, long[]> counts = new HashMap<>(byRef.size() * 2);
+    byRef.forEach((ref, n) -> {
+      String lastName = file.string(ref);
+      if (lastName != null) {
+        counts.computeIfAbsent(lastName, k -> new long[1])[0] += n[0];
+      }
+    });
+    this.lastNameCounts = counts;
+    this.total = file.rowCount();
+    this.gmailUsers = gmail;
+  }
+
+  public CustomerSnapshotFile file() { return file; }
+
+  public boolean isConsistent() { return consistent; }
+
+  public int generation() { return generation.get(); }
+
+  /**
+   * Catch-up terminado. Si mientras corría se marcó inconsistente otra vez (generación distinta),
+   * no alcanza: hace falta el catch-up siguiente.
+   */
+  public synchronized void markConsistent(int startedAtGeneration) {
+    if (generation.get() == startedAtGeneration) {
+      consistent = true;
+    }
+  }
+
+  public synchronized void markInconsistent() {
+    generation.incrementAndGet();
+    consistent = false;
+  }
+
+  public int overlaySize() { return overlay.size(); }
+
+  public Optional<Customer> findById(long id) {
+    Entry e = overlay.get(id);
+    if (e != null) {
+      return Optional.ofNullable(CustomerChangedEvent.copyOf(e.customer()));
+    }
+    int index = file.indexOf(id);
+    return index < 0 ? Optional.empty() : Optional.of(file.customerAt(index));
+  }
+
+  public synchronized long count() {
+    return total;
+  }
+
+  public synchronized long countByLastName(String lastName) {
+    long[] n = lastNameCounts.get(lastName);
+    return n == null ? 0 : n[0];
+  }
+
+  public synchronized long countGmailUsers() {
+    return gmailUsers;
+  }
+
+  /**
+   * Cambio en vivo (evento de escritura ya confirmada): siempre gana.
+   *
+   * @param after estado nuevo, o null si se borró
+   */
+  public void applyLive(long id, Customer after) {
+    apply(id, after, true);
+  }
+
+  /**
+   * Fila leída por el catch-up (null: ya no existe en la base). Si hay un cambio en vivo para ese id
+   * lo respeto, salvo que la fila sea más nueva (un mensaje de otra instancia que se perdió).
+   */
+  public void applyCatchUp(long id, Customer row) {
+    apply(id, row, false);
+  }
+
+  // ¿El catch-up ya tiene algo para este id (en vivo o de la pasada por updated_at)?
+  boolean hasOverlay(long id) {
+    return overlay.containsKey(id);
+  }
+
+  private synchronized void apply(long id, Customer after, boolean live) {
+    Entry current = overlay.get(id);
+    if (!live && current != null && current.live() && after != null && !isNewer(after, current.customer())) {
+      return;
+    }
+    Customer before;
+    if (current != null) {
+      before = current.customer();
+    } else {
+      int index = file.indexOf(id);
+      before = index < 0 ? null : file.customerAt(index);
+    }
+    adjust(before, -1);
+    Customer copy = CustomerChangedEvent.copyOf(after);
+    adjust(copy, +1);
+    overlay.put(id, new Entry(copy, live));
+  }
+
+  // Un borrado en vivo (current == null) no se deshace: los ids no se reutilizan
+  private static boolean isNewer(Customer row, Customer current) {
+    return current != null && row.getUpdatedAt() != null && current.getUpdatedAt() != null
+        && row.getUpdatedAt().isAfter(current.getUpdatedAt());
+  }
+
+  private void adjust(Customer c, int delta) {
+    if (c == null) {
+      return;
+    }
+    total += delta;
+    if (c.getLastName() != null) {
+      lastNameCounts.computeIfAbsent(c.getLastName(), k -> new long[1])[0] += delta;
+    }
+    if (c.getEmail() != null && c.getEmail().contains(GMAIL)) {
+      gmailUsers += delta;
+    }
+  }
+}
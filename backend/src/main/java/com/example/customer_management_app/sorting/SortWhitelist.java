@@ -0,0 +1,114 @@
+package com.example.customer_management_app.sorting;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+/**
+ * Whitelist de ordenamientos respaldados por un índice (ver V5__sort_indexes.sql).
+ *
+ * ¿Por qué?
+ * - Pageable acepta cualquier sort=campo. Ordenar por address en una tabla grande
+ *   obliga a PostgreSQL a leer y ordenar TODAS las filas para devolver 10.
+ * - Con un índice con las mismas columnas, ORDER BY ... LIMIT lee solo lo necesario.
+ *
+ * Reglas:
+ * - Un sort es válido si sus campos son un prefijo de las columnas de un índice
+ *   y todas las direcciones son iguales (el índice se recorre hacia adelante o hacia atrás).
+ * - Completo el sort con el resto de columnas del índice (ej. id) para que la paginación
+ *   sea estable entre páginas.
+ * - Si no es válido: app.sorting.unindexed=downgrade (default) me quedo con la parte
+ *   válida (o el default id,DESC); =reject responde 400.
+ */
+@Component
+public class SortWhitelist {
+
+  private static final Logger log = LoggerFactory.getLogger(SortWhitelist.class);
+
+  public static final Sort DEFAULT_SORT = Sort.by(Sort.Direction.DESC, "id");
+
+  // Primer campo del sort -> columnas (en propiedades de la entidad) del índice que lo respalda
+  private static final Map<String, List<String>> INDEXED = Map.of(
+      "id", List.of("id"),                                   // pk_customer
+      "email", List.of("email"),                             // ix_customer_email (único)
+      "lastName", List.of("lastName", "firstName", "id"),    // ix_customer_last_first_id
+      "firstName", List.of("firstName", "id"),               // ix_customer_first_id
+      "createdAt", List.of("createdAt", "id"));              // ix_customer_created_id
+
+  private final boolean reject;
+
+  public SortWhitelist(@Value("${app.sorting.unindexed:downgrade}") String unindexedPolicy) {
+    this.reject = "reject".equalsIgnoreCase(unindexedPolicy);
+  }
+
+  /**
+   * Devuelve el Pageable con un sort respaldado por índice.
+   *
+   * @throws UnsupportedSortException si el sort no tiene índice y la política es reject
+   */
+  public Pageable apply(Pageable pageable) {
+    Sort requested = pageable.getSort();
+    Sort effective = resolve(requested);
+    if (effective.equals(requested)) {
+      return pageable;
+    }
+    return PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), effective);
+  }
+
+  /**
+   * Campos por los que se puede ordenar (para documentación y mensajes de error).
+   */
+  public static List<String> sortableFields() {
+    return List.of("id", "email", "lastName", "firstName", "createdAt");
+  }
+
+  Sort resolve(Sort requested) {
+    if (requested.isUnsorted()) {
+      return DEFAULT_SORT;
+    }
+    List<Sort.Order> orders = requested.toList();
+    List<String> columns = INDEXED.get(orders.get(0).getProperty());
+    int accepted = columns == null ? 0 : acceptedPrefix(orders, columns);
+
+    if (accepted < orders.size()) {
+      if (reject) {
+        throw new UnsupportedSortException("Unsupported sort '" + requested
+            + "'. Sortable fields: " + sortableFields() + " (single direction, e.g. lastName,ASC&sort=firstName,ASC)");
+      }
+      log.debug("Downgrading unindexed sort {} (kept {} of {} orders)", requested, accepted, orders.size());
+      if (accepted == 0) {
+        return DEFAULT_SORT;
+      }
+    }
+
+    // Completo con las columnas restantes del índice, en la misma dirección
+    Sort.Direction direction = orders.get(0).getDirection();
+    List<Sort.Order> effective = new ArrayList<>(orders.subList(0, accepted));
+    for (int i = accepted; i < columns.size(); i++) {
+      effective.add(new Sort.Order(direction, columns.get(i)));
+    }
+    return Sort.by(effective);
+  }
+
+  // Cuántas órdenes (desde el principio) coinciden con las columnas del índice en orden y dirección
+  private static int acceptedPrefix(List<Sort.Order> orders, List<String> columns) {
+    Sort.Direction direction = orders.get(0).getDirection();
+    int i = 0;
+    while (i < orders.size() && i < columns.size()) {
+      Sort.Order o = orders.get(i);
+      if (!o.getProperty().equals(columns.get(i)) || o.getDirection() != direction || o.isIgnoreCase()) {
+        break;
+      }
+      i++;
+    }
+    return i;
+  }
+}
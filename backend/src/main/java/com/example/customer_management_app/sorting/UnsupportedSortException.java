@@ -0,0 +1,10 @@
+package com.example.customer_management_app.sorting;
+
+/**
+ * Sort sin índice que lo respalde (solo con app.sorting.unindexed=reject). Se responde 400.
+ */
+public class UnsupportedSortException extends RuntimeException {
+  public UnsupportedSortException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,471 @@
+package com.example.customer_management_app.stream;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.example.customer_management_app.Customer;
+import com.example.customer_management_app.CustomerService;
+import com.example.customer_management_app.dto.CustomerStreamEvent;
+import com.example.customer_management_app.events.CustomerChangedEvent;
+import com.example.customer_management_app.invalidation.CustomerInvalidation;
+import com.example.customer_management_app.invalidation.LocalCustomerCache;
+import com.example.customer_management_app.mapper.CustomerMapper;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Stream SSE de cambios de clientes (GET /api/customers/stream).
+ *
+ * ¿Qué se manda?
+ * - "customer": CREATED/UPDATED/DELETED (con id "bootId-secuencia" para poder retomar)
+ * - "stats": snapshot de CustomerStats al conectar y cada app.stream.stats-interval-ms si cambió
+ *   (una consulta para todos los suscriptores)
+ * - "reset": el cliente perdió eventos y tiene que recargar lo que muestra
+ * - comentarios de heartbeat para detectar conexiones muertas y mantener vivos los proxies
+ *
+ * Fan-out sin bloquear:
+ * - Cada evento se serializa UNA vez y se encola (referencia compartida) en el buffer de cada suscriptor.
+ *   El hilo que hizo la escritura nunca escribe en un socket.
+ * - Un pool chico de hilos (app.stream.sender-threads) vacía los buffers y hace el I/O.
+ *
+ * Un consumidor lento no puede retener memoria:
+ * - El buffer es un LinkedHashMap por clave (cliente, stats, heartbeat) de a lo sumo app.stream.buffer-size:
+ *   un evento nuevo para la misma clave reemplaza al pendiente (coalesce) y va al final.
+ * - Si igual se llena: app.stream.overflow=reset descarta lo pendiente y manda "reset";
+ *   =disconnect cierra la conexión (el navegador reconecta con Last-Event-ID y retoma).
+ *
+ * Retomar (Last-Event-ID): guardo los últimos app.stream.replay-size eventos. Si el id es de otro
+ * arranque, ya salió de la ventana o faltan más eventos de los que entran en el buffer -> "reset".
+ *
+ * Con varias instancias, los cambios hechos en otra llegan por {@link LocalCustomerCache}
+ * (PgInvalidationBus) y se publican sin datos del cliente.
+ */
+@Component
+public class CustomerEventStream implements LocalCustomerCache {
+
+  private static final Logger log = LoggerFactory.getLogger(CustomerEventStream.class);
+
+  static final String CUSTOMER = "customer";
+  static final String STATS = "stats";
+  static final String RESET = "reset";
+
+  // Cuántos eventos manda un hilo a un mismo suscriptor antes de ceder el turno
+  private static final int MAX_SENDS_PER_TURN = 64;
+
+  private final CustomerService customerService;
+  private final ObjectMapper objectMapper;
+  private final Executor senders;
+  private final long timeoutMillis;
+  private final int bufferSize;
+  private final int replaySize;
+  private final int maxSubscribers;
+  private final boolean disconnectOnOverflow;
+  private final long statsIntervalMillis;
+
+  // Identifica este arranque: un Last-Event-ID de otro proceso no se puede retomar
+  private final String bootId = Long.toString(System.currentTimeMillis(), 36);
+
+  // Secuencia, log de replay y fan-out van bajo el mismo lock: cada suscriptor ve los ids en orden
+  private final Object lock = new Object();
+  private long sequence;
+  private final ArrayDeque<StreamEvent> replayLog = new ArrayDeque<>();
+  private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+  // Último id publicado (lo leen los "reset" sin tomar el lock)
+  private volatile String latestEventId;
+
+  private volatile StreamEvent lastStats;
+  private volatile long lastStatsAt;
+
+  private final Counter sent;
+  private final Counter coalesced;
+  private final Counter overflows;
+
+  @Autowired
+  public CustomerEventStream(CustomerService customerService, ObjectMapper objectMapper, MeterRegistry meterRegistry,
+      @Value("${app.stream.sender-threads:4}") int senderThreads,
+      @Value("${app.stream.timeout-ms:1800000}") long timeoutMillis,
+      @Value("${app.stream.buffer-size:256}") int bufferSize,
+      @Value("${app.stream.replay-size:1000}") int replaySize,
+      @Value("${app.stream.max-subscribers:1000}") int maxSubscribers,
+      @Value("${app.stream.overflow:reset}") String overflowPolicy,
+      @Value("${app.stream.stats-interval-ms:5000}") long statsIntervalMillis) {
+    this(customerService, objectMapper, meterRegistry, newSenderPool(senderThreads), timeoutMillis,
+        bufferSize, replaySize, maxSubscribers, overflowPolicy, statsIntervalMillis);
+  }
+
+  public CustomerEventStream(CustomerService customerService, ObjectMapper objectMapper, MeterRegistry meterRegistry,
+      Executor senders, long timeoutMillis, int bufferSize, int replaySize, int maxSubscribers,
+      String overflowPolicy, long statsIntervalMillis) {
+    if (bufferSize < 2) {
+      throw new IllegalArgumentException("app.stream.buffer-size must be >= 2");
+    }
+    this.customerService = customerService;
+    this.objectMapper = objectMapper;
+    this.senders = senders;
+    this.timeoutMillis = timeoutMillis;
+    this.bufferSize = bufferSize;
+    this.replaySize = replaySize;
+    this.maxSubscribers = maxSubscribers;
+    this.disconnectOnOverflow = "disconnect".equalsIgnoreCase(overflowPolicy);
+    this.statsIntervalMillis = statsIntervalMillis;
+
+    Gauge.builder("customers.stream.subscribers", subscribers, List::size)
+        .description("Open SSE subscriptions to customer changes")
+        .register(meterRegistry);
+    this.sent = eventCounter(meterRegistry, "sent");
+    this.coalesced = eventCounter(meterRegistry, "coalesced");
+    this.overflows = eventCounter(meterRegistry, "overflow");
+  }
+
+  private static Counter eventCounter(MeterRegistry registry, String result) {
+    return Counter.builder("customers.stream.events")
+        .description("SSE events by outcome (sent, coalesced into a newer one, buffer overflow)")
+        .tag("result", result)
+        .register(registry);
+  }
+
+  private static ExecutorService newSenderPool(int threads) {
+    AtomicInteger n = new AtomicInteger();
+    return Executors.newFixedThreadPool(Math.max(1, threads), r -> {
+      Thread t = new Thread(r, "customer-stream-" + n.incrementAndGet());
+      t.setDaemon(true);
+      return t;
+    });
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    subscribers.forEach(Subscriber::close);
+    subscribers.clear();
+    if (senders instanceof ExecutorService pool) {
+      pool.shutdownNow();
+    }
+  }
+
+  /**
+   * Abre una suscripción. lastEventId (header Last-Event-ID) puede ser null.
+   *
+   * @throws StreamCapacityException si ya hay app.stream.max-subscribers conexiones
+   */
+  public SseEmitter subscribe(String lastEventId) {
+    SseEmitter emitter = new SseEmitter(timeoutMillis);
+    register(emitter, lastEventId);
+    return emitter;
+  }
+
+  /**
+   * Igual que {@link #subscribe(String)} pero con un emitter ya creado (tests, timeouts propios).
+   */
+  public void register(SseEmitter emitter, String lastEventId) {
+    if (subscribers.size() >= maxSubscribers) {
+      throw new StreamCapacityException("Too many stream subscribers (" + maxSubscribers + "), retry later");
+    }
+    Subscriber sub = new Subscriber(emitter);
+    emitter.onCompletion(() -> subscribers.remove(sub));
+    emitter.onTimeout(sub::close);
+    emitter.onError(e -> sub.close());
+
+    // Replay + alta atómicos respecto de publish: ni huecos ni duplicados
+    synchronized (lock) {
+      if (lastEventId != null && !lastEventId.isBlank()) {
+        replay(sub, lastEventId.trim());
+      }
+      subscribers.add(sub);
+    }
+    StreamEvent stats = currentStats();
+    if (stats != null) {
+      sub.offer(stats);
+    }
+  }
+
+  public int subscriberCount() {
+    return subscribers.size();
+  }
+
+  // ==========================================================================
+  // Fuentes de eventos
+  // ==========================================================================
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onCustomerChanged(CustomerChangedEvent event) {
+    Customer after = event.after();
+    publish(new CustomerStreamEvent(event.type().name(), event.id(),
+        after != null ? CustomerMapper.toResponse(after) : null));
+  }
+
+  // Cambio hecho en otra instancia: solo sé tipo e id
+  @Override
+  public void evict(CustomerInvalidation invalidation) {
+    publish(new CustomerStreamEvent(invalidation.type().name(), invalidation.id(), null));
+  }
+
+  // Se pudieron perder cambios de otras instancias: que todos recarguen
+  @Override
+  public void evictAll() {
+    for (Subscriber s : subscribers) {
+      s.reset("resync");
+    }
+  }
+
+  @Scheduled(initialDelayString = "${app.stream.stats-interval-ms:5000}",
+      fixedDelayString = "${app.stream.stats-interval-ms:5000}")
+  public void publishStats() {
+    if (subscribers.isEmpty()) {
+      return;
+    }
+    StreamEvent previous = lastStats;
+    StreamEvent stats = refreshStats();
+    // Sin cambios no mando nada (el heartbeat ya mantiene viva la conexión)
+    if (stats != null && (previous == null || !previous.data().equals(stats.data()))) {
+      subscribers.forEach(s -> s.offer(stats));
+    }
+  }
+
+  @Scheduled(initialDelayString = "${app.stream.heartbeat-ms:15000}",
+      fixedDelayString = "${app.stream.heartbeat-ms:15000}")
+  public void heartbeat() {
+    StreamEvent beat = new StreamEvent(0, null, null, null, "heartbeat");
+    subscribers.forEach(s -> s.offer(beat));
+  }
+
+  private void publish(CustomerStreamEvent payload) {
+    String json = toJson(payload);
+    synchronized (lock) {
+      long seq = ++sequence;
+      StreamEvent event = new StreamEvent(seq, bootId + "-" + seq, CUSTOMER, json, "customer:" + payload.getId());
+      latestEventId = event.id();
+      replayLog.addLast(event);
+      if (replayLog.size() > replaySize) {
+        replayLog.removeFirst();
+      }
+      for (Subscriber s : subscribers) {
+        s.offer(event);
+      }
+    }
+  }
+
+  // Bajo lock
+  private void replay(Subscriber sub, String lastEventId) {
+    long lastSeq = parseSequence(lastEventId);
+    if (lastSeq < 0 || lastSeq > sequence) {
+      sub.reset("unknown-event-id");
+      return;
+    }
+    long missed = sequence - lastSeq;
+    if (missed == 0) {
+      return;
+    }
+    StreamEvent oldest = replayLog.peekFirst();
+    if (oldest == null || oldest.seq() > lastSeq + 1) {
+      sub.reset("replay-window-exceeded");
+      return;
+    }
+    if (missed >= bufferSize) {
+      sub.reset("too-many-missed-events");
+      return;
+    }
+    for (StreamEvent e : replayLog) {
+      if (e.seq() > lastSeq) {
+        sub.offer(e);
+      }
+    }
+  }
+
+  // "bootId-seq" de este arranque -> seq; cualquier otra cosa -> -1
+  private long parseSequence(String lastEventId) {
+    int dash = lastEventId.lastIndexOf('-');
+    if (dash <= 0 || !lastEventId.substring(0, dash).equals(bootId)) {
+      return -1;
+    }
+    try {
+      return Long.parseLong(lastEventId.substring(dash + 1));
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  private StreamEvent currentStats() {
+    StreamEvent stats = lastStats;
+    if (stats != null && System.currentTimeMillis() - lastStatsAt < statsIntervalMillis) {
+      return stats;
+    }
+    return refreshStats();
+  }
+
+  private StreamEvent refreshStats() {
+    try {
+      StreamEvent stats = new StreamEvent(0, null, STATS, toJson(customerService.getStatistics()), STATS);
+      lastStats = stats;
+      lastStatsAt = System.currentTimeMillis();
+      return stats;
+    } catch (RuntimeException e) {
+      log.warn("Could not compute stats snapshot for the customer stream: {}", e.getMessage());
+      return lastStats;
+    }
+  }
+
+  private String toJson(Object value) {
+    try {
+      return objectMapper.writeValueAsString(value);
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("Could not serialize stream event", e);
+    }
+  }
+
+  /**
+   * Evento ya serializado (compartido entre todos los suscriptores).
+   * name == null -> heartbeat (comentario SSE). id == null -> no avanza el Last-Event-ID del cliente.
+   */
+  record StreamEvent(long seq, String id, String name, String data, String key) {
+
+    SseEmitter.SseEventBuilder toSse() {
+      SseEmitter.SseEventBuilder builder = SseEmitter.event();
+      if (name == null) {
+        return builder.comment("heartbeat");
+      }
+      if (id != null) {
+        builder.id(id);
+      }
+      return builder.name(name).data(data);
+    }
+  }
+
+  /**
+   * Una conexión: buffer acotado con coalesce por clave + a lo sumo un hilo enviando.
+   */
+  final class Subscriber {
+    private final SseEmitter emitter;
+    // Guardados por this
+    private final LinkedHashMap<String, StreamEvent> pending = new LinkedHashMap<>();
+    private boolean draining;
+    private boolean closed;
+
+    private Subscriber(SseEmitter emitter) {
+      this.emitter = emitter;
+    }
+
+    void offer(StreamEvent event) {
+      boolean schedule;
+      boolean disconnect = false;
+      synchronized (this) {
+        if (closed) {
+          return;
+        }
+        if (pending.remove(event.key()) != null) {
+          coalesced.increment();
+        } else if (pending.size() >= bufferSize) {
+          overflows.increment();
+          if (disconnectOnOverflow) {
+            closed = true;
+            pending.clear();
+            disconnect = true;
+          } else {
+            resetLocked("slow-consumer");
+            event = null;
+          }
+        }
+        if (event != null && !disconnect) {
+          pending.put(event.key(), event);
+        }
+        schedule = !disconnect && !draining;
+        if (schedule) {
+          draining = true;
+        }
+      }
+      if (disconnect) {
+        subscribers.remove(this);
+        senders.execute(this::completeQuietly);
+      } else if (schedule) {
+        senders.execute(this::drain);
+      }
+    }
+
+    void reset(String reason) {
+      boolean schedule;
+      synchronized (this) {
+        if (closed) {
+          return;
+        }
+        resetLocked(reason);
+        schedule = !draining;
+        draining = true;
+      }
+      if (schedule) {
+        senders.execute(this::drain);
+      }
+    }
+
+    // Lo pendiente ya no sirve: el cliente recarga todo. El id es el último publicado (retoma desde ahí).
+    private void resetLocked(String reason) {
+      pending.clear();
+      pending.put(RESET, new StreamEvent(0, latestEventId, RESET, "{\"reason\":\"" + reason + "\"}", RESET));
+    }
+
+    private void drain() {
+      for (int i = 0; i < MAX_SENDS_PER_TURN; i++) {
+        StreamEvent next;
+        synchronized (this) {
+          Iterator<Map.Entry<String, StreamEvent>> it = pending.entrySet().iterator();
+          if (closed || !it.hasNext()) {
+            draining = false;
+            return;
+          }
+          next = it.next().getValue();
+          it.remove();
+        }
+        try {
+          emitter.send(next.toSse());
+          sent.increment();
+        } catch (IOException | IllegalStateException e) {
+          // Cliente desconectado (o emitter ya completado)
+          close();
+          return;
+        }
+      }
+      // Quedan eventos: vuelvo a la cola del pool para no acaparar un hilo
+      senders.execute(this::drain);
+    }
+
+    void close() {
+      synchronized (this) {
+        closed = true;
+        draining = false;
+        pending.clear();
+      }
+      subscribers.remove(this);
+      completeQuietly();
+    }
+
+    private void completeQuietly() {
+      try {
+        emitter.complete();
+      } catch (RuntimeException e) {
+        log.debug("Stream emitter already closed: {}", e.getMessage());
+      }
+    }
+  }
+}
@@ -0,0 +1,10 @@
+package com.example.customer_management_app.stream;
+
+/**
+ * Se alcanzó app.stream.max-subscribers. Se responde 503 (el cliente reintenta más tarde).
+ */
+public class StreamCapacityException extends RuntimeException {
+  public StreamCapacityException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,91 @@
+package com.example.customer_management_app.tracing;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+
+/**
+ * Exporter de spans a un archivo JSON Lines (un span por línea), para entornos sin collector.
+ *
+ * - Se activa con app.tracing.file.enabled=true (archivo: app.tracing.file.path).
+ * - Convive con el exporter OTLP: Spring Boot registra todos los SpanExporter en el BatchSpanProcessor.
+ * - El archivo se puede leer con jq o importar en un collector con el receiver filelog.
+ */
+public class FileSpanExporter implements SpanExporter {
+
+  private static final Logger log = LoggerFactory.getLogger(FileSpanExporter.class);
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private final BufferedWriter writer;
+
+  public FileSpanExporter(Path path) throws IOException {
+    Path parent = path.toAbsolutePath().getParent();
+    if (parent != null) {
+      Files.createDirectories(parent);
+    }
+    this.writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    log.info("Exporting spans to {}", path.toAbsolutePath());
+  }
+
+  @Override
+  public synchronized CompletableResultCode export(Collection<SpanData> spans) {
+    try {
+      for (SpanData span : spans) {
+        writer.write(objectMapper.writeValueAsString(toMap(span)));
+        writer.newLine();
+      }
+      writer.flush();
+      return CompletableResultCode.ofSuccess();
+    } catch (IOException e) {
+      log.warn("Could not write {} spans", spans.size(), e);
+      return CompletableResultCode.ofFailure();
+    }
+  }
+
+  @Override
+  public CompletableResultCode flush() {
+    return CompletableResultCode.ofSuccess();
+  }
+
+  @Override
+  public synchronized CompletableResultCode shutdown() {
+    try {
+      writer.close();
+      return CompletableResultCode.ofSuccess();
+    } catch (IOException e) {
+      return CompletableResultCode.ofFailure();
+    }
+  }
+
+  private static Map<String, Object> toMap(SpanData span) {
+    Map<String, Object> m = new LinkedHashMap<>();
+    m.put("traceId", span.getTraceId());
+    m.put("spanId", span.getSpanId());
+    m.put("parentSpanId", span.getParentSpanContext().isValid() ? span.getParentSpanId() : null);
+    m.put("name", span.getName());
+    m.put("kind", span.getKind().name());
+    m.put("startEpochNanos", span.getStartEpochNanos());
+    m.put("durationMicros", (span.getEndEpochNanos() - span.getStartEpochNanos()) / 1000);
+    m.put("status", span.getStatus().getStatusCode().name());
+    Map<String, Object> attributes = new LinkedHashMap<>();
+    span.getAttributes().forEach((k, v) -> attributes.put(k.getKey(), v));
+    m.put("attributes", attributes);
+    return m;
+  }
+}
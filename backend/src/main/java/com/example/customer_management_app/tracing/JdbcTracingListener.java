@@ -0,0 +1,70 @@
+package com.example.customer_management_app.tracing;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Locale;
+
+import org.springframework.stereotype.Component;
+
+import com.example.customer_management_app.jdbc.ConnectionInfo;
+import com.example.customer_management_app.jdbc.JdbcEventListener;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+
+/**
+ * Un span (observation "jdbc.statement") por cada sentencia SQL que pasa por InstrumentedDataSource.
+ *
+ * - Nombre del span: el verbo en minúsculas (select/insert/update/delete) para agrupar en el backend
+ *   de tracing (micrometer-tracing pasa los nombres a kebab-case: "SELECT" quedaría "s-e-l-e-c-t").
+ * - db.statement: SQL sanitizado (ver {@link SqlSanitizer}); va solo al span (alta cardinalidad).
+ * - db.connection.owner: método de CustomerService que tomó la conexión.
+ *
+ * Start y stop llegan en el mismo hilo (la ejecución JDBC es sincrónica); uso una pila
+ * por las dudas de que algún driver ejecute sentencias anidadas.
+ */
+@Component
+public class JdbcTracingListener implements JdbcEventListener {
+
+  private final ObservationRegistry observationRegistry;
+
+  private final ThreadLocal<Deque<Observation.Scope>> open = ThreadLocal.withInitial(ArrayDeque::new);
+
+  public JdbcTracingListener(ObservationRegistry observationRegistry) {
+    this.observationRegistry = observationRegistry;
+  }
+
+  @Override
+  public void onStatementStarted(ConnectionInfo info, String sql) {
+    String sanitized = SqlSanitizer.sanitize(sql);
+    Observation observation = Observation.createNotStarted("jdbc.statement", observationRegistry)
+        .contextualName(operation(sanitized).toLowerCase(Locale.ROOT))
+        .lowCardinalityKeyValue("db.system", "sql")
+        .lowCardinalityKeyValue("db.operation", operation(sanitized))
+        .highCardinalityKeyValue("db.statement", sanitized)
+        .highCardinalityKeyValue("db.connection.owner", info.owner())
+        .start();
+    open.get().push(observation.openScope());
+  }
+
+  @Override
+  public void onStatementExecuted(ConnectionInfo info, long elapsedNanos) {
+    Deque<Observation.Scope> scopes = open.get();
+    Observation.Scope scope = scopes.poll();
+    if (scope == null) {
+      return;
+    }
+    scope.close();
+    scope.getCurrentObservation().stop();
+    if (scopes.isEmpty()) {
+      open.remove();
+    }
+  }
+
+  // Primera palabra del SQL: SELECT, INSERT, ... ("SQL" si no se reconoce; es un tag de baja cardinalidad)
+  static String operation(String sanitizedSql) {
+    int end = sanitizedSql.indexOf(' ');
+    String first = end < 0 ? sanitizedSql : sanitizedSql.substring(0, end);
+    return first.matches("[A-Za-z]{2,12}") ? first.toUpperCase(Locale.ROOT) : "SQL";
+  }
+}
@@ -0,0 +1,79 @@
+package com.example.customer_management_app.tracing;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+
+/**
+ * Un span por capa: handler del controller, método de CustomerService y llamada a CustomerRepository.
+ *
+ * Con el span HTTP (lo crea Spring MVC) y los de JDBC ({@link JdbcTracingListener}) queda el árbol
+ * (micrometer-tracing pasa los nombres a kebab-case):
+ *   http get /api/customers/{id}
+ *   └── customer-management-a-p-p.get-customer-by-id
+ *       └── customer-service.get-customer-by-id
+ *           └── customer-repository.find-by-id
+ *               └── select
+ *
+ * ¿Por qué @Order más alto que ServiceMethodAspect y que @Transactional?
+ * - El span del servicio tiene que incluir el begin/commit de la transacción
+ *   (tomar la conexión del pool y el flush también son tiempo del método).
+ *
+ * Cada capa se puede apagar con management.observations.enable.customer.&lt;capa&gt;=false.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 5)
+public class LayerObservationAspect {
+
+  private final ObservationRegistry observationRegistry;
+
+  public LayerObservationAspect(ObservationRegistry observationRegistry) {
+    this.observationRegistry = observationRegistry;
+  }
+
+  @Around("@within(org.springframework.web.bind.annotation.RestController) && execution(public * *(..))")
+  public Object controller(ProceedingJoinPoint pjp) throws Throwable {
+    return observe("customer.controller", pjp);
+  }
+
+  @Around("execution(public * com.example.customer_management_app.CustomerService+.*(..))")
+  public Object service(ProceedingJoinPoint pjp) throws Throwable {
+    return observe("customer.service", pjp);
+  }
+
+  @Around("execution(public * com.example.customer_management_app.CustomerRepository+.*(..))")
+  public Object repository(ProceedingJoinPoint pjp) throws Throwable {
+    return observe("customer.repository", pjp);
+  }
+
+  private Object observe(String name, ProceedingJoinPoint pjp) throws Throwable {
+    String type = pjp.getSignature().getDeclaringType().getSimpleName();
+    String method = pjp.getSignature().getName();
+    // Para el repositorio uso el nombre de la interfaz (el proxy de Spring Data no dice nada)
+    if ("customer.repository".equals(name)) {
+      type = "CustomerRepository";
+    } else if ("customer.service".equals(name)) {
+      type = "CustomerService";
+    }
+    Observation observation = Observation.createNotStarted(name, observationRegistry)
+        .contextualName(type + "." + method)
+        .lowCardinalityKeyValue("class", type)
+        .lowCardinalityKeyValue("method", method)
+        .start();
+    try (Observation.Scope scope = observation.openScope()) {
+      return pjp.proceed();
+    } catch (Throwable t) {
+      observation.error(t);
+      throw t;
+    } finally {
+      observation.stop();
+    }
+  }
+}
@@ -0,0 +1,67 @@
+package com.example.customer_management_app.tracing;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Collection;
+
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import com.example.customer_management_app.dto.PageResponse;
+import com.example.customer_management_app.jfr.MappingEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+
+/**
+ * Converter JSON de Spring MVC con un span ("http.response.serialization") alrededor de la escritura.
+ *
+ * ¿Por qué?
+ * - Serializar una página grande puede costar más que la consulta, y sin este span
+ *   ese tiempo aparece como un "hueco" al final del span HTTP.
+ *
+ * Además emite el evento JFR {@link MappingEvent} (phase=serialize) para las grabaciones de JFR.
+ *
+ * Usa el mismo ObjectMapper que configura Spring Boot (spring.jackson.*).
+ */
+public class ObservedJacksonConverter extends MappingJackson2HttpMessageConverter {
+
+  private final ObservationRegistry observationRegistry;
+
+  public ObservedJacksonConverter(ObjectMapper objectMapper, ObservationRegistry observationRegistry) {
+    super(objectMapper);
+    this.observationRegistry = observationRegistry;
+  }
+
+  @Override
+  protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+      throws IOException, HttpMessageNotWritableException {
+    Observation observation = Observation.createNotStarted("http.response.serialization", observationRegistry)
+        .contextualName("json serialize")
+        .lowCardinalityKeyValue("format", "json")
+        .highCardinalityKeyValue("type", object == null ? "null" : object.getClass().getSimpleName())
+        .start();
+    MappingEvent event = MappingEvent.start("serialize", object == null ? "null" : object.getClass().getSimpleName());
+    try (Observation.Scope scope = observation.openScope()) {
+      super.writeInternal(object, type, outputMessage);
+      event.finish(items(object));
+    } catch (IOException | RuntimeException e) {
+      observation.error(e);
+      throw e;
+    } finally {
+      observation.stop();
+    }
+  }
+
+  private static int items(Object object) {
+    if (object instanceof Collection<?> c) {
+      return c.size();
+    }
+    if (object instanceof PageResponse<?> page && page.getContent() != null) {
+      return page.getContent().size();
+    }
+    return object == null ? 0 : 1;
+  }
+}
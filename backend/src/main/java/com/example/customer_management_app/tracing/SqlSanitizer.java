@@ -0,0 +1,39 @@
+package com.example.customer_management_app.tracing;
+
+import java.util.regex.Pattern;
+
+/**
+ * Limpia el SQL antes de ponerlo en un span.
+ *
+ * ¿Por qué?
+ * - Los spans salen del proceso (collector OTLP, archivo): no deben llevar datos de clientes.
+ * - Hibernate y los componentes JdbcTemplate usan PreparedStatement ("?"), pero un
+ *   Statement con literales (ej. SQL nativo armado a mano) los traería pegados.
+ *
+ * Reglas:
+ * - Literales de texto ('...') y números sueltos -> ?
+ * - Listas largas de parámetros (IN (?, ?, ?, ...)) -> IN (?, ...) para no generar un span distinto por tamaño
+ * - Espacios colapsados y largo máximo MAX_LENGTH
+ */
+public final class SqlSanitizer {
+
+  static final int MAX_LENGTH = 2000;
+
+  private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+  private static final Pattern NUMBER_LITERAL = Pattern.compile("(?<![\\w$.])-?\\d+(?:\\.\\d+)?(?![\\w$])");
+  private static final Pattern PARAMETER_LIST = Pattern.compile("\\?(?:\\s*,\\s*\\?)+");
+  private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+  private SqlSanitizer() { /* utility class */ }
+
+  public static String sanitize(String sql) {
+    if (sql == null) {
+      return "";
+    }
+    String s = STRING_LITERAL.matcher(sql).replaceAll("?");
+    s = NUMBER_LITERAL.matcher(s).replaceAll("?");
+    s = PARAMETER_LIST.matcher(s).replaceAll("?, ...");
+    s = WHITESPACE.matcher(s).replaceAll(" ").trim();
+    return s.length() > MAX_LENGTH ? s.substring(0, MAX_LENGTH) + "..." : s;
+  }
+}
@@ -0,0 +1,40 @@
+package com.example.customer_management_app.tracing;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.observation.ObservationRegistry;
+
+/**
+ * Piezas de tracing propias (el resto lo autoconfigura Spring Boot con micrometer-tracing-bridge-otel):
+ *
+ * - Sampling: management.tracing.sampling.probability (parent-based: si nginx/el cliente
+ *   manda traceparent con sampled=1, se respeta).
+ * - Propagación W3C (traceparent/tracestate): default de Spring Boot.
+ * - Export OTLP: se activa al definir management.otlp.tracing.endpoint.
+ * - Export a archivo: app.tracing.file.enabled=true (ver {@link FileSpanExporter}).
+ */
+@Configuration(proxyBeanMethods = false)
+public class TracingConfig {
+
+  /**
+   * Reemplaza al converter JSON por defecto de Spring Boot (que es @ConditionalOnMissingBean).
+   */
+  @Bean
+  ObservedJacksonConverter observedJacksonConverter(ObjectMapper objectMapper, ObservationRegistry observationRegistry) {
+    return new ObservedJacksonConverter(objectMapper, observationRegistry);
+  }
+
+  @Bean
+  @ConditionalOnProperty(name = "app.tracing.file.enabled", havingValue = "true")
+  FileSpanExporter fileSpanExporter(@Value("${app.tracing.file.path:${java.io.tmpdir}/customer-app/spans.jsonl}") String path) throws IOException {
+    return new FileSpanExporter(Path.of(path));
+  }
+}
@@ -0,0 +1,361 @@
+package com.example.customer_management_app.warmup;
+
+import java.io.IOException;
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.actuate.info.Info;
+import org.springframework.boot.actuate.info.InfoContributor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Warm-up antes de declararse lista (readiness) para recibir tráfico.
+ *
+ * ¿Por qué?
+ * - Después de cada deploy los primeros minutos tienen p99 altísimos: el JIT todavía interpreta
+ *   Jackson/Hibernate/Tomcat, el pool de conexiones está frío y las caches vacías.
+ *
+ * ¿Cómo?
+ * - Es un ApplicationRunner: Spring Boot corre los runners ANTES de publicar
+ *   ReadinessState.ACCEPTING_TRAFFIC, así que /actuator/health/readiness sigue en
+ *   OUT_OF_SERVICE hasta que termina (liveness ya está UP: no me reinician).
+ * - Abro a la vez app.warmup.pool-connections conexiones (default: minimumIdle de Hikari)
+ *   para que existan antes de la primera request real.
+ * - Repito una mezcla de GET /page, /search/page y /{id} (grabada o sintética, ver
+ *   {@link WarmupRequestMix}) contra el propio servidor por loopback: pasa por Tomcat,
+ *   filtros, controlador, servicio, Hibernate y Jackson, igual que el tráfico real,
+ *   y de paso llena la cache de respuestas de /{id}.
+ * - Corta en app.warmup.requests requests o app.warmup.max-duration-ms, lo que llegue primero.
+ *
+ * Reporte: log, métricas customers.warmup.* y la sección "warmup" de /actuator/info,
+ * con duración y cantidad de compilaciones JIT (C1/C2, contadas con JFR) durante el warm-up.
+ */
+@Component
+@ConditionalOnProperty(name = "app.warmup.enabled", havingValue = "true")
+public class ApplicationWarmup implements ApplicationRunner, InfoContributor {
+
+  private static final Logger log = LoggerFactory.getLogger(ApplicationWarmup.class);
+
+  /** Header que marca las requests del warm-up (las excluyen las mediciones de latencia). */
+  public static final String HEADER = "X-Warmup";
+
+  private final ApplicationContext context;
+  private final DataSource dataSource;
+  private final JdbcTemplate jdbcTemplate;
+  private final MeterRegistry meterRegistry;
+  private final int requests;
+  private final int concurrency;
+  private final long maxDurationMillis;
+  private final int sampleSize;
+  private final String recordedFile;
+  private final int poolConnections;
+
+  private volatile WarmupReport report;
+
+  public ApplicationWarmup(ApplicationContext context, DataSource dataSource, JdbcTemplate jdbcTemplate,
+      MeterRegistry meterRegistry,
+      @Value("${app.warmup.requests:3000}") int requests,
+      @Value("${app.warmup.concurrency:4}") int concurrency,
+      @Value("${app.warmup.max-duration-ms:60000}") long maxDurationMillis,
+      @Value("${app.warmup.sample-size:100}") int sampleSize,
+      @Value("${app.warmup.recorded-file:}") String recordedFile,
+      @Value("${app.warmup.pool-connections:-1}") int poolConnections) {
+    this.context = context;
+    this.dataSource = dataSource;
+    this.jdbcTemplate = jdbcTemplate;
+    this.meterRegistry = meterRegistry;
+    this.requests = requests;
+    this.concurrency = Math.max(1, concurrency);
+    this.maxDurationMillis = maxDurationMillis;
+    this.sampleSize = sampleSize;
+    this.recordedFile = recordedFile;
+    this.poolConnections = poolConnections;
+  }
+
+  @Override
+  public void run(ApplicationArguments args) {
+    long start = System.nanoTime();
+    long deadline = start + TimeUnit.MILLISECONDS.toNanos(maxDurationMillis);
+    CompilationMXBean compiler = ManagementFactory.getCompilationMXBean();
+    long compileMillisBefore = compilationTime(compiler);
+    CompilationCounter counter = CompilationCounter.start();
+
+    int connections = prefillPool();
+    ReplayResult replay = replay(requestMix(), deadline);
+
+    long[] compilations = counter.stop();
+    WarmupReport result = new WarmupReport(
+        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+        replay.sent(), replay.errors(), connections,
+        compilations[0], compilations[1],
+        compilationTime(compiler) - compileMillisBefore);
+    report = result;
+    registerMetrics(result);
+    log.info("Warm-up finished in {} ms: {} requests ({} errors), {} pool connections, "
+        + "{} JIT compilations ({} C2, {} ms compiling)",
+        result.durationMillis(), result.requests(), result.errors(), result.poolConnections(),
+        result.compilations(), result.c2Compilations(), result.compileTimeMillis());
+  }
+
+  public WarmupReport lastReport() {
+    return report;
+  }
+
+  @Override
+  public void contribute(Info.Builder builder) {
+    WarmupReport r = report;
+    if (r == null) {
+      return;
+    }
+    Map<String, Object> details = new LinkedHashMap<>();
+    details.put("durationMs", r.durationMillis());
+    details.put("requests", r.requests());
+    details.put("errors", r.errors());
+    details.put("poolConnections", r.poolConnections());
+    details.put("compilations", r.compilations());
+    details.put("c2Compilations", r.c2Compilations());
+    details.put("compileTimeMs", r.compileTimeMillis());
+    builder.withDetail("warmup", details);
+  }
+
+  /**
+   * Resultado del warm-up. compilations / c2Compilations = -1 si JFR no está disponible.
+   */
+  public record WarmupReport(long durationMillis, int requests, int errors, int poolConnections,
+      long compilations, long c2Compilations, long compileTimeMillis) {}
+
+  // Abre N conexiones a la vez (fuerza a Hikari a crearlas) y las devuelve
+  private int prefillPool() {
+    int target = poolConnections;
+    if (target < 0) {
+      target = hikari().map(HikariDataSource::getMinimumIdle).orElse(1);
+    }
+    List<Connection> opened = new ArrayList<>(target);
+    try {
+      for (int i = 0; i < target; i++) {
+        opened.add(dataSource.getConnection());
+      }
+    } catch (SQLException e) {
+      log.warn("Warm-up could only open {} of {} pool connections: {}", opened.size(), target, e.getMessage());
+    } finally {
+      for (Connection c : opened) {
+        try {
+          c.close();
+        } catch (SQLException e) {
+          log.debug("Could not return warm-up connection", e);
+        }
+      }
+    }
+    return opened.size();
+  }
+
+  private Optional<HikariDataSource> hikari() {
+    try {
+      return dataSource.isWrapperFor(HikariDataSource.class)
+          ? Optional.of(dataSource.unwrap(HikariDataSource.class))
+          : Optional.empty();
+    } catch (SQLException e) {
+      return Optional.empty();
+    }
+  }
+
+  private List<String> requestMix() {
+    if (!recordedFile.isBlank()) {
+      Path file = Path.of(recordedFile);
+      try {
+        List<String> recorded = WarmupRequestMix.recorded(file);
+        if (!recorded.isEmpty()) {
+          log.info("Warm-up replaying {} recorded requests from {}", recorded.size(), file);
+          return recorded;
+        }
+        log.warn("Warm-up file {} has no GET {} requests, using a synthetic mix", file, WarmupRequestMix.BASE);
+      } catch (IOException e) {
+        log.warn("Could not read warm-up file {} ({}), using a synthetic mix", file, e.getMessage());
+      }
+    }
+    return WarmupRequestMix.synthetic(jdbcTemplate, sampleSize);
+  }
+
+  private ReplayResult replay(List<String> mix, long deadline) {
+    int port = context instanceof WebServerApplicationContext web && web.getWebServer() != null
+        ? web.getWebServer().getPort() : -1;
+    if (port <= 0 || mix.isEmpty() || requests <= 0) {
+      log.info("Warm-up request replay skipped (no web server port or empty mix)");
+      return new ReplayResult(0, 0);
+    }
+    String base = "http://127.0.0.1:" + port;
+    HttpClient client = HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_1_1)
+        .connectTimeout(Duration.ofSeconds(5))
+        .build();
+    AtomicInteger next = new AtomicInteger();
+    AtomicInteger ok = new AtomicInteger();
+    AtomicInteger errors = new AtomicInteger();
+
+    AtomicInteger threads = new AtomicInteger();
+    ExecutorService workers = Executors.newFixedThreadPool(concurrency, r -> {
+      Thread t = new Thread(r, "warmup-" + threads.incrementAndGet());
+      t.setDaemon(true);
+      return t;
+    });
+    for (int w = 0; w < concurrency; w++) {
+      workers.execute(() -> {
+        int i;
+        while ((i = next.getAndIncrement()) < requests && System.nanoTime() < deadline) {
+          // Si nada responde bien después de unas cuantas, no tiene sentido seguir
+          if (i >= 20 && ok.get() == 0) {
+            return;
+          }
+          HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(base + mix.get(i % mix.size())))
+              .timeout(Duration.ofSeconds(10))
+              .header(HEADER, "true")
+              .GET();
+          // La mitad pide gzip: calienta también ese camino de la cache de respuestas
+          if (i % 2 == 0) {
+            request.header("Accept-Encoding", "gzip");
+          }
+          try {
+            int status = client.send(request.build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+            if (status < 500) {
+              ok.incrementAndGet();
+            } else {
+              errors.incrementAndGet();
+            }
+          } catch (IOException e) {
+            errors.incrementAndGet();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+          }
+        }
+      });
+    }
+    workers.shutdown();
+    try {
+      long waitNanos = Math.max(0, deadline - System.nanoTime()) + TimeUnit.SECONDS.toNanos(15);
+      if (!workers.awaitTermination(waitNanos, TimeUnit.NANOSECONDS)) {
+        workers.shutdownNow();
+      }
+    } catch (InterruptedException e) {
+      workers.shutdownNow();
+      Thread.currentThread().interrupt();
+    }
+    return new ReplayResult(ok.get() + errors.get(), errors.get());
+  }
+
+  private record ReplayResult(int sent, int errors) {}
+
+  private void registerMetrics(WarmupReport r) {
+    TimeGauge.builder("customers.warmup.duration", r, TimeUnit.MILLISECONDS, WarmupReport::durationMillis)
+        .description("Duration of the startup warm-up")
+        .register(meterRegistry);
+    Gauge.builder("customers.warmup.requests", r, WarmupReport::requests)
+        .description("Requests replayed during the startup warm-up")
+        .register(meterRegistry);
+    Gauge.builder("customers.warmup.compilations", r, WarmupReport::compilations)
+        .description("JIT compilations during the startup warm-up (-1 if unknown)")
+        .register(meterRegistry);
+  }
+
+  private static long compilationTime(CompilationMXBean compiler) {
+    return compiler != null && compiler.isCompilationTimeMonitoringSupported() ? compiler.getTotalCompilationTime() : 0;
+  }
+
+  /**
+   * Cuenta compilaciones JIT con una grabación JFR corta de jdk.Compilation (umbral 0).
+   * HotSpot no expone la cantidad por JMX; JFR sí, y ya lo usamos (ver paquete jfr).
+   */
+  private static final class CompilationCounter {
+    private final Recording recording;
+
+    private CompilationCounter(Recording recording) {
+      this.recording = recording;
+    }
+
+    static CompilationCounter start() {
+      try {
+        Recording recording = new Recording();
+        recording.setName("customer-warmup-compilations");
+        recording.enable("jdk.Compilation").withThreshold(Duration.ZERO);
+        recording.start();
+        return new CompilationCounter(recording);
+      } catch (RuntimeException e) {
+        log.debug("JFR not available, JIT compilations will not be counted", e);
+        return new CompilationCounter(null);
+      }
+    }
+
+    // {total, C2}; {-1, -1} si no se pudo contar
+    long[] stop() {
+      if (recording == null) {
+        return new long[] {-1, -1};
+      }
+      Path file = null;
+      try {
+        recording.stop();
+        file = Files.createTempFile("warmup-compilations", ".jfr");
+        recording.dump(file);
+        long total = 0;
+        long c2 = 0;
+        for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+          total++;
+          // Niveles 1..3 = C1, 4 = C2
+          if (event.hasField("compileLevel") && event.getShort("compileLevel") >= 4) {
+            c2++;
+          }
+        }
+        return new long[] {total, c2};
+      } catch (IOException | RuntimeException e) {
+        log.debug("Could not count JIT compilations", e);
+        return new long[] {-1, -1};
+      } finally {
+        recording.close();
+        if (file != null) {
+          try {
+            Files.deleteIfExists(file);
+          } catch (IOException e) {
+            log.debug("Could not delete {}", file, e);
+          }
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,118 @@
+package com.example.customer_management_app.warmup;
+
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.example.customer_management_app.sorting.SortWhitelist;
+
+/**
+ * Mezcla de requests del warm-up: grabada (archivo) o sintética (a partir de datos reales).
+ *
+ * Grabada: una request por línea, "GET /api/customers/page?page=0&size=10" o solo el path.
+ * - Solo GET bajo /api/customers: el warm-up nunca escribe.
+ * - Líneas vacías y # comentarios se ignoran.
+ *
+ * Sintética (~40% /page, ~30% /search/page, ~30% /{id}):
+ * - /page con los sorts de la whitelist, tamaños 10/20/50 y las primeras páginas
+ * - /search/page con prefijos de nombres, apellidos y dominios que existen (planes y filas reales)
+ * - /{id} con ids reales (llena la cache de respuestas) y uno inexistente (camino del 404)
+ */
+final class WarmupRequestMix {
+
+  static final String BASE = "/api/customers";
+
+  private static final int[] PAGE_SIZES = {10, 20, 50};
+
+  private WarmupRequestMix() {
+  }
+
+  static List<String> recorded(Path file) throws IOException {
+    List<String> paths = new ArrayList<>();
+    for (String raw : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+      String line = raw.trim();
+      if (line.isEmpty() || line.startsWith("#")) {
+        continue;
+      }
+      String path = line;
+      int space = line.indexOf(' ');
+      if (space > 0) {
+        if (!line.substring(0, space).equalsIgnoreCase("GET")) {
+          continue;
+        }
+        path = line.substring(space + 1).trim();
+      }
+      if (path.startsWith(BASE)) {
+        paths.add(path);
+      }
+    }
+    return paths;
+  }
+
+  static List<String> synthetic(JdbcTemplate jdbcTemplate, int sampleSize) {
+    List<Long> ids = new ArrayList<>();
+    Set<String> terms = new LinkedHashSet<>();
+    jdbcTemplate.query("SELECT id, first_name, last_name, email FROM customer ORDER BY id DESC LIMIT ?", rs -> {
+      ids.add(rs.getLong(1));
+      addPrefix(terms, rs.getString(2));
+      addPrefix(terms, rs.getString(3));
+      String email = rs.getString(4);
+      if (email != null && email.indexOf('@') >= 0) {
+        terms.add(email.substring(email.indexOf('@')).toLowerCase(Locale.ROOT));
+      }
+    }, sampleSize);
+    if (terms.isEmpty()) {
+      terms.add("jo");
+      terms.add("@example.com");
+    }
+
+    List<String> pages = new ArrayList<>();
+    for (String field : SortWhitelist.sortableFields()) {
+      for (String dir : new String[] {"DESC", "ASC"}) {
+        for (int size : PAGE_SIZES) {
+          for (int page = 0; page < 3; page++) {
+            pages.add(BASE + "/page?page=" + page + "&size=" + size + "&sort=" + field + "," + dir);
+          }
+        }
+      }
+    }
+    List<String> searches = new ArrayList<>();
+    for (String term : terms) {
+      String q = URLEncoder.encode(term, StandardCharsets.UTF_8);
+      searches.add(BASE + "/search/page?q=" + q + "&page=0&size=10");
+      searches.add(BASE + "/search/page?q=" + q + "&page=0&size=20&sort=lastName,ASC");
+    }
+    List<String> byId = new ArrayList<>();
+    ids.forEach(id -> byId.add(BASE + "/" + id));
+    byId.add(BASE + "/" + Long.MAX_VALUE);
+
+    // Intercalo 4:3:3 para que cada tanda de requests toque los tres caminos
+    List<String> mix = new ArrayList<>();
+    int n = Math.max(pages.size(), Math.max(searches.size(), byId.size()));
+    for (int i = 0; i < n; i++) {
+      for (int k = 0; k < 4; k++) {
+        mix.add(pages.get((i * 4 + k) % pages.size()));
+      }
+      for (int k = 0; k < 3; k++) {
+        mix.add(searches.get((i * 3 + k) % searches.size()));
+        mix.add(byId.get((i * 3 + k) % byId.size()));
+      }
+    }
+    return mix;
+  }
+
+  private static void addPrefix(Set<String> terms, String value) {
+    if (value != null && value.length() >= 2) {
+      terms.add(value.substring(0, Math.min(3, value.length())).toLowerCase(Locale.ROOT));
+    }
+  }
+}
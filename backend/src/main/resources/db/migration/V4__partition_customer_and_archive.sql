@@ -0,0 +1,120 @@
+-- =============================================
+-- V4: Particionado de customer + partición de archivo
+-- ---------------------------------------------
+-- ¿Qué hace esta migración?
+-- - Convierte customer en tabla particionada por LIST(archived):
+--     customer
+--     ├── customer_active   (archived = FALSE) -> sub-particionada por HASH(id) en 8
+--     │     ├── customer_active_p0 .. customer_active_p7
+--     └── customer_archive  (archived = TRUE)  -> clientes inactivos (ver CustomerArchiver)
+-- - Cada partición tiene sus propios índices: son 8 veces más chicos,
+--   y el VACUUM/REINDEX se hace partición por partición.
+-- - La partición de archivo solo tiene PK + email + updated_at (nada de
+--   índices de búsqueda por nombre/teléfono) y fillfactor 100 (casi no se actualiza).
+-- - Unicidad GLOBAL de email: PostgreSQL no permite un UNIQUE que no incluya
+--   la clave de partición, así que la garantizo con una tabla registro
+--   customer_email (email PK) mantenida por trigger.
+--
+-- Importante:
+-- - Las consultas siguen yendo a "customer" (la tabla padre): el repositorio
+--   encuentra clientes activos y archivados sin cambios en el código.
+-- - La columna archived no está mapeada en la entidad (default FALSE).
+-- - Hibernate (ddl-auto=validate) necesita reconocer el tipo "PARTITIONED TABLE":
+--   ver spring.jpa.properties.hibernate.hbm2ddl.extra_physical_table_types.
+-- =============================================
+
+-- 1) Aparto la tabla vieja (y desengancho la secuencia para no perderla al borrarla)
+ALTER SEQUENCE customer_id_seq OWNED BY NONE;
+ALTER TABLE customer RENAME TO customer_legacy;
+
+-- 2) Tabla padre particionada (la PK debe incluir la clave de partición)
+CREATE TABLE customer (
+    id BIGINT NOT NULL DEFAULT nextval('customer_id_seq'),
+    first_name VARCHAR(40) NOT NULL,
+    last_name VARCHAR(40) NOT NULL,
+    email VARCHAR(255) NOT NULL,
+    phone VARCHAR(15),
+    address VARCHAR(100),
+    created_at TIMESTAMP DEFAULT NOW(),
+    updated_at TIMESTAMP DEFAULT NOW(),
+    archived BOOLEAN NOT NULL DEFAULT FALSE,
+    CONSTRAINT pk_customer PRIMARY KEY (id, archived)
+) PARTITION BY LIST (archived);
+
+ALTER SEQUENCE customer_id_seq OWNED BY customer.id;
+
+-- 3) Particiones
+CREATE TABLE customer_active PARTITION OF customer
+    FOR VALUES IN (FALSE)
+    PARTITION BY HASH (id);
+
+DO $$
+BEGIN
+  FOR i IN 0..7 LOOP
+    EXECUTE format(
+      'CREATE TABLE customer_active_p%s PARTITION OF customer_active FOR VALUES WITH (MODULUS 8, REMAINDER %s)',
+      i, i);
+  END LOOP;
+END $$;
+
+CREATE TABLE customer_archive PARTITION OF customer
+    FOR VALUES IN (TRUE)
+    WITH (fillfactor = 100);
+
+-- 4) Copio los datos (todos arrancan como activos) y borro la tabla vieja con sus índices
+INSERT INTO customer (id, first_name, last_name, email, phone, address, created_at, updated_at, archived)
+SELECT id, first_name, last_name, email, phone, address, created_at, updated_at, FALSE
+FROM customer_legacy;
+
+DROP TABLE customer_legacy;
+
+-- 5) Índices
+-- Email en todas las particiones (lookups por email también encuentran archivados)
+CREATE INDEX ix_customer_email ON customer (email);
+-- Búsquedas por nombre/teléfono: solo en las particiones activas
+CREATE INDEX ix_customer_active_first_name_lower ON customer_active (LOWER(first_name));
+CREATE INDEX ix_customer_active_last_name_lower ON customer_active (LOWER(last_name));
+CREATE INDEX ix_customer_active_phone ON customer_active (phone);
+-- Para reactivar archivados que se volvieron a modificar
+CREATE INDEX ix_customer_archive_updated_at ON customer_archive (updated_at);
+
+-- 6) Registro de emails para la unicidad global
+CREATE TABLE customer_email (
+    email VARCHAR(255) PRIMARY KEY,
+    customer_id BIGINT NOT NULL
+);
+
+INSERT INTO customer_email (email, customer_id)
+SELECT email, id FROM customer;
+
+-- El trigger es idempotente: mover una fila entre particiones (archivar/reactivar)
+-- se ejecuta como DELETE + INSERT y el registro queda igual.
+-- Un email repetido rompe la PK de customer_email -> unique_violation (igual que el viejo ux_customer_email).
+CREATE OR REPLACE FUNCTION customer_email_registry() RETURNS trigger AS $$
+BEGIN
+  IF TG_OP IN ('DELETE', 'UPDATE') THEN
+    DELETE FROM customer_email WHERE email = OLD.email AND customer_id = OLD.id;
+  END IF;
+  IF TG_OP IN ('INSERT', 'UPDATE') THEN
+    INSERT INTO customer_email (email, customer_id) VALUES (NEW.email, NEW.id);
+  END IF;
+  RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_customer_email_registry
+    AFTER INSERT OR DELETE ON customer
+    FOR EACH ROW EXECUTE FUNCTION customer_email_registry();
+
+-- Hibernate incluye email en cada UPDATE: solo toco el registro si realmente cambió
+CREATE TRIGGER trg_customer_email_registry_update
+    AFTER UPDATE OF email ON customer
+    FOR EACH ROW WHEN (OLD.email IS DISTINCT FROM NEW.email)
+    EXECUTE FUNCTION customer_email_registry();
+
+-- 7) Reajusto la secuencia por las dudas (igual que V3)
+SELECT setval(
+  'customer_id_seq',
+  COALESCE((SELECT MAX(id) FROM customer), 1),
+  (SELECT COUNT(*) > 0 FROM customer)
+);
@@ -0,0 +1,30 @@
+-- =============================================
+-- V5: Índices para los ordenamientos permitidos
+-- ---------------------------------------------
+-- ¿Qué hace esta migración?
+-- - Cada sort de la whitelist (ver sorting/SortWhitelist) tiene un índice
+--   con las mismas columnas en el mismo orden, terminando en id para que
+--   la paginación sea estable. Así ORDER BY ... LIMIT lee el índice en orden
+--   (Merge Append entre particiones) en vez de ordenar toda la tabla.
+--     id         -> pk_customer (ya existe)
+--     email      -> ix_customer_email (ya existe, email es único)
+--     lastName   -> ix_customer_last_first_id   (last_name, first_name, id)
+--     firstName  -> ix_customer_first_id        (first_name, id)
+--     createdAt  -> ix_customer_created_id      (created_at, id)
+-- - Se crean en la tabla padre: TODAS las particiones necesitan el índice,
+--   si no la partición sin índice obliga a un Sort.
+-- - De paso, findByLastName/findByFirstName (igualdad exacta, sin LOWER)
+--   usan estos índices en vez de escanear la tabla.
+-- - ix_customer_archive_phone: findByPhone también tiene que encontrar archivados
+--   sin recorrer todo el archivo.
+--
+-- Importante:
+-- - updatedAt NO está en la whitelist a propósito: updated_at cambia en cada
+--   UPDATE y un índice sobre esa columna anula los HOT updates de PostgreSQL.
+-- - address/phone tampoco: ordenar por ellos no tiene uso real en la UI.
+-- =============================================
+
+CREATE INDEX IF NOT EXISTS ix_customer_last_first_id ON customer (last_name, first_name, id);
+CREATE INDEX IF NOT EXISTS ix_customer_first_id ON customer (first_name, id);
+CREATE INDEX IF NOT EXISTS ix_customer_created_id ON customer (created_at, id);
+CREATE INDEX IF NOT EXISTS ix_customer_archive_phone ON customer_archive (phone);
@@ -0,0 +1,23 @@
+-- =============================================
+-- V6: Índices para el filtro estructurado (GET /api/customers/filter)
+-- ---------------------------------------------
+-- ¿Qué hace esta migración?
+-- - Prefijo case-insensitive (firstName.prefix / lastName.prefix):
+--   LOWER(col) LIKE 'abc%' solo usa un índice B-tree si compara byte a byte.
+--   Los índices LOWER(...) de V4 usan la collation de la base: con una collation
+--   que no sea "C" sirven para igualdad pero no para LIKE. text_pattern_ops sí.
+-- - Dominio de email (email.domain): índice por la expresión
+--   LOWER(SUBSTRING(email, POSITION('@' IN email) + 1)), la misma que arma
+--   filter/FilterParam. Reemplaza el LIKE '%@dominio' (que recorre toda la tabla).
+-- - Se crean en la tabla padre: también los archivados se filtran sin seq scan.
+--
+-- Importante:
+-- - Las expresiones de la consulta y del índice tienen que ser idénticas; si se cambia
+--   una, cambiar la otra.
+-- - firstName.eq / lastName.eq / email.eq / phone.eq / createdAt.* usan índices que ya existen
+--   (V4, V5).
+-- =============================================
+
+CREATE INDEX IF NOT EXISTS ix_customer_first_name_lower_pattern ON customer (LOWER(first_name) text_pattern_ops);
+CREATE INDEX IF NOT EXISTS ix_customer_last_name_lower_pattern ON customer (LOWER(last_name) text_pattern_ops);
+CREATE INDEX IF NOT EXISTS ix_customer_email_domain ON customer (LOWER(SUBSTRING(email, POSITION('@' IN email) + 1)));
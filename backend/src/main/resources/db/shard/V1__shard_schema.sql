@@ -0,0 +1,42 @@
+-- =============================================
+-- Esquema de cada shard (ver CustomerShards, app.sharding.*)
+-- ---------------------------------------------
+-- - SQL portable: corre igual en PostgreSQL y en H2 (tests con varias bases locales).
+-- - Historial propio (shard_schema_history): una shard puede ser la misma base que la
+--   principal sin mezclarse con las migraciones de db/migration.
+-- - El id NO es autoincremental: lo asigna ShardIdAllocator (único entre shards).
+-- =============================================
+
+CREATE TABLE customer (
+    id BIGINT PRIMARY KEY,
+    first_name VARCHAR(40) NOT NULL,
+    last_name VARCHAR(40) NOT NULL,
+    email VARCHAR(255) NOT NULL,
+    phone VARCHAR(15),
+    address VARCHAR(100),
+    created_at TIMESTAMP,
+    updated_at TIMESTAMP
+);
+
+-- Los mismos órdenes que SortWhitelist (cada shard devuelve su top-N ya ordenado)
+CREATE INDEX ix_customer_last_first_id ON customer (last_name, first_name, id);
+CREATE INDEX ix_customer_first_id ON customer (first_name, id);
+CREATE INDEX ix_customer_created_id ON customer (created_at, id);
+CREATE INDEX ix_customer_email ON customer (email);
+-- /by-phone consulta todas las shards: que en cada una sea un index lookup
+CREATE INDEX ix_customer_phone ON customer (phone);
+
+-- Directorio de emails: la fila de un email vive en la shard de hash(email), no en la del cliente.
+-- La PK garantiza la unicidad global con una sola shard involucrada.
+CREATE TABLE customer_email_directory (
+    email VARCHAR(255) PRIMARY KEY,
+    customer_id BIGINT NOT NULL
+);
+
+-- Bloques de ids (hi/lo). Existe en todas las shards pero solo se usa el de la shard 0.
+CREATE TABLE customer_id_allocator (
+    name VARCHAR(40) PRIMARY KEY,
+    next_id BIGINT NOT NULL
+);
+
+INSERT INTO customer_id_allocator (name, next_id) VALUES ('customer', 1);
@@ -0,0 +1,12 @@
+-- =============================================
+-- Estado de las reservas de email (ver ShardedCustomerService.reserveEmail)
+-- ---------------------------------------------
+-- - confirmed = FALSE: alta/cambio de email en curso (el cliente todavía no tiene ese email en su shard).
+-- - confirmed = TRUE: el cliente ya se escribió con ese email.
+-- - reserved_at: una reserva sin confirmar solo se reutiliza pasado el período de gracia
+--   (app.sharding.email-reservation-grace-ms); antes es indistinguible de un alta en curso.
+-- Las filas existentes ya corresponden a clientes escritos: quedan confirmadas.
+-- =============================================
+
+ALTER TABLE customer_email_directory ADD COLUMN confirmed BOOLEAN DEFAULT TRUE NOT NULL;
+ALTER TABLE customer_email_directory ADD COLUMN reserved_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL;
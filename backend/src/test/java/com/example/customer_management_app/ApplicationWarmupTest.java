@@ -0,0 +1,52 @@
+package com.example.customer_management_app;
+
+// En este test quiero verificar el warm-up de arranque:
+// - corre antes de que la app se declare lista y repite requests reales por loopback
+// - pre-llena el pool y reporta duración y compilaciones JIT (también en /actuator/info)
+//
+// Perfil test (H2) con un servidor real en puerto aleatorio y pocas requests.
+
+import com.example.customer_management_app.warmup.ApplicationWarmup;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "app.warmup.enabled=true",
+    "app.warmup.requests=60",
+    "app.warmup.concurrency=2",
+    "management.endpoints.web.exposure.include=health,info"
+})
+@ActiveProfiles("test")
+class ApplicationWarmupTest {
+
+    @Autowired
+    private ApplicationWarmup warmup;
+
+    @Autowired
+    private ApplicationAvailability availability;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Test
+    void warmup_replaysRequestsAndReportsBeforeReadiness() {
+        ApplicationWarmup.WarmupReport report = warmup.lastReport();
+        assertNotNull(report, "warm-up should have finished before the context was handed to the test");
+        assertEquals(60, report.requests());
+        assertEquals(0, report.errors());
+        assertTrue(report.poolConnections() >= 1);
+        assertNotEquals(0, report.compilations());
+
+        assertEquals(ReadinessState.ACCEPTING_TRAFFIC, availability.getReadinessState());
+        String info = restTemplate.getForObject("/actuator/info", String.class);
+        assertTrue(info.contains("\"warmup\"") && info.contains("\"requests\":60"), info);
+        assertEquals(200, restTemplate.getForEntity("/actuator/health/readiness", String.class).getStatusCode().value());
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.customer_management_app;
+
+// En este test quiero validar las métricas de crecimiento contra una base real (H2 en memoria):
+// - altas/modificaciones por día, semana ISO y mes; dominios y apellidos sin distinguir mayúsculas
+// - el scan por chunks en paralelo da lo mismo que contar a mano
+// - el refresco incremental solo relee los chunks que cambiaron (altas, modificaciones y bajas)
+//   y termina con el mismo resultado que un refresco completo
+// - el GET sirve desde cache mientras el resultado no venza
+
+import com.example.customer_management_app.analytics.CustomerAnalytics;
+import com.example.customer_management_app.analytics.CustomerAnalytics.Period;
+import com.example.customer_management_app.dto.CustomerAnalyticsResponse;
+import com.example.customer_management_app.dto.CustomerAnalyticsResponse.NameCount;
+import com.example.customer_management_app.dto.CustomerAnalyticsResponse.PeriodCount;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CustomerAnalyticsTest {
+
+    private JdbcTemplate jdbc;
+    private DataSourceTransactionManager txManager;
+    private CustomerAnalytics analytics;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource ds = new DriverManagerDataSource("jdbc:h2:mem:analytics;DB_CLOSE_DELAY=-1");
+        jdbc = new JdbcTemplate(ds);
+        txManager = new DataSourceTransactionManager(ds);
+        jdbc.execute("DROP TABLE IF EXISTS customer");
+        jdbc.execute("CREATE TABLE customer (id BIGINT PRIMARY KEY, last_name VARCHAR(40), email VARCHAR(255), "
+            + "created_at TIMESTAMP, updated_at TIMESTAMP)");
+        // 40 clientes en enero/febrero 2025; ids con huecos para que los chunks no queden parejos
+        for (int i = 0; i < 40; i++) {
+            LocalDateTime created = LocalDateTime.of(2025, 1, 1, 10, 0).plusDays(i);
+            LocalDateTime updated = i % 4 == 0 ? created.plusDays(3) : created; // 1 de cada 4 fue modificado
+            insert(1 + i * 3L, i % 3 == 0 ? "Smith" : "García" + (i % 2 == 0 ? "" : " "),
+                i % 5 == 0 ? "u" + i + "@Example.com" : "u" + i + "@gmail.com", created, updated);
+        }
+        analytics = newAnalytics(600_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        analytics.shutdown();
+    }
+
+    @Test
+    void fullScan_aggregatesPerPeriodAndDistribution() {
+        CustomerAnalyticsResponse r = analytics.refresh(true, Period.MONTH, 10);
+
+        assertEquals("FULL", r.getRefreshMode());
+        assertEquals(40, r.getTotalCustomers());
+        assertEquals(40, r.getRowsScanned());
+        assertTrue(r.getChunksTotal() > 1);
+        assertEquals(List.of("2025-01:31", "2025-02:9"), labels(r.getCreated()));
+        // 10 modificados: el día 0, 4, 8... (+3 días)
+        assertEquals(10, r.getUpdated().stream().mapToLong(PeriodCount::getCount).sum());
+        assertEquals(LocalDateTime.of(2025, 2, 9, 10, 0), r.getWatermark());
+
+        assertEquals(2, r.getDistinctDomains());
+        assertEquals(List.of("gmail.com:32", "example.com:8"), names(r.getTopDomains()));
+        // "García" y "García " son el mismo apellido
+        assertEquals(2, r.getDistinctLastNames());
+        assertEquals(List.of("garcía:26", "smith:14"), names(r.getTopLastNames()));
+
+        CustomerAnalyticsResponse weekly = analytics.report(Period.WEEK, 10);
+        assertEquals("2025-W01:5", labels(weekly.getCreated()).get(0)); // mié 1 a dom 5 de enero
+        assertEquals(40, weekly.getCreated().stream().mapToLong(PeriodCount::getCount).sum());
+        assertEquals(40, analytics.report(Period.DAY, 10).getCreated().size());
+    }
+
+    @Test
+    void incrementalRefresh_rereadsOnlyChangedChunks_andMatchesAFullScan() {
+        CustomerAnalyticsResponse full = analytics.refresh(true, Period.DAY, 10);
+        LocalDateTime now = full.getWatermark().plusDays(10);
+
+        jdbc.update("UPDATE customer SET last_name = 'Jones', updated_at = ? WHERE id = 4", Timestamp.valueOf(now));
+        jdbc.update("DELETE FROM customer WHERE id = 118");
+        insert(125, "Lee", "lee@yahoo.com", now, now);
+
+        CustomerAnalyticsResponse incremental = analytics.refresh(false, Period.DAY, 10);
+        assertEquals("INCREMENTAL", incremental.getRefreshMode());
+        assertTrue(incremental.getChunksScanned() >= 3 && incremental.getChunksScanned() < incremental.getChunksTotal(),
+            "only the changed chunks should be read, was " + incremental.getChunksScanned());
+        assertTrue(incremental.getRowsScanned() < 40);
+        assertEquals(40, incremental.getTotalCustomers());
+        assertEquals(now, incremental.getWatermark());
+
+        CustomerAnalyticsResponse fresh = newAnalytics(600_000).refresh(true, Period.DAY, 10);
+        assertEquals(labels(fresh.getCreated()), labels(incremental.getCreated()));
+        assertEquals(labels(fresh.getUpdated()), labels(incremental.getUpdated()));
+        assertEquals(names(fresh.getTopDomains()), names(incremental.getTopDomains()));
+        assertEquals(names(fresh.getTopLastNames()), names(incremental.getTopLastNames()));
+
+        // Sin cambios: solo relee los chunks con filas dentro del overlap del watermark (ids 4 y 125)
+        CustomerAnalyticsResponse again = analytics.refresh(false, Period.DAY, 10);
+        assertEquals(2, again.getChunksScanned());
+        assertEquals(40, again.getTotalCustomers());
+    }
+
+    @Test
+    void report_isServedFromCacheUntilItExpires() {
+        CustomerAnalyticsResponse first = analytics.report(Period.MONTH, 5);
+        insert(130, "Lee", "lee@yahoo.com", LocalDateTime.now(), LocalDateTime.now());
+        CustomerAnalyticsResponse cached = analytics.report(Period.MONTH, 5);
+        assertEquals(first.getComputedAt(), cached.getComputedAt());
+        assertEquals(40, cached.getTotalCustomers());
+
+        CustomerAnalytics expiring = newAnalytics(0);
+        try {
+            expiring.report(Period.MONTH, 5);
+            insert(131, "Lee", "lee2@yahoo.com", LocalDateTime.now(), LocalDateTime.now());
+            CustomerAnalyticsResponse refreshed = expiring.report(Period.MONTH, 5);
+            assertEquals("INCREMENTAL", refreshed.getRefreshMode());
+            assertEquals(42, refreshed.getTotalCustomers());
+        } finally {
+            expiring.shutdown();
+        }
+    }
+
+    private CustomerAnalytics newAnalytics(long maxAgeMillis) {
+        // 8 chunks y 3 hilos: varios rangos leídos en paralelo
+        return new CustomerAnalytics(jdbc, txManager, new SimpleMeterRegistry(), 8, 3, maxAgeMillis, 5000);
+    }
+
+    private void insert(long id, String lastName, String email, LocalDateTime created, LocalDateTime updated) {
+        jdbc.update("INSERT INTO customer (id, last_name, email, created_at, updated_at) VALUES (?, ?, ?, ?, ?)",
+            id, lastName, email, Timestamp.valueOf(created), Timestamp.valueOf(updated));
+    }
+
+    private static List<String> labels(List<PeriodCount> series) {
+        return series.stream().map(p -> p.getPeriod() + ":" + p.getCount()).toList();
+    }
+
+    private static List<String> names(List<NameCount> counts) {
+        return counts.stream().map(n -> n.getName() + ":" + n.getCount()).toList();
+    }
+}
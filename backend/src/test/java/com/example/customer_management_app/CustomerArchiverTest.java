@@ -0,0 +1,70 @@
+package com.example.customer_management_app;
+
+// En este test quiero validar el job de archivo contra una base real (H2 en memoria).
+// H2 no tiene particiones: uso una tabla simple con la columna archived, que es lo
+// único que el job toca (el movimiento físico entre particiones lo hace PostgreSQL).
+
+import com.example.customer_management_app.archive.CustomerArchiver;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CustomerArchiverTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 6, 1, 12, 0);
+
+    private JdbcTemplate jdbc;
+    private CustomerArchiver archiver;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource ds = new DriverManagerDataSource("jdbc:h2:mem:archiver;MODE=PostgreSQL;DB_CLOSE_DELAY=-1");
+        jdbc = new JdbcTemplate(ds);
+        jdbc.execute("DROP TABLE IF EXISTS customer");
+        jdbc.execute("CREATE TABLE customer (id BIGINT PRIMARY KEY, email VARCHAR(255), updated_at TIMESTAMP, "
+            + "archived BOOLEAN NOT NULL DEFAULT FALSE)");
+        // Lotes chicos para recorrer varias ventanas de id
+        archiver = new CustomerArchiver(jdbc, new DataSourceTransactionManager(ds), new SimpleMeterRegistry(), 365, 3);
+    }
+
+    @Test
+    void run_archivesInactiveCustomersInBatches() {
+        for (long id = 1; id <= 10; id++) {
+            // Pares: sin cambios hace 2 años; impares: modificados la semana pasada
+            insert(id, id % 2 == 0 ? NOW.minusYears(2) : NOW.minusDays(7), false);
+        }
+
+        CustomerArchiver.ArchiveResult result = archiver.run(NOW.minusDays(365));
+
+        assertEquals(5, result.archived());
+        assertEquals(List.of(2L, 4L, 6L, 8L, 10L),
+            jdbc.queryForList("SELECT id FROM customer WHERE archived ORDER BY id", Long.class));
+    }
+
+    @Test
+    void run_reactivatesArchivedCustomersThatWereModified() {
+        insert(1, NOW.minusDays(1), true);   // archivado pero modificado hace poco
+        insert(2, NOW.minusYears(3), true);  // sigue inactivo
+
+        CustomerArchiver.ArchiveResult result = archiver.run(NOW.minusDays(365));
+
+        assertEquals(1, result.reactivated());
+        assertEquals(0, result.archived());
+        assertFalse(jdbc.queryForObject("SELECT archived FROM customer WHERE id = 1", Boolean.class));
+        assertTrue(jdbc.queryForObject("SELECT archived FROM customer WHERE id = 2", Boolean.class));
+    }
+
+    private void insert(long id, LocalDateTime updatedAt, boolean archived) {
+        jdbc.update("INSERT INTO customer (id, email, updated_at, archived) VALUES (?, ?, ?, ?)",
+            id, "c" + id + "@example.com", Timestamp.valueOf(updatedAt), archived);
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.customer_management_app;
+
+// En este test quiero validar el borrado masivo en chunks contra una base real (H2 en memoria):
+// - por lista de IDs (incluye IDs inexistentes y repetidos)
+// - por término de búsqueda (recorre por keyset hasta no encontrar más)
+// - cada fila borrada publica su CustomerChangedEvent
+
+import com.example.customer_management_app.bulk.CustomerBulkDeleter;
+import com.example.customer_management_app.dto.BulkDeleteRequest;
+import com.example.customer_management_app.dto.BulkDeleteResponse;
+import com.example.customer_management_app.events.CustomerChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CustomerBulkDeleterTest {
+
+    private JdbcTemplate jdbc;
+    private CustomerBulkDeleter deleter;
+    private final List<Object> events = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource ds = new DriverManagerDataSource("jdbc:h2:mem:bulkdelete;MODE=PostgreSQL;DB_CLOSE_DELAY=-1");
+        jdbc = new JdbcTemplate(ds);
+        jdbc.execute("DROP TABLE IF EXISTS customer");
+        jdbc.execute("CREATE TABLE customer (id BIGINT PRIMARY KEY, first_name VARCHAR(40), last_name VARCHAR(40), "
+            + "email VARCHAR(255), phone VARCHAR(15), address VARCHAR(100), created_at TIMESTAMP, updated_at TIMESTAMP)");
+        for (long id = 1; id <= 7; id++) {
+            String domain = id <= 5 ? "old-domain.com" : "example.com";
+            jdbc.update("INSERT INTO customer (id, first_name, last_name, email) VALUES (?, 'Name', 'Last', ?)",
+                id, "user" + id + "@" + domain);
+        }
+        // Chunks de 2 filas para forzar varias transacciones
+        deleter = new CustomerBulkDeleter(jdbc, new DataSourceTransactionManager(ds), events::add,
+            new SimpleMeterRegistry(), 2, 0);
+    }
+
+    @Test
+    void deleteByIds_deletesInChunksAndReportsFinalCount() {
+        BulkDeleteResponse result = deleter.deleteNow(new BulkDeleteRequest(List.of(1L, 2L, 3L, 3L, 99L), null));
+
+        assertEquals("COMPLETED", result.getStatus());
+        assertEquals(3, result.getDeleted());
+        assertEquals(2, result.getChunks()); // [1,2] y [3,99]
+        assertEquals(4, count());
+        assertEquals(3, events.size());
+        assertEquals(CustomerChangedEvent.Type.DELETED, ((CustomerChangedEvent) events.get(0)).type());
+    }
+
+    @Test
+    void deleteBySearch_walksAllMatchesByKeyset() {
+        BulkDeleteResponse result = deleter.deleteNow(new BulkDeleteRequest(null, "OLD-DOMAIN"));
+
+        assertEquals(5, result.getDeleted());
+        assertEquals(3, result.getChunks());
+        assertEquals(List.of(6L, 7L), jdbc.queryForList("SELECT id FROM customer ORDER BY id", Long.class));
+        assertEquals(result.getDeleted(), deleter.progress(result.getJobId()).orElseThrow().getDeleted());
+    }
+
+    @Test
+    void request_requiresExactlyOneCriterion() {
+        assertFalse(new BulkDeleteRequest(null, "  ").isCriteriaValid());
+        assertFalse(new BulkDeleteRequest(List.of(1L), "x").isCriteriaValid());
+        assertTrue(new BulkDeleteRequest(List.of(1L), null).isCriteriaValid());
+    }
+
+    private int count() {
+        return jdbc.queryForObject("SELECT COUNT(*) FROM customer", Integer.class);
+    }
+}
@@ -56,7 +56,9 @@ class CustomerControllerTest {
             .andExpect(jsonPath("$.id").exists())
             .andExpect(jsonPath("$.firstName").value("John"))
             .andExpect(jsonPath("$.lastName").value("Doe"))
-            .andExpect(jsonPath("$.email").value("john.doe@example.com"));
+            .andExpect(jsonPath("$.email").value("john.doe@example.com"))
+            // Presupuesto de SQL: chequeo de email + INSERT
+            .andExpect(SqlBudgetMatchers.statementsAtMost(2));
     }
 
     @Test
@@ -0,0 +1,199 @@
+package com.example.customer_management_app;
+
+// En este test quiero validar el group-commit de altas contra una base real (H2 en memoria):
+// - altas concurrentes se escriben y cada request recibe su ID
+// - un email ya existente o repetido dentro del mismo batch sale como DuplicateEmailException;
+//   otra restricción rota (NOT NULL) sale tal cual, no como email duplicado
+// - ninguna request queda colgada: ni al apagar con un batch a medio juntar, ni en la cola
+// - un alta que el flusher ya tomó no sale por timeout: espera su commit, y el evento lo publica el flusher
+
+import com.example.customer_management_app.batch.CustomerCreateBatcher;
+import com.example.customer_management_app.events.CustomerChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.support.KeyHolder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CustomerCreateBatcherTest {
+
+    private DriverManagerDataSource ds;
+    private JdbcTemplate jdbc;
+    private CustomerCreateBatcher batcher;
+
+    @BeforeEach
+    void setUp() {
+        ds = new DriverManagerDataSource("jdbc:h2:mem:batcher;DB_CLOSE_DELAY=-1");
+        jdbc = new JdbcTemplate(ds);
+        jdbc.execute("DROP TABLE IF EXISTS customer");
+        jdbc.execute("CREATE TABLE customer (id BIGINT AUTO_INCREMENT PRIMARY KEY, first_name VARCHAR(40) NOT NULL, "
+            + "last_name VARCHAR(40) NOT NULL, email VARCHAR(255) NOT NULL UNIQUE, phone VARCHAR(15), "
+            + "address VARCHAR(100), created_at TIMESTAMP, updated_at TIMESTAMP)");
+        // Ventana amplia para que las altas concurrentes caigan en el mismo batch
+        batcher = new CustomerCreateBatcher(jdbc, new DataSourceTransactionManager(ds), new SimpleMeterRegistry(), 16, 20_000);
+        batcher.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        batcher.stop();
+    }
+
+    @Test
+    void concurrentCreates_allGetDistinctIds() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Customer>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                String email = "user" + i + "@example.com";
+                futures.add(pool.submit(() -> batcher.submit(newCustomer(email))));
+            }
+            Set<Long> ids = new HashSet<>();
+            for (Future<Customer> f : futures) {
+                Customer saved = f.get(10, TimeUnit.SECONDS);
+                assertNotNull(saved.getId());
+                ids.add(saved.getId());
+            }
+            assertEquals(8, ids.size());
+            assertEquals(8, jdbc.queryForObject("SELECT COUNT(*) FROM customer", Integer.class));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void existingEmail_isRejectedAsDuplicate() {
+        batcher.submit(newCustomer("taken@example.com"));
+        assertThrows(DuplicateEmailException.class, () -> batcher.submit(newCustomer("taken@example.com")));
+        assertEquals(1, jdbc.queryForObject("SELECT COUNT(*) FROM customer", Integer.class));
+    }
+
+    @Test
+    void sameEmailInOneBatch_onlyFirstWins() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<Customer> a = pool.submit(() -> batcher.submit(newCustomer("twin@example.com")));
+            Future<Customer> b = pool.submit(() -> batcher.submit(newCustomer("twin@example.com")));
+            int ok = 0;
+            int duplicates = 0;
+            for (Future<Customer> f : List.of(a, b)) {
+                try {
+                    f.get(10, TimeUnit.SECONDS);
+                    ok++;
+                } catch (ExecutionException e) {
+                    assertInstanceOf(DuplicateEmailException.class, e.getCause());
+                    duplicates++;
+                }
+            }
+            assertEquals(1, ok);
+            assertEquals(1, duplicates);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void stopWhileCollectingABatch_failsTheRequestsInHand() throws Exception {
+        // Ventana de 5 s: la primera alta queda en la mano del flusher (ya fuera de la cola)
+        CustomerCreateBatcher slow = new CustomerCreateBatcher(jdbc, new DataSourceTransactionManager(ds),
+            new SimpleMeterRegistry(), 16, 5_000_000);
+        slow.start();
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            Future<Customer> pending = pool.submit(() -> slow.submit(newCustomer("late@example.com")));
+            Thread.sleep(200);
+            slow.stop();
+            ExecutionException e = assertThrows(ExecutionException.class, () -> pending.get(2, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalStateException.class, e.getCause());
+            assertThrows(IllegalStateException.class, () -> slow.submit(newCustomer("after@example.com")));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void otherConstraintViolations_areNotReportedAsDuplicateEmail() {
+        Customer noName = newCustomer("noname@example.com");
+        noName.setFirstName(null);
+        // DuplicateEmailException no es DataIntegrityViolationException: sale el error real
+        assertThrows(DataIntegrityViolationException.class, () -> batcher.submit(noName));
+        // El batcher sigue funcionando y el email no quedó tomado
+        assertNotNull(batcher.submit(newCustomer("noname@example.com")).getId());
+    }
+
+    @Test
+    void queuedCreate_timesOutAndIsNeverWritten_butTheOneInFlightWaitsForItsCommit() throws Exception {
+        // Batches de 1 y un INSERT que tarda 500 ms: mientras el flusher escribe A, B espera en la cola
+        CountDownLatch writing = new CountDownLatch(1);
+        JdbcTemplate slowInsert = new JdbcTemplate(ds) {
+            @Override
+            public int[] batchUpdate(PreparedStatementCreator psc, BatchPreparedStatementSetter pss, KeyHolder keys)
+                    throws DataAccessException {
+                writing.countDown();
+                sleep(500);
+                return super.batchUpdate(psc, pss, keys);
+            }
+        };
+        List<Object> events = Collections.synchronizedList(new ArrayList<>());
+        CustomerCreateBatcher slow = new CustomerCreateBatcher(slowInsert, new DataSourceTransactionManager(ds),
+            events::add, new SimpleMeterRegistry(), 1, 0, 100);
+        slow.start();
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            Future<Customer> inFlight = pool.submit(() -> slow.submit(newCustomer("a@example.com")));
+            assertTrue(writing.await(2, TimeUnit.SECONDS));
+
+            assertThrows(QueryTimeoutException.class, () -> slow.submit(newCustomer("b@example.com")));
+
+            // A pasó su submit-timeout-ms esperando el INSERT, pero se confirmó: recibe el cliente, no un 504
+            Customer a = inFlight.get(5, TimeUnit.SECONDS);
+            assertNotNull(a.getId());
+            assertEquals(List.of(CustomerChangedEvent.Type.CREATED),
+                events.stream().map(ev -> ((CustomerChangedEvent) ev).type()).toList());
+            assertEquals(a.getId(), ((CustomerChangedEvent) events.get(0)).id());
+            Thread.sleep(700);
+            assertEquals(List.of("a@example.com"), jdbc.queryForList("SELECT email FROM customer", String.class));
+        } finally {
+            pool.shutdownNow();
+            slow.stop();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Customer newCustomer(String email) {
+        Customer c = new Customer("Test", "User", email, "123-4567", "Street 1");
+        c.setCreatedAt(LocalDateTime.now());
+        c.setUpdatedAt(LocalDateTime.now());
+        return c;
+    }
+}
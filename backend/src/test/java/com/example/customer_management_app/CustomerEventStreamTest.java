@@ -0,0 +1,221 @@
+package com.example.customer_management_app;
+
+// En este test quiero validar el stream SSE de cambios sin servidor:
+// - cada cambio llega una vez, con id para retomar, y el stats se manda al conectar
+// - un consumidor lento: los cambios del mismo cliente se coalescen y el buffer nunca pasa del límite
+// - al llenarse: overflow=reset descarta y manda "reset"; overflow=disconnect cierra la conexión
+// - Last-Event-ID repite lo perdido; un id desconocido o muy viejo -> "reset"
+//
+// Los envíos van a un Executor manual: decido cuándo "el socket" acepta datos.
+
+import com.example.customer_management_app.events.CustomerChangedEvent;
+import com.example.customer_management_app.stream.CustomerEventStream;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CustomerEventStreamTest {
+
+    private static final Pattern EVENT_ID = Pattern.compile("id:(\\S+)");
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final ManualExecutor executor = new ManualExecutor();
+    private final CustomerService customerService = mock(CustomerService.class);
+
+    private CustomerEventStream stream(int bufferSize, int replaySize, String overflow) {
+        when(customerService.getStatistics()).thenReturn(new CustomerService.CustomerStats(3, 1));
+        return new CustomerEventStream(customerService, objectMapper, new SimpleMeterRegistry(), executor,
+            60_000, bufferSize, replaySize, 100, overflow, 60_000);
+    }
+
+    private static Customer customer(long id, String firstName) {
+        return new Customer(id, firstName, "Doe", "c" + id + "@example.com", "123-4567", "1 Main St");
+    }
+
+    private static void update(CustomerEventStream stream, long id, String firstName) {
+        stream.onCustomerChanged(CustomerChangedEvent.updated(customer(id, "Old"), customer(id, firstName)));
+    }
+
+    @Test
+    void changes_arriveOnceWithResumableIds_afterAStatsSnapshot() {
+        CustomerEventStream stream = stream(16, 100, "reset");
+        RecordingEmitter client = new RecordingEmitter();
+        stream.register(client, null);
+
+        stream.onCustomerChanged(CustomerChangedEvent.created(customer(1, "Ana")));
+        executor.runAll();
+        stream.onCustomerChanged(CustomerChangedEvent.deleted(1L, customer(1, "Ana")));
+        executor.runAll();
+
+        assertEquals(3, client.events.size(), client.events.toString());
+        assertTrue(client.events.get(0).contains("event:stats") && client.events.get(0).contains("\"totalCustomers\":3"));
+        assertTrue(client.events.get(1).contains("event:customer") && client.events.get(1).contains("\"type\":\"CREATED\""));
+        assertTrue(client.events.get(1).contains("\"firstName\":\"Ana\""));
+        assertTrue(client.events.get(2).contains("\"type\":\"DELETED\"") && client.events.get(2).contains("\"customer\":null"));
+        assertNotEquals(idOf(client.events.get(1)), idOf(client.events.get(2)));
+    }
+
+    @Test
+    void slowConsumer_getsCoalescedChanges_andABoundedBuffer() {
+        CustomerEventStream stream = stream(4, 100, "reset");
+        RecordingEmitter client = new RecordingEmitter();
+        stream.register(client, null);
+
+        // El socket no acepta nada mientras llegan 50 cambios del mismo cliente y 2 de otro
+        for (int i = 0; i < 50; i++) {
+            update(stream, 7, "v" + i);
+        }
+        update(stream, 8, "x");
+        update(stream, 7, "last");
+        executor.runAll();
+
+        List<String> customers = client.named("customer");
+        assertEquals(2, customers.size(), customers.toString());
+        assertTrue(customers.get(0).contains("\"id\":8"));
+        assertTrue(customers.get(1).contains("\"firstName\":\"last\""));
+    }
+
+    @Test
+    void overflow_reset_dropsPendingAndAsksTheClientToReload() {
+        CustomerEventStream stream = stream(4, 100, "reset");
+        RecordingEmitter client = new RecordingEmitter();
+        stream.register(client, null);
+
+        for (long id = 1; id <= 10; id++) {
+            update(stream, id, "n" + id);
+        }
+        executor.runAll();
+
+        assertTrue(client.events.size() <= 4, client.events.toString());
+        assertFalse(client.named("reset").isEmpty(), client.events.toString());
+        assertFalse(client.completed);
+    }
+
+    @Test
+    void overflow_disconnect_closesTheSlowConnection() {
+        CustomerEventStream stream = stream(4, 100, "disconnect");
+        RecordingEmitter client = new RecordingEmitter();
+        stream.register(client, null);
+
+        for (long id = 1; id <= 10; id++) {
+            update(stream, id, "n" + id);
+        }
+        executor.runAll();
+
+        assertTrue(client.completed);
+        assertEquals(0, stream.subscriberCount());
+    }
+
+    @Test
+    void lastEventId_replaysMissedChanges_orResetsWhenTooOld() {
+        CustomerEventStream stream = stream(16, 3, "reset");
+        RecordingEmitter first = new RecordingEmitter();
+        stream.register(first, null);
+        update(stream, 1, "a");
+        executor.runAll();
+        String lastSeen = idOf(first.named("customer").get(0));
+
+        // Se cae la conexión; mientras tanto hay 2 cambios más
+        update(stream, 2, "b");
+        update(stream, 3, "c");
+        RecordingEmitter resumed = new RecordingEmitter();
+        stream.register(resumed, lastSeen);
+        executor.runAll();
+        List<String> replayed = resumed.named("customer");
+        assertEquals(2, replayed.size(), resumed.events.toString());
+        assertTrue(replayed.get(0).contains("\"id\":2") && replayed.get(1).contains("\"id\":3"));
+
+        // Más cambios de los que guarda el log (replay-size=3) -> reset
+        for (long id = 4; id <= 8; id++) {
+            update(stream, id, "z");
+        }
+        RecordingEmitter tooOld = new RecordingEmitter();
+        stream.register(tooOld, lastSeen);
+        RecordingEmitter unknown = new RecordingEmitter();
+        stream.register(unknown, "other-boot-5");
+        executor.runAll();
+        assertTrue(tooOld.named("customer").isEmpty());
+        assertEquals(1, tooOld.named("reset").size());
+        assertEquals(1, unknown.named("reset").size());
+    }
+
+    @Test
+    void brokenConnection_isRemoved() {
+        CustomerEventStream stream = stream(16, 100, "reset");
+        RecordingEmitter client = new RecordingEmitter();
+        stream.register(client, null);
+        executor.runAll();
+
+        client.broken = true;
+        update(stream, 1, "a");
+        executor.runAll();
+
+        assertEquals(0, stream.subscriberCount());
+    }
+
+    private static String idOf(String event) {
+        Matcher m = EVENT_ID.matcher(event);
+        assertTrue(m.find(), "event without id: " + event);
+        return m.group(1);
+    }
+
+    // Tareas encoladas hasta que el test decide ejecutarlas
+    static class ManualExecutor implements Executor {
+        private final Queue<Runnable> tasks = new ArrayDeque<>();
+
+        @Override
+        public synchronized void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        void runAll() {
+            Runnable next;
+            while ((next = poll()) != null) {
+                next.run();
+            }
+        }
+
+        private synchronized Runnable poll() {
+            return tasks.poll();
+        }
+    }
+
+    // Emitter que guarda cada evento como texto SSE en lugar de escribirlo en un socket
+    static class RecordingEmitter extends SseEmitter {
+        final List<String> events = new ArrayList<>();
+        volatile boolean broken;
+        volatile boolean completed;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (broken) {
+                throw new IOException("Broken pipe");
+            }
+            StringBuilder text = new StringBuilder();
+            builder.build().forEach(part -> text.append(part.getData()));
+            events.add(text.toString());
+        }
+
+        @Override
+        public synchronized void complete() {
+            completed = true;
+        }
+
+        List<String> named(String name) {
+            return events.stream().filter(e -> e.contains("event:" + name + "\n")).toList();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.customer_management_app;
+
+// En este test quiero validar el filtro estructurado (GET /api/customers/filter):
+// - el AND sale ordenado por selectividad estimada: email exacto antes que apellido, prefijos
+//   largos antes que cortos y los contains (sin índice) siempre al final
+// - se rechazan parámetros desconocidos, fechas inválidas, rangos vacíos y contains sin índice
+// - el SQL que usa el servicio con shards filtra lo mismo que se espera (H2 en memoria),
+//   incluidos '%' y '_' literales y el dominio de email sin importar mayúsculas
+
+import com.example.customer_management_app.filter.CustomerFilter;
+import com.example.customer_management_app.filter.FilterPredicate;
+import com.example.customer_management_app.filter.InvalidFilterException;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CustomerFilterTest {
+
+    @Test
+    void predicates_areOrderedByEstimatedSelectivity() {
+        CustomerFilter filter = CustomerFilter.parse(params(
+            "address.contains", "Main", "createdAt.from", "2025-05-01", "email.domain", "@Gmail.com",
+            "lastName.prefix", "Lo", "lastName.eq", "Lopez", "email.eq", " ana@gmail.com ", "page", "2", "sort", "id,DESC"));
+
+        assertEquals(List.of("email.eq", "lastName.eq", "lastName.prefix", "email.domain", "createdAt.from", "address.contains"),
+            filter.predicates().stream().map(FilterPredicate::key).toList());
+        assertNull(filter.predicates().get(5).index());
+        assertEquals("email.eq=ana@gmail.com[ix_customer_email]", filter.predicates().get(0).toString());
+        assertEquals("email.domain=gmail.com[ix_customer_email_domain]", filter.predicates().get(3).toString());
+
+        // Un prefijo largo es más selectivo que uno corto
+        CustomerFilter prefixes = CustomerFilter.parse(params("firstName.prefix", "a", "lastName.prefix", "gonz"));
+        assertEquals("lastName.prefix", prefixes.predicates().get(0).key());
+    }
+
+    @Test
+    void invalidFilters_areRejected() {
+        assertInvalid(params("nickname.eq", "x"), "Unknown filter");
+        assertInvalid(params("page", "0"), "At least one filter");
+        assertInvalid(params("lastName.eq", "  "), "between 1 and");
+        assertInvalid(params("createdAt.from", "yesterday"), "ISO date");
+        assertInvalid(params("createdAt.from", "2025-06-01", "createdAt.to", "2025-05-01"), "before");
+        // Contains solo: LIKE '%x%' recorre toda la tabla
+        assertInvalid(params("address.contains", "main", "email.contains", "gmail"), "indexed filter");
+        // Con un predicado con índice que acote las filas, se acepta
+        assertDoesNotThrow(() -> CustomerFilter.parse(params("address.contains", "main", "lastName.eq", "Lopez")));
+    }
+
+    @Test
+    void sql_filtersTheExpectedRows() {
+        JdbcTemplate jdbc = new JdbcTemplate(new DriverManagerDataSource("jdbc:h2:mem:filter;MODE=PostgreSQL;DB_CLOSE_DELAY=-1"));
+        jdbc.execute("DROP TABLE IF EXISTS customer");
+        jdbc.execute("CREATE TABLE customer (id BIGINT PRIMARY KEY, first_name VARCHAR(40), last_name VARCHAR(40), "
+            + "email VARCHAR(255), phone VARCHAR(15), address VARCHAR(100), created_at TIMESTAMP)");
+        LocalDateTime may = LocalDateTime.of(2025, 5, 1, 0, 0);
+        insert(jdbc, 1, "Ana", "Lopez", "ana@gmail.com", "555-0001", "Main 1", may.minusSeconds(1));
+        insert(jdbc, 2, "Luis", "lozano", "luis@GMAIL.com", "555-0002", "Main 2", may);
+        insert(jdbc, 3, "Lola", "Lo_pez", "lola@corp.com", "555-0003", "Side 3", may.plusDays(10));
+        insert(jdbc, 4, "Bea", "Lopez", "bea@gmail.com.ar", "555-0004", "Main 4", may.plusMonths(1));
+        insert(jdbc, 5, "Ana", "100%Lopez", "ana@corp.com", "555-0001", "Main 5", may.plusDays(3));
+
+        assertEquals(List.of(1L, 2L), ids(jdbc, params("lastName.prefix", "LO", "email.domain", "gmail.com")));
+        assertEquals(List.of(1L, 4L), ids(jdbc, params("lastName.eq", "Lopez")));
+        // '_' y '%' son literales, no comodines
+        assertEquals(List.of(3L), ids(jdbc, params("lastName.prefix", "lo_")));
+        assertEquals(List.of(5L), ids(jdbc, params("lastName.prefix", "100%")));
+        // from inclusivo, to exclusivo
+        assertEquals(List.of(2L, 3L, 5L), ids(jdbc, params("createdAt.from", "2025-05-01", "createdAt.to", "2025-06-01")));
+        assertEquals(List.of(1L, 5L), ids(jdbc, params("phone.eq", "555-0001")));
+        assertEquals(List.of(4L), ids(jdbc, params("firstName.eq", "Bea", "address.contains", "MAIN")));
+        assertEquals(List.of(), ids(jdbc, params("email.eq", "ANA@gmail.com")));
+    }
+
+    private static List<Long> ids(JdbcTemplate jdbc, Map<String, String> params) {
+        CustomerFilter filter = CustomerFilter.parse(params);
+        return jdbc.queryForList("SELECT id FROM customer " + filter.whereSql() + "ORDER BY id", Long.class,
+            filter.sqlParams());
+    }
+
+    private static void insert(JdbcTemplate jdbc, long id, String firstName, String lastName, String email,
+                               String phone, String address, LocalDateTime createdAt) {
+        jdbc.update("INSERT INTO customer VALUES (?, ?, ?, ?, ?, ?, ?)", id, firstName, lastName, email, phone, address,
+            Timestamp.valueOf(createdAt));
+    }
+
+    private static void assertInvalid(Map<String, String> params, String message) {
+        InvalidFilterException e = assertThrows(InvalidFilterException.class, () -> CustomerFilter.parse(params));
+        assertTrue(e.getMessage().contains(message), e.getMessage());
+    }
+
+    private static Map<String, String> params(String... keyValues) {
+        Map<String, String> params = new LinkedHashMap<>();
+        for (int i = 0; i < keyValues.length; i += 2) {
+            params.put(keyValues[i], keyValues[i + 1]);
+        }
+        return params;
+    }
+}
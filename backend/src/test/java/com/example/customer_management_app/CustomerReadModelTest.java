@@ -0,0 +1,261 @@
+package com.example.customer_management_app;
+
+// En este test quiero validar el read model en memoria contra una base real (H2 en memoria):
+// - /page y /search/page devuelven las mismas filas, en el mismo orden y con el mismo total que la base,
+//   para cada sort permitido, antes y después de aplicar cambios (merge base + delta) y de compactar
+// - lookups por email/teléfono y conteos siguen a los cambios; eventos desordenados no vuelven atrás
+// - el chequeo de consistencia detecta cambios hechos por fuera de la app y la recarga los corrige
+// - si la base no ordena strings por código Unicode, los sorts por email/apellido/nombre van a la base
+
+import com.example.customer_management_app.readmodel.CustomerReadModel;
+import com.example.customer_management_app.readmodel.CustomerReadModel.CheckResult;
+import com.example.customer_management_app.readmodel.ReadModelState;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CustomerReadModelTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 5, 1, 8, 0);
+
+    // Cada sort (ya normalizado por SortWhitelist) con su ORDER BY equivalente
+    private static final Map<Sort, String> SORTS = Map.of(
+        Sort.by(Direction.DESC, "id"), "id DESC",
+        Sort.by(Direction.ASC, "email"), "email ASC",
+        Sort.by(Direction.ASC, "lastName", "firstName", "id"), "last_name ASC, first_name ASC, id ASC",
+        Sort.by(Direction.DESC, "lastName", "firstName", "id"), "last_name DESC, first_name DESC, id DESC",
+        Sort.by(Direction.ASC, "firstName", "id"), "first_name ASC, id ASC",
+        Sort.by(Direction.DESC, "createdAt", "id"), "created_at DESC NULLS FIRST, id DESC");
+
+    private static final String CREATE_TABLE = "CREATE TABLE customer (id BIGINT PRIMARY KEY, first_name VARCHAR(40), "
+        + "last_name VARCHAR(40), email VARCHAR(255), phone VARCHAR(20), address VARCHAR(255), created_at TIMESTAMP, "
+        + "updated_at TIMESTAMP)";
+
+    private JdbcTemplate jdbc;
+    private CustomerReadModel readModel;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource ds = new DriverManagerDataSource("jdbc:h2:mem:readmodel;DB_CLOSE_DELAY=-1");
+        jdbc = new JdbcTemplate(ds);
+        jdbc.execute("DROP TABLE IF EXISTS customer");
+        jdbc.execute(CREATE_TABLE);
+        // 60 clientes con apellidos y nombres repetidos (desempate por id), mayúsculas mezcladas y algún null
+        String[] lastNames = {"Smith", "García", "smith", "Lee", "O'Brien"};
+        String[] firstNames = {"Ana", "bob", "Carla", "Ana"};
+        for (int i = 1; i <= 60; i++) {
+            insert(i * 2L, firstNames[i % 4], lastNames[i % 5], "user" + i + (i % 3 == 0 ? "@gmail.com" : "@Corp.com"),
+                i % 7 == 0 ? null : "555-" + (1000 + i % 20), i % 11 == 0 ? null : BASE.plusHours(i % 13));
+        }
+        readModel = new CustomerReadModel(jdbc, new DataSourceTransactionManager(ds), new SimpleMeterRegistry(), 1000);
+        readModel.run(null);
+    }
+
+    @AfterEach
+    void tearDown() {
+        readModel.shutdown();
+    }
+
+    @Test
+    void pagesAndSearch_matchTheDatabase_beforeAndAfterChanges() {
+        assertMatchesDatabase();
+
+        // Cambios confirmados: la base se actualiza y el evento llega al read model
+        LocalDateTime later = BASE.plusDays(1);
+        update(4, "Zoe", "Aaron", "zoe@gmail.com", later);
+        update(10, "Ana", "Smith", "user5@Corp.com", later);
+        delete(2);
+        delete(120);
+        insert(121, "Ana", "Lee", "new@gmail.com", "555-9999", later);
+        readModel.apply(121, load(121));
+        insert(122, "ana", "Smith", "late@corp.com", null, null);
+        readModel.apply(122, load(122));
+        assertTrue(readModel.current().deltaSize() > 0);
+        assertMatchesDatabase();
+    }
+
+    @Test
+    void compaction_foldsTheDeltaIntoANewBase() throws Exception {
+        readModel.shutdown();
+        DriverManagerDataSource ds = new DriverManagerDataSource("jdbc:h2:mem:readmodel;DB_CLOSE_DELAY=-1");
+        readModel = new CustomerReadModel(jdbc, new DataSourceTransactionManager(ds), new SimpleMeterRegistry(), 3);
+        readModel.run(null);
+
+        for (int id = 2; id <= 20; id += 2) {
+            update(id, "Renamed" + id, "Zeta", "renamed" + id + "@gmail.com", BASE.plusDays(2));
+        }
+        // La compactación corre en background cuando el delta pasa el umbral
+        long deadline = System.currentTimeMillis() + 5000;
+        while (readModel.current().deltaSize() >= 3 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(readModel.current().deltaSize() < 3, "the delta should have been compacted");
+        assertEquals(10, readModel.current().countByLastName("Zeta"));
+        assertMatchesDatabase();
+    }
+
+    @Test
+    void lookupsAndCounts_followChanges_andIgnoreOutOfOrderEvents() {
+        ReadModelState before = readModel.current();
+        assertEquals(60, before.count());
+        assertEquals(20, before.countGmailUsers());
+        assertEquals(12, before.countByLastName("Smith"));
+        assertEquals(12, before.countByLastName("smith")); // case-sensitive como la base
+        assertEquals("user7@Corp.com", before.findByEmail("user7@Corp.com").orElseThrow().getEmail());
+        assertTrue(before.findByEmail("USER7@corp.com").isEmpty());
+        // 555-1001 lo comparten los ids 2 (i=1) y 82 (i=41); el 42 (i=21) no tiene teléfono: gana el menor
+        assertEquals(2L, before.findByPhone("555-1001").orElseThrow().getId());
+
+        Customer stale = load(6);
+        update(6, "Ana", "Smith", "moved@gmail.com", BASE.plusDays(1));
+        delete(2);
+
+        ReadModelState after = readModel.current();
+        assertTrue(after.findByEmail(stale.getEmail()).isEmpty());
+        assertEquals(6L, after.findByEmail("moved@gmail.com").orElseThrow().getId());
+        assertEquals(82L, after.findByPhone("555-1001").orElseThrow().getId());
+        assertEquals(59, after.count());
+        assertEquals(20, after.countGmailUsers()); // el 6 sigue en gmail y el 2 no lo era
+        // El estado anterior no cambió: los lectores que lo tenían ven una foto coherente
+        assertEquals(60, before.count());
+
+        // Una versión vieja que llega tarde no pisa la nueva; un borrado no se deshace
+        readModel.apply(6, stale);
+        readModel.apply(2, customer(2, "Ghost", "Smith", "ghost@corp.com", BASE.plusDays(3)));
+        assertEquals("moved@gmail.com", readModel.current().findById(6).orElseThrow().getEmail());
+        assertTrue(readModel.current().findById(2).isEmpty());
+    }
+
+    @Test
+    void consistencyCheck_detectsChangesMadeBehindItsBack_andReloads() {
+        assertTrue(readModel.check(false).consistent());
+
+        // SQL directo: no hay evento
+        jdbc.update("UPDATE customer SET last_name = 'Direct' WHERE id = 8");
+        jdbc.update("DELETE FROM customer WHERE id = 10");
+        insert(500, "Out", "Side", "outside@corp.com", null, BASE);
+
+        CheckResult report = readModel.check(false);
+        assertEquals(1, report.missing());
+        assertEquals(1, report.extra());
+        assertEquals(1, report.stale());
+        assertEquals(List.of(8L, 10L, 500L), report.sampleIds().stream().sorted().toList());
+        assertFalse(report.reloaded());
+
+        CheckResult repaired = readModel.check(true);
+        assertTrue(repaired.reloaded());
+        assertTrue(readModel.check(false).consistent());
+        assertEquals(1, readModel.current().countByLastName("Direct"));
+    }
+
+    @Test
+    void linguisticCollation_sendsStringSortsToTheDatabase() {
+        readModel.shutdown();
+        DriverManagerDataSource ds = new DriverManagerDataSource("jdbc:h2:mem:readmodel-english;DB_CLOSE_DELAY=-1");
+        jdbc = new JdbcTemplate(ds);
+        jdbc.execute("DROP ALL OBJECTS");
+        // Como en_US.UTF-8 en PostgreSQL: "bob" va antes que "Carla" (por código Unicode, después)
+        jdbc.execute("SET COLLATION ENGLISH");
+        jdbc.execute(CREATE_TABLE);
+        insert(1, "Carla", "Smith", "carla@corp.com", null, BASE);
+        insert(2, "bob", "smith", "bob@corp.com", null, BASE.plusHours(1));
+        assertEquals(List.of(2L, 1L), jdbc.queryForList("SELECT id FROM customer ORDER BY first_name, id", Long.class));
+        readModel = new CustomerReadModel(jdbc, new DataSourceTransactionManager(ds), new SimpleMeterRegistry(), 1000);
+        readModel.run(null);
+
+        ReadModelState state = readModel.current();
+        for (Sort sort : SORTS.keySet()) {
+            String property = sort.iterator().next().getProperty();
+            if (property.equals("id") || property.equals("createdAt")) {
+                assertEquals(2, state.page(PageRequest.of(0, 10, sort)).getTotalElements());
+            } else {
+                assertNull(state.page(PageRequest.of(0, 10, sort)), sort.toString());
+                assertNull(state.search("corp", PageRequest.of(0, 10, sort)), sort.toString());
+            }
+        }
+        // Lookups y conteos no dependen de la collation
+        assertEquals(1, state.countByLastName("smith"));
+        assertEquals(2L, state.findByEmail("bob@corp.com").orElseThrow().getId());
+    }
+
+    private void assertMatchesDatabase() {
+        ReadModelState state = readModel.current();
+        long total = jdbc.queryForObject("SELECT COUNT(*) FROM customer", Long.class);
+        for (Map.Entry<Sort, String> sort : SORTS.entrySet()) {
+            for (int page = 0; page * 7 <= total; page++) {
+                Page<Customer> memory = state.page(PageRequest.of(page, 7, sort.getKey()));
+                assertEquals(total, memory.getTotalElements());
+                assertEquals(jdbc.queryForList("SELECT id FROM customer ORDER BY " + sort.getValue()
+                    + " LIMIT 7 OFFSET " + page * 7, Long.class), ids(memory), sort.getKey() + " page " + page);
+            }
+            for (String term : List.of("ana", "gmail", "555-101", "o'b", "zzz")) {
+                String like = "%" + term + "%";
+                String where = " WHERE LOWER(first_name) LIKE ? OR LOWER(last_name) LIKE ? OR LOWER(email) LIKE ?"
+                    + " OR LOWER(phone) LIKE ? OR LOWER(address) LIKE ?";
+                Page<Customer> found = state.search(term, PageRequest.of(1, 5, sort.getKey()));
+                assertEquals(jdbc.queryForObject("SELECT COUNT(*) FROM customer" + where, Long.class,
+                    like, like, like, like, like), found.getTotalElements(), term);
+                assertEquals(jdbc.queryForList("SELECT id FROM customer" + where + " ORDER BY " + sort.getValue()
+                    + " LIMIT 5 OFFSET 5", Long.class, like, like, like, like, like), ids(found), sort.getKey() + " " + term);
+            }
+        }
+        // Un sort sin índice no se resuelve en memoria: va a la base
+        assertNull(state.page(PageRequest.of(0, 10, Sort.by("address"))));
+        assertEquals(jdbc.queryForList("SELECT id FROM customer ORDER BY id", Long.class),
+            state.findAll().stream().map(Customer::getId).toList());
+    }
+
+    private void update(long id, String firstName, String lastName, String email, LocalDateTime updatedAt) {
+        jdbc.update("UPDATE customer SET first_name = ?, last_name = ?, email = ?, updated_at = ? WHERE id = ?",
+            firstName, lastName, email, Timestamp.valueOf(updatedAt), id);
+        readModel.apply(id, load(id));
+    }
+
+    private void delete(long id) {
+        jdbc.update("DELETE FROM customer WHERE id = ?", id);
+        readModel.apply(id, null);
+    }
+
+    private Customer load(long id) {
+        return jdbc.queryForObject("SELECT * FROM customer WHERE id = ?", (rs, n) -> {
+            Customer c = new Customer(rs.getLong("id"), rs.getString("first_name"), rs.getString("last_name"),
+                rs.getString("email"), rs.getString("phone"), rs.getString("address"));
+            Timestamp created = rs.getTimestamp("created_at");
+            c.setCreatedAt(created != null ? created.toLocalDateTime() : null);
+            c.setUpdatedAt(rs.getTimestamp("updated_at").toLocalDateTime());
+            return c;
+        }, id);
+    }
+
+    private static Customer customer(long id, String firstName, String lastName, String email, LocalDateTime at) {
+        Customer c = new Customer(id, firstName, lastName, email, null, null);
+        c.setCreatedAt(at);
+        c.setUpdatedAt(at);
+        return c;
+    }
+
+    private void insert(long id, String firstName, String lastName, String email, String phone, LocalDateTime createdAt) {
+        jdbc.update("INSERT INTO customer (id, first_name, last_name, email, phone, address, created_at, updated_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)", id, firstName, lastName, email, phone, "Street " + id,
+            createdAt != null ? Timestamp.valueOf(createdAt) : null, Timestamp.valueOf(createdAt != null ? createdAt : BASE));
+    }
+
+    private static List<Long> ids(Page<Customer> page) {
+        return page.getContent().stream().map(Customer::getId).toList();
+    }
+}
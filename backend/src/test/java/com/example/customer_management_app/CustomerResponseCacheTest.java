@@ -0,0 +1,154 @@
+package com.example.customer_management_app;
+
+// En este test quiero validar la cache de respuestas serializadas de GET /{id}:
+// - un hit no vuelve a llamar al loader (servicio) y devuelve los mismos bytes
+// - If-None-Match con el ETag -> 304; gzip solo si el cliente lo acepta y conviene
+// - el límite es en bytes (LRU) y una escritura invalida la entrada
+// - una invalidación durante la lectura impide cachear una respuesta vieja
+
+import com.example.customer_management_app.events.CustomerChangedEvent;
+import com.example.customer_management_app.responsecache.CustomerResponseCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CustomerResponseCacheTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private CustomerResponseCache cache(long maxBytes, int gzipMinBytes) {
+        return new CustomerResponseCache(objectMapper, ObservationRegistry.NOOP, new SimpleMeterRegistry(),
+            true, maxBytes, gzipMinBytes);
+    }
+
+    private static Customer customer(long id, String address) {
+        Customer c = new Customer(id, "John", "Doe", "john" + id + "@example.com", "123-4567", address);
+        c.setUpdatedAt(LocalDateTime.of(2025, 1, 1, 10, 0));
+        return c;
+    }
+
+    @Test
+    void hit_skipsTheLoaderAndReturnsSameBytes() throws IOException {
+        CustomerResponseCache cache = cache(1 << 20, 512);
+        AtomicInteger loads = new AtomicInteger();
+
+        ResponseEntity<byte[]> first = cache.getOrLoad(1L, () -> {
+            loads.incrementAndGet();
+            return Optional.of(customer(1L, "1 Main St"));
+        }, null, null);
+        ResponseEntity<byte[]> second = cache.getOrLoad(1L, () -> {
+            loads.incrementAndGet();
+            return Optional.empty();
+        }, null, null);
+
+        assertEquals(1, loads.get());
+        assertEquals(HttpStatus.OK, second.getStatusCode());
+        assertSame(first.getBody(), second.getBody());
+        assertEquals("John", objectMapper.readTree(second.getBody()).get("firstName").asText());
+        assertEquals(first.getHeaders().getETag(), second.getHeaders().getETag());
+    }
+
+    @Test
+    void missingCustomer_isNotFoundAndNotCached() {
+        CustomerResponseCache cache = cache(1 << 20, 512);
+
+        assertEquals(HttpStatus.NOT_FOUND, cache.getOrLoad(7L, Optional::empty, null, null).getStatusCode());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void matchingIfNoneMatch_returnsNotModified() {
+        CustomerResponseCache cache = cache(1 << 20, 512);
+        String etag = cache.getOrLoad(1L, () -> Optional.of(customer(1L, "1 Main St")), null, null)
+            .getHeaders().getETag();
+
+        ResponseEntity<byte[]> conditional = cache.getOrLoad(1L, Optional::empty, null, etag);
+
+        assertEquals(HttpStatus.NOT_MODIFIED, conditional.getStatusCode());
+        assertNull(conditional.getBody());
+    }
+
+    @Test
+    void gzip_onlyWhenAcceptedAndWorthIt() throws IOException {
+        CustomerResponseCache cache = cache(1 << 20, 512);
+        String longAddress = "Calle Larga ".repeat(60);
+        byte[] plain = cache.getOrLoad(1L, () -> Optional.of(customer(1L, longAddress)), null, null).getBody();
+
+        ResponseEntity<byte[]> gzipped = cache.getOrLoad(1L, Optional::empty, "gzip, deflate, br", null);
+        assertEquals("gzip", gzipped.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertTrue(gzipped.getBody().length < plain.length);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped.getBody()))) {
+            assertArrayEquals(plain, in.readAllBytes());
+        }
+
+        // Un cliente chico (debajo de gzip-min-bytes) va sin comprimir aunque se acepte gzip
+        cache.getOrLoad(2L, () -> Optional.of(customer(2L, "1 Main St")), null, null);
+        assertNull(cache.getOrLoad(2L, Optional::empty, "gzip", null).getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+    }
+
+    @Test
+    void memoryIsBoundedInBytes_evictingLeastRecentlyUsed() {
+        CustomerResponseCache probe = cache(1 << 20, 512);
+        probe.getOrLoad(1L, () -> Optional.of(customer(1L, "1 Main St")), null, null);
+        long entryBytes = probe.sizeInBytes();
+
+        CustomerResponseCache cache = cache(entryBytes * 3 + entryBytes / 2, 512);
+        for (long id = 1; id <= 3; id++) {
+            long customerId = id;
+            cache.getOrLoad(id, () -> Optional.of(customer(customerId, "1 Main St")), null, null);
+        }
+        cache.getOrLoad(1L, Optional::empty, null, null); // 1 pasa a ser el más reciente
+        cache.getOrLoad(4L, () -> Optional.of(customer(4L, "1 Main St")), null, null);
+
+        assertEquals(3, cache.size());
+        assertTrue(cache.sizeInBytes() <= entryBytes * 3 + entryBytes / 2);
+        assertEquals(HttpStatus.OK, cache.getOrLoad(1L, Optional::empty, null, null).getStatusCode());
+        // 2 era el menos usado: fue desalojado y hay que volver a cargarlo
+        assertEquals(HttpStatus.NOT_FOUND, cache.getOrLoad(2L, Optional::empty, null, null).getStatusCode());
+    }
+
+    @Test
+    void changeEvent_invalidatesEntry() {
+        CustomerResponseCache cache = cache(1 << 20, 512);
+        Customer before = customer(1L, "1 Main St");
+        String oldEtag = cache.getOrLoad(1L, () -> Optional.of(before), null, null).getHeaders().getETag();
+
+        Customer after = customer(1L, "2 Other St");
+        after.setUpdatedAt(LocalDateTime.of(2025, 1, 2, 10, 0));
+        cache.onCustomerChanged(CustomerChangedEvent.updated(before, after));
+
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.sizeInBytes());
+        ResponseEntity<byte[]> reloaded = cache.getOrLoad(1L, () -> Optional.of(after), null, null);
+        assertNotEquals(oldEtag, reloaded.getHeaders().getETag());
+        assertTrue(new String(reloaded.getBody()).contains("2 Other St"));
+    }
+
+    @Test
+    void invalidationDuringLoad_responseIsServedButNotCached() {
+        CustomerResponseCache cache = cache(1 << 20, 512);
+
+        // Leo la versión vieja y, antes de cachearla, se confirma una escritura del mismo cliente
+        ResponseEntity<byte[]> stale = cache.getOrLoad(1L, () -> {
+            Customer old = customer(1L, "1 Main St");
+            cache.invalidate(1L);
+            return Optional.of(old);
+        }, null, null);
+
+        assertEquals(HttpStatus.OK, stale.getStatusCode());
+        assertEquals(0, cache.size());
+    }
+}
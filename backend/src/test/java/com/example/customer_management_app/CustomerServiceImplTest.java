@@ -7,6 +7,7 @@ import org.mockito.InjectMocks; // Permite inyectar mocks en la clase de prueba
 import org.mockito.Mock; // Permite crear un mock de CustomerRepository
 import org.junit.jupiter.api.extension.ExtendWith; // Importa la anotación para extender con Mockito
 import org.mockito.junit.jupiter.MockitoExtension; // Importa la extensión de Mockito para JUnit 5
+import org.springframework.context.ApplicationEventPublisher; // Publicador de eventos que usa el servicio
 
 import java.util.Arrays;
 import java.util.List;
@@ -26,6 +27,9 @@ class CustomerServiceImplTest {
     @Mock // Crea un mock de CustomerRepository
     private CustomerRepository customerRepository;
 
+    @Mock // Mock del publicador de eventos (el servicio publica CustomerChangedEvent en cada escritura)
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks // Inyecta el mock en CustomerServiceImpl
     // Esto permite que CustomerServiceImpl use el mock de CustomerRepository en lugar de una implementación
     private CustomerServiceImpl customerService;
@@ -0,0 +1,179 @@
+package com.example.customer_management_app;
+
+// En este test quiero validar el snapshot binario de clientes contra una base real (H2 en memoria):
+// - escribir, volver a mapear el archivo y responder lookups por id y conteos sin ir a la base
+// - el catch-up trae modificaciones (updated_at), bajas y altas que confirmaron tarde con updated_at viejo
+// - los cambios en vivo ajustan los conteos y un catch-up viejo no los pisa
+// - un archivo truncado o ajeno se rechaza y la app lee de la base
+
+import com.example.customer_management_app.snapshot.CustomerSnapshotFile;
+import com.example.customer_management_app.snapshot.CustomerSnapshotStore;
+import com.example.customer_management_app.snapshot.CustomerSnapshotView;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CustomerSnapshotTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 3, 1, 9, 0);
+
+    @TempDir
+    Path dir;
+
+    private JdbcTemplate jdbc;
+    private DataSourceTransactionManager txManager;
+    private Path file;
+    private final List<CustomerSnapshotStore> stores = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource ds = new DriverManagerDataSource("jdbc:h2:mem:snapshot;DB_CLOSE_DELAY=-1");
+        jdbc = new JdbcTemplate(ds);
+        txManager = new DataSourceTransactionManager(ds);
+        jdbc.execute("DROP TABLE IF EXISTS customer");
+        jdbc.execute("CREATE TABLE customer (id BIGINT PRIMARY KEY, first_name VARCHAR(40), last_name VARCHAR(40), "
+            + "email VARCHAR(255), phone VARCHAR(20), address VARCHAR(255), created_at TIMESTAMP, updated_at TIMESTAMP)");
+        // 30 clientes, ids con huecos; 1 de cada 3 es Pérez, los pares usan gmail, el 7 no tiene teléfono
+        for (int i = 1; i <= 30; i++) {
+            insert(i * 2L, "Name" + i, i % 3 == 0 ? "Pérez" : "Smith", i % 2 == 0 ? "n" + i + "@gmail.com" : "n" + i + "@mail.com",
+                i == 7 ? null : "555-" + i, BASE.plusMinutes(i));
+        }
+        file = dir.resolve("customers.bin");
+    }
+
+    @AfterEach
+    void tearDown() {
+        stores.forEach(CustomerSnapshotStore::shutdown);
+    }
+
+    @Test
+    void writtenSnapshot_isMappedOnRestart_andServesLookupsAndCounts() throws IOException {
+        newStore().writeAndSwap();
+
+        // "Reinicio": un store nuevo mapea el archivo en el constructor, antes de cualquier consulta
+        jdbc.execute("DELETE FROM customer");
+        CustomerSnapshotStore restarted = newStore();
+        CustomerSnapshotView view = restarted.servingView();
+        assertNotNull(view, "the mapped snapshot is served while starting");
+        assertEquals(30, view.file().rowCount());
+        assertEquals(BASE.plusMinutes(30), view.file().watermark());
+
+        Customer c = view.findById(14).orElseThrow();
+        assertEquals("Name7", c.getFirstName());
+        assertEquals("Smith", c.getLastName());
+        assertEquals("n7@mail.com", c.getEmail());
+        assertNull(c.getPhone());
+        assertEquals(BASE.plusMinutes(7), c.getUpdatedAt());
+        assertTrue(view.findById(15).isEmpty());
+        assertTrue(view.findById(1000).isEmpty());
+
+        assertEquals(30, view.count());
+        assertEquals(10, view.countByLastName("Pérez"));
+        assertEquals(20, view.countByLastName("Smith"));
+        assertEquals(0, view.countByLastName("Lee"));
+        assertEquals(15, view.countGmailUsers());
+    }
+
+    @Test
+    void catchUp_appliesUpdatesDeletesAndLateInserts() throws IOException {
+        newStore().writeAndSwap();
+        LocalDateTime later = BASE.plusHours(2);
+
+        jdbc.update("UPDATE customer SET last_name = 'Lee', email = 'lee@yahoo.com', updated_at = ? WHERE id = 6",
+            Timestamp.valueOf(later));
+        jdbc.update("DELETE FROM customer WHERE id IN (2, 60)");
+        insert(61, "New", "Pérez", "new@gmail.com", "555", later);
+        // Confirmó después del snapshot pero con un updated_at anterior al watermark
+        insert(59, "Late", "Smith", "late@gmail.com", "555", BASE.minusDays(1));
+
+        CustomerSnapshotStore restarted = newStore();
+        restarted.run(null);
+        CustomerSnapshotView view = restarted.servingView();
+        assertNotNull(view);
+        assertTrue(view.isConsistent());
+
+        assertEquals("Lee", view.findById(6).orElseThrow().getLastName());
+        assertTrue(view.findById(2).isEmpty());
+        assertTrue(view.findById(60).isEmpty());
+        assertEquals("New", view.findById(61).orElseThrow().getFirstName());
+        assertEquals("Late", view.findById(59).orElseThrow().getFirstName());
+
+        long total = jdbc.queryForObject("SELECT COUNT(*) FROM customer", Long.class);
+        long perez = jdbc.queryForObject("SELECT COUNT(*) FROM customer WHERE last_name = 'Pérez'", Long.class);
+        long gmail = jdbc.queryForObject("SELECT COUNT(*) FROM customer WHERE email LIKE '%gmail.com%'", Long.class);
+        assertEquals(total, view.count());
+        assertEquals(perez, view.countByLastName("Pérez"));
+        assertEquals(1, view.countByLastName("Lee"));
+        assertEquals(gmail, view.countGmailUsers());
+    }
+
+    @Test
+    void liveChanges_adjustCounts_andAreNotOverwrittenByOlderRows() throws IOException {
+        CustomerSnapshotStore store = newStore();
+        store.writeAndSwap();
+        CustomerSnapshotView view = store.servingView();
+
+        Customer renamed = view.findById(4).orElseThrow();
+        renamed.setLastName("Pérez");
+        renamed.setUpdatedAt(BASE.plusHours(1));
+        view.applyLive(4, renamed);
+        view.applyLive(6, null);
+
+        assertEquals(29, view.count());
+        assertEquals(10, view.countByLastName("Pérez")); // +1 (id 4) -1 (id 6 era Pérez)
+        assertEquals(15, view.countGmailUsers()); // ni el 4 ni el 6 cambiaron de dominio
+        assertTrue(view.findById(6).isEmpty());
+
+        // Un catch-up que leyó la fila antes del cambio no lo deshace
+        view.applyCatchUp(4, jdbc.query("SELECT * FROM customer WHERE id = 4", (rs, n) -> {
+            Customer c = new Customer(rs.getLong("id"), rs.getString("first_name"), rs.getString("last_name"),
+                rs.getString("email"), rs.getString("phone"), rs.getString("address"));
+            c.setUpdatedAt(rs.getTimestamp("updated_at").toLocalDateTime());
+            return c;
+        }).get(0));
+        assertEquals("Pérez", view.findById(4).orElseThrow().getLastName());
+        assertEquals(10, view.countByLastName("Pérez"));
+    }
+
+    @Test
+    void truncatedOrForeignFile_isRejected() throws IOException {
+        newStore().writeAndSwap();
+        byte[] bytes = Files.readAllBytes(file);
+
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 10));
+        assertThrows(IOException.class, () -> CustomerSnapshotFile.open(file));
+        assertNull(newStore().servingView(), "an unreadable snapshot falls back to the database");
+
+        Files.writeString(file, "not a snapshot at all, just some text that is long enough for a header ........");
+        assertThrows(IOException.class, () -> CustomerSnapshotFile.open(file));
+    }
+
+    private CustomerSnapshotStore newStore() {
+        CustomerSnapshotStore store = new CustomerSnapshotStore(jdbc, txManager, new SimpleMeterRegistry(),
+            file.toString(), 5000);
+        stores.add(store);
+        return store;
+    }
+
+    private void insert(long id, String firstName, String lastName, String email, String phone, LocalDateTime at) {
+        jdbc.update("INSERT INTO customer (id, first_name, last_name, email, phone, address, created_at, updated_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)", id, firstName, lastName, email, phone, "Street " + id,
+            Timestamp.valueOf(at), Timestamp.valueOf(at));
+    }
+}
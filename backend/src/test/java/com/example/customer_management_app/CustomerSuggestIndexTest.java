@@ -0,0 +1,103 @@
+package com.example.customer_management_app;
+
+// En este test quiero validar el rebuild del índice de autocompletado (H2 en memoria):
+// - un cambio confirmado MIENTRAS se recorre la tabla no se pierde al publicar el diccionario nuevo
+// - mientras dura el recorrido, las lecturas siguen viendo las altas/bajas recientes
+// - si el recorrido falla, el índice anterior queda con todos sus deltas
+
+import com.example.customer_management_app.dto.SuggestionResponse;
+import com.example.customer_management_app.events.CustomerChangedEvent;
+import com.example.customer_management_app.search.CustomerSuggestIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CustomerSuggestIndexTest {
+
+    private JdbcTemplate jdbc;
+    private CustomerSuggestIndex index;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource ds = new DriverManagerDataSource("jdbc:h2:mem:suggest;DB_CLOSE_DELAY=-1");
+        jdbc = new JdbcTemplate(ds);
+        jdbc.execute("DROP VIEW IF EXISTS customer");
+        jdbc.execute("DROP TABLE IF EXISTS customer_rows");
+        jdbc.execute("CREATE TABLE customer_rows (first_name VARCHAR(40), last_name VARCHAR(40), email VARCHAR(255))");
+        jdbc.update("INSERT INTO customer_rows VALUES ('Ana', 'Lopez', 'ana@example.com')");
+        // La vista llama al hook mientras el rebuild recorre la tabla
+        jdbc.execute("CREATE ALIAS IF NOT EXISTS SCAN_HOOK FOR '" + ScanHook.class.getName() + ".fire'");
+        jdbc.execute("CREATE VIEW customer AS SELECT first_name, last_name, email FROM customer_rows WHERE SCAN_HOOK() = 1");
+        index = new CustomerSuggestIndex(jdbc, new DataSourceTransactionManager(ds), new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        ScanHook.action = null;
+    }
+
+    @Test
+    void changesCommittedDuringTheScan_surviveThePublish() {
+        index.rebuild();
+        index.onCustomerChanged(CustomerChangedEvent.created(customer(2L, "Bruno", "Zorro", "bruno@example.com")));
+
+        ScanHook.action = () -> {
+            // La baja de Ana se confirma con el SELECT ya en curso (la fila sigue en su snapshot)
+            index.onCustomerChanged(CustomerChangedEvent.deleted(1L, customer(1L, "Ana", "Lopez", "ana@example.com")));
+            index.onCustomerChanged(CustomerChangedEvent.created(customer(3L, "Zoe", "Zamora", "zoe@example.com")));
+            // Durante el recorrido: el alta previa al rebuild sigue visible y la baja ya aplica
+            assertEquals(List.of("zorro"), values(index.suggest("zor", 10)));
+            assertEquals(List.of(), values(index.suggest("ana", 10)));
+        };
+        index.rebuild();
+        ScanHook.action = null;
+
+        // Diccionario nuevo (solo Ana) + cambios registrados desde el inicio del recorrido
+        assertEquals(List.of(), values(index.suggest("ana", 10)));
+        assertEquals(List.of("zamora"), values(index.suggest("zam", 10)));
+        // Bruno se creó antes del rebuild pero no está en la tabla simulada: el delta viejo se descarta
+        assertEquals(List.of(), values(index.suggest("zor", 10)));
+    }
+
+    @Test
+    void failedRebuild_keepsPreviousDeltas() {
+        index.rebuild();
+        index.onCustomerChanged(CustomerChangedEvent.created(customer(2L, "Nuevo", "Cliente", "nuevo@example.com")));
+        jdbc.execute("DROP VIEW customer");
+
+        index.rebuild();
+
+        assertEquals(List.of("nuevo", "nuevo@example.com"), values(index.suggest("nue", 10)));
+        assertEquals(List.of("lopez"), values(index.suggest("lop", 10)));
+    }
+
+    private static Customer customer(Long id, String firstName, String lastName, String email) {
+        return new Customer(id, firstName, lastName, email, "555-0001", "Main 1");
+    }
+
+    private static List<String> values(List<SuggestionResponse> suggestions) {
+        return suggestions.stream().map(SuggestionResponse::getValue).toList();
+    }
+
+    // Función de H2 que corre dentro del SELECT del rebuild
+    public static class ScanHook {
+        static volatile Runnable action;
+
+        public static int fire() {
+            Runnable r = action;
+            action = null;
+            if (r != null) {
+                r.run();
+            }
+            return 1;
+        }
+    }
+}
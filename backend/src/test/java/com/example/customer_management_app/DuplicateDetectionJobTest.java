@@ -0,0 +1,85 @@
+package com.example.customer_management_app;
+
+// En este test quiero validar la detección de duplicados contra una base real (H2 en memoria):
+// - agrupa al mismo cliente con typo en el nombre / email con otras mayúsculas / mismo teléfono
+// - no junta personas distintas que solo comparten apellido
+// - deja el resultado completo en un archivo JSON Lines
+
+import com.example.customer_management_app.dto.DuplicateClusterResponse;
+import com.example.customer_management_app.dto.DuplicateReportResponse;
+import com.example.customer_management_app.duplicates.DuplicateDetectionJob;
+import com.example.customer_management_app.duplicates.DuplicateMatcher;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DuplicateDetectionJobTest {
+
+    @TempDir
+    Path outputDir;
+
+    private JdbcTemplate jdbc;
+    private DuplicateDetectionJob job;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource ds = new DriverManagerDataSource("jdbc:h2:mem:duplicates;DB_CLOSE_DELAY=-1");
+        jdbc = new JdbcTemplate(ds);
+        jdbc.execute("DROP TABLE IF EXISTS customer");
+        jdbc.execute("CREATE TABLE customer (id BIGINT PRIMARY KEY, first_name VARCHAR(40), last_name VARCHAR(40), "
+            + "email VARCHAR(255), phone VARCHAR(15))");
+        // Pocas particiones y 4 hilos: igual cubre varios archivos y tareas en paralelo
+        job = new DuplicateDetectionJob(jdbc, new DataSourceTransactionManager(ds), new ObjectMapper(),
+            new SimpleMeterRegistry(), 0.85, 8, 4, 1000, 1000, outputDir.toString());
+    }
+
+    @Test
+    void run_groupsNearDuplicatesIntoScoredClusters() throws Exception {
+        insert(1, "John", "Smith", "john.smith@example.com", "555-1234");
+        insert(2, "Jon", "Smith", "John.Smith@Example.com", "555-1234");    // mismo email con mayúsculas
+        insert(3, "Jhon", "Smyth", "johnsmith@other.org", "(555) 1234");   // typo + mismo teléfono
+        insert(4, "Maria", "Garcia", "maria.garcia@example.com", "555-9999");
+        insert(5, "Marie", "Garcia", "maria.garcia+shop@example.com", null); // mismo local part
+        insert(6, "Peter", "Smith", "peter@example.com", "555-0000");       // mismo apellido, otra persona
+
+        DuplicateReportResponse report = job.run();
+
+        assertEquals("COMPLETED", report.getStatus());
+        assertEquals(6, report.getRowsScanned());
+        assertEquals(2, report.getClusterCount());
+        List<List<Long>> clusters = report.getClusters().stream().map(DuplicateClusterResponse::getCustomerIds).toList();
+        assertTrue(clusters.contains(List.of(1L, 2L, 3L)), clusters.toString());
+        assertTrue(clusters.contains(List.of(4L, 5L)), clusters.toString());
+        report.getClusters().forEach(c -> assertTrue(c.getScore() >= 0.85));
+
+        List<String> lines = Files.readAllLines(Path.of(report.getOutputFile()));
+        assertEquals(2, lines.size());
+        assertEquals(1, job.lastReport(1).getClusters().size());
+    }
+
+    @Test
+    void matcher_phoneticKeyAndSimilarity() {
+        assertEquals("R163", DuplicateMatcher.blockingKeys(DuplicateMatcher.Row.of(1, "a", "Robert", "", null), "a", "Robert")
+            .get(0).substring(2, 6));
+        DuplicateMatcher.Row a = DuplicateMatcher.Row.of(1, "Martha", "Lopez", "martha@x.com", "111-2222");
+        DuplicateMatcher.Row b = DuplicateMatcher.Row.of(2, "Marhta", "Lopez", "marhta@y.com", "111-2222");
+        DuplicateMatcher.Row c = DuplicateMatcher.Row.of(3, "Zoe", "Kim", "zk@z.com", "999-8888");
+        assertTrue(DuplicateMatcher.score(a, b) > 0.9);
+        assertTrue(DuplicateMatcher.score(a, c) < 0.5);
+    }
+
+    private void insert(long id, String first, String last, String email, String phone) {
+        jdbc.update("INSERT INTO customer VALUES (?, ?, ?, ?, ?)", id, first, last, email, phone);
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.customer_management_app;
+
+// En este test quiero medir cuánto cuesta responder 404/409 por la capa web (MockMvc standalone):
+// - "before": excepciones con stack trace (como lanzaba el servicio antes)
+// - "after":  CustomerNotFoundException / DuplicateEmailException sin stack trace
+//
+// El benchmark es opt-in (tarda ~1 min):  mvn test -Dtest=ErrorPathBenchmarkTest -Dbenchmark=true
+// Sin esa property solo corren los chequeos de que las excepciones de negocio no llenan el stack
+// y de que POST/PUT/DELETE responden con el ErrorResponse de GlobalExceptionHandler (no con body vacío).
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class ErrorPathBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ErrorPathBenchmarkTest.class);
+
+    private static final int WARMUP = 20_000;
+    private static final int MEASURED = 50_000;
+
+    @Test
+    void domainExceptions_haveNoStackTrace() {
+        assertEquals(0, new CustomerNotFoundException(7L).getStackTrace().length);
+        assertEquals(0, new DuplicateEmailException("x").getStackTrace().length);
+        // Siguen siendo IllegalArgumentException para quien ya las capturaba así
+        assertInstanceOf(IllegalArgumentException.class, new CustomerNotFoundException(7L));
+    }
+
+    @Test
+    void writeErrors_useTheHandlerErrorResponse() throws Exception {
+        CustomerService service = mock(CustomerService.class);
+        doThrow(new CustomerNotFoundException(99L)).when(service).deleteCustomer(99L);
+        when(service.updateCustomer(eq(99L), any())).thenThrow(new CustomerNotFoundException(99L));
+        when(service.updateCustomer(eq(1L), any())).thenThrow(new DuplicateEmailException("Email already exists: taken@example.com"));
+        when(service.createCustomer(any())).thenThrow(new DuplicateEmailException("Email already exists: taken@example.com"));
+        MockMvc mvc = mvc(service);
+
+        mvc.perform(delete("/api/customers/99"))
+            .andExpect(status().isNotFound())
+            .andExpect(jsonPath("$.path").value("/api/customers/99"))
+            .andExpect(jsonPath("$.message").value("Customer not found with ID: 99"));
+        mvc.perform(put("/api/customers/99").contentType(MediaType.APPLICATION_JSON).content(body()))
+            .andExpect(status().isNotFound())
+            .andExpect(jsonPath("$.error").value("Not Found"));
+        mvc.perform(put("/api/customers/1").contentType(MediaType.APPLICATION_JSON).content(body()))
+            .andExpect(status().isConflict())
+            .andExpect(jsonPath("$.message").value("Email already exists: taken@example.com"));
+        mvc.perform(create())
+            .andExpect(status().isConflict())
+            .andExpect(jsonPath("$.status").value(409));
+
+        // Validación de negocio del servicio en el alta: 400, no 404
+        reset(service);
+        when(service.createCustomer(any())).thenThrow(new IllegalArgumentException("Invalid email format"));
+        mvc.perform(create())
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value("Invalid email format"));
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void notFoundAndConflictThroughput() throws Exception {
+        Map<String, Double> results = new LinkedHashMap<>();
+        // "before" de 404: igual que en 409, el costo extra era llenar el stack al construir la excepción
+        results.put("404 before", run(delete("/api/customers/99"), 404, () -> {
+            new Throwable();
+            return new CustomerNotFoundException(99L);
+        }, null));
+        results.put("404 after ", run(delete("/api/customers/99"), 404,
+            () -> new CustomerNotFoundException(99L), null));
+        // "before" de 409: el costo extra de antes era llenar el stack al construir la excepción
+        results.put("409 before", run(create(), 409, null, () -> {
+            new Throwable();
+            return new DuplicateEmailException("Email already exists: taken@example.com");
+        }));
+        results.put("409 after ", run(create(), 409, null,
+            () -> new DuplicateEmailException("Email already exists: taken@example.com")));
+
+        results.forEach((name, opsPerSecond) ->
+            log.info("ErrorPathBenchmark {}: {} req/s", name, String.format(Locale.ROOT, "%,.0f", opsPerSecond)));
+        assertTrue(results.values().stream().allMatch(v -> v > 0));
+    }
+
+    private static double run(RequestBuilder request, int expectedStatus,
+                              Supplier<RuntimeException> onDelete, Supplier<RuntimeException> onCreate) throws Exception {
+        CustomerService service = mock(CustomerService.class);
+        if (onDelete != null) {
+            doAnswer(inv -> { throw onDelete.get(); }).when(service).deleteCustomer(anyLong());
+        }
+        if (onCreate != null) {
+            when(service.createCustomer(any())).thenAnswer(inv -> { throw onCreate.get(); });
+        }
+        MockMvc mvc = mvc(service);
+
+        for (int i = 0; i < WARMUP; i++) {
+            assertEquals(expectedStatus, mvc.perform(request).andReturn().getResponse().getStatus());
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED; i++) {
+            mvc.perform(request);
+        }
+        return MEASURED / ((System.nanoTime() - start) / 1e9);
+    }
+
+    private static MockMvc mvc(CustomerService service) {
+        CustomerManagementAPP controller = new CustomerManagementAPP();
+        ReflectionTestUtils.setField(controller, "customerService", service);
+        return MockMvcBuilders.standaloneSetup(controller)
+            .setControllerAdvice(new GlobalExceptionHandler())
+            .build();
+    }
+
+    private static RequestBuilder create() throws Exception {
+        return post("/api/customers").contentType(MediaType.APPLICATION_JSON).content(body());
+    }
+
+    private static String body() throws Exception {
+        Map<String, String> body = Map.of("firstName", "John", "lastName", "Doe",
+            "email", "taken@example.com", "phone", "123-4567", "address", "1 Main St");
+        return new ObjectMapper().writeValueAsString(body);
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.customer_management_app;
+
+// En este test quiero validar el control de las condiciones que Spring AOT deja fijas en el build:
+// - toda propiedad usada en un @ConditionalOnProperty / @ConditionalOnExpression de la app está en
+//   FrozenConditions.TOGGLES, con el mismo valor por defecto (si alguien suma un interruptor, el test lo avisa)
+// - process-aot guarda los valores efectivos en el recurso que lee el arranque
+// - al arrancar, un interruptor o un perfil con beans distinto del build hace fallar la app con un mensaje claro
+
+import com.example.customer_management_app.config.FrozenConditions;
+import com.example.customer_management_app.config.FrozenConditionsAotProcessor;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.generate.ClassNameGenerator;
+import org.springframework.aot.generate.DefaultGenerationContext;
+import org.springframework.aot.generate.GeneratedFiles;
+import org.springframework.aot.generate.InMemoryGeneratedFiles;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.MergedAnnotation;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.core.type.classreading.CachingMetadataReaderFactory;
+import org.springframework.javapoet.ClassName;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FrozenConditionsTest {
+
+    private static final Pattern PLACEHOLDER = Pattern.compile("\\$\\{([^:}]+):?([^}]*)}");
+
+    @Test
+    void everyConditionOnAppProperties_isTrackedWithItsDefault() throws Exception {
+        Map<String, Boolean> found = new TreeMap<>();
+        CachingMetadataReaderFactory readers = new CachingMetadataReaderFactory();
+        for (Resource resource : new PathMatchingResourcePatternResolver()
+                .getResources("classpath*:com/example/customer_management_app/**/*.class")) {
+            AnnotationMetadata type = readers.getMetadataReader(resource).getAnnotationMetadata();
+            List<AnnotatedTypeMetadata> annotated = new ArrayList<>(List.of(type));
+            annotated.addAll(type.getDeclaredMethods());
+            for (AnnotatedTypeMetadata element : annotated) {
+                collect(element, found);
+            }
+        }
+        assertEquals(FrozenConditions.TOGGLES, found);
+    }
+
+    @Test
+    void aotProcessor_storesTheBuildTimeValues() throws Exception {
+        MockEnvironment environment = new MockEnvironment().withProperty("app.read-model.enabled", "true");
+        environment.setActiveProfiles("prod", "fast-startup");
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerSingleton("environment", environment);
+        InMemoryGeneratedFiles files = new InMemoryGeneratedFiles();
+        DefaultGenerationContext generation = new DefaultGenerationContext(
+            new ClassNameGenerator(ClassName.get(FrozenConditionsTest.class)), files);
+
+        new FrozenConditionsAotProcessor().processAheadOfTime(beanFactory).applyTo(generation, null);
+
+        Properties stored = new Properties();
+        stored.load(new StringReader(files.getGeneratedFileContent(GeneratedFiles.Kind.RESOURCE, FrozenConditions.RESOURCE)));
+        assertEquals("true", stored.getProperty("app.read-model.enabled"));
+        assertEquals("true", stored.getProperty("app.coalescing.enabled"), "matchIfMissing is stored as its effective value");
+        assertEquals("true", stored.getProperty("profile.prod"));
+        assertEquals("false", stored.getProperty("profile.dev"));
+    }
+
+    @Test
+    void verify_acceptsTheBuildConfiguration_andNamesEveryDifference() {
+        MockEnvironment build = new MockEnvironment();
+        build.setActiveProfiles("prod", "fast-startup");
+        Properties built = FrozenConditions.snapshot(build);
+
+        // Mismos valores, aunque vengan escritos distinto o con perfiles que solo aportan propiedades
+        MockEnvironment same = new MockEnvironment().withProperty("app.coalescing.enabled", "TRUE");
+        same.setActiveProfiles("prod", "fast-startup", "buildtime");
+        FrozenConditions.verify(built, same);
+
+        MockEnvironment changed = new MockEnvironment().withProperty("app.sharding.enabled", "true");
+        changed.setActiveProfiles("dev", "fast-startup");
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> FrozenConditions.verify(built, changed));
+        assertTrue(e.getMessage().contains("app.sharding.enabled=true (built with false)"), e.getMessage());
+        assertTrue(e.getMessage().contains("profile 'dev' is active (built without it)"), e.getMessage());
+        assertTrue(e.getMessage().contains("profile 'prod' is not active (built with it)"), e.getMessage());
+    }
+
+    @Test
+    void verify_ignoresTogglesTheBuildDidNotRecord() {
+        Properties built = new Properties();
+        built.setProperty("app.sharding.enabled", "false");
+        FrozenConditions.verify(built, new MockEnvironment().withProperty("app.snapshot.enabled", "true"));
+    }
+
+    private static void collect(AnnotatedTypeMetadata element, Map<String, Boolean> found) {
+        MergedAnnotation<ConditionalOnProperty> property = element.getAnnotations().get(ConditionalOnProperty.class);
+        if (property.isPresent()) {
+            String prefix = property.getString("prefix");
+            String[] names = property.getStringArray("name");
+            if (names.length == 0) {
+                names = property.getStringArray("value");
+            }
+            boolean matchIfMissing = property.getBoolean("matchIfMissing");
+            for (String name : names) {
+                found.put(prefix.isEmpty() ? name : prefix + "." + name, matchIfMissing);
+            }
+        }
+        MergedAnnotation<ConditionalOnExpression> expression = element.getAnnotations().get(ConditionalOnExpression.class);
+        if (expression.isPresent()) {
+            Matcher m = PLACEHOLDER.matcher(expression.getString("value"));
+            while (m.find()) {
+                found.put(m.group(1), Boolean.parseBoolean(m.group(2)));
+            }
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.example.customer_management_app;
+
+// En este test quiero verificar el endpoint GraphQL:
+// - varios customer(id:) en una consulta = UN solo SELECT ... IN, con solo las columnas pedidas
+// - la conexión pagina por cursor sin solaparse
+// - una consulta demasiado cara se rechaza antes de tocar la base
+//
+// Perfil test (H2). Un JdbcEventListener de test guarda el SQL ejecutado.
+
+import com.example.customer_management_app.jdbc.ConnectionInfo;
+import com.example.customer_management_app.jdbc.JdbcEventListener;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.graphql.tester.AutoConfigureGraphQlTester;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.graphql.test.tester.GraphQlTester;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = "app.response-cache.enabled=false")
+@AutoConfigureGraphQlTester
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class GraphQlEndpointTest {
+
+    @TestConfiguration
+    static class SqlRecorderConfig {
+        @Bean
+        SqlRecorder sqlRecorder() {
+            return new SqlRecorder();
+        }
+    }
+
+    static class SqlRecorder implements JdbcEventListener {
+        final List<String> statements = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public void onStatementStarted(ConnectionInfo info, String sql) {
+            if (sql != null) {
+                statements.add(sql.toLowerCase(Locale.ROOT));
+            }
+        }
+
+        List<String> selectsFromCustomer() {
+            synchronized (statements) {
+                return statements.stream().filter(s -> s.contains("from customer")).toList();
+            }
+        }
+    }
+
+    @Autowired
+    private GraphQlTester graphQlTester;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private SqlRecorder sqlRecorder;
+
+    private final List<Long> ids = new ArrayList<>();
+
+    @BeforeEach
+    void seed() {
+        String[] emails = {"ana@gmail.com", "bruno@gmail.com", "carla@acme.com", "dario@acme.com", "eva@gmail.com"};
+        for (String email : emails) {
+            String name = email.substring(0, email.indexOf('@'));
+            ids.add(customerRepository.save(new Customer(name, "Test", email, "555-0000", "Calle 1")).getId());
+        }
+        sqlRecorder.statements.clear();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        customerRepository.deleteAll();
+    }
+
+    @Test
+    void aliasedLookups_areBatchedIntoOneColumnLimitedQuery() {
+        graphQlTester.document("""
+                query {
+                  a: customer(id: "%d") { firstName }
+                  b: customer(id: "%d") { email emailDomain }
+                  c: customer(id: "%d") { firstName }
+                  missing: customer(id: "999999") { firstName }
+                }""".formatted(ids.get(0), ids.get(2), ids.get(0)))
+            .execute()
+            .path("a.firstName").entity(String.class).isEqualTo("ana")
+            .path("b.emailDomain").entity(String.class).isEqualTo("acme.com")
+            .path("c.firstName").entity(String.class).isEqualTo("ana")
+            .path("missing").valueIsNull();
+
+        List<String> selects = sqlRecorder.selectsFromCustomer();
+        assertEquals(1, selects.size(), "Expected one batched SELECT, got " + selects);
+        String sql = selects.get(0);
+        assertTrue(sql.contains(" in ("), sql);
+        assertTrue(sql.contains("first_name") && sql.contains("email"), sql);
+        assertFalse(sql.contains("address") || sql.contains("phone") || sql.contains("created_at"), sql);
+    }
+
+    @Test
+    void connection_pagesByCursorWithoutOverlap() {
+        GraphQlTester.Response first = graphQlTester.document("""
+                query { customersConnection(first: 3) {
+                  edges { cursor node { id } } pageInfo { hasNextPage endCursor } totalCount } }""")
+            .execute();
+        List<String> firstIds = first.path("customersConnection.edges[*].node.id").entityList(String.class).get();
+        first.path("customersConnection.pageInfo.hasNextPage").entity(Boolean.class).isEqualTo(true);
+        first.path("customersConnection.totalCount").entity(Integer.class).isEqualTo(5);
+        String cursor = first.path("customersConnection.pageInfo.endCursor").entity(String.class).get();
+
+        List<String> secondIds = graphQlTester.document("""
+                query($after: String) { customersConnection(first: 3, after: $after) {
+                  edges { node { id } } pageInfo { hasNextPage } } }""")
+            .variable("after", cursor)
+            .execute()
+            .path("customersConnection.pageInfo.hasNextPage").entity(Boolean.class).isEqualTo(false)
+            .path("customersConnection.edges[*].node.id").entityList(String.class).get();
+
+        // Más nuevos primero
+        assertEquals(String.valueOf(ids.get(4)), firstIds.get(0));
+        assertEquals(3, firstIds.size());
+        assertEquals(2, secondIds.size());
+        assertTrue(Collections.disjoint(firstIds, secondIds));
+    }
+
+    @Test
+    void sameDomainCount_isOneGroupByForTheWholeResponse() {
+        graphQlTester.document("""
+                query { customersConnection(first: 5) { edges { node { email sameDomainCount } } } }""")
+            .execute()
+            .path("customersConnection.edges[*].node.sameDomainCount").entityList(Integer.class)
+            .containsExactly(3, 2, 2, 3, 3);
+
+        // Página + un GROUP BY (no uno por cliente)
+        assertEquals(2, sqlRecorder.selectsFromCustomer().size(), sqlRecorder.selectsFromCustomer().toString());
+    }
+
+    @Test
+    void statsAndDomains() {
+        graphQlTester.document("query { customerStats { totalCustomers gmailUsers } emailDomains(top: 1) { domain count } }")
+            .execute()
+            .path("customerStats.totalCustomers").entity(Integer.class).isEqualTo(5)
+            .path("customerStats.gmailUsers").entity(Integer.class).isEqualTo(3)
+            .path("emailDomains[0].domain").entity(String.class).isEqualTo("gmail.com")
+            .path("emailDomains[0].count").entity(Integer.class).isEqualTo(3);
+    }
+
+    @Test
+    void tooExpensiveQuery_isRejectedBeforeTouchingTheDatabase() {
+        graphQlTester.document("""
+                query { customersConnection(first: 100) { edges { node { email sameDomainCount } } } }""")
+            .execute()
+            .errors()
+            .satisfy(errors -> {
+                assertEquals(1, errors.size());
+                assertTrue(errors.get(0).getMessage().toLowerCase(Locale.ROOT).contains("complexity"), errors.get(0).getMessage());
+            });
+        assertTrue(sqlRecorder.selectsFromCustomer().isEmpty());
+    }
+
+    @Test
+    void invalidCursor_isABadRequestError() {
+        graphQlTester.document("query { customersConnection(after: \"nope\") { edges { cursor } } }")
+            .execute()
+            .errors()
+            .satisfy(errors -> assertEquals("BAD_REQUEST", errors.get(0).getErrorType().toString()));
+    }
+
+    @Test
+    void endpoint_isServedUnderApi() throws Exception {
+        MvcResult result = mockMvc.perform(post("/api/graphql")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"query\":\"{ customer(id: \\\"" + ids.get(1) + "\\\") { lastName } }\"}"))
+            .andReturn();
+        // Si el DataLoader no terminó en el mismo hilo, la respuesta llega por async dispatch
+        if (result.getRequest().isAsyncStarted()) {
+            mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.customer.lastName").value("Test"));
+        } else {
+            assertEquals(200, result.getResponse().getStatus());
+            assertTrue(result.getResponse().getContentAsString().contains("\"lastName\":\"Test\""));
+        }
+    }
+}
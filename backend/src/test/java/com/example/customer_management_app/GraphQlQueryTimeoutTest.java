@@ -0,0 +1,67 @@
+package com.example.customer_management_app;
+
+// En este test quiero validar que POST /api/graphql también tiene plazo para su SQL
+// (app.query-timeout.graphql-seconds), aunque sea POST:
+// - una consulta cuyo SQL tardaría minutos se corta en ~1 s
+// - la respuesta es el 504 con ErrorResponse del resto de la API, no un 200 con errores
+//
+// El repositorio de GraphQL se reemplaza por uno que ejecuta un SELECT lento en el datasource de la app.
+
+import com.example.customer_management_app.graphql.CustomerGraphRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = {"app.query-timeout.graphql-seconds=1", "app.response-cache.enabled=false"})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class GraphQlQueryTimeoutTest {
+
+    private static final String SLOW = "SELECT COUNT(*) FROM SYSTEM_RANGE(1, 1000000) a, SYSTEM_RANGE(1, 1000000) b";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockitoBean
+    private CustomerGraphRepository repository;
+
+    @Test
+    void slowGraphQlQuery_isCutAtTheDeadline_andAnswers504() throws Exception {
+        when(repository.findByIds(any(), any())).thenAnswer(invocation -> {
+            jdbcTemplate.queryForObject(SLOW, Long.class);
+            return Map.of();
+        });
+
+        long start = System.nanoTime();
+        MvcResult pending = mockMvc.perform(post("/api/graphql").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"query\":\"{ customer(id: 1) { id email } }\"}"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        mockMvc.perform(asyncDispatch(pending))
+            .andExpect(status().isGatewayTimeout())
+            .andExpect(jsonPath("$.path").value("/api/graphql"))
+            .andExpect(jsonPath("$.error").value("Gateway Timeout"))
+            .andExpect(jsonPath("$.data").doesNotExist());
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue(elapsedMs >= 900 && elapsedMs < 10000, "elapsed " + elapsedMs + " ms");
+    }
+}
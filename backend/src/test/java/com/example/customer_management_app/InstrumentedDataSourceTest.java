@@ -0,0 +1,99 @@
+package com.example.customer_management_app;
+
+// En este test quiero verificar que la instrumentación del pool atribuya cada conexión
+// al método de servicio que la pidió y que el detector de fugas la reporte.
+
+import com.example.customer_management_app.jdbc.ConnectionInfo;
+import com.example.customer_management_app.jdbc.ConnectionLeakDetector;
+import com.example.customer_management_app.jdbc.ConnectionPoolMetrics;
+import com.example.customer_management_app.jdbc.InstrumentedDataSource;
+import com.example.customer_management_app.jdbc.JdbcEventListener;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InstrumentedDataSourceTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void holdTime_isRecordedAndConnectionUnwraps() throws Exception {
+        ConnectionPoolMetrics metrics = new ConnectionPoolMetrics(registry);
+        InstrumentedDataSource ds = instrumented(metrics);
+
+        try (Connection c = ds.getConnection()) {
+            assertTrue(c.isWrapperFor(org.h2.jdbc.JdbcConnection.class));
+            c.createStatement().execute("SELECT 1");
+        }
+
+        // Fuera de CustomerService la conexión queda atribuida a "other"
+        assertEquals(1, registry.get("db.connection.hold").tag("method", "other").timer().count());
+        ConnectionPoolMetrics.WindowStats window = metrics.drainWindow();
+        assertEquals(1, window.acquisitions());
+        assertEquals(1, window.releases());
+        assertEquals(0, metrics.drainWindow().acquisitions()); // la ventana se resetea
+    }
+
+    @Test
+    void leakDetector_reportsConnectionsHeldTooLong() throws Exception {
+        ConnectionLeakDetector detector = new ConnectionLeakDetector(registry, 0);
+        InstrumentedDataSource ds = instrumented(detector);
+
+        try (Connection c = ds.getConnection()) {
+            Thread.sleep(5);
+            detector.checkForLeaks();
+            assertEquals(1.0, registry.get("db.connection.leak.suspected").counter().count());
+            // Se reporta una sola vez por conexión
+            detector.checkForLeaks();
+            assertEquals(1.0, registry.get("db.connection.leak.suspected").counter().count());
+        }
+        assertEquals(0, detector.openConnections());
+    }
+
+    @Test
+    void statementsAndFetchedRows_areReported() throws Exception {
+        List<String> events = new ArrayList<>();
+        InstrumentedDataSource ds = instrumented(new JdbcEventListener() {
+            @Override
+            public void onStatementExecuted(ConnectionInfo info, long elapsedNanos) {
+                events.add("statement");
+            }
+
+            @Override
+            public void onRowsFetched(ConnectionInfo info, long rows, long fetchNanos) {
+                events.add("rows=" + rows);
+            }
+        });
+
+        try (Connection c = ds.getConnection();
+             PreparedStatement ps = c.prepareStatement("SELECT X FROM SYSTEM_RANGE(1, ?)")) {
+            ps.setInt(1, 3);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    // solo recorro
+                }
+                assertSame(ps, rs.getStatement());
+            }
+            assertSame(c, ps.getConnection());
+            // ResultSet sin cerrar: se reporta al cerrar el Statement
+            ps.setInt(1, 2);
+            ps.executeQuery().next();
+        }
+
+        assertEquals(List.of("statement", "rows=3", "statement", "rows=1"), events);
+    }
+
+    private static InstrumentedDataSource instrumented(JdbcEventListener listener) {
+        InstrumentedDataSource ds = new InstrumentedDataSource(new DriverManagerDataSource("jdbc:h2:mem:pooltest"));
+        ds.setListeners(List.of(listener));
+        return ds;
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.customer_management_app;
+
+// En este test quiero validar la invalidación de caches entre instancias:
+// - el mensaje es compacto (id, tipo, versión, claves) y los propios se ignoran
+// - la cache de respuestas conserva una entrada igual o más nueva que la versión recibida
+// - el índice de autocompletado suma al momento un alta remota y se reconstruye ante una
+//   modificación remota (el mensaje no trae los nombres viejos) o un evictAll
+// - con PostgreSQL real (INVALIDATION_TEST_PG_URL + _USER / _PASSWORD): dos "instancias"
+//   contra la misma base; lo que publica una lo recibe la otra, y después de cortarle la
+//   conexión de LISTEN reconecta y vacía todo.
+
+import com.example.customer_management_app.events.CustomerChangedEvent;
+import com.example.customer_management_app.invalidation.CustomerInvalidation;
+import com.example.customer_management_app.invalidation.LocalCustomerCache;
+import com.example.customer_management_app.invalidation.PgInvalidationBus;
+import com.example.customer_management_app.dto.SuggestionResponse;
+import com.example.customer_management_app.responsecache.CustomerResponseCache;
+import com.example.customer_management_app.search.CustomerSuggestIndex;
+import com.example.customer_management_app.sharding.CustomerShards;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InvalidationBusTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Test
+    void message_isCompact_andOwnMessagesAreIgnored() throws Exception {
+        RecordingCache cache = new RecordingCache();
+        PgInvalidationBus bus = bus(new DataSourceProperties(), null, cache);
+        Customer before = customer("ana@example.com", LocalDateTime.of(2025, 1, 1, 10, 0));
+        Customer after = customer("ana.lopez@example.com", LocalDateTime.of(2025, 1, 2, 10, 0));
+
+        CustomerInvalidation fromOther = CustomerInvalidation.of("other", CustomerChangedEvent.updated(before, after));
+        String payload = objectMapper.writeValueAsString(fromOther);
+        assertEquals("{\"o\":\"other\",\"t\":\"UPDATED\",\"i\":42,\"v\":" + fromOther.version()
+            + ",\"k\":[\"email:ana@example.com\",\"email:ana.lopez@example.com\"]}", payload);
+
+        bus.dispatch(payload);
+        bus.dispatch(objectMapper.writeValueAsString(CustomerInvalidation.of(bus.nodeId(), CustomerChangedEvent.updated(before, after))));
+        assertEquals(List.of(fromOther), cache.evicted);
+
+        // Un mensaje ilegible no se puede interpretar: vacío todo por las dudas
+        bus.dispatch("not json");
+        assertEquals(1, cache.flushes.get());
+    }
+
+    @Test
+    void responseCache_keepsEntriesAtLeastAsNewAsTheMessage() {
+        CustomerResponseCache cache = new CustomerResponseCache(objectMapper, ObservationRegistry.NOOP,
+            new SimpleMeterRegistry(), true, 1 << 20, 512);
+        LocalDateTime updatedAt = LocalDateTime.of(2025, 1, 2, 10, 0);
+        cache.getOrLoad(42L, () -> Optional.of(customer("ana@example.com", updatedAt)), null, null);
+        long version = CustomerInvalidation.versionOf(updatedAt);
+
+        cache.evict(new CustomerInvalidation("other", CustomerChangedEvent.Type.UPDATED, 42L, version, List.of()));
+        assertEquals(1, cache.size());
+
+        cache.evict(new CustomerInvalidation("other", CustomerChangedEvent.Type.UPDATED, 42L, version + 1, List.of()));
+        assertEquals(0, cache.size());
+
+        cache.getOrLoad(42L, () -> Optional.of(customer("ana@example.com", updatedAt)), null, null);
+        cache.evict(new CustomerInvalidation("other", CustomerChangedEvent.Type.DELETED, 42L, version, List.of()));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void suggestIndex_followsChangesMadeOnOtherInstances() throws Exception {
+        DriverManagerDataSource ds = new DriverManagerDataSource("jdbc:h2:mem:invalidation-suggest;DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbc = new JdbcTemplate(ds);
+        jdbc.execute("DROP TABLE IF EXISTS customer");
+        jdbc.execute("CREATE TABLE customer (id BIGINT PRIMARY KEY, first_name VARCHAR(40), last_name VARCHAR(40), email VARCHAR(255))");
+        jdbc.update("INSERT INTO customer VALUES (1, 'Ana', 'Lopez', 'ana@example.com')");
+        CustomerSuggestIndex index = new CustomerSuggestIndex(jdbc, new DataSourceTransactionManager(ds),
+            new SimpleMeterRegistry(), (CustomerShards) null, 50);
+        index.rebuild();
+        PgInvalidationBus bus = bus(new DataSourceProperties(), null, index);
+
+        // Alta en otra instancia: se ve sin esperar al rebuild
+        jdbc.update("INSERT INTO customer VALUES (2, 'Bruno', 'Zorro', 'bruno@example.com')");
+        Customer bruno = new Customer(2L, "Bruno", "Zorro", "bruno@example.com", null, null);
+        bus.dispatch(objectMapper.writeValueAsString(CustomerInvalidation.of("other", CustomerChangedEvent.created(bruno))));
+        assertEquals(List.of("zorro"), suggestions(index, "zor"));
+
+        // Modificación en otra instancia: el apellido viejo desaparece después del rebuild
+        jdbc.update("UPDATE customer SET last_name = 'Zamora' WHERE id = 2");
+        Customer renamed = new Customer(2L, "Bruno", "Zamora", "bruno@example.com", null, null);
+        bus.dispatch(objectMapper.writeValueAsString(CustomerInvalidation.of("other", CustomerChangedEvent.updated(bruno, renamed))));
+        await(() -> suggestions(index, "za").equals(List.of("zamora")) && suggestions(index, "zor").isEmpty());
+
+        // Se perdieron mensajes (acá: uno ilegible): rebuild, y la baja que nunca llegó se refleja
+        jdbc.update("DELETE FROM customer WHERE id = 1");
+        bus.dispatch("not json");
+        await(() -> suggestions(index, "lop").isEmpty());
+        assertEquals(List.of("bruno", "bruno@example.com"), suggestions(index, "bru"));
+    }
+
+    @Test
+    @EnabledIfEnvironmentVariable(named = "INVALIDATION_TEST_PG_URL", matches = ".+")
+    void twoInstances_invalidateEachOther_andFlushAfterReconnect() throws Exception {
+        DataSourceProperties props = new DataSourceProperties();
+        props.setUrl(System.getenv("INVALIDATION_TEST_PG_URL"));
+        props.setUsername(System.getenv().getOrDefault("INVALIDATION_TEST_PG_USER", "postgres"));
+        props.setPassword(System.getenv().getOrDefault("INVALIDATION_TEST_PG_PASSWORD", ""));
+        JdbcTemplate jdbc = new JdbcTemplate(new DriverManagerDataSource(props.getUrl(), props.getUsername(), props.getPassword()));
+
+        RecordingCache cacheA = new RecordingCache();
+        RecordingCache cacheB = new RecordingCache();
+        PgInvalidationBus nodeA = bus(props, jdbc, cacheA);
+        PgInvalidationBus nodeB = bus(props, jdbc, cacheB);
+        nodeA.start();
+        nodeB.start();
+        try {
+            await(() -> nodeA.isConnected() && nodeB.isConnected());
+
+            Customer saved = customer("two.nodes@example.com", LocalDateTime.now());
+            nodeA.onCustomerChanged(CustomerChangedEvent.created(saved));
+
+            await(() -> !cacheB.evicted.isEmpty());
+            assertEquals(42L, cacheB.evicted.get(0).id());
+            assertEquals(nodeA.nodeId(), cacheB.evicted.get(0).origin());
+            Thread.sleep(300);
+            assertTrue(cacheA.evicted.isEmpty(), "node A ignores its own message");
+
+            // Corto las conexiones de LISTEN (como un failover de la base): reconectan y vacían todo
+            int flushesBefore = cacheB.flushes.get();
+            jdbc.queryForList("SELECT pg_terminate_backend(pid) FROM pg_stat_activity "
+                + "WHERE pid <> pg_backend_pid() AND (query LIKE 'LISTEN%' OR query = 'SELECT 1')");
+            await(() -> cacheB.flushes.get() > flushesBefore && nodeB.isConnected());
+
+            nodeA.onCustomerChanged(CustomerChangedEvent.deleted(42L, saved));
+            await(() -> cacheB.evicted.size() == 2);
+        } finally {
+            nodeA.stop();
+            nodeB.stop();
+        }
+    }
+
+    private PgInvalidationBus bus(DataSourceProperties props, JdbcTemplate jdbc, LocalCustomerCache cache) {
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        beans.addBean("cache", cache);
+        return new PgInvalidationBus(jdbc, props, beans.getBeanProvider(LocalCustomerCache.class), objectMapper,
+            new SimpleMeterRegistry(), "customer_invalidation_test", 100, 30_000, 100);
+    }
+
+    private static List<String> suggestions(CustomerSuggestIndex index, String prefix) {
+        return index.suggest(prefix, 10).stream().map(SuggestionResponse::getValue).toList();
+    }
+
+    private static Customer customer(String email, LocalDateTime updatedAt) {
+        Customer c = new Customer(42L, "Ana", "Lopez", email, "123-4567", "1 Main St");
+        c.setUpdatedAt(updatedAt);
+        return c;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not met within 10s");
+            Thread.sleep(50);
+        }
+    }
+
+    private static final class RecordingCache implements LocalCustomerCache {
+        private final List<CustomerInvalidation> evicted = new CopyOnWriteArrayList<>();
+        private final AtomicInteger flushes = new AtomicInteger();
+
+        @Override
+        public void evict(CustomerInvalidation invalidation) {
+            evicted.add(invalidation);
+        }
+
+        @Override
+        public void evictAll() {
+            flushes.incrementAndGet();
+        }
+    }
+}
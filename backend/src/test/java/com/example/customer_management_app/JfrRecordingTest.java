@@ -0,0 +1,114 @@
+package com.example.customer_management_app;
+
+// En este test quiero verificar los eventos JFR propios y las grabaciones:
+// - el aspecto emite "Customer Service Operation" con id, largo del término y filas
+// - el mapper emite "Customer Response Mapping"
+// - el volcado automático por p99 y la validación de nombres de archivo
+
+import com.example.customer_management_app.jfr.ContinuousJfrRecorder;
+import com.example.customer_management_app.jfr.JfrRecordings;
+import com.example.customer_management_app.jfr.JfrServiceEventAspect;
+import com.example.customer_management_app.mapper.CustomerMapper;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class JfrRecordingTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void serviceAndMappingEvents_areRecorded() throws Exception {
+        Customer john = new Customer(42L, "John", "Doe", "john@example.com", "123-4567", "1 Main St");
+        CustomerService target = mock(CustomerService.class);
+        when(target.getCustomerById(42L)).thenReturn(Optional.of(john));
+        when(target.searchCustomers("john")).thenReturn(List.of(john, john));
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.addAspect(new JfrServiceEventAspect());
+        CustomerService service = factory.getProxy();
+
+        Path file = dir.resolve("events.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("com.example.customer.ServiceOperation").withThreshold(Duration.ZERO);
+            recording.enable("com.example.customer.Mapping").withThreshold(Duration.ZERO);
+            recording.start();
+            service.getCustomerById(42L);
+            service.searchCustomers("john");
+            CustomerMapper.toResponseList(List.of(john, john, john));
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        RecordedEvent byId = find(events, "getCustomerById");
+        assertEquals(42L, byId.getLong("customerId"));
+        assertEquals(1L, byId.getLong("rowsReturned"));
+        RecordedEvent search = find(events, "searchCustomers");
+        assertEquals(4, search.getInt("searchTermLength"));
+        assertEquals(2L, search.getLong("rowsReturned"));
+        assertTrue(events.stream().anyMatch(e -> e.getEventType().getName().equals("com.example.customer.Mapping")
+            && "map".equals(e.getString("phase")) && e.getInt("items") == 3));
+    }
+
+    @Test
+    void continuousRecording_isDumpedWhenP99BreachesThreshold() throws Exception {
+        JfrRecordings recordings = new JfrRecordings(dir.toString(), 60, 5);
+        ContinuousJfrRecorder recorder = new ContinuousJfrRecorder(recordings, 1, 0, 2, 15);
+        recorder.start();
+        try {
+            for (int i = 0; i < 3; i++) {
+                ServerRequestObservationContext ctx =
+                    new ServerRequestObservationContext(new MockHttpServletRequest(), new MockHttpServletResponse());
+                recorder.onStart(ctx);
+                Thread.sleep(2);
+                recorder.onStop(ctx);
+            }
+            Path dump = recorder.checkLatency();
+            assertNotNull(dump);
+            assertTrue(Files.size(dump) > 0);
+            assertEquals(Optional.of(dump), recordings.file(dump.getFileName().toString()));
+
+            // Ventana vacía después de revisar + cooldown: no vuelve a volcar
+            assertNull(recorder.checkLatency());
+        } finally {
+            recorder.stop();
+        }
+    }
+
+    @Test
+    void onDemandRecording_validatesInput() {
+        JfrRecordings recordings = new JfrRecordings(dir.toString(), 60, 5);
+        assertThrows(IllegalArgumentException.class, () -> recordings.start("nope", Duration.ofSeconds(5)));
+        assertThrows(IllegalArgumentException.class, () -> recordings.start("default", Duration.ofSeconds(61)));
+        assertEquals(Optional.empty(), recordings.file("../etc/passwd"));
+
+        JfrRecordings.RecordingInfo info = recordings.start("profile", Duration.ofSeconds(30));
+        assertEquals("RUNNING", info.state());
+        assertTrue(info.file().endsWith("-profile.jfr"));
+        assertEquals(1, recordings.recordings().size());
+        recordings.shutdown();
+    }
+
+    private static RecordedEvent find(List<RecordedEvent> events, String method) {
+        return events.stream()
+            .filter(e -> e.getEventType().getName().equals("com.example.customer.ServiceOperation"))
+            .filter(e -> method.equals(e.getString("method")))
+            .findFirst().orElseThrow(() -> new AssertionError("No event for " + method));
+    }
+}
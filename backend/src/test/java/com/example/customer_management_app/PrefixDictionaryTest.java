@@ -0,0 +1,55 @@
+package com.example.customer_management_app;
+
+// En este test quiero verificar el diccionario comprimido del autocompletado:
+// búsqueda por prefijo (incluso cruzando bloques del front coding) y orden por frecuencia.
+
+import com.example.customer_management_app.search.PrefixDictionary;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrefixDictionaryTest {
+
+    @Test
+    void topK_returnsMostFrequentTermsWithPrefix() {
+        TreeMap<String, Integer> terms = new TreeMap<>();
+        terms.put("jane", 3);
+        terms.put("john", 10);
+        terms.put("johnny", 1);
+        terms.put("joseph", 5);
+        terms.put("mary", 50);
+        PrefixDictionary dict = PrefixDictionary.build(terms);
+
+        List<PrefixDictionary.Entry> top = dict.topK("jo", 2);
+        assertEquals(List.of(new PrefixDictionary.Entry("john", 10), new PrefixDictionary.Entry("joseph", 5)), top);
+        assertTrue(dict.topK("x", 5).isEmpty());
+    }
+
+    @Test
+    void frontCoding_decodesEveryTermAcrossBlocks() {
+        TreeMap<String, Integer> terms = new TreeMap<>();
+        for (int i = 0; i < 100; i++) {
+            terms.put(String.format("user%03d@example.com", i), i + 1);
+        }
+        PrefixDictionary dict = PrefixDictionary.build(terms);
+
+        int i = 0;
+        for (String expected : terms.keySet()) {
+            assertEquals(expected, dict.term(i++));
+        }
+        // "user05" cubre user050..user059 (cruza el límite de bloque de 16)
+        List<PrefixDictionary.Entry> top = dict.topK("user05", 3);
+        assertEquals("user059@example.com", top.get(0).term());
+        assertEquals(60, top.get(0).count());
+        assertEquals(3, top.size());
+        assertEquals(10, dict.topK("user05", 50).size());
+    }
+
+    @Test
+    void emptyDictionary_returnsNothing() {
+        assertTrue(PrefixDictionary.empty().topK("a", 10).isEmpty());
+    }
+}
@@ -0,0 +1,286 @@
+package com.example.customer_management_app;
+
+// En este test quiero detectar regresiones de planes de ejecución: cada consulta del repositorio
+// (y cada sort de la whitelist) tiene que usar un índice, sin seq scan ni sort de toda la tabla.
+//
+// ¿Contra qué base corre?
+// - Si defino PLAN_TEST_PG_URL (+ PLAN_TEST_PG_USER / PLAN_TEST_PG_PASSWORD) corre contra
+//   PostgreSQL real: aplica las migraciones con Flyway y analiza EXPLAIN (FORMAT JSON).
+//   Es el chequeo de verdad. Usar una base descartable: el test inserta filas.
+// - Si no, es solo un SMOKE TEST en H2: una tabla sin particiones con los índices de las migraciones
+//   que cubren toda la tabla (ver indexDdlFromMigrations). No ve particiones, ni índices por expresión
+//   (LOWER(...)), ni el planner de PostgreSQL: que pase en H2 no garantiza el plan en producción.
+
+import com.example.customer_management_app.sorting.SortWhitelist;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueryPlanRegressionTest {
+
+    // Por encima de esta cantidad de filas, un seq scan o un sort completo es una regresión
+    private static final int ROW_THRESHOLD = 1000;
+    private static final int ROWS = 20_000;
+
+    private static final String SELECT = "SELECT id, first_name, last_name, email, phone, address, created_at, updated_at FROM customer ";
+
+    // Consultas del repositorio con índice (nombre del método -> SQL equivalente al que genera Hibernate)
+    private static final Map<String, String> INDEXED_QUERIES = new LinkedHashMap<>();
+    static {
+        INDEXED_QUERIES.put("findById", SELECT + "WHERE id = 42");
+        INDEXED_QUERIES.put("findByFirstName", SELECT + "WHERE first_name = 'first7'");
+        INDEXED_QUERIES.put("findByLastName", SELECT + "WHERE last_name = 'last7'");
+        INDEXED_QUERIES.put("countByLastName", "SELECT COUNT(*) FROM customer WHERE last_name = 'last7'");
+        INDEXED_QUERIES.put("findByEmail", SELECT + "WHERE email = 'user42@example.com'");
+        INDEXED_QUERIES.put("existsByEmail", "SELECT id FROM customer WHERE email = 'user42@example.com' LIMIT 1");
+        INDEXED_QUERIES.put("findByPhone", SELECT + "WHERE phone = '555-0042'");
+    }
+
+    // Consultas que recorren la tabla a propósito (documentado el motivo)
+    private static final Map<String, String> EXEMPT = Map.of(
+        "findByAddressContaining", "contains (LIKE '%x%'): needs a trigram index, out of scope",
+        "findByFirstNameContaining", "contains (LIKE '%x%')",
+        "findByLastNameContaining", "contains (LIKE '%x%')",
+        "findByFirstNameContainingAndLastNameContaining", "contains (LIKE '%x%')",
+        "findByFirstNameContainingOrLastNameContaining", "contains (LIKE '%x%'), used by the legacy /search endpoints",
+        "findByFirstNameContainingIgnoreCaseOrLastNameContainingIgnoreCaseOrEmailContainingIgnoreCaseOrPhoneContainingIgnoreCaseOrAddressContainingIgnoreCase",
+            "contains search across 5 fields (/search/page); only the ORDER BY is index-backed",
+        "findByFirstNameIgnoreCase", "not used by the service; upper(first_name) does not match the LOWER() index",
+        "findAllOrderByCreatedAtDesc", "unbounded export of the whole table: a seq scan is the right plan",
+        "countByEmailDomainNative", "statistics: LIKE '%domain%' over the whole table by design");
+
+    private static Connection connection;
+    private static boolean postgres;
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        String pgUrl = System.getenv("PLAN_TEST_PG_URL");
+        postgres = pgUrl != null && !pgUrl.isBlank();
+        if (postgres) {
+            String user = System.getenv("PLAN_TEST_PG_USER");
+            String password = System.getenv("PLAN_TEST_PG_PASSWORD");
+            Flyway.configure().dataSource(pgUrl, user, password).load().migrate();
+            connection = DriverManager.getConnection(pgUrl, user, password);
+            try (Statement st = connection.createStatement()) {
+                st.execute("TRUNCATE customer, customer_email");
+                st.execute("INSERT INTO customer (id, first_name, last_name, email, phone, address, created_at, updated_at) "
+                    + "SELECT g, 'first' || (g % 500), 'last' || (g % 2000), 'user' || g || '@example.com', "
+                    + "'555-' || lpad((g % 10000)::text, 4, '0'), g || ' Main St', NOW() - g * INTERVAL '1 minute', NOW() "
+                    + "FROM generate_series(1, " + ROWS + ") g");
+                st.execute("ANALYZE customer");
+            }
+        } else {
+            connection = DriverManager.getConnection("jdbc:h2:mem:plans;MODE=PostgreSQL;DB_CLOSE_DELAY=-1");
+            try (Statement st = connection.createStatement()) {
+                st.execute("DROP TABLE IF EXISTS customer");
+                st.execute("CREATE TABLE customer (id BIGINT PRIMARY KEY, first_name VARCHAR(40) NOT NULL, "
+                    + "last_name VARCHAR(40) NOT NULL, email VARCHAR(255) NOT NULL, phone VARCHAR(15), "
+                    + "address VARCHAR(100), created_at TIMESTAMP, updated_at TIMESTAMP)");
+                for (String ddl : indexDdlFromMigrations()) {
+                    st.execute(ddl);
+                }
+                st.execute("INSERT INTO customer SELECT X, 'first' || MOD(X, 500), 'last' || MOD(X, 2000), "
+                    + "'user' || X || '@example.com', '555-' || LPAD(CAST(MOD(X, 10000) AS VARCHAR), 4, '0'), "
+                    + "X || ' Main St', DATEADD('MINUTE', -X, NOW()), NOW() FROM SYSTEM_RANGE(1, " + ROWS + ")");
+                st.execute("ANALYZE");
+            }
+        }
+    }
+
+    @AfterAll
+    static void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    void everyRepositoryQueryIsCoveredOrExempt() {
+        Set<String> declared = Arrays.stream(CustomerRepository.class.getDeclaredMethods())
+            .map(Method::getName)
+            .collect(Collectors.toCollection(TreeSet::new));
+        declared.removeAll(INDEXED_QUERIES.keySet());
+        declared.removeAll(EXEMPT.keySet());
+        assertTrue(declared.isEmpty(),
+            "New repository queries must get a plan check (INDEXED_QUERIES) or a documented exemption: " + declared);
+    }
+
+    @TestFactory
+    Stream<DynamicTest> repositoryQueriesUseIndexes() {
+        return INDEXED_QUERIES.entrySet().stream()
+            .map(e -> DynamicTest.dynamicTest(label(e.getKey()), () -> assertIndexed(e.getKey(), e.getValue(), false)));
+    }
+
+    @TestFactory
+    Stream<DynamicTest> whitelistedSortsAreIndexBacked() {
+        SortWhitelist whitelist = new SortWhitelist("reject");
+        List<DynamicTest> tests = new ArrayList<>();
+        for (String field : SortWhitelist.sortableFields()) {
+            for (Sort.Direction direction : Sort.Direction.values()) {
+                // Mismo camino que /page: el controller pasa el Pageable por la whitelist
+                Pageable page = whitelist.apply(PageRequest.of(3, 10, Sort.by(direction, field)));
+                String sql = SELECT + "ORDER BY " + orderBy(page.getSort()) + " LIMIT 10 OFFSET 30";
+                tests.add(DynamicTest.dynamicTest(label("page sort=" + field + "," + direction),
+                    () -> assertIndexed(field + "," + direction, sql, true)));
+            }
+        }
+        return tests.stream();
+    }
+
+    @Test
+    void unindexedSortIsCaughtByTheCheck() throws Exception {
+        // Control negativo: si el chequeo no detecta esto, el resto de los tests no prueba nada
+        String plan = explain(SELECT + "ORDER BY address LIMIT 10");
+        assertFalse(problems(plan, true).isEmpty(), plan);
+    }
+
+    // En el reporte queda claro contra qué corrió cada chequeo
+    private static String label(String name) {
+        return postgres ? name : name + " (H2 smoke)";
+    }
+
+    private static void assertIndexed(String name, String sql, boolean ordered) throws Exception {
+        String plan = explain(sql);
+        List<String> problems = problems(plan, ordered);
+        assertTrue(problems.isEmpty(), name + " -> " + problems + "\n" + plan);
+    }
+
+    private static String explain(String sql) throws SQLException {
+        try (Statement st = connection.createStatement();
+             ResultSet rs = st.executeQuery((postgres ? "EXPLAIN (FORMAT JSON) " : "EXPLAIN ") + sql)) {
+            rs.next();
+            return rs.getString(1);
+        }
+    }
+
+    private static List<String> problems(String plan, boolean ordered) throws Exception {
+        List<String> problems = new ArrayList<>();
+        if (!postgres) {
+            // H2: "tableScan" = recorre toda la tabla; "index sorted" = el ORDER BY sale del índice
+            if (plan.contains(".tableScan")) {
+                problems.add("table scan");
+            }
+            if (ordered && !plan.contains("/* index sorted */")) {
+                problems.add("sort not served by an index");
+            }
+            return problems;
+        }
+        collectPostgresProblems(new ObjectMapper().readTree(plan).get(0).get("Plan"), problems);
+        return problems;
+    }
+
+    private static void collectPostgresProblems(JsonNode node, List<String> problems) throws SQLException {
+        String type = node.path("Node Type").asText();
+        if ("Seq Scan".equals(type)) {
+            String relation = node.path("Relation Name").asText();
+            long tuples = estimatedTuples(relation);
+            if (tuples > ROW_THRESHOLD) {
+                problems.add("seq scan on " + relation + " (~" + tuples + " rows)");
+            }
+        }
+        if ("Sort".equals(type) || "Incremental Sort".equals(type)) {
+            long input = node.path("Plans").path(0).path("Plan Rows").asLong();
+            if (input > ROW_THRESHOLD) {
+                problems.add(type + " over ~" + input + " rows");
+            }
+        }
+        for (JsonNode child : node.path("Plans")) {
+            collectPostgresProblems(child, problems);
+        }
+    }
+
+    private static long estimatedTuples(String relation) throws SQLException {
+        try (Statement st = connection.createStatement();
+             ResultSet rs = st.executeQuery("SELECT reltuples::bigint FROM pg_class WHERE relname = '" + relation + "'")) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    private static String orderBy(Sort sort) {
+        return sort.stream()
+            .map(o -> o.getProperty().replaceAll("([A-Z])", "_$1").toLowerCase() + " " + o.getDirection())
+            .collect(Collectors.joining(", "));
+    }
+
+    // Índices de las migraciones desde V4 (cuando customer se recreó particionada) que en PostgreSQL
+    // sirven a una consulta sobre customer:
+    // - los declarados sobre customer (se propagan a todas las particiones)
+    // - los de columnas indexadas en TODAS las hojas de la partición por archived (customer_active, que
+    //   los hereda a sus particiones por hash, y customer_archive): el Append usa un índice en cada una
+    // Un índice en una sola partición (ej. customer_archive (updated_at)) no cubre la tabla y no se copia.
+    // Los índices por expresión (LOWER(...)) no se pueden armar en H2 y no los matchea el patrón.
+    private static List<String> indexDdlFromMigrations() throws IOException, URISyntaxException {
+        Path dir = Path.of(QueryPlanRegressionTest.class.getResource("/db/migration").toURI());
+        Pattern create = Pattern.compile("CREATE (?:UNIQUE )?INDEX (?:IF NOT EXISTS )?(\\w+) ON (\\w+) \\(([^()]*)\\);",
+            Pattern.CASE_INSENSITIVE);
+        Pattern drop = Pattern.compile("DROP INDEX (?:IF EXISTS )?(\\w+);", Pattern.CASE_INSENSITIVE);
+        Pattern version = Pattern.compile("V(\\d+)__.*\\.sql");
+        // nombre -> {tabla, columnas}
+        Map<String, String[]> indexes = new LinkedHashMap<>();
+        List<Path> files;
+        try (Stream<Path> list = Files.list(dir)) {
+            files = list.filter(p -> {
+                    Matcher m = version.matcher(p.getFileName().toString());
+                    return m.matches() && Integer.parseInt(m.group(1)) >= 4;
+                })
+                .sorted((a, b) -> Integer.compare(versionOf(a, version), versionOf(b, version)))
+                .toList();
+        }
+        for (Path file : files) {
+            String sql = Files.readString(file);
+            Matcher c = create.matcher(sql);
+            while (c.find()) {
+                indexes.put(c.group(1), new String[] { c.group(2).toLowerCase(), c.group(3).replace(" ", "").toLowerCase() });
+            }
+            Matcher d = drop.matcher(sql);
+            while (d.find()) {
+                indexes.remove(d.group(1));
+            }
+        }
+        Map<String, Set<String>> tablesByColumns = new LinkedHashMap<>();
+        indexes.values().forEach(i -> tablesByColumns.computeIfAbsent(i[1], k -> new TreeSet<>()).add(i[0]));
+        List<String> ddl = new ArrayList<>();
+        tablesByColumns.forEach((columns, tables) -> {
+            if (tables.contains("customer") || tables.containsAll(Set.of("customer_active", "customer_archive"))) {
+                ddl.add("CREATE INDEX ix_plan_" + ddl.size() + " ON customer (" + columns + ")");
+            }
+        });
+        return ddl;
+    }
+
+    private static int versionOf(Path file, Pattern version) {
+        Matcher m = version.matcher(file.getFileName().toString());
+        m.matches();
+        return Integer.parseInt(m.group(1));
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.customer_management_app;
+
+// En este test quiero validar los plazos y la cancelación de consultas (QueryTimeoutInterceptor + InstrumentedDataSource)
+// contra H2 en memoria, con una consulta que tardaría minutos (producto de dos rangos grandes):
+// - con @QueryTimeout(seconds = 1) la sentencia se corta en ~1 s y sale QueryTimeoutException (-> 504), con métrica
+// - una request async cuyo cliente se desconecta (AsyncListener.onError) cancela la sentencia en curso
+//   y las siguientes ni se ejecutan
+// - las escrituras no tienen plazo por defecto
+
+import com.example.customer_management_app.jdbc.InstrumentedDataSource;
+import com.example.customer_management_app.jdbc.QueryDeadline;
+import com.example.customer_management_app.jdbc.QueryTimeout;
+import com.example.customer_management_app.jdbc.QueryTimeoutInterceptor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueryTimeoutTest {
+
+    private static final String SLOW = "SELECT COUNT(*) FROM SYSTEM_RANGE(1, 1000000) a, SYSTEM_RANGE(1, 1000000) b";
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final QueryTimeoutInterceptor interceptor = new QueryTimeoutInterceptor(registry, 10);
+    private final JdbcTemplate jdbc = new JdbcTemplate(
+        new InstrumentedDataSource(new DriverManagerDataSource("jdbc:h2:mem:timeouts;DB_CLOSE_DELAY=-1")));
+
+    @Test
+    void slowQuery_isStoppedAtTheEndpointDeadline() throws Exception {
+        MockHttpServletRequest request = request("GET", "/api/customers/search/page");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        Object handler = handler("search");
+        interceptor.preHandle(request, response, handler);
+        long start = System.nanoTime();
+        try {
+            assertThrows(QueryTimeoutException.class, () -> jdbc.queryForObject(SLOW, Long.class));
+        } finally {
+            interceptor.afterCompletion(request, response, handler, null);
+        }
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue(elapsedMs >= 900 && elapsedMs < 5000, "elapsed " + elapsedMs + " ms");
+        assertEquals(1.0, registry.get("http.server.requests.sql.timeouts")
+            .tags("method", "GET", "uri", "/api/customers/search/page").counter().count());
+        // Fuera de la request no hay plazo
+        assertNull(QueryDeadline.current());
+        assertEquals(1L, jdbc.queryForObject("SELECT 1", Long.class));
+    }
+
+    @Test
+    void clientDisconnect_cancelsTheRunningStatementOfAnAsyncRequest() throws Exception {
+        MockHttpServletRequest request = request("POST", "/graphql");
+        request.setAsyncSupported(true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        Object handler = handler("write");
+        interceptor.preHandle(request, response, handler);
+        MockAsyncContext async = (MockAsyncContext) request.startAsync();
+        interceptor.afterConcurrentHandlingStarted(request, response, handler);
+        assertNull(QueryDeadline.current(), "the container thread is released");
+
+        // La consulta sigue en otro hilo (dispatch async): el plazo de la request viaja con ella
+        CompletableFuture<Throwable> worker = CompletableFuture.supplyAsync(() -> {
+            try {
+                interceptor.preHandle(request, response, handler);
+                assertEquals(0, QueryDeadline.current().timeoutSeconds(), "writes have no default deadline");
+                jdbc.queryForObject(SLOW, Long.class);
+                return null;
+            } catch (DataAccessException e) {
+                // Después de cancelar, la request no ejecuta nada más
+                return assertThrows(DataAccessException.class, () -> jdbc.queryForObject("SELECT 1", Long.class));
+            } catch (Exception e) {
+                return e;
+            } finally {
+                interceptor.afterCompletion(request, response, handler, null);
+            }
+        });
+        Thread.sleep(300);
+        for (AsyncListener listener : async.getListeners()) {
+            listener.onError(new AsyncEvent(async, new IOException("Broken pipe")));
+        }
+
+        Throwable afterCancel = worker.get(5, TimeUnit.SECONDS);
+        assertNotNull(afterCancel, "the statement should have been cancelled");
+        assertTrue(afterCancel.getMessage().contains("client disconnected"), afterCancel.getMessage());
+        assertEquals(2.0, registry.get("http.server.requests.sql.cancelled").counter().count());
+        assertEquals(0, registry.find("http.server.requests.sql.timeouts").counters().stream()
+            .mapToDouble(c -> c.count()).sum());
+    }
+
+    private static MockHttpServletRequest request(String method, String pattern) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, pattern);
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, pattern);
+        return request;
+    }
+
+    private Object handler(String name) throws NoSuchMethodException {
+        return new HandlerMethod(new Endpoints(), Endpoints.class.getDeclaredMethod(name));
+    }
+
+    static class Endpoints {
+        @QueryTimeout(seconds = 1)
+        void search() {
+        }
+
+        void write() {
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.example.customer_management_app;
+
+// En este test quiero verificar el contrato del single-flight:
+// requests concurrentes con la misma clave comparten UNA ejecución del loader,
+// y las métricas reflejan quién fue leader y quién follower.
+// También: un follower no espera para siempre a un leader trabado, no se suma a una
+// lectura que arrancó antes de una escritura y recibe su propia copia del resultado.
+// Y si al leader le cancelan la consulta (su cliente se fue), el follower no hereda ese error:
+// vuelve a cargar con su propia request.
+
+import com.example.customer_management_app.coalescing.ReadCoalescer;
+import com.example.customer_management_app.events.CustomerChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.StatementCallback;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.Statement;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReadCoalescerTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ReadCoalescer coalescer = new ReadCoalescer(registry);
+
+    @Test
+    void concurrentIdenticalReads_shareOneExecution() throws Exception {
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            // Leader: bloqueo el loader hasta que el follower esté esperando
+            Future<String> leader = pool.submit(() -> coalescer.execute("getCustomerById", List.of(1L), () -> {
+                executions.incrementAndGet();
+                leaderStarted.countDown();
+                await(release);
+                return "customer-1";
+            }));
+            assertTrue(leaderStarted.await(5, TimeUnit.SECONDS));
+
+            Future<String> follower = pool.submit(() -> coalescer.execute("getCustomerById", List.of(1L), () -> {
+                executions.incrementAndGet();
+                return "should-not-run";
+            }));
+            // Espero a que el follower quede registrado antes de liberar al leader
+            waitForFollower();
+            release.countDown();
+
+            assertEquals("customer-1", leader.get(5, TimeUnit.SECONDS));
+            assertEquals("customer-1", follower.get(5, TimeUnit.SECONDS));
+            assertEquals(1, executions.get());
+            assertEquals(0, coalescer.inFlightCount());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void sequentialReads_areNotCached() {
+        AtomicInteger executions = new AtomicInteger();
+        coalescer.execute("getByEmail", List.of("a@b.com"), executions::incrementAndGet);
+        coalescer.execute("getByEmail", List.of("a@b.com"), executions::incrementAndGet);
+        assertEquals(2, executions.get());
+    }
+
+    @Test
+    void leaderFailure_isPropagatedAndKeyReleased() {
+        assertThrows(IllegalStateException.class, () -> coalescer.execute("getByPhone", List.of("123-4567"), () -> {
+            throw new IllegalStateException("db down");
+        }));
+        assertEquals(0, coalescer.inFlightCount());
+        assertEquals("ok", coalescer.execute("getByPhone", List.of("123-4567"), () -> "ok"));
+    }
+
+    @Test
+    void followersGetTheirOwnCopy() throws Exception {
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Customer shared = new Customer(1L, "Ana", "Lopez", "ana@example.com", "555-0001", "Main 1");
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<Optional<Customer>> leader = pool.submit(() -> coalescer.execute("getCustomerById", List.of(1L), () -> {
+                leaderStarted.countDown();
+                await(release);
+                return Optional.of(shared);
+            }, c -> c.map(CustomerChangedEvent::copyOf)));
+            assertTrue(leaderStarted.await(5, TimeUnit.SECONDS));
+            Future<Optional<Customer>> follower = pool.submit(() -> coalescer.execute("getCustomerById", List.of(1L),
+                () -> Optional.<Customer>empty(), c -> c.map(CustomerChangedEvent::copyOf)));
+            waitForFollower();
+            release.countDown();
+
+            Customer mine = follower.get(5, TimeUnit.SECONDS).orElseThrow();
+            assertSame(shared, leader.get(5, TimeUnit.SECONDS).orElseThrow());
+            assertNotSame(shared, mine);
+            assertEquals("ana@example.com", mine.getEmail());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void writeEpoch_separatesReadsStartedBeforeAWrite() throws Exception {
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> stale = pool.submit(() -> coalescer.execute("getByEmail", List.of("a@b.com"), () -> {
+                leaderStarted.countDown();
+                await(release);
+                return "before-update";
+            }));
+            assertTrue(leaderStarted.await(5, TimeUnit.SECONDS));
+
+            // Se confirma un PUT mientras la lectura vieja sigue en vuelo
+            coalescer.onCustomerChanged(CustomerChangedEvent.deleted(1L, null));
+            assertEquals("after-update", coalescer.execute("getByEmail", List.of("a@b.com"), () -> "after-update"));
+
+            release.countDown();
+            assertEquals("before-update", stale.get(5, TimeUnit.SECONDS));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void stuckLeader_followerTimesOut() throws Exception {
+        ReadCoalescer impatient = new ReadCoalescer(registry, 100);
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            pool.submit(() -> impatient.execute("countByLastName", List.of("Lopez"), () -> {
+                leaderStarted.countDown();
+                await(release);
+                return 1L;
+            }));
+            assertTrue(leaderStarted.await(5, TimeUnit.SECONDS));
+
+            long start = System.nanoTime();
+            assertThrows(QueryTimeoutException.class,
+                () -> impatient.execute("countByLastName", List.of("Lopez"), () -> 2L));
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 2_000);
+            assertEquals(1.0, registry.get("customers.coalescing.requests").tag("role", "timeout").counter().count());
+        } finally {
+            release.countDown();
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void cancelledLeader_followerLoadsOnItsOwn() throws Exception {
+        JdbcTemplate jdbc = new JdbcTemplate(new DriverManagerDataSource("jdbc:h2:mem:coalescer;DB_CLOSE_DELAY=-1", "sa", ""));
+        AtomicReference<Statement> running = new AtomicReference<>();
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            // Leader: un SELECT que tardaría minutos, como el de una request cuyo cliente se desconecta
+            Future<Long> leader = pool.submit(() -> coalescer.execute("countByLastName", List.of("Lopez"),
+                () -> jdbc.execute((StatementCallback<Long>) statement -> {
+                    running.set(statement);
+                    leaderStarted.countDown();
+                    var rs = statement.executeQuery("SELECT COUNT(*) FROM SYSTEM_RANGE(1, 1000000) a, SYSTEM_RANGE(1, 1000000) b");
+                    rs.next();
+                    return rs.getLong(1);
+                })));
+            assertTrue(leaderStarted.await(5, TimeUnit.SECONDS));
+
+            Future<Long> follower = pool.submit(() -> coalescer.execute("countByLastName", List.of("Lopez"), () -> 7L));
+            waitForFollower();
+            // Lo que hace QueryDeadline.cancel cuando el cliente del leader se va
+            // (repetido: un cancel que llega antes de que H2 arranque la consulta no tiene efecto)
+            for (int i = 0; i < 100 && !leader.isDone(); i++) {
+                running.get().cancel();
+                Thread.sleep(50);
+            }
+
+            ExecutionException leaderError = assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(QueryTimeoutException.class, leaderError.getCause());
+            assertEquals(7L, follower.get(5, TimeUnit.SECONDS));
+            assertEquals(1.0, registry.get("customers.coalescing.requests").tag("role", "retry").counter().count());
+            assertEquals(0, coalescer.inFlightCount());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private void waitForFollower() throws InterruptedException {
+        for (int i = 0; i < 500; i++) {
+            Double followers = registry.find("customers.coalescing.requests").tag("role", "follower").counter() != null
+                ? registry.find("customers.coalescing.requests").tag("role", "follower").counter().count()
+                : 0.0;
+            if (followers >= 1.0) {
+                return;
+            }
+            Thread.sleep(10);
+        }
+        fail("Follower never joined the in-flight query");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
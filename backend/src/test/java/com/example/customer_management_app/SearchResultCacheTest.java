@@ -0,0 +1,153 @@
+package com.example.customer_management_app;
+
+// En este test quiero validar la cache de resultados de /search/page:
+// - la misma búsqueda (sin importar mayúsculas) la segunda vez no ejecuta LIKE + COUNT, solo el SELECT por PK
+// - crear, modificar o borrar un cliente invalida todo (write epoch): nunca se ve un resultado viejo
+// - una consulta que corrió en paralelo con una escritura no se cachea; TTL y límite de entradas
+//
+// Perfil test (H2); el SQL se cuenta con el header Server-Timing de SqlBudgetFilter.
+
+import com.example.customer_management_app.dto.CustomerRequest;
+import com.example.customer_management_app.searchcache.SearchResultCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.example.customer_management_app.SqlBudgetMatchers.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class SearchResultCacheTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @AfterEach
+    void cleanUp() {
+        customerRepository.deleteAll();
+    }
+
+    @Test
+    void repeatedSearch_isServedFromIdsPlusPointLookup_andWritesInvalidateIt() throws Exception {
+        long ana = create("Anabel", "anabel@example.com");
+        create("Anastasia", "anastasia@example.com");
+        create("Bruno", "bruno@example.com");
+
+        mockMvc.perform(get("/api/customers/search/page?q=ana&size=10"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.totalElements").value(2));
+        MvcResult hit = mockMvc.perform(get("/api/customers/search/page?q=ANA&size=10"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.totalElements").value(2))
+            .andExpect(jsonPath("$.content[0].firstName").value("Anastasia")) // mismo orden (id DESC)
+            .andExpect(jsonPath("$.content[1].firstName").value("Anabel"))
+            .andReturn();
+        assertEquals(1, sqlStats(hit).statements(), "a hit should only load the rows by id");
+
+        // Alta que coincide -> aparece
+        create("Mariana", "mariana@example.com");
+        mockMvc.perform(get("/api/customers/search/page?q=ana&size=10"))
+            .andExpect(jsonPath("$.totalElements").value(3));
+
+        // Cambio que deja de coincidir -> desaparece
+        CustomerRequest renamed = request("Zoe", "anabel@example.com");
+        mockMvc.perform(put("/api/customers/{id}", ana)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(renamed)))
+            .andExpect(status().isOk());
+        mockMvc.perform(get("/api/customers/search/page?q=ana&size=10"))
+            .andExpect(jsonPath("$.totalElements").value(3)) // el email sigue teniendo "ana"
+            .andExpect(jsonPath("$.content[2].firstName").value("Zoe"));
+        mockMvc.perform(get("/api/customers/search/page?q=anab&size=10"))
+            .andExpect(jsonPath("$.totalElements").value(1));
+
+        // Baja -> desaparece
+        mockMvc.perform(delete("/api/customers/{id}", ana)).andExpect(status().isNoContent());
+        mockMvc.perform(get("/api/customers/search/page?q=anab&size=10"))
+            .andExpect(jsonPath("$.totalElements").value(0));
+    }
+
+    @Test
+    void queryRacingAWrite_isNotCached() {
+        SearchResultCache cache = new SearchResultCache(new SimpleMeterRegistry(), true, 100, 60_000);
+        AtomicInteger queries = new AtomicInteger();
+        Customer c = new Customer(1L, "Ana", "Doe", "ana@example.com", null, null);
+
+        for (int i = 0; i < 2; i++) {
+            cache.search("ana", PageRequest.of(0, 10), () -> {
+                queries.incrementAndGet();
+                cache.bump(); // una escritura hace commit mientras corre la consulta
+                return new PageImpl<>(List.of(c), PageRequest.of(0, 10), 1);
+            }, ids -> List.of(c));
+        }
+        assertEquals(2, queries.get());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void expiredAndEvictedEntries_areNotServed() {
+        SearchResultCache expiring = new SearchResultCache(new SimpleMeterRegistry(), true, 100, 0);
+        SearchResultCache tiny = new SearchResultCache(new SimpleMeterRegistry(), true, 2, 60_000);
+        AtomicInteger queries = new AtomicInteger();
+
+        for (int i = 0; i < 2; i++) {
+            expiring.search("ana", PageRequest.of(0, 10), () -> emptyPage(queries), ids -> List.of());
+        }
+        assertEquals(2, queries.get());
+
+        queries.set(0);
+        for (String term : new String[] {"a", "b", "c", "a"}) {
+            tiny.search(term, PageRequest.of(0, 10), () -> emptyPage(queries), ids -> List.of());
+        }
+        assertEquals(4, queries.get()); // "a" salió por LRU al entrar "c"
+        assertEquals(2, tiny.size());
+    }
+
+    private static Page<Customer> emptyPage(AtomicInteger queries) {
+        queries.incrementAndGet();
+        return new PageImpl<>(List.of(), PageRequest.of(0, 10), 0);
+    }
+
+    private long create(String firstName, String email) throws Exception {
+        MvcResult created = mockMvc.perform(post("/api/customers")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request(firstName, email))))
+            .andExpect(status().isCreated())
+            .andReturn();
+        return objectMapper.readTree(created.getResponse().getContentAsString()).get("id").asLong();
+    }
+
+    private static CustomerRequest request(String firstName, String email) {
+        CustomerRequest req = new CustomerRequest();
+        req.setFirstName(firstName);
+        req.setLastName("Test");
+        req.setEmail(email);
+        req.setPhone("123-4567");
+        req.setAddress("1 Main St");
+        return req;
+    }
+}
@@ -0,0 +1,218 @@
+package com.example.customer_management_app;
+
+// En este test quiero validar el sharding contra varias bases reales (3 H2 en memoria):
+// - los clientes se reparten entre shards y los ids son únicos
+// - el email es único entre TODAS las shards y /by-email lo encuentra por el directorio
+// - una reserva pendiente (alta en curso) no se reutiliza dentro del período de gracia
+// - las páginas (fan-out + merge) salen igual que si fuera una sola base
+// - el índice de autocompletado se arma con los clientes de todas las shards
+// - el anillo consistente mueve pocas claves al agregar una shard
+
+import com.example.customer_management_app.sharding.CustomerShards;
+import com.example.customer_management_app.sharding.FanoutLimitException;
+import com.example.customer_management_app.sharding.ShardIdAllocator;
+import com.example.customer_management_app.sharding.ShardRouter;
+import com.example.customer_management_app.sharding.ShardedCustomerService;
+import com.example.customer_management_app.events.CustomerChangedEvent;
+import com.example.customer_management_app.jdbc.JdbcEventListener;
+import com.example.customer_management_app.search.CustomerSuggestIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardedCustomerServiceTest {
+
+    private CustomerShards shards;
+    private ShardedCustomerService service;
+    private final List<Object> events = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        long run = System.nanoTime();
+        List<String> urls = IntStream.range(0, 3)
+            .mapToObj(i -> "jdbc:h2:mem:shard" + i + "-" + run + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1")
+            .toList();
+        shards = new CustomerShards(new StaticListableBeanFactory().getBeanProvider(JdbcEventListener.class),
+            urls, "sa", "", 2, 64, true, 4, 5000);
+        // Bloques chicos para ejercitar varias reservas de ids
+        service = new ShardedCustomerService(shards, new ShardIdAllocator(shards, 7), events::add, 200);
+    }
+
+    @AfterEach
+    void tearDown() {
+        shards.shutdown();
+    }
+
+    @Test
+    void customersAreSpreadAcrossShards_withUniqueIds() {
+        Set<Long> ids = new HashSet<>();
+        for (int i = 0; i < 60; i++) {
+            ids.add(service.createCustomer(customer("User" + i, "user" + i + "@example.com")).getId());
+        }
+
+        assertEquals(60, ids.size());
+        for (CustomerShards.Shard shard : shards.all()) {
+            long rows = shard.jdbc().queryForObject("SELECT COUNT(*) FROM customer", Long.class);
+            assertTrue(rows > 5, "shard " + shard.index() + " has " + rows + " rows");
+        }
+        assertEquals(60, service.getStatistics().getTotalCustomers());
+        assertEquals(60, events.stream().filter(CustomerChangedEvent.class::isInstance).count());
+        ids.forEach(id -> assertTrue(service.getCustomerById(id).isPresent()));
+    }
+
+    @Test
+    void emailIsUniqueAcrossShards_andFoundThroughTheDirectory() {
+        Customer ana = service.createCustomer(customer("Ana", "ana@example.com"));
+
+        assertThrows(DuplicateEmailException.class, () -> service.createCustomer(customer("Otra", "ana@example.com")));
+        assertEquals(ana.getId(), service.getByEmail("ana@example.com").orElseThrow().getId());
+
+        // Cambiar el email libera el anterior
+        service.updateCustomer(ana.getId(), customer("Ana", "ana.lopez@example.com"));
+        assertTrue(service.getByEmail("ana@example.com").isEmpty());
+        assertTrue(service.existsByEmail("ana.lopez@example.com"));
+        Customer reuse = service.createCustomer(customer("Nueva", "ana@example.com"));
+
+        service.deleteCustomer(reuse.getId());
+        assertFalse(service.existsByEmail("ana@example.com"));
+        assertThrows(CustomerNotFoundException.class, () -> service.deleteCustomer(reuse.getId()));
+    }
+
+    @Test
+    void orphanEmailReservation_isReclaimed() {
+        // Simulo una alta que reservó el email y se cayó antes del INSERT del cliente
+        String email = "orphan@example.com";
+        CustomerShards.Shard directory = shards.all().stream()
+            .filter(s -> s == shards.forEmail(email)).findFirst().orElseThrow();
+        directory.jdbc().update("INSERT INTO customer_email_directory (email, customer_id) VALUES (?, ?)", email, 999_999L);
+
+        Customer created = service.createCustomer(customer("Orphan", email));
+
+        assertEquals(created.getId(), service.getByEmail(email).orElseThrow().getId());
+    }
+
+    @Test
+    void pendingReservationOfAnInFlightCreate_isNotTakenOver() {
+        // Otra alta reservó el email hace un instante y todavía no insertó su cliente
+        String email = "inflight@example.com";
+        CustomerShards.Shard directory = shards.forEmail(email);
+        directory.jdbc().update("INSERT INTO customer_email_directory (email, customer_id, confirmed, reserved_at) "
+            + "VALUES (?, ?, FALSE, CURRENT_TIMESTAMP)", email, 999_998L);
+
+        assertThrows(DuplicateEmailException.class, () -> service.createCustomer(customer("Second", email)));
+        assertEquals(999_998L, directory.jdbc().queryForObject(
+            "SELECT customer_id FROM customer_email_directory WHERE email = ?", Long.class, email));
+    }
+
+    @Test
+    void stalePendingReservation_isReclaimedAfterTheGracePeriod() {
+        String email = "stale@example.com";
+        CustomerShards.Shard directory = shards.forEmail(email);
+        directory.jdbc().update("INSERT INTO customer_email_directory (email, customer_id, confirmed, reserved_at) "
+            + "VALUES (?, ?, FALSE, ?)", email, 999_997L,
+            java.sql.Timestamp.valueOf(java.time.LocalDateTime.now().minusMinutes(5)));
+
+        Customer created = service.createCustomer(customer("Stale", email));
+
+        assertEquals(created.getId(), service.getByEmail(email).orElseThrow().getId());
+        // La reserva queda confirmada: ya no se puede reutilizar mientras el cliente tenga ese email
+        assertTrue(directory.jdbc().queryForObject(
+            "SELECT confirmed FROM customer_email_directory WHERE email = ?", Boolean.class, email));
+        assertThrows(DuplicateEmailException.class, () -> service.createCustomer(customer("Third", email)));
+    }
+
+    @Test
+    void pagesMergeAcrossShards_likeASingleDatabase() {
+        String[] lastNames = { "Garcia", "Lopez", "Perez", "Diaz", "Romero" };
+        List<Customer> all = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            all.add(service.createCustomer(customer("Name" + (i % 7), lastNames[i % 5], "p" + i + "@example.com")));
+        }
+        Comparator<Customer> order = Comparator.comparing(Customer::getLastName)
+            .thenComparing(Customer::getFirstName).thenComparing(Customer::getId);
+        List<Long> expected = all.stream().sorted(order).map(Customer::getId).toList();
+
+        Sort sort = Sort.by(Sort.Direction.ASC, "lastName", "firstName", "id");
+        List<Long> paged = new ArrayList<>();
+        for (int page = 0; page < 4; page++) {
+            Page<Customer> result = service.getAllCustomers(PageRequest.of(page, 10, sort));
+            assertEquals(40, result.getTotalElements());
+            result.getContent().forEach(c -> paged.add(c.getId()));
+        }
+        assertEquals(expected, paged);
+
+        Page<Customer> lopez = service.searchCustomers("LOPEZ", PageRequest.of(0, 5, Sort.by(Sort.Direction.DESC, "id")));
+        assertEquals(8, lopez.getTotalElements());
+        assertEquals(all.stream().filter(c -> c.getLastName().equals("Lopez")).map(Customer::getId)
+            .sorted(Comparator.reverseOrder()).limit(5).toList(),
+            lopez.getContent().stream().map(Customer::getId).toList());
+
+        assertThrows(FanoutLimitException.class, () -> service.getAllCustomers(PageRequest.of(20, 10, sort)));
+    }
+
+    @Test
+    void suggestIndex_isRebuiltFromEveryShard() {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            ids.add(service.createCustomer(customer("User" + i, "Garcia", "user" + i + "@example.com")).getId());
+        }
+        CustomerShards.Shard first = shards.all().get(0);
+        CustomerSuggestIndex index = new CustomerSuggestIndex(first.jdbc(),
+            new DataSourceTransactionManager(first.jdbc().getDataSource()), new SimpleMeterRegistry(), shards);
+
+        index.rebuild();
+        assertEquals(30, index.suggest("garc", 1).get(0).getCount());
+
+        // Los cambios posteriores al rebuild se suman como deltas, vengan de la shard que vengan
+        events.clear();
+        service.deleteCustomer(ids.get(0));
+        service.deleteCustomer(ids.get(1));
+        events.stream().map(CustomerChangedEvent.class::cast).forEach(index::onCustomerChanged);
+        assertEquals(28, index.suggest("garc", 1).get(0).getCount());
+    }
+
+    @Test
+    void consistentHashing_movesFewKeysWhenAShardIsAdded() {
+        ShardRouter three = new ShardRouter(3, 128);
+        ShardRouter four = new ShardRouter(4, 128);
+        int moved = 0;
+        int[] perShard = new int[3];
+        for (long id = 1; id <= 30_000; id++) {
+            int before = three.shardFor(id);
+            int after = four.shardFor(id);
+            perShard[before]++;
+            if (before != after) {
+                moved++;
+                assertEquals(3, after, "keys only move to the new shard");
+            }
+        }
+        // Ideal: 1/4 de las claves; con módulo se movería ~3/4
+        assertTrue(moved < 30_000 * 0.35, "moved " + moved);
+        for (int count : perShard) {
+            assertTrue(count > 30_000 / 3 * 0.8 && count < 30_000 / 3 * 1.2, "unbalanced: " + count);
+        }
+    }
+
+    private static Customer customer(String firstName, String email) {
+        return customer(firstName, "Test", email);
+    }
+
+    private static Customer customer(String firstName, String lastName, String email) {
+        return new Customer(firstName, lastName, email, "123-4567", "1 Main St");
+    }
+}
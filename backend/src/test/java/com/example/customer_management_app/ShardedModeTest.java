@@ -0,0 +1,67 @@
+package com.example.customer_management_app;
+
+// En este test quiero validar que con app.sharding.enabled=true (2 shards H2 en memoria) no queda
+// nada leyendo solo la base principal sin avisar:
+// - bulk delete, duplicados y analytics no se crean y sus endpoints responden 501 con ErrorResponse
+// - GraphQL rechaza la consulta con un error en vez de devolver parte de los clientes
+
+import com.example.customer_management_app.analytics.CustomerAnalytics;
+import com.example.customer_management_app.bulk.CustomerBulkDeleter;
+import com.example.customer_management_app.duplicates.DuplicateDetectionJob;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = {
+    "app.sharding.enabled=true",
+    "app.sharding.urls=jdbc:h2:mem:sharded-mode-0;MODE=PostgreSQL;DB_CLOSE_DELAY=-1,"
+        + "jdbc:h2:mem:sharded-mode-1;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+    "app.sharding.username=sa"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ShardedModeTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ApplicationContext context;
+
+    @Test
+    void mainDatasourceOnlyFeatures_answer501() throws Exception {
+        assertTrue(context.getBeansOfType(CustomerBulkDeleter.class).isEmpty());
+        assertTrue(context.getBeansOfType(DuplicateDetectionJob.class).isEmpty());
+        assertTrue(context.getBeansOfType(CustomerAnalytics.class).isEmpty());
+
+        mockMvc.perform(post("/api/customers/bulk-delete").contentType(MediaType.APPLICATION_JSON).content("{\"q\":\"x\"}"))
+            .andExpect(status().isNotImplemented())
+            .andExpect(jsonPath("$.path").value("/api/customers/bulk-delete"))
+            .andExpect(jsonPath("$.message").value(org.hamcrest.Matchers.containsString("Bulk delete")));
+        mockMvc.perform(get("/api/customers/bulk-delete/job-1")).andExpect(status().isNotImplemented());
+        mockMvc.perform(get("/api/customers/duplicates")).andExpect(status().isNotImplemented());
+        mockMvc.perform(post("/api/customers/duplicates/jobs")).andExpect(status().isNotImplemented());
+        mockMvc.perform(get("/api/customers/analytics"))
+            .andExpect(status().isNotImplemented())
+            .andExpect(jsonPath("$.error").value("Not Implemented"));
+        mockMvc.perform(post("/api/customers/analytics/refresh")).andExpect(status().isNotImplemented());
+    }
+
+    @Test
+    void graphQl_isRejectedInsteadOfReadingOnlyTheMainDatasource() throws Exception {
+        mockMvc.perform(post("/api/graphql").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"query\":\"{ customer(id: 1) { id } }\"}"))
+            .andExpect(jsonPath("$.data").doesNotExist())
+            .andExpect(jsonPath("$.errors[0].message").value(org.hamcrest.Matchers.containsString("sharded")))
+            .andExpect(jsonPath("$.errors[0].extensions.classification").value("BAD_REQUEST"));
+    }
+}
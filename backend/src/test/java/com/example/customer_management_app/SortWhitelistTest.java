@@ -0,0 +1,52 @@
+package com.example.customer_management_app;
+
+// En este test quiero validar la whitelist de ordenamientos:
+// - sorts con índice se completan con las columnas del índice (paginación estable)
+// - sorts sin índice se degradan al default o se rechazan según la política
+
+import com.example.customer_management_app.sorting.SortWhitelist;
+import com.example.customer_management_app.sorting.UnsupportedSortException;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SortWhitelistTest {
+
+    private final SortWhitelist downgrade = new SortWhitelist("downgrade");
+    private final SortWhitelist reject = new SortWhitelist("reject");
+
+    @Test
+    void indexedSort_isCompletedWithIndexColumns() {
+        Pageable result = downgrade.apply(PageRequest.of(2, 10, Sort.by(Sort.Direction.ASC, "lastName")));
+
+        assertEquals(Sort.by(Sort.Direction.ASC, "lastName", "firstName", "id"), result.getSort());
+        assertEquals(2, result.getPageNumber());
+        assertEquals(10, result.getPageSize());
+    }
+
+    @Test
+    void defaultSort_isKeptAsIs() {
+        Pageable request = PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "id"));
+        assertSame(request, downgrade.apply(request));
+    }
+
+    @Test
+    void unindexedSort_isDowngraded() {
+        assertEquals(SortWhitelist.DEFAULT_SORT,
+            downgrade.apply(PageRequest.of(0, 10, Sort.by("address"))).getSort());
+        // lastName sí tiene índice, pero DESC en firstName obligaría a ordenar: me quedo con lastName
+        Sort mixed = Sort.by(Sort.Order.asc("lastName"), Sort.Order.desc("firstName"));
+        assertEquals(Sort.by(Sort.Direction.ASC, "lastName", "firstName", "id"),
+            downgrade.apply(PageRequest.of(0, 10, mixed)).getSort());
+    }
+
+    @Test
+    void unindexedSort_isRejectedWhenConfigured() {
+        assertThrows(UnsupportedSortException.class,
+            () -> reject.apply(PageRequest.of(0, 10, Sort.by("updatedAt"))));
+        assertDoesNotThrow(() -> reject.apply(PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "createdAt"))));
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.customer_management_app;
+
+// Utilidad de tests para verificar el presupuesto de SQL de un endpoint.
+// Lee el header Server-Timing que agrega SqlBudgetFilter: db;dur=1.84;desc="3 statements, 20 rows"
+//
+// Uso con MockMvc:
+//   mockMvc.perform(get("/api/customers/1")).andExpect(SqlBudgetMatchers.statementsAtMost(1));
+
+import com.example.customer_management_app.jdbc.SqlBudgetFilter;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+final class SqlBudgetMatchers {
+
+    private static final Pattern DB_TIMING = Pattern.compile("db;dur=([0-9.]+);desc=\"(\\d+) statements, (\\d+) rows\"");
+
+    private SqlBudgetMatchers() { }
+
+    record SqlStats(int statements, long rows, double dbMillis) { }
+
+    static ResultMatcher statementsAtMost(int max) {
+        return result -> {
+            SqlStats stats = sqlStats(result);
+            assertTrue(stats.statements() <= max, result.getRequest().getMethod() + " " + result.getRequest().getRequestURI()
+                + " executed " + stats.statements() + " SQL statements, budget is " + max);
+        };
+    }
+
+    static ResultMatcher rowsAtMost(long max) {
+        return result -> {
+            SqlStats stats = sqlStats(result);
+            assertTrue(stats.rows() <= max, result.getRequest().getRequestURI() + " fetched " + stats.rows() + " rows, budget is " + max);
+        };
+    }
+
+    static SqlStats sqlStats(MvcResult result) {
+        String header = result.getResponse().getHeader(SqlBudgetFilter.SERVER_TIMING);
+        return parse(header);
+    }
+
+    static SqlStats parse(String header) {
+        assertNotNull(header, "Missing " + SqlBudgetFilter.SERVER_TIMING + " header (is SqlBudgetFilter enabled?)");
+        Matcher m = DB_TIMING.matcher(header);
+        assertTrue(m.find(), "Unexpected " + SqlBudgetFilter.SERVER_TIMING + " header: " + header);
+        return new SqlStats(Integer.parseInt(m.group(2)), Long.parseLong(m.group(3)), Double.parseDouble(m.group(1)));
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.customer_management_app;
+
+// En este test quiero asegurar que el SQL que va a los spans no lleve datos de clientes.
+
+import com.example.customer_management_app.tracing.SqlSanitizer;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SqlSanitizerTest {
+
+    @Test
+    void literalsAreReplaced() {
+        assertEquals("SELECT * FROM customer WHERE email = ? AND id > ? LIMIT ?",
+            SqlSanitizer.sanitize("SELECT *\n  FROM customer WHERE email = 'o''brien@example.com' AND id > -42 LIMIT 10"));
+    }
+
+    @Test
+    void identifiersWithDigitsAndParameterListsAreKept() {
+        assertEquals("select c1_0.id from customer_active_p3 c1_0 where c1_0.id in (?, ...)",
+            SqlSanitizer.sanitize("select c1_0.id from customer_active_p3 c1_0 where c1_0.id in (?, ?, ?,?)"));
+        assertEquals("", SqlSanitizer.sanitize(null));
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.customer_management_app;
+
+// En este test quiero fijar cuántas sentencias SQL gasta cada endpoint del CRUD.
+// Si alguien agrega un chequeo previo o un N+1, el test falla con el número real.
+//
+// Corre con el perfil test (H2 en memoria) para no depender de PostgreSQL.
+// Sin @Transactional a propósito: los UPDATE se mandan recién en el commit y tienen que contarse.
+
+import com.example.customer_management_app.dto.CustomerRequest;
+import com.example.customer_management_app.jdbc.SqlBudgetFilter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static com.example.customer_management_app.SqlBudgetMatchers.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class SqlStatementBudgetTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @AfterEach
+    void cleanUp() {
+        customerRepository.deleteAll();
+    }
+
+    @Test
+    void crudEndpoints_stayWithinTheirStatementBudget() throws Exception {
+        MvcResult created = mockMvc.perform(post("/api/customers")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request("budget@example.com"))))
+            .andExpect(status().isCreated())
+            .andExpect(statementsAtMost(2)) // exists + INSERT
+            .andReturn();
+        long id = objectMapper.readTree(created.getResponse().getContentAsString()).get("id").asLong();
+
+        mockMvc.perform(get("/api/customers/{id}", id))
+            .andExpect(status().isOk())
+            .andExpect(statementsAtMost(1))
+            .andExpect(rowsAtMost(1));
+        // Segunda lectura: sale de la cache de respuestas serializadas, sin tocar la base
+        mockMvc.perform(get("/api/customers/{id}", id))
+            .andExpect(status().isOk())
+            .andExpect(statementsAtMost(0));
+
+        mockMvc.perform(put("/api/customers/{id}", id)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request("budget2@example.com"))))
+            .andExpect(status().isOk())
+            .andExpect(statementsAtMost(3)); // SELECT + exists (cambió el email) + UPDATE
+        // El PUT invalidó la respuesta cacheada
+        mockMvc.perform(get("/api/customers/{id}", id))
+            .andExpect(status().isOk())
+            .andExpect(statementsAtMost(1))
+            .andExpect(jsonPath("$.email").value("budget2@example.com"));
+
+        mockMvc.perform(get("/api/customers/page?size=5"))
+            .andExpect(status().isOk())
+            .andExpect(statementsAtMost(2));
+
+        MvcResult deleted = mockMvc.perform(delete("/api/customers/{id}", id))
+            .andExpect(status().isNoContent())
+            .andExpect(statementsAtMost(3)) // existsById + SELECT + DELETE
+            .andReturn();
+        // También en respuestas sin body
+        assertEquals(3, sqlStats(deleted).statements());
+    }
+
+    @Test
+    void statsArePublishedAsMetricsPerEndpoint() throws Exception {
+        mockMvc.perform(get("/api/customers/{id}", 999_999))
+            .andExpect(status().isNotFound())
+            .andExpect(header().exists(SqlBudgetFilter.SERVER_TIMING));
+
+        assertTrue(meterRegistry.get("http.server.requests.sql.statements")
+            .tag("method", "GET").tag("uri", "/api/customers/{id}")
+            .summary().count() >= 1);
+    }
+
+    private static CustomerRequest request(String email) {
+        CustomerRequest req = new CustomerRequest();
+        req.setFirstName("Budget");
+        req.setLastName("Test");
+        req.setEmail(email);
+        req.setPhone("123-4567");
+        req.setAddress("1 Main St");
+        return req;
+    }
+}
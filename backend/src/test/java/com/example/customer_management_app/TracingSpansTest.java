@@ -0,0 +1,113 @@
+package com.example.customer_management_app;
+
+// En este test quiero verificar el árbol de spans de una request:
+// HTTP -> controller -> servicio -> repositorio -> JDBC, más la serialización JSON,
+// todo dentro de la traza que llega en el header traceparent (W3C).
+//
+// Perfil test (H2) y un exporter en memoria en lugar de OTLP.
+
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "management.tracing.sampling.probability=0.0")
+@AutoConfigureMockMvc
+@AutoConfigureObservability(metrics = false)
+@ActiveProfiles("test")
+class TracingSpansTest {
+
+    private static final String TRACE_ID = "4bf92f3577b34da6a3ce929d0e0e4736";
+
+    @TestConfiguration
+    static class ExporterConfig {
+        @Bean
+        InMemorySpanExporter inMemorySpanExporter() {
+            return InMemorySpanExporter.create();
+        }
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private InMemorySpanExporter exporter;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Test
+    void request_producesSpanPerLayer_inTheIncomingTrace() throws Exception {
+        Customer saved = customerRepository.save(new Customer("Trace", "Me", "trace.me@example.com", "123-4567", "1 Main St"));
+        exporter.reset();
+
+        // Sampling en 0: el span existe solo porque el padre (nginx/navegador) viene con sampled=01
+        mockMvc.perform(get("/api/customers/{id}", saved.getId())
+                .header("traceparent", "00-" + TRACE_ID + "-00f067aa0ba902b7-01"))
+            .andExpect(status().isOk());
+
+        List<SpanData> spans = awaitSpans(6);
+        assertTrue(spans.stream().allMatch(s -> s.getTraceId().equals(TRACE_ID)), spans.toString());
+
+        Map<String, SpanData> byName = spans.stream()
+            .collect(Collectors.toMap(SpanData::getName, Function.identity(), (a, b) -> a));
+        // micrometer-tracing pasa los nombres a kebab-case
+        SpanData http = byName.get("http get /api/customers/{id}");
+        SpanData controller = byName.get("customer-management-a-p-p.get-customer-by-id");
+        SpanData service = byName.get("customer-service.get-customer-by-id");
+        SpanData repository = byName.get("customer-repository.find-by-id");
+        SpanData jdbc = byName.get("select");
+        SpanData serialization = byName.get("json serialize");
+        for (SpanData span : new SpanData[] { http, controller, service, repository, jdbc, serialization }) {
+            assertNotNull(span, byName.keySet().toString());
+        }
+
+        assertEquals("00f067aa0ba902b7", http.getParentSpanId());
+        assertEquals(http.getSpanId(), controller.getParentSpanId());
+        assertEquals(controller.getSpanId(), service.getParentSpanId());
+        assertEquals(service.getSpanId(), repository.getParentSpanId());
+        assertEquals(repository.getSpanId(), jdbc.getParentSpanId());
+        String sql = jdbc.getAttributes().asMap().entrySet().stream()
+            .filter(e -> e.getKey().getKey().equals("db.statement"))
+            .map(e -> e.getValue().toString()).findFirst().orElseThrow();
+        assertTrue(sql.contains("where c1_0.id=?"), sql);
+    }
+
+    @Test
+    void unsampledTrace_isNotExported() throws Exception {
+        exporter.reset();
+        mockMvc.perform(get("/api/customers/{id}", 999_999)
+                .header("traceparent", "00-" + TRACE_ID + "-00f067aa0ba902b7-00"))
+            .andExpect(status().isNotFound());
+        Thread.sleep(300);
+        assertTrue(exporter.getFinishedSpanItems().isEmpty());
+    }
+
+    // El BatchSpanProcessor exporta en otro hilo
+    private List<SpanData> awaitSpans(int atLeast) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        List<SpanData> spans = exporter.getFinishedSpanItems();
+        while (spans.size() < atLeast && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+            spans = exporter.getFinishedSpanItems();
+        }
+        return spans;
+    }
+}
@@ -1,8 +1,8 @@
 // Componente que muestra una lista de clientes (paginada server-side)
-import { useEffect, useMemo, useState } from 'react';
+import { useEffect, useMemo, useRef, useState } from 'react';
 import { useSearchParams } from 'react-router-dom';
 import Customer from "./Customer";
-import { getCustomersPaged, searchCustomersPaged } from './api/client';
+import { getCustomersPaged, searchCustomersPaged, subscribeToCustomerChanges } from './api/client';
 
 // Defaults alineados al backend (PageResponse)
 const DEFAULT_PAGE = 0;
@@ -115,6 +115,45 @@ function CustomerList() {
         // eslint-disable-next-line react-hooks/exhaustive-deps
     }, [page, size, sort, debouncedQ]);
 
+    // Cambios en vivo (SSE) en lugar de re-pedir la lista a cada rato:
+    // - UPDATED con datos de un cliente visible: lo reemplazo en el lugar (sin request)
+    // - UPDATED sin datos (cambio hecho en otra instancia) de un cliente visible, CREATED, DELETED
+    //   o "reset": recargo la página actual (agrupando ráfagas)
+    // - UPDATED de un cliente que no estoy mostrando: lo ignoro
+    const loadRef = useRef(load);
+    loadRef.current = load;
+    const contentRef = useRef(pageData.content);
+    contentRef.current = pageData.content;
+    useEffect(() => {
+        let reloadTimer = null;
+        const scheduleReload = () => {
+            clearTimeout(reloadTimer);
+            reloadTimer = setTimeout(() => loadRef.current(), 500);
+        };
+        const unsubscribe = subscribeToCustomerChanges({
+            onChange: (event) => {
+                if (event.type !== 'UPDATED') {
+                    scheduleReload();
+                    return;
+                }
+                if (!contentRef.current.some((c) => c.id === event.id)) return;
+                if (!event.customer) {
+                    scheduleReload();
+                    return;
+                }
+                setPageData((prev) => ({
+                    ...prev,
+                    content: prev.content.map((c) => (c.id === event.id ? event.customer : c)),
+                }));
+            },
+            onReset: scheduleReload,
+        });
+        return () => {
+            clearTimeout(reloadTimer);
+            unsubscribe();
+        };
+    }, []);
+
     function goToPage(p) {
         const next = new URLSearchParams(searchParams);
         next.set('page', String(Math.max(0, p)));
@@ -172,7 +211,6 @@ function CustomerList() {
                                 onChange={handleSortFieldChange}
                             >
                                 <option value="createdAt">Created</option>
-                                <option value="updatedAt">Updated</option>
                                 <option value="lastName">Last name</option>
                                 <option value="firstName">First name</option>
                                 <option value="email">Email</option>
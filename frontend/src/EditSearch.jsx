@@ -3,9 +3,10 @@
 // - Muestra coincidencias con un botón "Edit" que navega a /edit/:id
 // - Debounce para evitar llamar al backend en cada tecla
 // - Paginación simple (Prev/Next)
+// - Sugerencias (typeahead) con <datalist>, servidas desde el índice en memoria del backend
 import { useEffect, useState } from 'react';
 import { Link } from 'react-router-dom';
-import { searchCustomersPaged } from './api/client';
+import { searchCustomersPaged, suggestCustomers } from './api/client';
 
 // Hook simple para debouncer: espera "delay" ms antes de publicar el último valor
 function useDebouncedValue(value, delay = 400) {
@@ -20,6 +21,9 @@ function useDebouncedValue(value, delay = 400) {
 function EditSearch() {
   const [q, setQ] = useState('');
   const debouncedQ = useDebouncedValue(q, 450);
+  // Las sugerencias usan un debounce más corto: el endpoint no consulta la base
+  const suggestQ = useDebouncedValue(q, 120);
+  const [suggestions, setSuggestions] = useState([]);
   const [loading, setLoading] = useState(false);
   const [error, setError] = useState(null);
   // Estado de paginación con valores por defecto seguros
@@ -63,6 +67,19 @@ function EditSearch() {
     // eslint-disable-next-line react-hooks/exhaustive-deps
   }, [debouncedQ]);
 
+  useEffect(() => {
+    const prefix = (suggestQ ?? '').trim();
+    if (prefix.length === 0) {
+      setSuggestions([]);
+      return;
+    }
+    let cancelled = false;
+    suggestCustomers(prefix)
+      .then((res) => { if (!cancelled) setSuggestions(Array.isArray(res) ? res : []); })
+      .catch(() => { if (!cancelled) setSuggestions([]); }); // Sin sugerencias no es un error para el usuario
+    return () => { cancelled = true; };
+  }, [suggestQ]);
+
   const hasResults = pageData.content && pageData.content.length > 0;
   // Fallbacks seguros para evitar "Page NaN"
   const currentIndex = Number.isFinite(pageData.number) ? pageData.number : 0;
@@ -76,7 +93,12 @@ function EditSearch() {
         placeholder="Search by name, email, phone, or address"
         value={q}
         onChange={(e) => setQ(e.target.value)}
+        list="customer-suggestions"
+        autoComplete="off"
       />
+      <datalist id="customer-suggestions">
+        {suggestions.map((s) => <option key={s.value} value={s.value} />)}
+      </datalist>
       <div className="edit-search-status">
         {loading && <span className="edit-search-loading">Searching…</span>}
         {error && <span className="edit-error-text">{error}</span>}
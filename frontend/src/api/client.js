@@ -78,3 +78,30 @@ export async function searchCustomersPaged(q, page = 0, size = 10, sort = 'id,DE
     const params = new URLSearchParams({ q, page, size, sort });
     return fetchJson(`${BASE_URL}/search/page?${params}`);
 }
+
+// Sugerencias para autocompletar (typeahead)
+export async function suggestCustomers(prefix, limit = 8) {
+    // GET /api/customers/suggest?prefix=jo&limit=8
+    const params = new URLSearchParams({ prefix, limit });
+    return fetchJson(`${BASE_URL}/suggest?${params}`);
+}
+
+// Suscripción a cambios en vivo (Server-Sent Events)
+// GET /api/customers/stream -> eventos "customer", "stats" y "reset".
+// EventSource reconecta solo y manda Last-Event-ID: el backend repite lo que se perdió.
+// Devuelve una función para cerrar la suscripción.
+export function subscribeToCustomerChanges({ onChange, onStats, onReset } = {}) {
+    if (typeof EventSource === 'undefined') return () => {};
+    const source = new EventSource(`${BASE_URL}/stream`);
+    const parse = (e) => {
+        try {
+            return JSON.parse(e.data);
+        } catch {
+            return null;
+        }
+    };
+    if (onChange) source.addEventListener('customer', (e) => { const d = parse(e); if (d) onChange(d); });
+    if (onStats) source.addEventListener('stats', (e) => { const d = parse(e); if (d) onStats(d); });
+    if (onReset) source.addEventListener('reset', () => onReset());
+    return () => source.close();
+}